@@ -1,9 +1,14 @@
 package com.traitor.ambatushop_10;
 
+import com.traitor.ambatushop_10.config.JwtKeyProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@EnableConfigurationProperties(JwtKeyProperties.class)
 public class Application {
 
     public static void main(String[] args) {
@@ -0,0 +1,100 @@
+package com.traitor.ambatushop_10.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordEncoder yang menjalankan BCrypt di thread pool khusus dengan antrian terbatas.
+ *
+ * Saat ganti shift banyak kasir login bersamaan; tanpa batas, setiap request Tomcat ikut menghitung
+ * BCrypt (~100ms CPU) dan request lain (checkout, dashboard) ikut melambat. Di sini jumlah hash yang
+ * jalan bersamaan dibatasi jumlah thread, sisanya antri, dan kalau antrian penuh langsung ditolak
+ * dengan PasswordHashingBusyException (dijawab 503 oleh AuthController) daripada menumpuk.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long waitMillis;
+
+    /**
+     * Antrian BCrypt penuh atau terlalu lama menunggu; client sebaiknya coba lagi sebentar lagi.
+     */
+    public static class PasswordHashingBusyException extends RuntimeException {
+        public PasswordHashingBusyException(String message) {
+            super(message);
+        }
+    }
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long waitMillis) {
+        this.delegate = delegate;
+        this.waitMillis = waitMillis;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("BCrypt executor: {} thread, antrian {}, tunggu maks {} ms", threads, queueCapacity, waitMillis);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Antrian BCrypt penuh ({} aktif, {} antri), request ditolak",
+                    executor.getActiveCount(), executor.getQueue().size());
+            throw new PasswordHashingBusyException("Server sedang sibuk memproses login, coba lagi sebentar");
+        }
+
+        try {
+            return future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new PasswordHashingBusyException("Proses login terlalu lama, coba lagi sebentar");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Proses login dibatalkan");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
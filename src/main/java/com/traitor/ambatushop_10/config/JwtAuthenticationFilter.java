@@ -30,28 +30,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                   FilterChain filterChain) throws ServletException, IOException {
         
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String username;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7); // Remove "Bearer " prefix
-        username = jwtService.extractUsername(jwt);
+        String jwt = authHeader.substring(7); // Remove "Bearer " prefix
 
-        // Jika username valid dan belum ada authentication di context
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtService.isTokenValid(jwt)) {
-                // Extract role dari token
-                String role = jwtService.extractRole(jwt);
-                
+        // Jika belum ada authentication di context: parse + verifikasi token sekali (hasilnya di-cache)
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            JwtService.TokenClaims claims = jwtService.verify(jwt);
+            if (claims != null && claims.username() != null) {
                 // Buat authentication object
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                    username,
+                    claims.username(),
                     null,
-                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
+                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + claims.role()))
                 );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 
@@ -61,4 +56,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    // Endpoint async (CompletableFuture) di-dispatch ulang setelah selesai; authentication harus dipasang lagi
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
 }
\ No newline at end of file
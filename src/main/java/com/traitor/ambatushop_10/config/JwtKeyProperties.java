@@ -0,0 +1,30 @@
+package com.traitor.ambatushop_10.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * Konfigurasi kunci JWT (prefix app.jwt). Semua node di belakang load balancer harus memakai
+ * key ring yang sama; node verifier cukup punya public key (tanpa private key / secret).
+ *
+ * Sumber kunci (digabung, kid harus unik):
+ * - keystore: file PKCS12/JKS, alias = kid. Secret key -> HS*, private key + sertifikat -> RS* / ES*,
+ *   trusted certificate saja -> verify-only.
+ * - keys: daftar kunci di config, masing-masing secret (base64) ATAU private-key / public-key (file PEM).
+ * - key-file: kalau dua sumber di atas kosong, secret HS256 dibuat sekali lalu disimpan di file ini
+ *   supaya restart tidak membuat semua kasir logout (cukup untuk satu node saja).
+ */
+@ConfigurationProperties(prefix = "app.jwt")
+public record JwtKeyProperties(
+        String activeKid,
+        String keyFile,
+        Keystore keystore,
+        List<Key> keys) {
+
+    public record Keystore(String path, String password, String type) {
+    }
+
+    public record Key(String kid, String secret, String privateKey, String publicKey) {
+    }
+}
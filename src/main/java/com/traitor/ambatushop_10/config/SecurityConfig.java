@@ -1,10 +1,15 @@
 package com.traitor.ambatushop_10.config;
 
 import com.traitor.ambatushop_10.service.CustomUserDetailsService;
+import com.traitor.ambatushop_10.service.JwtService;
+import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -29,12 +34,17 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
 
+    private static final Pattern EXPORT_FILE_PATH = Pattern.compile("/api/export/jobs/([^/]+)/file");
+
     private final JwtAuthenticationFilter jwtAuthFilter;
     private final CustomUserDetailsService userDetailsService;
+    private final JwtService jwtService;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, CustomUserDetailsService userDetailsService) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, CustomUserDetailsService userDetailsService,
+            JwtService jwtService) {
         this.jwtAuthFilter = jwtAuthFilter;
         this.userDetailsService = userDetailsService;
+        this.jwtService = jwtService;
     }
 
     // @Bean
@@ -101,7 +111,6 @@ public class SecurityConfig {
 
                         // Barcode endpoints
                         .requestMatchers(HttpMethod.GET, "/api/barcode/produk/*/image").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/api/barcode/check/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/barcode/decode").permitAll()
 
                         // API auth
@@ -109,7 +118,15 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         // .requestMatchers("/api/barcode/produk/*/image").permitAll()
 
-                        .requestMatchers(HttpMethod.GET, "/api/export/download").permitAll()
+                        // Link download export bertanda tangan (downloadUrl di status job), tanpa header JWT
+                        .requestMatchers(this::isSignedExportDownload).permitAll()
+
+                        // Stub Midtrans (hanya ada kalau midtrans.stub.enabled=true), dipanggil oleh MidtransSnapClient
+                        .requestMatchers("/stub/midtrans/**").permitAll()
+
+                        // Push SSE: EventSource tidak bisa kirim header, tiket sekali pakai diverifikasi di PushController
+                        // (tiketnya diminta lewat POST /api/push/ticket yang butuh JWT)
+                        .requestMatchers(HttpMethod.GET, "/api/push/events").permitAll()
 
                         // API Export
                         .requestMatchers("/api/export/**").hasAnyRole("MANAJER", "ADMIN")
@@ -130,9 +147,24 @@ public class SecurityConfig {
         return http.build();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    // GET /api/export/jobs/{jobId}/file?token=... dengan token download yang valid untuk job tersebut
+    private boolean isSignedExportDownload(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return false;
+        }
+        Matcher matcher = EXPORT_FILE_PATH.matcher(
+                request.getRequestURI().substring(request.getContextPath().length()));
+        return matcher.matches() && jwtService.isValidDownloadToken(request.getParameter("token"), matcher.group(1));
+    }
+
+    // BCrypt dijalankan di executor terbatas (lihat BoundedPasswordEncoder)
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${app.auth.bcrypt-threads:0}") int threads,
+            @Value("${app.auth.bcrypt-queue:64}") int queueCapacity,
+            @Value("${app.auth.bcrypt-wait-ms:5000}") long waitMillis) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors());
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), poolSize, queueCapacity, waitMillis);
     }
 
     @Bean
@@ -154,10 +186,10 @@ public class SecurityConfig {
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
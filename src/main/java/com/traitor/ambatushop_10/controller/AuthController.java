@@ -1,5 +1,6 @@
 package com.traitor.ambatushop_10.controller;
 
+import com.traitor.ambatushop_10.config.BoundedPasswordEncoder;
 import com.traitor.ambatushop_10.dto.AuthResponse;
 import com.traitor.ambatushop_10.dto.ErrorResponse;
 import com.traitor.ambatushop_10.dto.LoginRequest;
@@ -11,10 +12,12 @@ import com.traitor.ambatushop_10.service.JwtService;
 import com.traitor.ambatushop_10.service.ValidationService;
 import com.traitor.ambatushop_10.service.UserSessionService;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -28,6 +31,7 @@ import org.springframework.web.bind.annotation.*;
 
 @RestController
 @RequestMapping("/api/auth")
+@Slf4j
 public class AuthController {
 
     private final AuthenticationManager authenticationManager;
@@ -96,6 +100,16 @@ public class AuthController {
                     "Pastikan username dan password benar", "/api/auth/login");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
 
+        } catch (BoundedPasswordEncoder.PasswordHashingBusyException e) {
+            // Antrian BCrypt penuh (login serentak), minta client coba lagi daripada menumpuk request
+            log.warn("Login ditolak, server sibuk: {}", request.username());
+            ErrorResponse error = new ErrorResponse(
+                    503, "SERVER_BUSY", "Server sedang sibuk",
+                    e.getMessage(), "/api/auth/login");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "2")
+                    .body(error);
+
         } catch (AuthenticationException e) {
             System.err.println("Authentication failed for user: " + request.username());
             ErrorResponse error = new ErrorResponse(
@@ -119,8 +133,9 @@ public class AuthController {
         try {
             String token = extractTokenFromRequest(request);
 
-            if (token != null && jwtService.isTokenValid(token)) {
-                Long userId = jwtService.extractUserId(token);
+            JwtService.TokenClaims claims = jwtService.verify(token);
+            if (claims != null) {
+                Long userId = claims.userId();
 
                 // MARK USER AS OFFLINE di database
                 akunRepository.findById(userId).ifPresent(akun -> {
@@ -149,8 +164,9 @@ public class AuthController {
     public ResponseEntity<?> updateActivity(HttpServletRequest request) {
         try {
             String token = extractTokenFromRequest(request);
-            if (token != null && jwtService.isTokenValid(token)) {
-                Long userId = jwtService.extractUserId(token);
+            JwtService.TokenClaims claims = jwtService.verify(token);
+            if (claims != null) {
+                Long userId = claims.userId();
                 userSessionService.updateUserActivity(userId);
                 return ResponseEntity.ok("Activity updated");
             }
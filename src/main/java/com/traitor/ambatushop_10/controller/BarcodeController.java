@@ -1,37 +1,25 @@
-// package com.traitor.ambatushop_10.controller;
-
-// import com.traitor.ambatushop_10.model.Produk;
-// import com.traitor.ambatushop_10.repository.ProdukRepository;
-// import com.traitor.ambatushop_10.service.BarcodeService;
-// import com.traitor.ambatushop_10.service.ProdukService;
-// import org.springframework.http.HttpHeaders;
-// import org.springframework.http.MediaType;
-// import org.springframework.http.ResponseEntity;
-// import org.springframework.web.bind.annotation.*;
-// import org.springframework.web.multipart.MultipartFile;
-
-// import java.nio.file.Files;
-// import java.nio.file.Path;
-// import java.nio.file.Paths;
-// import java.util.HashMap;
-// import java.util.List;
-// import java.util.Map;
-// import java.util.Optional;
-
-// @RestController
-// @RequestMapping("/api/barcode")
-// public class BarcodeController {
-
-//     private final BarcodeService barcodeService;
-//     private final ProdukService produkService;
-//     private final ProdukRepository produkRepository;
-
-//     public BarcodeController(BarcodeService barcodeService, ProdukService produkService,
-//             ProdukRepository produkRepository) {
-//         this.barcodeService = barcodeService;
-//         this.produkService = produkService;
-//         this.produkRepository = produkRepository;
-//     }
+package com.traitor.ambatushop_10.controller;
+
+import com.traitor.ambatushop_10.model.Produk;
+import com.traitor.ambatushop_10.service.ProdukService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/barcode")
+public class BarcodeController {
+
+    private final ProdukService produkService;
+
+    public BarcodeController(ProdukService produkService) {
+        this.produkService = produkService;
+    }
+
+    // Endpoint image / decode / generate masih nonaktif bersama BarcodeService (generate & baca gambar barcode)
 
 //     // GET barcode image
 //     @GetMapping("/produk/{id}/image")
@@ -158,34 +146,23 @@
 //         }
 //     }
 
-//     // GET check barcode exists
-//     @GetMapping("/check/{barcode}")
-//     public ResponseEntity<Map<String, Object>> checkBarcode(@PathVariable String barcode) {
-//         try {
-//             System.out.println("Checking barcode: " + barcode);
-
-//             Optional<Produk> produk = findProductByBarcode(barcode.trim());
-
-//             Map<String, Object> response = new HashMap<>();
-//             response.put("exists", produk.isPresent());
-//             response.put("produk", produk.orElse(null));
-//             response.put("barcode", barcode);
-//             response.put("success", true);
-
-//             return ResponseEntity.ok(response);
-
-//         } catch (Exception e) {
-//             System.err.println("Error checking barcode: " + e.getMessage());
-
-//             Map<String, Object> error = new HashMap<>();
-//             error.put("error", e.getMessage());
-//             error.put("success", false);
-//             return ResponseEntity.badRequest().body(error);
-//         }
-//     }
-
-//     private Optional<Produk> findProductByBarcode(String barcode) {
-//         // Gunakan repository method yang sudah ada
-//         return produkRepository.findByBarcode(barcode);
-//     }
-// }
\ No newline at end of file
+    // GET check barcode exists - dijawab dari BarcodeIndex + ProdukCache, tanpa query ke DB
+    @GetMapping("/check/{barcode}")
+    public ResponseEntity<Map<String, Object>> checkBarcode(@PathVariable String barcode) {
+        Produk produk = produkService.getProdukByBarcode(barcode);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("exists", produk != null);
+        response.put("produk", produk);
+        response.put("barcode", barcode);
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
+    // Statistik index barcode (jumlah barcode, lookup, hit)
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getBarcodeStats() {
+        return produkService.getBarcodeStats();
+    }
+}
@@ -1,26 +1,185 @@
 // java
 package com.traitor.ambatushop_10.controller;
 
+import com.traitor.ambatushop_10.dto.ErrorResponse;
+import com.traitor.ambatushop_10.dto.ExportDataset;
+import com.traitor.ambatushop_10.dto.ExportFormat;
+import com.traitor.ambatushop_10.dto.ExportJobRequest;
+import com.traitor.ambatushop_10.dto.ExportJobStatus;
+import com.traitor.ambatushop_10.service.ExportJobService;
 import com.traitor.ambatushop_10.service.ExportService;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletionException;
 
 @Controller
 @RequestMapping("/api/export")
 public class ExportController {
 
+    // Batas tunggu endpoint lama /download sebelum balik 202 + jobId
+    private static final long DOWNLOAD_WAIT_SECONDS = 120;
+
+    @Autowired
+    private ExportJobService exportJobService;
+
     @Autowired
     private ExportService exportService;
 
+    /**
+     * Endpoint lama (dipakai tombol download). Sekarang lewat job queue juga, jadi klik berulang
+     * memakai job/file yang sama dan file yang sudah ada langsung dikirim.
+     * Thread Tomcat langsung dilepas (DeferredResult); response dikirim saat job selesai, atau 202 + status
+     * job kalau lewat DOWNLOAD_WAIT_SECONDS (client lanjut lewat /api/export/jobs/{id}/events).
+     * Contoh: /api/export/download?dataset=transaksi&format=csv (default keuangan, xlsx)
+     */
     @GetMapping("/download")
-    public void generateExcelExport(HttpServletResponse response) throws IOException {
-        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-        response.setHeader("Content-Disposition", "attachment; filename=laporan_keuangan.xlsx");
-        exportService.generateExcel(response);
+    public DeferredResult<ResponseEntity<?>> generateExcelExport(
+            @RequestParam(required = false) String dataset,
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(DOWNLOAD_WAIT_SECONDS * 1000);
+        ExportJobStatus submitted;
+        try {
+            submitted = exportJobService.submit(
+                    new ExportJobRequest(parseDataset(dataset), start, end, parseFormat(format)));
+        } catch (IllegalArgumentException e) {
+            result.setResult(ResponseEntity.badRequest()
+                    .body(new ErrorResponse(400, "VALIDATION_ERROR", e.getMessage(), null, "/api/export/download")));
+            return result;
+        }
+
+        String jobId = submitted.jobId();
+        // Masih diproses, client bisa polling /api/export/jobs/{id}
+        result.onTimeout(() -> result.setResult(
+                ResponseEntity.status(HttpStatus.ACCEPTED).body(exportJobService.getStatus(jobId))));
+        exportJobService.whenDone(jobId).whenComplete((artifact, error) -> {
+            if (error == null) {
+                result.setResult(fileResponse(artifact));
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                result.setResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new ErrorResponse(500, "EXPORT_FAILED", "Gagal membuat file export",
+                                cause.getMessage(), "/api/export/download")));
+            }
+        });
+        return result;
+    }
+
+    // Submit job export (rentang tanggal + format); response berisi jobId untuk polling/SSE
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@RequestBody(required = false) ExportJobRequest request) {
+        try {
+            ExportJobStatus status = exportJobService.submit(
+                    request == null ? new ExportJobRequest(null, null, null, null) : request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse(400, "VALIDATION_ERROR", e.getMessage(), null, "/api/export/jobs"));
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getJobStatus(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(exportJobService.getStatus(jobId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(404, "NOT_FOUND", e.getMessage(), null, "/api/export/jobs/" + jobId));
+        }
+    }
+
+    // Progress job lewat Server-Sent Events
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamJobProgress(@PathVariable String jobId) {
+        return exportJobService.subscribe(jobId);
+    }
+
+    @GetMapping("/jobs/{jobId}/file")
+    public ResponseEntity<?> downloadJobFile(@PathVariable String jobId) {
+        String path = "/api/export/jobs/" + jobId + "/file";
+        try {
+            return fileResponse(exportJobService.getArtifact(jobId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ErrorResponse(409, "NOT_READY", e.getMessage(), null, path));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(404, "NOT_FOUND", e.getMessage(), null, path));
+        }
+    }
+
+    /**
+     * Export langsung ke output stream servlet tanpa file sementara (cocok untuk CSV / kolumnar yang
+     * ditarik job BI). Contoh: /api/export/stream?dataset=transaksi_detail&format=columnar
+     */
+    @GetMapping("/stream")
+    public void streamExport(
+            @RequestParam(required = false) String dataset,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            HttpServletResponse response) throws IOException {
+        ExportDataset exportDataset;
+        ExportFormat exportFormat;
+        try {
+            exportDataset = parseDataset(dataset);
+            exportFormat = parseFormat(format);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(exportDataset.getFileName() + "." + exportFormat.getExtension()).build().toString());
+        exportService.export(exportDataset, exportFormat, start, end, response.getOutputStream(), rows -> { });
+        response.flushBuffer();
+    }
+
+    private static ExportDataset parseDataset(String value) {
+        if (value == null || value.isBlank()) {
+            return ExportDataset.KEUANGAN;
+        }
+        try {
+            return ExportDataset.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Dataset export tidak valid: " + value);
+        }
+    }
+
+    private static ExportFormat parseFormat(String value) {
+        if (value == null || value.isBlank()) {
+            return ExportFormat.XLSX;
+        }
+        try {
+            return ExportFormat.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Format export tidak valid: " + value);
+        }
+    }
+
+    private ResponseEntity<FileSystemResource> fileResponse(ExportJobService.ExportArtifact artifact) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(artifact.format().getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(artifact.filename()).build().toString())
+                .body(new FileSystemResource(artifact.file()));
     }
 }
@@ -1,13 +1,17 @@
 package com.traitor.ambatushop_10.controller;
 
+import com.traitor.ambatushop_10.dto.DailyRollupSummary;
 import com.traitor.ambatushop_10.dto.FinancialSummary;
 import com.traitor.ambatushop_10.model.Keuangan;
+import com.traitor.ambatushop_10.service.DailyRollupService;
 import com.traitor.ambatushop_10.service.KeuanganService;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 // import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -16,26 +20,15 @@ import java.util.List;
 public class KeuanganController {
 
     private final KeuanganService keuanganService;
+    private final DailyRollupService dailyRollupService;
 
     // ===== ENDPOINT UNTUK SEMUA ROLE (KASIR, MANAJER, ADMIN) =====
 
     @GetMapping("/summary")
     @PreAuthorize("hasAnyRole('KASIR', 'MANAJER', 'ADMIN')")
     public FinancialSummary getFinancialSummary() {
-        List<Keuangan> allKeuangan = keuanganService.getAllKeuangan();
-
-        // Filter dan hitung total
-        double totalPemasukan = allKeuangan.stream()
-                .filter(k -> k.getJenis() == Keuangan.JenisTransaksi.PEMASUKAN)
-                .mapToDouble(Keuangan::getNominal)
-                .sum();
-
-        double totalPengeluaran = allKeuangan.stream()
-                .filter(k -> k.getJenis() == Keuangan.JenisTransaksi.PENGELUARAN)
-                .mapToDouble(Keuangan::getNominal)
-                .sum();
-
-        return new FinancialSummary(totalPemasukan, totalPengeluaran, allKeuangan.size());
+        // Dibaca dari rekap harian (daily_rollup), tidak lagi load semua baris keuangan
+        return keuanganService.getKeuanganSummary();
     }
 
     @GetMapping("/kasir/recent")
@@ -76,6 +69,23 @@ public class KeuanganController {
         return keuanganService.getAllKeuangan();
     }
 
+    // Ringkasan dari rekap harian, contoh: /api/keuangan/rollup?start=2025-01-01&end=2025-01-31
+    @GetMapping("/rollup")
+    @PreAuthorize("hasAnyRole('MANAJER', 'ADMIN')")
+    public DailyRollupSummary getRollupSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
+        return dailyRollupService.getSummary(start, end);
+    }
+
+    // Hitung ulang rekap harian dari tabel transaksi & keuangan
+    @PostMapping("/rollup/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public DailyRollupSummary rebuildRollup() {
+        dailyRollupService.rebuild();
+        return dailyRollupService.getSummary(null, null);
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('MANAJER')")
     public Keuangan createKeuangan(@RequestBody Keuangan keuangan) {
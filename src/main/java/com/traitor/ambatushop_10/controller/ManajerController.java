@@ -85,8 +85,8 @@ public class ManajerController {
                     userMap.put("username", user.getUsername());
                     userMap.put("email", user.getEmail());
                     userMap.put("role", user.getRole().name());
-                    userMap.put("isOnline", user.isCurrentlyActive());
-                    userMap.put("lastActivity", user.getLastActivityAt());
+                    userMap.put("isOnline", userSessionService.isCurrentlyActive(user));
+                    userMap.put("lastActivity", userSessionService.getLastActivity(user));
                     userMap.put("lastLogin", user.getLastLoginAt());
                     userMap.put("sessionId", user.getSessionId());
                     userMap.put("ipAddress", user.getIpAddress());
@@ -125,8 +125,8 @@ public class ManajerController {
                 userMap.put("username", user.getUsername());
                 userMap.put("email", user.getEmail());
                 userMap.put("role", user.getRole().name());
-                userMap.put("isOnline", user.isCurrentlyActive());
-                userMap.put("lastActivity", user.getLastActivityAt());
+                userMap.put("isOnline", userSessionService.isCurrentlyActive(user));
+                userMap.put("lastActivity", userSessionService.getLastActivity(user));
                 userMap.put("initial", user.getUsername().substring(0, 1).toUpperCase());
                 return userMap;
             })
@@ -153,8 +153,8 @@ public class ManajerController {
                     userMap.put("username", user.getUsername());
                     userMap.put("email", user.getEmail());
                     userMap.put("role", user.getRole().name());
-                    userMap.put("isOnline", user.isCurrentlyActive());
-                    userMap.put("lastActivity", user.getLastActivityAt());
+                    userMap.put("isOnline", userSessionService.isCurrentlyActive(user));
+                    userMap.put("lastActivity", userSessionService.getLastActivity(user));
 
                     // Format display name
                     String displayName = user.getUsername();
@@ -0,0 +1,94 @@
+package com.traitor.ambatushop_10.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stub Midtrans Snap untuk uji lokal / ukur latency QRIS tanpa sandbox Midtrans.
+ * Hanya aktif kalau midtrans.stub.enabled=true; arahkan client ke sini dengan
+ * midtrans.snap.base-url=http://localhost:8080/stub/midtrans (dan midtrans.api.base-url yang sama untuk
+ * cek status dan expire; semua order dijawab dengan midtrans.stub.status, expire selalu berhasil)
+ *
+ * Respons ditunda midtrans.stub.delay-ms (+ jitter) tanpa menahan thread Tomcat, dan sebagian request
+ * bisa dibuat gagal (HTTP 500) lewat midtrans.stub.failure-rate untuk menguji circuit breaker.
+ */
+@RestController
+@RequestMapping("/stub/midtrans")
+@ConditionalOnProperty(name = "midtrans.stub.enabled", havingValue = "true")
+@Slf4j
+public class MidtransStubController {
+
+    private final long delayMillis;
+    private final long jitterMillis;
+    private final double failureRate;
+    private final String transactionStatus;
+
+    public MidtransStubController(@Value("${midtrans.stub.delay-ms:200}") long delayMillis,
+            @Value("${midtrans.stub.jitter-ms:100}") long jitterMillis,
+            @Value("${midtrans.stub.failure-rate:0}") double failureRate,
+            @Value("${midtrans.stub.status:settlement}") String transactionStatus) {
+        this.delayMillis = delayMillis;
+        this.jitterMillis = jitterMillis;
+        this.failureRate = failureRate;
+        this.transactionStatus = transactionStatus;
+        log.warn("⚠️ Midtrans stub aktif di /stub/midtrans (delay {} ms, gagal {}%)", delayMillis, failureRate * 100);
+    }
+
+    @PostMapping("/snap/v1/transactions")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> createTransaction(
+            @RequestBody Map<String, Object> params) {
+        String token = UUID.randomUUID().toString();
+        return respond(HttpStatus.CREATED, Map.of(
+                "token", token,
+                "redirect_url", "http://localhost/stub/midtrans/snap/v2/vtweb/" + token));
+    }
+
+    @GetMapping("/v2/{orderId}/status")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getStatus(@PathVariable String orderId) {
+        return respond(HttpStatus.OK, Map.of(
+                "status_code", "200",
+                "order_id", orderId,
+                "transaction_status", transactionStatus,
+                "fraud_status", "accept",
+                "payment_type", "qris"));
+    }
+
+    @PostMapping("/v2/{orderId}/expire")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> expire(@PathVariable String orderId) {
+        return respond(HttpStatus.OK, Map.of(
+                "status_code", "407",
+                "status_message", "Success, transaction has expired",
+                "order_id", orderId,
+                "transaction_status", "expire",
+                "payment_type", "qris"));
+    }
+
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> respond(HttpStatus status,
+            Map<String, Object> body) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = delayMillis + (jitterMillis > 0 ? random.nextLong(jitterMillis + 1) : 0);
+        boolean fail = random.nextDouble() < failureRate;
+
+        return CompletableFuture.supplyAsync(() -> fail
+                ? ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .<Map<String, Object>>body(Map.of("error_messages", List.of("Stub: simulated failure")))
+                : ResponseEntity.status(status).body(body),
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+    }
+}
@@ -1,101 +1,266 @@
 package com.traitor.ambatushop_10.controller;
 
 import com.traitor.ambatushop_10.dto.ErrorResponse;
+import com.traitor.ambatushop_10.dto.PaymentStatusEvent;
 import com.traitor.ambatushop_10.model.Transaksi;
+import com.traitor.ambatushop_10.model.WebhookInbox;
 import com.traitor.ambatushop_10.service.MidtransService;
+import com.traitor.ambatushop_10.service.PaymentGatewayClient;
+import com.traitor.ambatushop_10.service.PaymentReconciliationService;
+import com.traitor.ambatushop_10.service.PaymentStatusRegistry;
 import com.traitor.ambatushop_10.service.TransaksiService;
+import com.traitor.ambatushop_10.service.WebhookInboxService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/payment")
 @Slf4j
 public class PaymentController {
 
+    // Batas long-poll, di bawah timeout proxy pada umumnya (60 detik)
+    private static final int MAX_AWAIT_SECONDS = 55;
+
     private final MidtransService midtransService;
     private final TransaksiService transaksiService;
+    private final WebhookInboxService webhookInboxService;
+    private final PaymentGatewayClient gatewayClient;
+    private final PaymentReconciliationService reconciliationService;
+    private final PaymentStatusRegistry paymentStatusRegistry;
 
-    public PaymentController(MidtransService midtransService, TransaksiService transaksiService) {
+    public PaymentController(MidtransService midtransService, TransaksiService transaksiService,
+            WebhookInboxService webhookInboxService, PaymentGatewayClient gatewayClient,
+            PaymentReconciliationService reconciliationService, PaymentStatusRegistry paymentStatusRegistry) {
         this.midtransService = midtransService;
         this.transaksiService = transaksiService;
+        this.webhookInboxService = webhookInboxService;
+        this.gatewayClient = gatewayClient;
+        this.reconciliationService = reconciliationService;
+        this.paymentStatusRegistry = paymentStatusRegistry;
     }
 
     /**
      * Create QRIS Payment for existing transaction
+     * Async: thread Tomcat dilepas selama menunggu Midtrans, respons dikirim setelah future selesai.
      */
     @PostMapping("/qris/{transactionId}")
     @PreAuthorize("hasAnyRole('KASIR')")
-    public ResponseEntity<?> createQRISPayment(@PathVariable Long transactionId) {
+    public CompletableFuture<ResponseEntity<?>> createQRISPayment(@PathVariable Long transactionId) {
+        String path = "/api/payment/qris/" + transactionId;
+        Transaksi transaksi;
         try {
             log.info("Creating QRIS payment for transaction: {}", transactionId);
             
-            Transaksi transaksi = transaksiService.getTransaksiById(transactionId);
+            transaksi = transaksiService.getTransaksiById(transactionId);
+        } catch (RuntimeException e) {
+            log.error("Error creating QRIS payment for transaction {}: {}", transactionId, e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                .body(new ErrorResponse(400, "PAYMENT_ERROR", "Gagal membuat pembayaran QRIS", 
+                      e.getMessage(), path)));
+        }
             
-            // Validasi: hanya transaksi NON_TUNAI yang bisa pakai QRIS
-            if (transaksi.getMetode_pembayaran() != Transaksi.MetodePembayaran.NON_TUNAI) {
-                return ResponseEntity.badRequest()
-                    .body(new ErrorResponse(400, "INVALID_PAYMENT_METHOD", 
-                          "Metode pembayaran tidak support QRIS", 
-                          "Hanya NON_TUNAI yang support QRIS",
-                          "/api/payment/qris/" + transactionId));
-            }
+        // Validasi: hanya transaksi NON_TUNAI yang bisa pakai QRIS
+        if (transaksi.getMetode_pembayaran() != Transaksi.MetodePembayaran.NON_TUNAI) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                .body(new ErrorResponse(400, "INVALID_PAYMENT_METHOD", 
+                      "Metode pembayaran tidak support QRIS", 
+                      "Hanya NON_TUNAI yang support QRIS", path)));
+        }
             
-            // Validasi: hanya transaksi PENDING yang bisa create payment
-            if (transaksi.getPaymentStatus() != Transaksi.PaymentStatus.PENDING) {
+        // Validasi: hanya transaksi PENDING yang bisa create payment
+        if (transaksi.getPaymentStatus() != Transaksi.PaymentStatus.PENDING) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                .body(new ErrorResponse(400, "INVALID_STATUS", 
+                      "Transaksi sudah diproses", 
+                      "Status transaksi: " + transaksi.getPaymentStatus(), path)));
+        }
+
+        CompletableFuture<Map<String, String>> payment;
+        try {
+            payment = midtransService.createQRISPayment(transaksi);
+        } catch (RuntimeException e) {
+            payment = CompletableFuture.failedFuture(e);
+        }
+
+        return payment.handle((paymentData, error) -> {
+            if (error == null) {
+                log.info("QRIS payment created successfully for transaction: {}", transactionId);
+                return ResponseEntity.ok(paymentData);
+            }
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            log.error("Error creating QRIS payment for transaction {}: {}", transactionId, cause.getMessage());
+            if (cause instanceof PaymentGatewayClient.GatewayException gatewayError && gatewayError.isUnavailable()) {
+                // Gateway lambat / mati / breaker terbuka: kasir boleh coba lagi
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "5")
+                    .body(new ErrorResponse(503, "GATEWAY_UNAVAILABLE", "Payment gateway sedang tidak tersedia",
+                          cause.getMessage(), path));
+            }
+            if (cause instanceof RuntimeException) {
                 return ResponseEntity.badRequest()
-                    .body(new ErrorResponse(400, "INVALID_STATUS", 
-                          "Transaksi sudah diproses", 
-                          "Status transaksi: " + transaksi.getPaymentStatus(),
-                          "/api/payment/qris/" + transactionId));
+                    .body(new ErrorResponse(400, "PAYMENT_ERROR", "Gagal membuat pembayaran QRIS", 
+                          cause.getMessage(), path));
             }
-            
-            Map<String, String> paymentData = midtransService.createQRISPayment(transaksi);
-            log.info("QRIS payment created successfully for transaction: {}", transactionId);
-            
-            return ResponseEntity.ok(paymentData);
-            
-        } catch (RuntimeException e) {
-            log.error("Error creating QRIS payment for transaction {}: {}", transactionId, e.getMessage());
-            return ResponseEntity.badRequest()
-                .body(new ErrorResponse(400, "PAYMENT_ERROR", "Gagal membuat pembayaran QRIS", 
-                      e.getMessage(), "/api/payment/qris/" + transactionId));
-        } catch (Exception e) {
-            log.error("Unexpected error creating QRIS payment for transaction {}: {}", transactionId, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ErrorResponse(500, "SERVER_ERROR", "Error sistem pembayaran", 
-                      e.getMessage(), "/api/payment/qris/" + transactionId));
-        }
+                      cause.getMessage(), path));
+        });
+    }
+
+    /**
+     * Statistik rekonsiliasi PENDING: backlog, umur transaksi PENDING tertua, hasil run terakhir
+     */
+    @GetMapping("/reconcile/stats")
+    @PreAuthorize("hasAnyRole('MANAJER', 'ADMIN')")
+    public ResponseEntity<?> getReconcileStats() {
+        return ResponseEntity.ok(reconciliationService.getStats());
+    }
+
+    /**
+     * Jalankan rekonsiliasi sekarang (tidak menunggu jadwal berikutnya)
+     */
+    @PostMapping("/reconcile/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> runReconcile() {
+        int checked = reconciliationService.reconcile();
+        Map<String, Object> result = new LinkedHashMap<>(reconciliationService.getStats());
+        result.put("checked", checked);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Statistik client payment gateway: state circuit breaker, latency p50/p99, panggilan yang sedang jalan
+     */
+    @GetMapping("/gateway/stats")
+    @PreAuthorize("hasAnyRole('MANAJER', 'ADMIN')")
+    public ResponseEntity<?> getGatewayStats() {
+        return ResponseEntity.ok(gatewayClient.getStats());
     }
 
     /**
      * Midtrans webhook endpoint - untuk receive payment status updates
      * NOTE: Ini public endpoint, Midtrans akan POST ke sini
+     * Notifikasi hanya disimpan ke inbox lalu langsung di-ACK; update status transaksi dikerjakan
+     * worker WebhookInboxService.
      */
     @PostMapping("/webhook")
     public ResponseEntity<String> handleWebhook(@RequestBody Map<String, Object> payload) {
         try {
             log.info("Received Midtrans webhook notification");
             log.debug("Webhook payload: {}", payload);
-            
-            midtransService.handleWebhookNotification(payload);
-            
-            log.info("Webhook processed successfully");
+
+            WebhookInboxService.ReceiveResult result = webhookInboxService.receive(payload);
+
+            log.info("Webhook {}: {} {}", result, payload.get("order_id"), payload.get("transaction_status"));
             return ResponseEntity.ok("OK");
-            
-        } catch (RuntimeException e) {
-            log.error("Webhook processing failed: {}", e.getMessage());
-            // Tetap return 200 ke Midtrans, karena mereka expect 200
+
+        } catch (IllegalArgumentException e) {
+            log.warn("Webhook diabaikan: {}", e.getMessage());
+            // Payload tidak valid tidak akan berubah walau dikirim ulang, jadi tetap 200
             return ResponseEntity.ok("OK");
         } catch (Exception e) {
-            log.error("Unexpected error in webhook: {}", e.getMessage(), e);
-            // Tetap return 200 ke Midtrans
-            return ResponseEntity.ok("OK");
+            log.error("Webhook gagal disimpan: {}", e.getMessage(), e);
+            // Belum tersimpan di inbox: balas 503 supaya Midtrans mengirim ulang notifikasinya
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("RETRY");
+        }
+    }
+
+    /**
+     * Daftar webhook di inbox per status (default FAILED), untuk investigasi sebelum replay
+     */
+    @GetMapping("/webhook-inbox")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getWebhookInbox(
+            @RequestParam(defaultValue = "FAILED") WebhookInbox.Status status,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(webhookInboxService.getLatest(status, limit));
+    }
+
+    /**
+     * Replay satu webhook dari inbox (misalnya yang FAILED karena transaksi belum ada saat itu)
+     */
+    @PostMapping("/webhook-inbox/{id}/replay")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> replayWebhook(@PathVariable Long id) {
+        try {
+            WebhookInbox event = webhookInboxService.replay(id);
+            return ResponseEntity.ok(Map.of(
+                    "id", event.getId(),
+                    "orderId", event.getOrderId(),
+                    "transactionStatus", event.getTransactionStatus(),
+                    "message", "Webhook diantrikan ulang"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponse(404, "NOT_FOUND", "Webhook tidak ditemukan",
+                      e.getMessage(), "/api/payment/webhook-inbox/" + id + "/replay"));
+        }
+    }
+
+    /**
+     * Replay semua webhook satu order_id, sesuai urutan diterima
+     */
+    @PostMapping("/webhook-inbox/replay")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> replayWebhookOrder(@RequestParam String orderId) {
+        try {
+            List<WebhookInbox> events = webhookInboxService.replayOrder(orderId);
+            return ResponseEntity.ok(Map.of(
+                    "orderId", orderId,
+                    "replayed", events.size(),
+                    "message", "Webhook diantrikan ulang"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponse(404, "NOT_FOUND", "Webhook tidak ditemukan",
+                      e.getMessage(), "/api/payment/webhook-inbox/replay"));
+        }
+    }
+
+    /**
+     * Statistik inbox: jumlah diterima / duplikat / diproses, rata-rata waktu proses dan throughput (event/detik)
+     */
+    @GetMapping("/webhook-inbox/stats")
+    @PreAuthorize("hasAnyRole('MANAJER', 'ADMIN')")
+    public ResponseEntity<?> getWebhookStats() {
+        return ResponseEntity.ok(webhookInboxService.getStats());
+    }
+
+    /**
+     * Long-poll status pembayaran (cadangan kalau push SSE tidak tersedia).
+     * Langsung dijawab kalau status sekarang berbeda dari `since`; kalau sama, request diparkir tanpa
+     * memegang thread sampai status berubah atau `timeout` detik lewat (dijawab dengan status yang sama).
+     * Status dibaca dari PaymentStatusRegistry, bukan dari DB.
+     */
+    @GetMapping("/status/{id}/await")
+    @PreAuthorize("hasAnyRole('KASIR', 'MANAJER', 'ADMIN')")
+    public DeferredResult<PaymentStatusEvent> awaitPaymentStatus(@PathVariable Long id,
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "25") int timeout) {
+        PaymentStatusEvent current = paymentStatusRegistry.get(id);
+        if (current == null || since == null || !since.equalsIgnoreCase(current.paymentStatus())) {
+            DeferredResult<PaymentStatusEvent> result = new DeferredResult<>();
+            if (current == null) {
+                result.setErrorResult(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(404, "NOT_FOUND", "Transaksi tidak ditemukan",
+                          "ID: " + id, "/api/payment/status/" + id + "/await")));
+            } else {
+                result.setResult(current);
+            }
+            return result;
         }
+        long timeoutMillis = Math.max(1, Math.min(timeout, MAX_AWAIT_SECONDS)) * 1000L;
+        return paymentStatusRegistry.await(current, timeoutMillis);
     }
 
     /**
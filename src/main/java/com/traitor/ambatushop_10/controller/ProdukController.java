@@ -1,11 +1,16 @@
 package com.traitor.ambatushop_10.controller;
 
+import com.traitor.ambatushop_10.dto.CatalogChanges;
 import com.traitor.ambatushop_10.model.Produk;
 import com.traitor.ambatushop_10.service.ProdukService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/produk")
@@ -20,10 +25,28 @@ public class ProdukController {
     //CRUD Produk udah pake role dari metod security
 
     // GET semua produk
+    // ETag = versi katalog: kalau If-None-Match masih sama, balas 304 tanpa query ke DB.
+    // no-cache (bukan no-store) supaya browser menyimpan respons dan selalu revalidasi dengan ETag.
     @GetMapping
     @PreAuthorize("hasAnyRole('KASIR', 'MANAJER', 'ADMIN')")
-    public List<Produk> getAllProduk() {
-        return produkService.getAllProduk();
+    public ResponseEntity<List<Produk>> getAllProduk(WebRequest request) {
+        long versi = produkService.getCatalogVersion();
+        String etag = "\"katalog-" + versi + "\"";
+        if (request.checkNotModified(etag)) {
+            return null; // 304 sudah diset oleh checkNotModified
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .header("X-Catalog-Version", String.valueOf(versi))
+                .body(produkService.getAllProduk());
+    }
+
+    // Delta katalog sejak versi tertentu, untuk POS yang menyimpan salinan lokal (lihat CatalogChanges)
+    @GetMapping("/changes")
+    @PreAuthorize("hasAnyRole('KASIR', 'MANAJER', 'ADMIN')")
+    public CatalogChanges getChanges(@RequestParam(defaultValue = "0") long since) {
+        return produkService.getChanges(since);
     }
 
     // GET produk by ID
@@ -40,6 +63,20 @@ public class ProdukController {
         return produkService.searchProduk(keyword);
     }
 
+    // Statistik index pencarian (ukuran index, rata-rata waktu cari)
+    @GetMapping("/search/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getSearchStats() {
+        return produkService.getSearchStats();
+    }
+
+    // Statistik cache produk (hit / miss / eviction)
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getCacheStats() {
+        return produkService.getCacheStats();
+    }
+
     // CREATE produk
     @PostMapping
     @PreAuthorize("hasAnyRole('MANAJER', 'ADMIN')")
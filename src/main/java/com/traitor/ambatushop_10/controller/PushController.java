@@ -0,0 +1,131 @@
+package com.traitor.ambatushop_10.controller;
+
+import com.traitor.ambatushop_10.dto.PaymentStatusEvent;
+import com.traitor.ambatushop_10.service.JwtService;
+import com.traitor.ambatushop_10.service.PaymentStatusRegistry;
+import com.traitor.ambatushop_10.service.PushService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Endpoint Server-Sent Events untuk semua topik push (lihat PushService).
+ * Contoh: POST /api/push/ticket (dengan JWT), lalu /api/push/events?topics=stock,payment:42&ticket=...
+ *
+ * EventSource di browser tidak bisa mengirim header Authorization. Supaya JWT login tidak ikut masuk URL
+ * (log akses, history browser), client minta tiket sekali pakai berumur pendek dulu; /events hanya
+ * menerima tiket itu dan memverifikasinya di sini (endpoint ini permitAll di SecurityConfig).
+ */
+@RestController
+@RequestMapping("/api/push")
+public class PushController {
+
+    private final PushService pushService;
+    private final JwtService jwtService;
+    private final PaymentStatusRegistry paymentStatusRegistry;
+
+    public PushController(PushService pushService, JwtService jwtService,
+            PaymentStatusRegistry paymentStatusRegistry) {
+        this.pushService = pushService;
+        this.jwtService = jwtService;
+        this.paymentStatusRegistry = paymentStatusRegistry;
+    }
+
+    // Tiket untuk satu koneksi /events; setiap reconnect minta tiket baru
+    @PostMapping("/ticket")
+    public ResponseEntity<?> ticket(HttpServletRequest request) {
+        String bearerToken = request.getHeader("Authorization");
+        JwtService.TokenClaims claims = bearerToken != null && bearerToken.startsWith("Bearer ")
+                ? jwtService.verify(bearerToken.substring(7))
+                : null;
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+        }
+        return ResponseEntity.ok(Map.of("ticket", jwtService.generatePushTicket(claims)));
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestParam String topics,
+            @RequestParam(required = false) String ticket,
+            HttpServletResponse response) throws IOException {
+        JwtService.TokenClaims claims = jwtService.redeemPushTicket(ticket);
+        if (claims == null) {
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), "Tiket tidak valid, expired, atau sudah dipakai");
+            return null;
+        }
+
+        Set<String> requested = new LinkedHashSet<>();
+        for (String topic : topics.split(",")) {
+            if (!topic.isBlank()) {
+                requested.add(topic.trim());
+            }
+        }
+        if (requested.isEmpty()) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Topik tidak boleh kosong");
+            return null;
+        }
+
+        Long paymentId = null;
+        for (String topic : requested) {
+            if (topic.startsWith(PushService.TOPIC_PAYMENT + ":")) {
+                try {
+                    paymentId = Long.parseLong(topic.substring(PushService.TOPIC_PAYMENT.length() + 1));
+                } catch (NumberFormatException e) {
+                    response.sendError(HttpStatus.BAD_REQUEST.value(), "Topik tidak valid: " + topic);
+                    return null;
+                }
+            } else if (!isKnownTopic(topic)) {
+                response.sendError(HttpStatus.BAD_REQUEST.value(), "Topik tidak valid: " + topic);
+                return null;
+            } else if (!canSubscribe(topic, claims.role())) {
+                response.sendError(HttpStatus.FORBIDDEN.value(), "Tidak punya akses ke topik: " + topic);
+                return null;
+            }
+        }
+
+        SseEmitter emitter;
+        try {
+            emitter = pushService.subscribe(requested);
+        } catch (IllegalStateException e) {
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+            return null;
+        }
+
+        // Kirim status saat ini, supaya perubahan sebelum koneksi terbuka tidak terlewat
+        if (paymentId != null) {
+            PaymentStatusEvent current = paymentStatusRegistry.get(paymentId);
+            if (current != null) {
+                pushService.sendTo(emitter, PushService.TOPIC_PAYMENT, current);
+            }
+        }
+        return emitter;
+    }
+
+    private static boolean isKnownTopic(String topic) {
+        return PushService.TOPIC_PAYMENT.equals(topic)
+                || PushService.TOPIC_STOCK.equals(topic)
+                || PushService.TOPIC_FINANCE.equals(topic)
+                || PushService.TOPIC_PRESENCE.equals(topic);
+    }
+
+    // Keuangan & presence hanya untuk manajer/admin; stok & pembayaran untuk semua role
+    private static boolean canSubscribe(String topic, String role) {
+        if (PushService.TOPIC_FINANCE.equals(topic) || PushService.TOPIC_PRESENCE.equals(topic)) {
+            return "MANAJER".equals(role) || "ADMIN".equals(role);
+        }
+        return true;
+    }
+}
@@ -2,6 +2,7 @@ package com.traitor.ambatushop_10.controller;
 
 import com.traitor.ambatushop_10.dto.ErrorResponse;
 import com.traitor.ambatushop_10.dto.StockPurchaseRequest;
+import com.traitor.ambatushop_10.dto.TransaksiPageResponse;
 import com.traitor.ambatushop_10.dto.TransaksiRequest;
 import com.traitor.ambatushop_10.dto.TransaksiResponse;
 import com.traitor.ambatushop_10.model.Keuangan;
@@ -10,11 +11,13 @@ import com.traitor.ambatushop_10.service.TransaksiService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,9 +32,14 @@ public class TransaksiController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('KASIR','MANAJER','ADMIN')")
-    public ResponseEntity<?> getAllTransaksi() {
+    public ResponseEntity<?> getAllTransaksi(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
         try {
-            List<Transaksi> transaksis = transaksiService.getAllTransaksi();
+            // Kalau ?start=&end= dikirim, filter di database (bukan ambil semua lalu difilter di frontend)
+            List<Transaksi> transaksis = (start != null && end != null)
+                    ? transaksiService.getTransaksiByTanggal(start, end)
+                    : transaksiService.getAllTransaksi();
 
             List<TransaksiResponse> responses = transaksis.stream()
                     .map(TransaksiResponse::new)
@@ -45,6 +53,41 @@ public class TransaksiController {
         }
     }
 
+    /**
+     * Listing transaksi per halaman dengan filter tanggal, kasir, status dan metode pembayaran.
+     * Halaman berikutnya diambil dengan mengirim nextCursor dari response sebagai ?cursor=
+     */
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('KASIR','MANAJER','ADMIN')")
+    public ResponseEntity<?> getTransaksiPage(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) Long akunId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String metode,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            Transaksi.PaymentStatus paymentStatus = status == null ? null
+                    : Transaksi.PaymentStatus.valueOf(status.toUpperCase());
+            Transaksi.MetodePembayaran metodePembayaran = metode == null ? null
+                    : Transaksi.MetodePembayaran.valueOf(metode.toUpperCase());
+
+            TransaksiPageResponse page = transaksiService.getTransaksiPage(start, end, akunId,
+                    paymentStatus, metodePembayaran, cursor, size);
+            return ResponseEntity.ok(page);
+
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse(400, "INVALID_FILTER", "Filter transaksi tidak valid",
+                            e.getMessage(), "/api/transaksi/page"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse(500, "SERVER_ERROR", "Gagal mengambil data transaksi",
+                            e.getMessage(), "/api/transaksi/page"));
+        }
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('KASIR','MANAJER','ADMIN')")
     public ResponseEntity<?> getTransaksiById(@PathVariable Long id) {
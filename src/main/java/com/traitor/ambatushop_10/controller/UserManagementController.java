@@ -46,8 +46,8 @@ public class UserManagementController {
                     userMap.put("username", user.getUsername());
                     userMap.put("email", user.getEmail());
                     userMap.put("role", user.getRole().name());
-                    userMap.put("isOnline", user.isCurrentlyActive());
-                    userMap.put("lastActivity", user.getLastActivityAt());
+                    userMap.put("isOnline", userSessionService.isCurrentlyActive(user));
+                    userMap.put("lastActivity", userSessionService.getLastActivity(user));
                     userMap.put("lastLogin", user.getLastLoginAt());
                     
                     // Add avatar initial
@@ -0,0 +1,14 @@
+package com.traitor.ambatushop_10.dto;
+
+import com.traitor.ambatushop_10.model.Produk;
+
+import java.util.List;
+
+/**
+ * Respons GET /api/produk/changes?since=v.
+ * full = true: `produk` berisi seluruh katalog dan salinan lokal client harus diganti (since tidak dikenal).
+ * full = false: `produk` hanya yang berubah setelah since, `dihapus` ID produk yang harus dibuang.
+ * Request berikutnya pakai since = versi.
+ */
+public record CatalogChanges(long versi, boolean full, List<Produk> produk, List<Long> dihapus) {
+}
@@ -0,0 +1,15 @@
+package com.traitor.ambatushop_10.dto;
+
+import java.time.LocalDate;
+
+// Ringkasan dari tabel daily_rollup untuk rentang tanggal (start/end null = semua data)
+public record DailyRollupSummary(
+        LocalDate start,
+        LocalDate end,
+        double pemasukanTransaksi,
+        long jumlahTransaksi,
+        double pemasukanManual,
+        double pengeluaran,
+        long jumlahKeuangan,
+        double labaBersih) {
+}
@@ -0,0 +1,18 @@
+package com.traitor.ambatushop_10.dto;
+
+// Data yang bisa di-export
+public enum ExportDataset {
+    KEUANGAN("laporan_keuangan"),
+    TRANSAKSI("laporan_transaksi"),
+    TRANSAKSI_DETAIL("laporan_transaksi_detail");
+
+    private final String fileName;
+
+    ExportDataset(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+}
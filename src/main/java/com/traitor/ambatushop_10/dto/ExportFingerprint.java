@@ -0,0 +1,9 @@
+package com.traitor.ambatushop_10.dto;
+
+// Sidik jari data dalam rentang export: kalau salah satu nilainya berubah, file export lama basi
+public interface ExportFingerprint {
+    Long getJumlah();
+    Long getMaxId();
+    Double getTotal();
+    Long getChecksum();
+}
@@ -0,0 +1,25 @@
+package com.traitor.ambatushop_10.dto;
+
+// Format file export laporan
+public enum ExportFormat {
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    CSV("csv", "text/csv; charset=UTF-8"),
+    // Format biner kolumnar milik sendiri (lihat ColumnarTableWriter), untuk tarikan data BI
+    COLUMNAR("acol", "application/octet-stream");
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
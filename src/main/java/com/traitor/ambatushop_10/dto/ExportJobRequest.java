@@ -0,0 +1,11 @@
+package com.traitor.ambatushop_10.dto;
+
+import java.time.LocalDateTime;
+
+// Request job export: rentang [start, end) boleh null (semua data), default dataset KEUANGAN format XLSX
+public record ExportJobRequest(
+        ExportDataset dataset,
+        LocalDateTime start,
+        LocalDateTime end,
+        ExportFormat format) {
+}
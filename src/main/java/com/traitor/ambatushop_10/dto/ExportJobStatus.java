@@ -0,0 +1,20 @@
+package com.traitor.ambatushop_10.dto;
+
+import java.time.LocalDateTime;
+
+// Status job export untuk polling / SSE
+public record ExportJobStatus(
+        String jobId,
+        String status,
+        ExportDataset dataset,
+        ExportFormat format,
+        LocalDateTime start,
+        LocalDateTime end,
+        long processedRows,
+        long totalRows,
+        int progressPercent,
+        String error,
+        String downloadUrl,
+        LocalDateTime createdAt,
+        LocalDateTime finishedAt) {
+}
@@ -0,0 +1,13 @@
+package com.traitor.ambatushop_10.dto;
+
+import java.time.LocalDate;
+
+// Selisih rekap keuangan harian (sama dengan yang ditambahkan ke daily_rollup), dikirim ke topik "finance"
+public record FinanceChangedEvent(
+        LocalDate tanggal,
+        String metodePembayaran,
+        double pemasukan,
+        double pengeluaran,
+        int jumlahTransaksi,
+        int jumlahKeuangan) {
+}
@@ -0,0 +1,11 @@
+package com.traitor.ambatushop_10.dto;
+
+// Ringkasan keuangan gabungan (transaksi penjualan + tabel keuangan), dihitung dengan query agregat
+public record IntegratedFinancialSummary(
+        double totalPemasukan,
+        double totalPengeluaran,
+        double labaBersih,
+        long totalTransaksi,
+        double totalPengeluaranManual,
+        double totalStockPurchase) {
+}
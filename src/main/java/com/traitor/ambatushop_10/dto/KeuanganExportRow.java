@@ -0,0 +1,14 @@
+package com.traitor.ambatushop_10.dto;
+
+import com.traitor.ambatushop_10.model.Keuangan;
+import java.time.LocalDateTime;
+
+// Satu baris export keuangan, di-select langsung lewat JPQL constructor expression (bukan entity)
+public record KeuanganExportRow(
+        Long idKeuangan,
+        Long idPegawai,
+        Keuangan.JenisTransaksi jenis,
+        String keterangan,
+        Double nominal,
+        LocalDateTime tanggal) {
+}
@@ -0,0 +1,27 @@
+package com.traitor.ambatushop_10.dto;
+
+import com.traitor.ambatushop_10.model.Transaksi;
+
+// Status pembayaran transaksi berubah (atau transaksi baru dibuat). Dikirim ke topik push "payment" dan "payment:{id}"
+public record PaymentStatusEvent(
+        Long idTransaksi,
+        String referenceNumber,
+        String paymentStatus,
+        String metodePembayaran,
+        Double total) {
+
+    // Untuk constructor expression JPQL (TransaksiRepository.findPaymentStatus)
+    public PaymentStatusEvent(Long idTransaksi, String referenceNumber, Transaksi.PaymentStatus paymentStatus,
+            Transaksi.MetodePembayaran metodePembayaran, Double total) {
+        this(idTransaksi, referenceNumber, paymentStatus.name(), metodePembayaran.name(), total);
+    }
+
+    public static PaymentStatusEvent of(Transaksi transaksi) {
+        return new PaymentStatusEvent(transaksi.getIdTransaksi(), transaksi.getReferenceNumber(),
+                transaksi.getPaymentStatus(), transaksi.getMetode_pembayaran(), transaksi.getTotal());
+    }
+
+    public boolean isFinal() {
+        return !Transaksi.PaymentStatus.PENDING.name().equals(paymentStatus);
+    }
+}
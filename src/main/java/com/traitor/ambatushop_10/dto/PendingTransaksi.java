@@ -0,0 +1,7 @@
+package com.traitor.ambatushop_10.dto;
+
+import java.time.LocalDateTime;
+
+// Transaksi PENDING yang dicek ulang oleh rekonsiliasi (cukup kolom yang dibutuhkan, bukan entity)
+public record PendingTransaksi(Long idTransaksi, String paymentGatewayId, LocalDateTime tanggal) {
+}
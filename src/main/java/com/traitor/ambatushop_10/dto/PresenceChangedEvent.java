@@ -0,0 +1,7 @@
+package com.traitor.ambatushop_10.dto;
+
+import java.util.Map;
+
+// Statistik user online berubah; isinya sama dengan UserSessionService.getUserStats(). Topik "presence"
+public record PresenceChangedEvent(Map<String, Object> stats) {
+}
@@ -0,0 +1,7 @@
+package com.traitor.ambatushop_10.dto;
+
+import java.util.Collection;
+
+// Produk dibuat / diubah / dihapus lewat ProdukService; ProdukCache membaca ulang barisnya setelah commit
+public record ProdukChangedEvent(Collection<Long> produkIds) {
+}
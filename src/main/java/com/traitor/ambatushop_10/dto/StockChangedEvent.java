@@ -0,0 +1,7 @@
+package com.traitor.ambatushop_10.dto;
+
+import java.util.Collection;
+
+// Stok produk berubah; nilai stok terbaru dibaca PushService setelah commit lalu dikirim ke topik "stock"
+public record StockChangedEvent(Collection<Long> produkIds) {
+}
@@ -0,0 +1,5 @@
+package com.traitor.ambatushop_10.dto;
+
+// Stok terbaru satu produk, payload event push "stock"
+public record StockLevel(Long idProduk, short stok) {
+}
@@ -0,0 +1,15 @@
+package com.traitor.ambatushop_10.dto;
+
+import java.time.LocalDateTime;
+
+// Satu baris export detail transaksi, di-select langsung lewat JPQL constructor expression (bukan entity)
+public record TransaksiDetailExportRow(
+        Long idTransaksiDetail,
+        Long idTransaksi,
+        LocalDateTime tanggal,
+        Long idProduk,
+        String namaProduk,
+        short jumlah,
+        double hargaSatuan,
+        double subtotal) {
+}
@@ -0,0 +1,16 @@
+package com.traitor.ambatushop_10.dto;
+
+import com.traitor.ambatushop_10.model.Transaksi;
+import java.time.LocalDateTime;
+
+// Satu baris export transaksi, di-select langsung lewat JPQL constructor expression (bukan entity)
+public record TransaksiExportRow(
+        Long idTransaksi,
+        String referenceNumber,
+        LocalDateTime tanggal,
+        Long idPegawai,
+        String kasirName,
+        Transaksi.MetodePembayaran metodePembayaran,
+        Transaksi.PaymentStatus paymentStatus,
+        Double total) {
+}
@@ -0,0 +1,10 @@
+package com.traitor.ambatushop_10.dto;
+
+import java.util.List;
+
+// Satu halaman hasil keyset pagination; nextCursor dikirim lagi sebagai ?cursor= untuk halaman berikutnya
+public record TransaksiPageResponse(
+        List<TransaksiSummaryResponse> items,
+        String nextCursor,
+        boolean hasMore) {
+}
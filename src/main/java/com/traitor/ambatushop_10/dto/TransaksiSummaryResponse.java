@@ -0,0 +1,15 @@
+package com.traitor.ambatushop_10.dto;
+
+import com.traitor.ambatushop_10.model.Transaksi;
+import java.time.LocalDateTime;
+
+// Versi ringkas TransaksiResponse (tanpa detail), di-select langsung lewat JPQL constructor expression
+public record TransaksiSummaryResponse(
+        Long idTransaksi,
+        String referenceNumber,
+        LocalDateTime tanggal,
+        Double total,
+        Transaksi.MetodePembayaran metodePembayaran,
+        Transaksi.PaymentStatus paymentStatus,
+        String namaKasir) {
+}
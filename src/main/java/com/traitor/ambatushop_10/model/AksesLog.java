@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 @Getter @Setter
 public class AksesLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "akses_log_seq")
+    @SequenceGenerator(name = "akses_log_seq", sequenceName = "akses_log_seq", allocationSize = 50)
     private Long idLog;
 
     @Column(nullable = false)
@@ -0,0 +1,59 @@
+package com.traitor.ambatushop_10.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Rekap keuangan harian per kasir per metode pembayaran (tabel daily_rollup, changeset 014).
+ * Baris hanya diubah lewat upsert incremental / rebuild di DailyRollupRepository.
+ */
+@Entity
+@Table(name = "daily_rollup")
+@Getter
+@Setter
+@NoArgsConstructor
+public class DailyRollup {
+
+    // Metode "palsu" untuk baris yang berasal dari tabel keuangan (bukan transaksi penjualan)
+    public static final String METODE_KEUANGAN = "KEUANGAN";
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private double pemasukan;
+
+    @Column(nullable = false)
+    private double pengeluaran;
+
+    @Column(name = "jumlah_transaksi", nullable = false)
+    private long jumlahTransaksi;
+
+    @Column(name = "jumlah_keuangan", nullable = false)
+    private long jumlahKeuangan;
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        @Column(nullable = false)
+        private LocalDate tanggal;
+
+        @Column(name = "akun_id", nullable = false)
+        private Long akunId;
+
+        @Column(name = "metode_pembayaran", nullable = false, length = 20)
+        private String metodePembayaran;
+    }
+}
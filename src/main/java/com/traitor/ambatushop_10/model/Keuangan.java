@@ -10,7 +10,9 @@ import java.time.LocalDateTime;
 @Getter @Setter
 public class Keuangan {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // SEQUENCE (bukan IDENTITY) supaya Hibernate bisa batch insert
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "keuangan_seq")
+    @SequenceGenerator(name = "keuangan_seq", sequenceName = "keuangan_seq", allocationSize = 50)
     @Column(name = "id")
     private Long idKeuangan;
 
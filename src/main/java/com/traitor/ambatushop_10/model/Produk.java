@@ -26,8 +26,13 @@ public class Produk {
     @Column(nullable = false)
     private short stok;
 
-    // @Column(unique = true, length = 50)
-    // private String barcode;
+    // Versi katalog terakhir yang mengubah produk ini (diisi CatalogVersionService, bukan dari client)
+    @Column(nullable = false)
+    private long versi;
+
+    // Opsional, unik (constraint + index dari changeset 008); dicari lewat BarcodeIndex
+    @Column(unique = true, length = 50)
+    private String barcode;
 
     // @Column(name = "barcode_image_path", length = 255)
     // private String barcodeImagePath;
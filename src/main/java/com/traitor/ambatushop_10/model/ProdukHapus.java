@@ -0,0 +1,36 @@
+package com.traitor.ambatushop_10.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tombstone produk yang sudah dihapus (tabel produk_hapus, changeset 019), dibaca oleh delta sync
+ * GET /api/produk/changes supaya salinan katalog di POS ikut membuang produk tersebut.
+ */
+@Entity
+@Table(name = "produk_hapus")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProdukHapus {
+
+    @Id
+    @Column(name = "id_produk")
+    private Long idProduk;
+
+    @Column(nullable = false)
+    private long versi;
+
+    @Column(name = "dihapus_pada", nullable = false)
+    private LocalDateTime dihapusPada;
+
+    public ProdukHapus(Long idProduk, long versi) {
+        this.idProduk = idProduk;
+        this.versi = versi;
+        this.dihapusPada = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,25 @@
+package com.traitor.ambatushop_10.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Counter nomor referensi transaksi per hari. Setiap node mengambil satu blok nomor sekaligus
+ * (next_value dinaikkan sebesar ukuran blok), jadi beberapa instance bisa berbagi urutan yang sama.
+ */
+@Entity
+@Table(name = "reference_sequence")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ReferenceSequence {
+
+    @Id
+    @Column(name = "seq_date", length = 8)
+    private String seqDate; // yyyyMMdd
+
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+}
@@ -5,9 +5,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Random;
 
 @Entity
 @Table(name = "transaksi")
@@ -17,7 +15,9 @@ import java.util.Random;
 public class Transaksi {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // SEQUENCE (bukan IDENTITY) supaya Hibernate bisa batch insert, lihat changeset 012
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaksi_seq")
+    @SequenceGenerator(name = "transaksi_seq", sequenceName = "transaksi_seq", allocationSize = 50)
     @Column(name = "id")
     private Long idTransaksi;
 
@@ -32,11 +32,15 @@ public class Transaksi {
     private String paymentGatewayResponse; // Raw response from Midtrans
 
     @Column(name = "reference_number", unique = true)
-    private String referenceNumber; // No. referensi: TRX-20240115-001
+    private String referenceNumber; // No. referensi: TRX-20240115-00001
 
     @Column(name = "payment_method_detail")
     private String paymentMethodDetail; // "QRIS_GOPAY", "QRIS_SHOPEEPAY", dll
 
+    // true = dibayar setelah FAILED/EXPIRED tapi stok sudah tidak cukup, harus ditangani manual
+    @Column(name = "perlu_tinjauan", nullable = false)
+    private boolean perluTinjauan;
+
     public Transaksi(MetodePembayaran metode_pembayaran, LocalDateTime tanggal, Double total, Akun akun, String kasirName) {
         this.metode_pembayaran = metode_pembayaran;
         this.tanggal = tanggal;
@@ -44,7 +48,7 @@ public class Transaksi {
         this.akun = akun;
         this.kasirName = kasirName;
         this.paymentStatus = PaymentStatus.PENDING;
-        this.referenceNumber = generateReferenceNumber();
+        // referenceNumber diisi oleh ReferenceNumberGenerator di TransaksiService
     }
 
     @Column(nullable = false)
@@ -74,13 +78,6 @@ public class Transaksi {
     @OneToMany(mappedBy = "transaksi", cascade = CascadeType.ALL)
     private List<TransaksiDetail> details;
 
-    // Generate reference number: TRX-YYYYMMDD-XXX_
-    private String generateReferenceNumber() {
-        String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String random = String.format("%03d", new Random().nextInt(1000));
-        return "TRX-" + date + "-" + random;
-    }
-
     public enum MetodePembayaran {
         TUNAI,
         NON_TUNAI // Untuk QRIS/Midtrans
@@ -12,7 +12,9 @@ import lombok.Setter;
 public class TransaksiDetail {
 
     @Id
-    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    // SEQUENCE supaya saveAll detail dikirim sebagai satu JDBC batch
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaksi_detail_seq")
+    @SequenceGenerator(name = "transaksi_detail_seq", sequenceName = "transaksi_detail_seq", allocationSize = 50)
     @Column(name = "id")
     private Long idTransaksiDetail;
 
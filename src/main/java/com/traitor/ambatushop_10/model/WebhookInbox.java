@@ -0,0 +1,60 @@
+package com.traitor.ambatushop_10.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notifikasi Midtrans yang sudah diterima tapi belum tentu diproses (tabel webhook_inbox, changeset 016).
+ * Baris baru hanya dibuat lewat WebhookInboxRepository.insertIfAbsent, diproses oleh WebhookInboxService.
+ */
+@Entity
+@Table(name = "webhook_inbox", uniqueConstraints = @UniqueConstraint(name = "uk_webhook_inbox_order_status",
+        columnNames = { "order_id", "transaction_status" }))
+@Getter
+@Setter
+@NoArgsConstructor
+public class WebhookInbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false, length = 100)
+    private String orderId;
+
+    @Column(name = "transaction_status", nullable = false, length = 30)
+    private String transactionStatus;
+
+    @Column(name = "fraud_status", length = 30)
+    private String fraudStatus;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public enum Status {
+        PENDING,    // menunggu diproses / dicoba ulang
+        PROCESSED,  // status transaksi sudah diupdate
+        IGNORED,    // event basi (misalnya "pending" datang setelah "settlement")
+        FAILED      // gagal setelah app.webhook.max-attempts kali, perlu replay manual
+    }
+}
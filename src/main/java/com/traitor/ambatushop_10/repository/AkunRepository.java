@@ -2,10 +2,15 @@ package com.traitor.ambatushop_10.repository;
 
 import com.traitor.ambatushop_10.model.Akun;
 import org.springframework.data.jpa.repository.JpaRepository; // Untuk ngedapetin CRUD Operation-nya
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional; /* Untuk menyertakan alternatif ketika mereferensikan sebuah objek dengan tipe T yang bisa saja null
                            // intinya nanti bakalan mencegah NullPointerException, bisa aja pas di findById tapi ga ada, nah nanti 
                            // - bakalan dihindari error saat dicompile maupun saat dirun */
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 /**
  * AkunRepository akan extends JpaRepository untuk mendapatkan CRUD Operation-nya
@@ -22,4 +27,24 @@ public interface AkunRepository extends JpaRepository<Akun, Long> {
     Optional<Akun> findByEmail(String email);
     boolean existsByUsername(String username);
     List<Akun> findByRole(Akun.Role role);
+
+    // Heartbeat banyak akun sekaligus dalam satu UPDATE (dipakai flusher di UserSessionService).
+    // Tidak pernah memundurkan last_activity_at yang sudah lebih baru.
+    @Modifying
+    @Query("UPDATE Akun a SET a.lastActivityAt = :waktu WHERE a.idPegawai IN :ids "
+            + "AND (a.lastActivityAt IS NULL OR a.lastActivityAt < :waktu)")
+    int updateLastActivity(@Param("ids") Collection<Long> ids, @Param("waktu") LocalDateTime waktu);
+
+    // Tandai offline semua akun yang tidak ada heartbeat sejak batas (pakai idx_akun_online_activity)
+    @Modifying
+    @Query("UPDATE Akun a SET a.isOnline = false, a.sessionId = null "
+            + "WHERE a.isOnline = true AND a.lastActivityAt < :batas")
+    int markInactiveOffline(@Param("batas") LocalDateTime batas);
+
+    @Query("SELECT a FROM Akun a WHERE a.isOnline = true")
+    List<Akun> findOnline();
+
+    // [role, jumlah] per role, untuk inisialisasi counter statistik user
+    @Query("SELECT a.role, COUNT(a) FROM Akun a GROUP BY a.role")
+    List<Object[]> countGroupByRole();
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.traitor.ambatushop_10.repository;
+
+import com.traitor.ambatushop_10.model.DailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DailyRollupRepository akan extends JpaRepository untuk mendapatkan CRUD Operation-nya
+ * <DailyRollup, DailyRollup.Key>
+ * "DailyRollup" adalah entity type and "DailyRollup.Key" (tanggal, akun, metode) adalah ID type.
+ */
+
+@Repository
+public interface DailyRollupRepository extends JpaRepository<DailyRollup, DailyRollup.Key> {
+
+    // Tambah (atau kurangi, kalau nilainya negatif) rekap satu hari/kasir/metode secara atomik
+    @Modifying
+    @Query(value = """
+            INSERT INTO daily_rollup (tanggal, akun_id, metode_pembayaran, pemasukan, pengeluaran,
+                                      jumlah_transaksi, jumlah_keuangan)
+            VALUES (:tanggal, :akunId, :metode, :pemasukan, :pengeluaran, :jumlahTransaksi, :jumlahKeuangan)
+            ON DUPLICATE KEY UPDATE
+                pemasukan = pemasukan + VALUES(pemasukan),
+                pengeluaran = pengeluaran + VALUES(pengeluaran),
+                jumlah_transaksi = jumlah_transaksi + VALUES(jumlah_transaksi),
+                jumlah_keuangan = jumlah_keuangan + VALUES(jumlah_keuangan)
+            """, nativeQuery = true)
+    int upsert(@Param("tanggal") LocalDate tanggal,
+               @Param("akunId") Long akunId,
+               @Param("metode") String metode,
+               @Param("pemasukan") double pemasukan,
+               @Param("pengeluaran") double pengeluaran,
+               @Param("jumlahTransaksi") long jumlahTransaksi,
+               @Param("jumlahKeuangan") long jumlahKeuangan);
+
+    // ===== REBUILD (perbaiki rekap dari data asli) =====
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO daily_rollup (tanggal, akun_id, metode_pembayaran, pemasukan, pengeluaran,
+                                      jumlah_transaksi, jumlah_keuangan)
+            SELECT DATE(tanggal), akun_id, metode_pembayaran, SUM(total), 0, COUNT(*), 0
+            FROM transaksi
+            WHERE payment_status = 'PAID'
+            GROUP BY DATE(tanggal), akun_id, metode_pembayaran
+            """, nativeQuery = true)
+    int rebuildFromTransaksi();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO daily_rollup (tanggal, akun_id, metode_pembayaran, pemasukan, pengeluaran,
+                                      jumlah_transaksi, jumlah_keuangan)
+            SELECT DATE(tanggal), id_pegawai, 'KEUANGAN',
+                   SUM(CASE WHEN jenis = 'PEMASUKAN' THEN nominal ELSE 0 END),
+                   SUM(CASE WHEN jenis = 'PENGELUARAN' THEN nominal ELSE 0 END),
+                   0, COUNT(*)
+            FROM keuangan
+            GROUP BY DATE(tanggal), id_pegawai
+            """, nativeQuery = true)
+    int rebuildFromKeuangan();
+
+    // ===== READ =====
+
+    // [metode, SUM(pemasukan), SUM(pengeluaran), SUM(jumlah_transaksi), SUM(jumlah_keuangan)] per metode
+    @Query("""
+            SELECT r.id.metodePembayaran, SUM(r.pemasukan), SUM(r.pengeluaran),
+                   SUM(r.jumlahTransaksi), SUM(r.jumlahKeuangan)
+            FROM DailyRollup r
+            WHERE (:start IS NULL OR r.id.tanggal >= :start)
+              AND (:end IS NULL OR r.id.tanggal <= :end)
+            GROUP BY r.id.metodePembayaran
+            """)
+    List<Object[]> sumGroupByMetode(@Param("start") LocalDate start, @Param("end") LocalDate end);
+}
@@ -1,10 +1,18 @@
 package com.traitor.ambatushop_10.repository;
 
+import com.traitor.ambatushop_10.dto.ExportFingerprint;
+import com.traitor.ambatushop_10.dto.KeuanganExportRow;
 import com.traitor.ambatushop_10.model.Keuangan;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * KeuanganRepository akan extends JpaRepository untuk mendapatkan CRUD Operation-nya
@@ -17,6 +25,36 @@ public interface KeuanganRepository extends JpaRepository<Keuangan, Long> {
     List<Keuangan> findByTanggalBetween(LocalDateTime start, LocalDateTime end);
     List<Keuangan> findByJenis(Keuangan.JenisTransaksi jenis);
     List<Keuangan> findByAkunIdPegawai(Long idPegawai);
+
+    // Total nominal dan jumlah baris per jenis: [jenis, SUM(nominal), COUNT]
+    @Query("SELECT k.jenis, COALESCE(SUM(k.nominal), 0), COUNT(k) FROM Keuangan k GROUP BY k.jenis")
+    List<Object[]> sumNominalGroupByJenis();
+
+    // Baris export dibaca forward-only dengan fetch size, tidak pernah dimuat semuanya ke memory.
+    // Harus dipanggil di dalam @Transactional dan stream-nya ditutup setelah selesai.
+    // start/end null = tanpa batas; end eksklusif.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.traitor.ambatushop_10.dto.KeuanganExportRow(
+                k.idKeuangan, k.akun.idPegawai, k.jenis, k.keterangan, k.nominal, k.tanggal)
+            FROM Keuangan k
+            WHERE (:start IS NULL OR k.tanggal >= :start)
+              AND (:end IS NULL OR k.tanggal < :end)
+            ORDER BY k.idKeuangan
+            """)
+    Stream<KeuanganExportRow> streamExportRows(@Param("start") LocalDateTime start,
+                                               @Param("end") LocalDateTime end);
+
+    // Sidik jari data dalam rentang export (baris keuangan tidak pernah di-update, cukup count/max/sum)
+    @Query("""
+            SELECT COUNT(k) AS jumlah, MAX(k.idKeuangan) AS maxId, SUM(k.nominal) AS total, 0L AS checksum
+            FROM Keuangan k
+            WHERE (:start IS NULL OR k.tanggal >= :start)
+              AND (:end IS NULL OR k.tanggal < :end)
+            """)
+    ExportFingerprint exportFingerprint(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 //    List<Keuangan> findAll();
 }
-
@@ -0,0 +1,25 @@
+package com.traitor.ambatushop_10.repository;
+
+import com.traitor.ambatushop_10.model.ProdukHapus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+/**
+ * ProdukHapusRepository akan extends JpaRepository untuk mendapatkan CRUD Operation-nya
+ * <ProdukHapus, Long>
+ * "ProdukHapus" adalah entity type and "Long" (id produk yang dihapus) adalah ID type.
+ */
+
+@Repository
+public interface ProdukHapusRepository extends JpaRepository<ProdukHapus, Long> {
+
+    // ID produk yang dihapus di antara dua versi katalog (index idx_produk_hapus_versi)
+    @Query("SELECT h.idProduk FROM ProdukHapus h WHERE h.versi > :since AND h.versi <= :versi")
+    List<Long> findIdsDeletedBetween(@Param("since") long since, @Param("versi") long versi);
+
+    @Query("SELECT COALESCE(MAX(h.versi), 0) FROM ProdukHapus h")
+    long findMaxVersi();
+}
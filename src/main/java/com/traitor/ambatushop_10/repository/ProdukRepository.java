@@ -1,8 +1,13 @@
 package com.traitor.ambatushop_10.repository;
 
+import com.traitor.ambatushop_10.dto.StockLevel;
 import com.traitor.ambatushop_10.model.Produk;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,7 +22,46 @@ import java.util.Optional;
 public interface ProdukRepository extends JpaRepository<Produk, Long> {
     List<Produk> findByNamaProdukContainingIgnoreCase(String keyword);
 
-    // boolean existsByBarcode(String barcode);
+    // Kurangi stok secara atomik, return 0 kalau stok tidak cukup (tidak perlu load entity)
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE produk SET stok = stok - :jumlah, versi = :versi "
+            + "WHERE id_produk = :idProduk AND stok >= :jumlah", nativeQuery = true)
+    int decrementStok(@Param("idProduk") Long idProduk, @Param("jumlah") int jumlah, @Param("versi") long versi);
 
-    // Optional<Produk> findByBarcode(String barcode);
+    // Kembalikan stok secara atomik
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE produk SET stok = stok + :jumlah, versi = :versi WHERE id_produk = :idProduk",
+            nativeQuery = true)
+    int incrementStok(@Param("idProduk") Long idProduk, @Param("jumlah") int jumlah, @Param("versi") long versi);
+
+    // Stok + versi terbaru tanpa nama / harga (refresh ProdukCache setelah stok berubah)
+    @Query("SELECT p.idProduk, p.stok, p.versi FROM Produk p WHERE p.idProduk IN :ids")
+    List<Object[]> findStokVersi(@Param("ids") Collection<Long> ids);
+
+    // Produk yang berubah di antara dua versi katalog (index idx_produk_versi)
+    @Query("SELECT p FROM Produk p WHERE p.versi > :since AND p.versi <= :versi ORDER BY p.idProduk")
+    List<Produk> findChangedBetween(@Param("since") long since, @Param("versi") long versi);
+
+    @Query("SELECT COALESCE(MAX(p.versi), 0) FROM Produk p")
+    long findMaxVersi();
+
+    // Stok terbaru beberapa produk tanpa load entity lengkap (payload push "stock")
+    @Query("SELECT new com.traitor.ambatushop_10.dto.StockLevel(p.idProduk, p.stok) FROM Produk p WHERE p.idProduk IN :ids")
+    List<StockLevel> findStockLevels(@Param("ids") Collection<Long> ids);
+
+    // ID dan nama semua produk, untuk membangun ProdukSearchIndex
+    @Query("SELECT p.idProduk, p.namaProduk FROM Produk p")
+    List<Object[]> findAllNames();
+
+    // Nama terbaru beberapa produk (refresh ProdukSearchIndex setelah produk berubah)
+    @Query("SELECT p.idProduk, p.namaProduk FROM Produk p WHERE p.idProduk IN :ids")
+    List<Object[]> findNames(@Param("ids") Collection<Long> ids);
+
+    // ID dan barcode semua produk yang punya barcode, untuk membangun BarcodeIndex
+    @Query("SELECT p.idProduk, p.barcode FROM Produk p WHERE p.barcode IS NOT NULL")
+    List<Object[]> findAllBarcodes();
+
+    // Barcode terbaru beberapa produk (refresh BarcodeIndex setelah produk berubah)
+    @Query("SELECT p.idProduk, p.barcode FROM Produk p WHERE p.idProduk IN :ids")
+    List<Object[]> findBarcodes(@Param("ids") Collection<Long> ids);
 }
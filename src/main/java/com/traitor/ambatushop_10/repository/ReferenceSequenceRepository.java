@@ -0,0 +1,31 @@
+package com.traitor.ambatushop_10.repository;
+
+import com.traitor.ambatushop_10.model.ReferenceSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+/**
+ * ReferenceSequenceRepository akan extends JpaRepository untuk mendapatkan CRUD Operation-nya
+ * <ReferenceSequence, String>
+ * "ReferenceSequence" adalah entity type and "String" (yyyyMMdd) adalah ID type.
+ */
+
+@Repository
+public interface ReferenceSequenceRepository extends JpaRepository<ReferenceSequence, String> {
+
+    // Buat baris hari ini kalau belum ada; INSERT IGNORE supaya aman kalau dua node insert bersamaan
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO reference_sequence (seq_date, next_value) VALUES (:seqDate, 1)",
+            nativeQuery = true)
+    int initIfAbsent(@Param("seqDate") String seqDate);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReferenceSequence r WHERE r.seqDate = :seqDate")
+    Optional<ReferenceSequence> findForUpdate(@Param("seqDate") String seqDate);
+}
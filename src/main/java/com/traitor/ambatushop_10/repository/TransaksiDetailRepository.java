@@ -1,10 +1,19 @@
 package com.traitor.ambatushop_10.repository;
 
+import com.traitor.ambatushop_10.dto.ExportFingerprint;
+import com.traitor.ambatushop_10.dto.TransaksiDetailExportRow;
 import com.traitor.ambatushop_10.model.TransaksiDetail;
 import com.traitor.ambatushop_10.model.Transaksi;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * TransaksiDetailRepository akan extends JpaRepository untuk mendapatkan CRUD Operation-nya
@@ -15,4 +24,30 @@ import java.util.List;
 @Repository
 public interface TransaksiDetailRepository extends JpaRepository<TransaksiDetail, Long> {
     List<TransaksiDetail> findByTransaksi(Transaksi transaksi);
-}
\ No newline at end of file
+
+    // Baris export detail transaksi (rentang berdasarkan tanggal transaksinya), forward-only dengan fetch size
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.traitor.ambatushop_10.dto.TransaksiDetailExportRow(
+                d.idTransaksiDetail, t.idTransaksi, t.tanggal, p.idProduk, p.namaProduk,
+                d.jumlah, d.hargaSatuan, d.subtotal)
+            FROM TransaksiDetail d JOIN d.transaksi t JOIN d.produkId p
+            WHERE (:start IS NULL OR t.tanggal >= :start)
+              AND (:end IS NULL OR t.tanggal < :end)
+            ORDER BY d.idTransaksiDetail
+            """)
+    Stream<TransaksiDetailExportRow> streamExportRows(@Param("start") LocalDateTime start,
+                                                      @Param("end") LocalDateTime end);
+
+    // Detail tidak pernah di-update, cukup count/max/sum
+    @Query("""
+            SELECT COUNT(d) AS jumlah, MAX(d.idTransaksiDetail) AS maxId, SUM(d.subtotal) AS total, 0L AS checksum
+            FROM TransaksiDetail d JOIN d.transaksi t
+            WHERE (:start IS NULL OR t.tanggal >= :start)
+              AND (:end IS NULL OR t.tanggal < :end)
+            """)
+    ExportFingerprint exportFingerprint(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+}
@@ -1,12 +1,24 @@
 package com.traitor.ambatushop_10.repository;
 
+import com.traitor.ambatushop_10.dto.ExportFingerprint;
+import com.traitor.ambatushop_10.dto.PaymentStatusEvent;
+import com.traitor.ambatushop_10.dto.PendingTransaksi;
+import com.traitor.ambatushop_10.dto.TransaksiExportRow;
+import com.traitor.ambatushop_10.dto.TransaksiSummaryResponse;
 import com.traitor.ambatushop_10.model.Transaksi;
 import com.traitor.ambatushop_10.model.Akun;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * TransaksiRepository akan extends JpaRepository untuk mendapatkan CRUD Operation-nya
@@ -20,4 +32,130 @@ public interface TransaksiRepository extends JpaRepository<Transaksi, Long> {
     List<Transaksi> findByTanggalBetween(LocalDateTime start, LocalDateTime end);
     Optional<Transaksi> findByPaymentGatewayId(String paymentGatewayId);
     Optional<Transaksi> findByReferenceNumber(String referenceNumber);
+    List<Transaksi> findByPaymentStatusAndTanggalAfter(Transaksi.PaymentStatus paymentStatus, LocalDateTime tanggal);
+
+    /**
+     * Total transaksi untuk ringkasan keuangan, dihitung di database dalam satu query.
+     * Stock purchase dikenali dari payment_gateway_response (STOCK_PURCHASE/BELI/STOK), atau kalau kosong:
+     * transaksi TUNAI yang PAID dengan nomor referensi bukan TRX.
+     */
+    @Query(value = """
+            SELECT COALESCE(SUM(CASE WHEN x.paid = 1 AND x.stock_purchase = 0 THEN x.total END), 0) AS pemasukan,
+                   COALESCE(SUM(CASE WHEN x.stock_purchase = 1 THEN x.total END), 0) AS stockPurchase,
+                   COALESCE(SUM(x.paid), 0) AS totalPaid
+            FROM (SELECT total,
+                         payment_status = 'PAID' AS paid,
+                         CASE WHEN payment_gateway_response IS NOT NULL THEN
+                                  UPPER(payment_gateway_response) LIKE '%STOCK_PURCHASE%'
+                                  OR UPPER(payment_gateway_response) LIKE '%BELI%'
+                                  OR UPPER(payment_gateway_response) LIKE '%STOK%'
+                              ELSE metode_pembayaran = 'TUNAI'
+                                  AND payment_status = 'PAID'
+                                  AND COALESCE(reference_number, '') NOT LIKE '%TRX%'
+                         END AS stock_purchase
+                  FROM transaksi) x
+            """, nativeQuery = true)
+    TransaksiTotals sumTotals();
+
+    interface TransaksiTotals {
+        Number getPemasukan();
+        Number getStockPurchase();
+        Number getTotalPaid();
+    }
+
+    /**
+     * Listing transaksi dengan keyset pagination di (tanggal, id), pakai index idx_transaksi_tanggal_id.
+     * Semua filter opsional (null = tidak difilter). Halaman pertama: cursorTanggal dan cursorId null.
+     */
+    @Query("""
+            SELECT new com.traitor.ambatushop_10.dto.TransaksiSummaryResponse(
+                t.idTransaksi, t.referenceNumber, t.tanggal, t.total, t.metode_pembayaran, t.paymentStatus, a.username)
+            FROM Transaksi t JOIN t.akun a
+            WHERE (:start IS NULL OR t.tanggal >= :start)
+              AND (:end IS NULL OR t.tanggal <= :end)
+              AND (:akunId IS NULL OR a.idPegawai = :akunId)
+              AND (:status IS NULL OR t.paymentStatus = :status)
+              AND (:metode IS NULL OR t.metode_pembayaran = :metode)
+              AND (:cursorTanggal IS NULL
+                   OR t.tanggal < :cursorTanggal
+                   OR (t.tanggal = :cursorTanggal AND t.idTransaksi < :cursorId))
+            ORDER BY t.tanggal DESC, t.idTransaksi DESC
+            """)
+    List<TransaksiSummaryResponse> findPage(@Param("start") LocalDateTime start,
+                                            @Param("end") LocalDateTime end,
+                                            @Param("akunId") Long akunId,
+                                            @Param("status") Transaksi.PaymentStatus status,
+                                            @Param("metode") Transaksi.MetodePembayaran metode,
+                                            @Param("cursorTanggal") LocalDateTime cursorTanggal,
+                                            @Param("cursorId") Long cursorId,
+                                            Pageable pageable);
+
+    // Baris export transaksi, dibaca forward-only dengan fetch size (lihat KeuanganRepository.streamExportRows)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.traitor.ambatushop_10.dto.TransaksiExportRow(
+                t.idTransaksi, t.referenceNumber, t.tanggal, t.akun.idPegawai, t.kasirName,
+                t.metode_pembayaran, t.paymentStatus, t.total)
+            FROM Transaksi t
+            WHERE (:start IS NULL OR t.tanggal >= :start)
+              AND (:end IS NULL OR t.tanggal < :end)
+            ORDER BY t.idTransaksi
+            """)
+    Stream<TransaksiExportRow> streamExportRows(@Param("start") LocalDateTime start,
+                                                @Param("end") LocalDateTime end);
+
+    // Status transaksi bisa berubah (PENDING -> PAID, dst.), jadi checksum ikut menghitung status per baris
+    @Query(value = """
+            SELECT COUNT(*) AS jumlah, MAX(id) AS maxId, SUM(total) AS total,
+                   COALESCE(SUM(CRC32(CONCAT(id, ':', payment_status))), 0) AS checksum
+            FROM transaksi
+            WHERE (:start IS NULL OR tanggal >= :start)
+              AND (:end IS NULL OR tanggal < :end)
+            """, nativeQuery = true)
+    ExportFingerprint exportFingerprint(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Transaksi NON_TUNAI yang masih PENDING dan dibuat sebelum :batas, urut (tanggal, id) dengan keyset
+     * pagination; pakai index idx_transaksi_status_tanggal. Halaman pertama: cursorTanggal dan cursorId null.
+     */
+    @Query("""
+            SELECT new com.traitor.ambatushop_10.dto.PendingTransaksi(t.idTransaksi, t.paymentGatewayId, t.tanggal)
+            FROM Transaksi t
+            WHERE t.paymentStatus = com.traitor.ambatushop_10.model.Transaksi.PaymentStatus.PENDING
+              AND t.metode_pembayaran = com.traitor.ambatushop_10.model.Transaksi.MetodePembayaran.NON_TUNAI
+              AND t.tanggal < :batas
+              AND (:cursorTanggal IS NULL
+                   OR t.tanggal > :cursorTanggal
+                   OR (t.tanggal = :cursorTanggal AND t.idTransaksi > :cursorId))
+            ORDER BY t.tanggal, t.idTransaksi
+            """)
+    List<PendingTransaksi> findPendingBefore(@Param("batas") LocalDateTime batas,
+                                             @Param("cursorTanggal") LocalDateTime cursorTanggal,
+                                             @Param("cursorId") Long cursorId,
+                                             Pageable pageable);
+
+    // [jumlah, tanggal tertua] transaksi NON_TUNAI PENDING sebelum :batas (backlog rekonsiliasi)
+    @Query("""
+            SELECT COUNT(t), MIN(t.tanggal)
+            FROM Transaksi t
+            WHERE t.paymentStatus = com.traitor.ambatushop_10.model.Transaksi.PaymentStatus.PENDING
+              AND t.metode_pembayaran = com.traitor.ambatushop_10.model.Transaksi.MetodePembayaran.NON_TUNAI
+              AND t.tanggal < :batas
+            """)
+    List<Object[]> pendingBacklog(@Param("batas") LocalDateTime batas);
+
+    // Transaksi PAID yang ditandai perlu ditinjau manual (pembayaran terlambat, stok tidak cukup)
+    long countByPerluTinjauanTrue();
+
+    // Status pembayaran saja, tanpa details / akun (PaymentStatusRegistry saat cache kosong)
+    @Query("""
+            SELECT new com.traitor.ambatushop_10.dto.PaymentStatusEvent(
+                t.idTransaksi, t.referenceNumber, t.paymentStatus, t.metode_pembayaran, t.total)
+            FROM Transaksi t
+            WHERE t.idTransaksi = :id
+            """)
+    Optional<PaymentStatusEvent> findPaymentStatus(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.traitor.ambatushop_10.repository;
+
+import com.traitor.ambatushop_10.model.WebhookInbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * WebhookInboxRepository akan extends JpaRepository untuk mendapatkan CRUD Operation-nya
+ * <WebhookInbox, Long>
+ * "WebhookInbox" adalah entity type and "Long" adalah ID type.
+ */
+
+@Repository
+public interface WebhookInboxRepository extends JpaRepository<WebhookInbox, Long> {
+
+    /**
+     * Simpan notifikasi kalau (order_id, transaction_status) belum ada. Return 1 kalau baris baru,
+     * 0 kalau duplikat (retry Midtrans).
+     * INSERT IGNORE, bukan ON DUPLICATE KEY UPDATE id = id: yang terakhir dihitung 1 baris oleh MariaDB
+     * Connector/J (found rows, bukan affected rows), jadi duplikat tidak bisa dibedakan. IGNORE juga
+     * menelan error data (misalnya nilai terlalu panjang), jadi panjang kolom dicek dulu di WebhookInboxService.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT IGNORE INTO webhook_inbox (order_id, transaction_status, fraud_status, payload, status,
+                                              attempts, received_at)
+            VALUES (:orderId, :transactionStatus, :fraudStatus, :payload, 'PENDING', 0, :receivedAt)
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("orderId") String orderId,
+                       @Param("transactionStatus") String transactionStatus,
+                       @Param("fraudStatus") String fraudStatus,
+                       @Param("payload") String payload,
+                       @Param("receivedAt") LocalDateTime receivedAt);
+
+    Optional<WebhookInbox> findByOrderIdAndTransactionStatus(String orderId, String transactionStatus);
+
+    List<WebhookInbox> findByOrderIdOrderByIdAsc(String orderId);
+
+    // Pakai index idx_webhook_inbox_status_id
+    List<WebhookInbox> findByStatusOrderByIdAsc(WebhookInbox.Status status, Pageable pageable);
+
+    List<WebhookInbox> findByStatusOrderByIdDesc(WebhookInbox.Status status, Pageable pageable);
+
+    // [status, jumlah]
+    @Query("SELECT w.status, COUNT(w) FROM WebhookInbox w GROUP BY w.status")
+    List<Object[]> countGroupByStatus();
+
+    @Modifying
+    @Query("""
+            UPDATE WebhookInbox w
+            SET w.status = com.traitor.ambatushop_10.model.WebhookInbox.Status.PENDING,
+                w.attempts = 0, w.lastError = NULL, w.processedAt = NULL
+            WHERE w.id IN :ids
+            """)
+    int resetForReplay(@Param("ids") List<Long> ids);
+}
@@ -14,11 +14,16 @@ public class AkunService {
     private final AkunRepository akunRepository;
     private final PasswordEncoder passwordEncoder;
     private final ValidationService validationService;
+    private final CustomUserDetailsService userDetailsService;
+    private final UserSessionService userSessionService;
 
-    public AkunService(AkunRepository akunRepository, PasswordEncoder passwordEncoder, ValidationService validationService) {
+    public AkunService(AkunRepository akunRepository, PasswordEncoder passwordEncoder, ValidationService validationService,
+            CustomUserDetailsService userDetailsService, UserSessionService userSessionService) {
         this.akunRepository = akunRepository;
         this.passwordEncoder = passwordEncoder;
         this.validationService = validationService;
+        this.userDetailsService = userDetailsService;
+        this.userSessionService = userSessionService;
     }
 
     // GET semua akun
@@ -82,12 +87,17 @@ public class AkunService {
         // Encode password
         akun.setPassword(passwordEncoder.encode(akun.getPassword()));
 
-        return akunRepository.save(akun);
+        Akun saved = akunRepository.save(akun);
+        userDetailsService.evict(saved.getUsername());
+        userSessionService.akunCreated(saved);
+        return saved;
     }
 
     // UPDATE akun - DENGAN VALIDASI
     public Akun updateAkun(Long id, Akun akunUpdate) {
         Akun existing = getAkunById(id);
+        String oldUsername = existing.getUsername();
+        Akun.Role oldRole = existing.getRole();
 
         // Sanitize input
         if (akunUpdate.getUsername() != null) {
@@ -147,13 +157,21 @@ public class AkunService {
             existing.setRole(akunUpdate.getRole());
         }
 
-        return akunRepository.save(existing);
+        Akun saved = akunRepository.save(existing);
+
+        // Buang cache login untuk username lama & baru supaya password / role baru langsung berlaku
+        userDetailsService.evict(oldUsername);
+        userDetailsService.evict(saved.getUsername());
+        userSessionService.akunUpdated(oldRole, saved);
+        return saved;
     }
 
     // DELETE akun
     public void deleteAkun(Long id) {
         Akun akun = getAkunById(id);
         akunRepository.delete(akun);
+        userDetailsService.evict(akun.getUsername());
+        userSessionService.akunDeleted(akun);
     }
 
     // SEARCH akun by username/email
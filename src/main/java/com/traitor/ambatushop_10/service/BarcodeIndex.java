@@ -0,0 +1,119 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.ProdukChangedEvent;
+import com.traitor.ambatushop_10.repository.ProdukRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index barcode -> ID produk di memori, untuk scan di kasir (GET /api/barcode/check/{barcode}).
+ *
+ * Lookup cukup satu get di ConcurrentHashMap (tanpa lock, tanpa query). Data produknya diambil dari
+ * ProdukCache, yang diisi lebih dulu dengan semua produk yang punya barcode saat index dibangun.
+ *
+ * Dibangun saat startup dan di-refresh setelah commit lewat ProdukChangedEvent (barcode produk yang
+ * berubah dibaca ulang), jadi barcode dari transaksi yang rollback tidak pernah masuk index.
+ * Keunikan tetap dijaga constraint unique di kolom produk.barcode (changeset 008).
+ */
+@Service
+@Slf4j
+public class BarcodeIndex {
+
+    private final ProdukRepository produkRepository;
+    private final ProdukCache produkCache;
+
+    private final Map<String, Long> idByBarcode = new ConcurrentHashMap<>();
+    private final Map<Long, String> barcodeById = new HashMap<>(); // dijaga synchronized
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    public BarcodeIndex(ProdukRepository produkRepository, ProdukCache produkCache) {
+        this.produkRepository = produkRepository;
+        this.produkCache = produkCache;
+    }
+
+    // Barcode dari input / scanner: spasi di ujung dibuang, string kosong = tidak ada barcode
+    public static String normalize(String barcode) {
+        if (barcode == null || barcode.isBlank()) {
+            return null;
+        }
+        return barcode.trim();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = produkRepository.findAllBarcodes();
+        List<Long> produkIds;
+        synchronized (this) {
+            idByBarcode.clear();
+            barcodeById.clear();
+            for (Object[] row : rows) {
+                setLocked((Long) row[0], normalize((String) row[1]));
+            }
+            produkIds = List.copyOf(barcodeById.keySet());
+        }
+        // Scan pertama pun tidak perlu ke DB
+        produkCache.preload(produkIds);
+        log.info("🏷️ Index barcode: {} produk ({} ms)", rows.size(), System.currentTimeMillis() - start);
+    }
+
+    // ID produk pemilik barcode, null kalau tidak terdaftar
+    public Long find(String barcode) {
+        lookups.incrementAndGet();
+        String key = normalize(barcode);
+        Long idProduk = key == null ? null : idByBarcode.get(key);
+        if (idProduk != null) {
+            hits.incrementAndGet();
+        }
+        return idProduk;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProdukChanged(ProdukChangedEvent event) {
+        if (event.produkIds().isEmpty()) {
+            return;
+        }
+        // Baca ulang di dalam lock, supaya hasil baca yang lebih lama tidak menimpa yang lebih baru
+        synchronized (this) {
+            Map<Long, String> fresh = new HashMap<>();
+            for (Object[] row : produkRepository.findBarcodes(event.produkIds())) {
+                fresh.put((Long) row[0], normalize((String) row[1]));
+            }
+            for (Long idProduk : event.produkIds()) {
+                setLocked(idProduk, fresh.get(idProduk)); // produk dihapus / barcode dikosongkan -> null
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", idByBarcode.size());
+        stats.put("lookups", lookups.get());
+        stats.put("hits", hits.get());
+        return stats;
+    }
+
+    private void setLocked(Long idProduk, String barcode) {
+        String old = barcodeById.remove(idProduk);
+        if (old != null) {
+            // Hanya kalau barcode lama masih milik produk ini (bisa sudah dipakai produk lain)
+            idByBarcode.remove(old, idProduk);
+        }
+        if (barcode != null) {
+            idByBarcode.put(barcode, idProduk);
+            barcodeById.put(idProduk, barcode);
+        }
+    }
+}
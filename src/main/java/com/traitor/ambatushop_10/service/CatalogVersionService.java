@@ -0,0 +1,73 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.repository.ProdukHapusRepository;
+import com.traitor.ambatushop_10.repository.ProdukRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Versi katalog produk, naik terus setiap ada perubahan produk (create / update / delete di ProdukService,
+ * perubahan stok di TransaksiService). Nilai versi disimpan di kolom produk.versi / produk_hapus.versi.
+ *
+ * Versi diambil di dalam transaksi DB yang menulisnya, dan commit bisa terjadi tidak berurutan. Karena itu
+ * pembaca (ETag, delta sync) memakai stableVersion(): versi tertinggi yang semua versi di bawahnya sudah
+ * selesai (commit / rollback). Client yang sync sampai stableVersion() tidak akan melewatkan baris yang
+ * commit belakangan dengan versi lebih kecil.
+ *
+ * Counter di memori (diinisialisasi dari MAX(versi) saat startup), sama seperti state lain di aplikasi ini
+ * yang mengasumsikan satu instance.
+ */
+@Service
+@Slf4j
+public class CatalogVersionService {
+
+    private final ProdukRepository produkRepository;
+    private final ProdukHapusRepository produkHapusRepository;
+
+    private long counter;
+    // Versi yang sudah dibagikan tapi transaksinya belum selesai
+    private final NavigableSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+    public CatalogVersionService(ProdukRepository produkRepository, ProdukHapusRepository produkHapusRepository) {
+        this.produkRepository = produkRepository;
+        this.produkHapusRepository = produkHapusRepository;
+    }
+
+    // Sebelum web server menerima request, supaya versi baru tidak pernah lebih kecil dari yang ada di DB
+    @PostConstruct
+    public synchronized void init() {
+        counter = Math.max(produkRepository.findMaxVersi(), produkHapusRepository.findMaxVersi());
+        log.info("📦 Versi katalog produk: {}", counter);
+    }
+
+    /**
+     * Versi baru untuk perubahan di transaksi yang sedang berjalan. Dilepas otomatis setelah transaksi
+     * selesai; kalau rollback, versi itu tidak pernah muncul di DB (celah versi tidak masalah).
+     */
+    public synchronized long next() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Versi katalog harus diambil di dalam transaksi");
+        }
+        long versi = ++counter;
+        inFlight.add(versi);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                inFlight.remove(versi);
+            }
+        });
+        return versi;
+    }
+
+    // Versi tertinggi yang semua perubahannya sudah terlihat di DB
+    public synchronized long stableVersion() {
+        Long lowest = inFlight.ceiling(Long.MIN_VALUE);
+        return lowest == null ? counter : lowest - 1;
+    }
+}
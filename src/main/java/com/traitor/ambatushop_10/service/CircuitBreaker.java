@@ -0,0 +1,65 @@
+package com.traitor.ambatushop_10.service;
+
+/**
+ * Circuit breaker sederhana untuk panggilan ke layanan luar.
+ *
+ * CLOSED    : panggilan jalan normal; failureThreshold kegagalan berturut-turut -> OPEN
+ * OPEN      : panggilan langsung ditolak selama openMillis (tidak menunggu timeout gateway yang mati)
+ * HALF_OPEN : satu panggilan percobaan; berhasil -> CLOSED, gagal -> OPEN lagi
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+    }
+
+    // Return false kalau panggilan harus ditolak sekarang
+    synchronized boolean tryAcquire(long now) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now < openUntil) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    synchronized void onFailure(long now) {
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openUntil = now + openMillis;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,272 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.ExportFormat;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Format biner kolumnar ringkas (".acol") untuk tarikan data BI, gaya Parquet tapi tanpa dependency.
+ *
+ * Baris dikumpulkan per row group (ROW_GROUP_SIZE baris), lalu tiap kolom ditulis berurutan
+ * dengan encoding yang cocok untuk tipenya. Semua angka varint memakai format LEB128 unsigned.
+ *
+ * <pre>
+ * file     := "ACOL" version:u8(=1) columnCount:varint {name:str type:u8}* rowGroup* 0:varint
+ * rowGroup := rowCount:varint chunk{columnCount}
+ * chunk    := byteLength:varint encoding:u8 presence:byte[ceil(rowCount/8)] values
+ * str      := byteLength:varint utf8
+ *
+ * type     : 0 LONG, 1 DOUBLE, 2 STRING, 3 TIMESTAMP (urutan ExportTable.Type)
+ * presence : bit i (LSB dulu) = 1 kalau baris i tidak null; values hanya berisi nilai yang tidak null
+ * encoding : 1 DELTA     - zigzag varint selisih dengan nilai sebelumnya (nilai pertama dari 0)
+ *            2 PLAIN_F64 - 8 byte IEEE 754 big-endian per nilai
+ *            3 INT_F64   - double yang semuanya bulat, ditulis zigzag varint (nominal uang)
+ *            4 PLAIN_STR - str per nilai
+ *            5 DICT_STR  - dictSize:varint str{dictSize}, lalu index:varint per nilai
+ * </pre>
+ * TIMESTAMP disimpan sebagai millis dari 1970-01-01T00:00 tanpa konversi zona (sama dengan LocalDateTime).
+ */
+@Component
+public class ColumnarTableWriter implements ExportTableWriter {
+
+    static final byte[] MAGIC = {'A', 'C', 'O', 'L'};
+    static final int VERSION = 1;
+    static final int ROW_GROUP_SIZE = 8192;
+    private static final int MAX_DICTIONARY_SIZE = 4096;
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    static final int ENC_DELTA = 1;
+    static final int ENC_PLAIN_F64 = 2;
+    static final int ENC_INT_F64 = 3;
+    static final int ENC_PLAIN_STR = 4;
+    static final int ENC_DICT_STR = 5;
+
+    @Override
+    public ExportFormat format() {
+        return ExportFormat.COLUMNAR;
+    }
+
+    @Override
+    public <T> long write(ExportTable<T> table, Iterator<T> rows, OutputStream out, LongConsumer progress)
+            throws IOException {
+        List<ExportTable.Column<T>> columns = table.columns();
+        Bytes header = new Bytes(256);
+        header.put(MAGIC);
+        header.put(VERSION);
+        header.putVarint(columns.size());
+        for (ExportTable.Column<T> column : columns) {
+            header.putString(column.header());
+            header.put(column.type().ordinal());
+        }
+        header.writeTo(out);
+
+        // Nilai satu row group, per kolom (referensi dari getter, tidak di-copy)
+        Object[][] group = new Object[columns.size()][ROW_GROUP_SIZE];
+        Bytes chunk = new Bytes(64 * 1024);
+        Bytes prefix = new Bytes(16);
+
+        long count = 0;
+        int inGroup = 0;
+        while (rows.hasNext()) {
+            T item = rows.next();
+            for (int c = 0; c < columns.size(); c++) {
+                group[c][inGroup] = columns.get(c).value(item);
+            }
+            inGroup++;
+            count++;
+
+            if (inGroup == ROW_GROUP_SIZE) {
+                writeRowGroup(columns, group, inGroup, chunk, prefix, out);
+                inGroup = 0;
+            }
+            if (count % PROGRESS_EVERY_ROWS == 0) {
+                progress.accept(count);
+            }
+        }
+        if (inGroup > 0) {
+            writeRowGroup(columns, group, inGroup, chunk, prefix, out);
+        }
+
+        prefix.reset();
+        prefix.putVarint(0);
+        prefix.writeTo(out);
+        progress.accept(count);
+        return count;
+    }
+
+    private <T> void writeRowGroup(List<ExportTable.Column<T>> columns, Object[][] group, int rowCount,
+            Bytes chunk, Bytes prefix, OutputStream out) throws IOException {
+        prefix.reset();
+        prefix.putVarint(rowCount);
+        prefix.writeTo(out);
+
+        for (int c = 0; c < columns.size(); c++) {
+            Object[] values = group[c];
+            chunk.reset();
+            switch (columns.get(c).type()) {
+                case LONG, TIMESTAMP -> encodeLongs(values, rowCount, chunk);
+                case DOUBLE -> encodeDoubles(values, rowCount, chunk);
+                case STRING -> encodeStrings(values, rowCount, chunk);
+            }
+
+            prefix.reset();
+            prefix.putVarint(chunk.size());
+            prefix.writeTo(out);
+            chunk.writeTo(out);
+
+            // Lepas referensi supaya baris row group ini bisa di-GC
+            Arrays.fill(values, 0, rowCount, null);
+        }
+    }
+
+    private static void encodeLongs(Object[] values, int rowCount, Bytes chunk) {
+        chunk.put(ENC_DELTA);
+        putPresence(values, rowCount, chunk);
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            if (values[i] == null) continue;
+            long value = values[i] instanceof LocalDateTime t
+                    ? t.toInstant(ZoneOffset.UTC).toEpochMilli()
+                    : ((Number) values[i]).longValue();
+            chunk.putZigZag(value - previous);
+            previous = value;
+        }
+    }
+
+    private static void encodeDoubles(Object[] values, int rowCount, Bytes chunk) {
+        boolean integral = true;
+        for (int i = 0; i < rowCount && integral; i++) {
+            if (values[i] == null) continue;
+            double d = ((Number) values[i]).doubleValue();
+            integral = d == Math.rint(d) && Math.abs(d) < MAX_EXACT_DOUBLE;
+        }
+
+        chunk.put(integral ? ENC_INT_F64 : ENC_PLAIN_F64);
+        putPresence(values, rowCount, chunk);
+        for (int i = 0; i < rowCount; i++) {
+            if (values[i] == null) continue;
+            double d = ((Number) values[i]).doubleValue();
+            if (integral) {
+                chunk.putZigZag((long) d);
+            } else {
+                chunk.putLongBigEndian(Double.doubleToLongBits(d));
+            }
+        }
+    }
+
+    // Kolom dengan sedikit nilai unik (jenis, status, nama produk) jauh lebih kecil dengan dictionary
+    private static void encodeStrings(Object[] values, int rowCount, Bytes chunk) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (int i = 0; i < rowCount && dictionary.size() <= MAX_DICTIONARY_SIZE; i++) {
+            if (values[i] != null) {
+                dictionary.putIfAbsent(values[i].toString(), dictionary.size());
+            }
+        }
+        boolean useDictionary = dictionary.size() <= MAX_DICTIONARY_SIZE;
+
+        chunk.put(useDictionary ? ENC_DICT_STR : ENC_PLAIN_STR);
+        putPresence(values, rowCount, chunk);
+        if (useDictionary) {
+            String[] entries = new String[dictionary.size()];
+            dictionary.forEach((value, index) -> entries[index] = value);
+            chunk.putVarint(entries.length);
+            for (String entry : entries) {
+                chunk.putString(entry);
+            }
+        }
+        for (int i = 0; i < rowCount; i++) {
+            if (values[i] == null) continue;
+            if (useDictionary) {
+                chunk.putVarint(dictionary.get(values[i].toString()));
+            } else {
+                chunk.putString(values[i].toString());
+            }
+        }
+    }
+
+    private static void putPresence(Object[] values, int rowCount, Bytes chunk) {
+        for (int i = 0; i < rowCount; i += 8) {
+            int bits = 0;
+            for (int b = 0; b < 8 && i + b < rowCount; b++) {
+                if (values[i + b] != null) bits |= 1 << b;
+            }
+            chunk.put(bits);
+        }
+    }
+
+    // Buffer byte yang bisa tumbuh dan dipakai ulang antar chunk
+    private static final class Bytes {
+        private byte[] buf;
+        private int size;
+
+        Bytes(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void put(int b) {
+            ensure(1);
+            buf[size++] = (byte) b;
+        }
+
+        void put(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void putVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[size++] = (byte) value;
+        }
+
+        void putZigZag(long value) {
+            putVarint((value << 1) ^ (value >> 63));
+        }
+
+        void putLongBigEndian(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void putString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            putVarint(utf8.length);
+            put(utf8);
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(buf, 0, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.ExportFormat;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * CSV (RFC 4180, UTF-8, koma sebagai pemisah, baris diakhiri CRLF).
+ *
+ * Nilai ditulis langsung sebagai byte ke satu buffer yang dipakai ulang lalu di-flush ke out
+ * (biasanya output stream servlet), tanpa Writer/String perantara untuk angka dan tanggal.
+ * Tanggal ditulis "yyyy-MM-dd HH:mm:ss", nilai null jadi kolom kosong.
+ */
+@Component
+public class CsvTableWriter implements ExportTableWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Cukup untuk satu nilai angka/tanggal; string panjang ditulis per karakter dengan cek sisa buffer
+    private static final int MAX_SCALAR_BYTES = 32;
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    @Override
+    public ExportFormat format() {
+        return ExportFormat.CSV;
+    }
+
+    @Override
+    public <T> long write(ExportTable<T> table, Iterator<T> rows, OutputStream out, LongConsumer progress)
+            throws IOException {
+        List<ExportTable.Column<T>> columns = table.columns();
+        ByteSink sink = new ByteSink(out);
+
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) sink.put((byte) ',');
+            sink.putString(columns.get(i).header());
+        }
+        sink.putLineEnd();
+
+        long count = 0;
+        while (rows.hasNext()) {
+            T item = rows.next();
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) sink.put((byte) ',');
+                ExportTable.Column<T> column = columns.get(i);
+                Object value = column.value(item);
+                if (value == null) {
+                    continue;
+                }
+                switch (column.type()) {
+                    case LONG -> sink.putLong(((Number) value).longValue());
+                    case DOUBLE -> sink.putDouble(((Number) value).doubleValue());
+                    case STRING -> sink.putString(value.toString());
+                    case TIMESTAMP -> sink.putTimestamp((LocalDateTime) value);
+                }
+            }
+            sink.putLineEnd();
+
+            if (++count % PROGRESS_EVERY_ROWS == 0) {
+                progress.accept(count);
+            }
+        }
+
+        sink.flush();
+        progress.accept(count);
+        return count;
+    }
+
+    private static final class ByteSink {
+        private final OutputStream out;
+        private final byte[] buf = new byte[BUFFER_SIZE];
+        private int pos;
+
+        ByteSink(OutputStream out) {
+            this.out = out;
+        }
+
+        void put(byte b) throws IOException {
+            if (pos == buf.length) flush();
+            buf[pos++] = b;
+        }
+
+        void putLineEnd() throws IOException {
+            put((byte) '\r');
+            put((byte) '\n');
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(MAX_SCALAR_BYTES);
+            if (value == Long.MIN_VALUE) {
+                putAscii(Long.toString(value));
+                return;
+            }
+            if (value < 0) {
+                buf[pos++] = '-';
+                value = -value;
+            }
+            int start = pos;
+            do {
+                buf[pos++] = (byte) ('0' + (value % 10));
+                value /= 10;
+            } while (value != 0);
+            reverse(start, pos - 1);
+        }
+
+        // Nominal uang biasanya bulat: tulis sebagai long. Selain itu plain string (tanpa notasi E)
+        void putDouble(double value) throws IOException {
+            if (value == Math.rint(value) && Math.abs(value) < MAX_EXACT_DOUBLE) {
+                putLong((long) value);
+            } else if (Double.isFinite(value)) {
+                putAscii(BigDecimal.valueOf(value).stripTrailingZeros().toPlainString());
+            } else {
+                putAscii(Double.toString(value));
+            }
+        }
+
+        void putTimestamp(LocalDateTime t) throws IOException {
+            ensure(MAX_SCALAR_BYTES);
+            putDigits(t.getYear(), 4);
+            buf[pos++] = '-';
+            putDigits(t.getMonthValue(), 2);
+            buf[pos++] = '-';
+            putDigits(t.getDayOfMonth(), 2);
+            buf[pos++] = ' ';
+            putDigits(t.getHour(), 2);
+            buf[pos++] = ':';
+            putDigits(t.getMinute(), 2);
+            buf[pos++] = ':';
+            putDigits(t.getSecond(), 2);
+        }
+
+        // Dikutip hanya kalau perlu (ada koma, kutip, atau baris baru); karakter di-encode UTF-8 langsung
+        void putString(String s) throws IOException {
+            boolean quote = needsQuote(s);
+            if (quote) put((byte) '"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"') {
+                    put((byte) '"');
+                    put((byte) '"');
+                } else if (c < 0x80) {
+                    put((byte) c);
+                } else if (c < 0x800) {
+                    put((byte) (0xC0 | (c >> 6)));
+                    put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                        && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    put((byte) (0xF0 | (cp >> 18)));
+                    put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                    put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    put((byte) (0x80 | (cp & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    put((byte) '?');
+                } else {
+                    put((byte) (0xE0 | (c >> 12)));
+                    put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+            if (quote) put((byte) '"');
+        }
+
+        void flush() throws IOException {
+            if (pos > 0) {
+                out.write(buf, 0, pos);
+                pos = 0;
+            }
+        }
+
+        private void putAscii(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                put((byte) s.charAt(i));
+            }
+        }
+
+        private void putDigits(int value, int width) {
+            for (int i = pos + width - 1; i >= pos; i--) {
+                buf[i] = (byte) ('0' + (value % 10));
+                value /= 10;
+            }
+            pos += width;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buf.length - pos < bytes) flush();
+        }
+
+        private void reverse(int from, int to) {
+            while (from < to) {
+                byte tmp = buf[from];
+                buf[from++] = buf[to];
+                buf[to--] = tmp;
+            }
+        }
+
+        private static boolean needsQuote(String s) {
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+            }
+            return false;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.traitor.ambatushop_10.service;
 
 import com.traitor.ambatushop_10.model.Akun;
 import com.traitor.ambatushop_10.repository.AkunRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,35 +12,76 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Lookup user untuk login, dengan cache singkat per username supaya gelombang login saat ganti shift
+ * tidak query tabel akun berulang-ulang. Cache dibuang oleh AkunService setiap akun dibuat / diubah /
+ * dihapus, jadi perubahan password atau role langsung berlaku; TTL hanya jaring pengaman.
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
+    // Jumlah username yang disimpan; lebih dari ini cache dikosongkan (jumlah pegawai jauh di bawahnya)
+    private static final int MAX_CACHED_USERS = 1_000;
+
     private final AkunRepository akunRepository;
+    private final long ttlMillis;
+
+    // Yang disimpan hanya data mentah; objek User dibuat baru setiap lookup karena
+    // ProviderManager menghapus password di objek User setelah autentikasi berhasil
+    private final Map<String, CachedUser> cache = new ConcurrentHashMap<>();
+
+    private record CachedUser(String username, String passwordHash, String role, long expiresAtMillis) {
+        UserDetails toUserDetails() {
+            return new User(username, passwordHash,
+                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)));
+        }
+    }
 
-    public CustomUserDetailsService(AkunRepository akunRepository) {
+    public CustomUserDetailsService(AkunRepository akunRepository,
+            @Value("${app.auth.user-cache-ttl-seconds:60}") long ttlSeconds) {
         this.akunRepository = akunRepository;
+        this.ttlMillis = ttlSeconds * 1000;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        System.out.println("=== CustomUserDetailsService.loadUserByUsername ===");
-        System.out.println("Looking for user: " + username);
-        
+        long now = System.currentTimeMillis();
+        CachedUser cached = cache.get(username);
+        if (cached != null && cached.expiresAtMillis() > now) {
+            return cached.toUserDetails();
+        }
+
         Akun akun = akunRepository.findByUsername(username)
-            .orElseThrow(() -> {
-                System.out.println("User not found: " + username);
-                return new UsernameNotFoundException("User tidak ditemukan: " + username);
-            });
-        
-        System.out.println("User found: " + akun.getUsername());
-        System.out.println("Password: " + akun.getPassword());
-        System.out.println("Role: " + akun.getRole());
-        
-        return new User(
-            akun.getUsername(),
-            akun.getPassword(),
-            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + akun.getRole()))
-        );
+            .orElseThrow(() -> new UsernameNotFoundException("User tidak ditemukan: " + username));
+
+        CachedUser loaded = new CachedUser(akun.getUsername(), akun.getPassword(), String.valueOf(akun.getRole()),
+                now + ttlMillis);
+        if (ttlMillis > 0) {
+            if (cache.size() >= MAX_CACHED_USERS) {
+                cache.clear();
+            }
+            cache.put(username, loaded);
+        }
+        return loaded.toUserDetails();
+    }
+
+    // Dipanggil setiap data akun (password / role / username) berubah
+    public void evict(String username) {
+        if (username != null) {
+            cache.remove(username);
+        }
+    }
+
+    public void evictAll() {
+        cache.clear();
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void purgeExpiredUsers() {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(user -> user.expiresAtMillis() <= now);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.DailyRollupSummary;
+import com.traitor.ambatushop_10.dto.FinanceChangedEvent;
+import com.traitor.ambatushop_10.dto.FinancialSummary;
+import com.traitor.ambatushop_10.model.DailyRollup;
+import com.traitor.ambatushop_10.model.Keuangan;
+import com.traitor.ambatushop_10.model.Transaksi;
+import com.traitor.ambatushop_10.repository.DailyRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * Rekap harian (daily_rollup) yang di-update setiap kali transaksi masuk/keluar status PAID
+ * atau data keuangan ditambah/dihapus. Upsert jalan di transaksi DB yang sama dengan perubahan
+ * aslinya, jadi rekap ikut rollback kalau perubahan gagal.
+ *
+ * Dashboard cukup baca beberapa baris per hari, bukan menjumlahkan seluruh tabel transaksi.
+ * Kalau rekap dicurigai tidak sinkron, panggil rebuild() (endpoint POST /api/keuangan/rollup/rebuild).
+ */
+@Service
+@Slf4j
+public class DailyRollupService {
+
+    private final DailyRollupRepository dailyRollupRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public DailyRollupService(DailyRollupRepository dailyRollupRepository, ApplicationEventPublisher eventPublisher) {
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // sign = +1 saat transaksi menjadi PAID, -1 saat keluar dari PAID / dihapus
+    @Transactional
+    public void recordTransaksiPaid(Transaksi transaksi, int sign) {
+        LocalDate tanggal = transaksi.getTanggal().toLocalDate();
+        String metode = transaksi.getMetode_pembayaran().name();
+        double total = sign * transaksi.getTotal();
+
+        dailyRollupRepository.upsert(
+                tanggal,
+                transaksi.getAkun().getIdPegawai(),
+                metode,
+                total,
+                0,
+                sign,
+                0);
+        // Selisih yang sama dikirim ke dashboard lewat push (topik finance) setelah commit
+        eventPublisher.publishEvent(new FinanceChangedEvent(tanggal, metode, total, 0, sign, 0));
+    }
+
+    // sign = +1 saat data keuangan dibuat, -1 saat dihapus
+    @Transactional
+    public void recordKeuangan(Keuangan keuangan, int sign) {
+        double nominal = sign * keuangan.getNominal();
+        boolean pemasukan = keuangan.getJenis() == Keuangan.JenisTransaksi.PEMASUKAN;
+
+        dailyRollupRepository.upsert(
+                keuangan.getTanggal().toLocalDate(),
+                keuangan.getAkun().getIdPegawai(),
+                DailyRollup.METODE_KEUANGAN,
+                pemasukan ? nominal : 0,
+                pemasukan ? 0 : nominal,
+                0,
+                sign);
+        eventPublisher.publishEvent(new FinanceChangedEvent(keuangan.getTanggal().toLocalDate(),
+                DailyRollup.METODE_KEUANGAN, pemasukan ? nominal : 0, pemasukan ? 0 : nominal, 0, sign));
+    }
+
+    // Hitung ulang seluruh rekap dari tabel transaksi dan keuangan
+    @Transactional
+    public void rebuild() {
+        dailyRollupRepository.deleteAllRows();
+        int transaksiRows = dailyRollupRepository.rebuildFromTransaksi();
+        int keuanganRows = dailyRollupRepository.rebuildFromKeuangan();
+        log.info("Daily rollup dibangun ulang: {} baris transaksi, {} baris keuangan", transaksiRows, keuanganRows);
+    }
+
+    // Tabel baru dibuat (atau dikosongkan) -> isi dari data yang sudah ada
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (dailyRollupRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public DailyRollupSummary getSummary(LocalDate start, LocalDate end) {
+        double pemasukanTransaksi = 0;
+        long jumlahTransaksi = 0;
+        double pemasukanManual = 0;
+        double pengeluaran = 0;
+        long jumlahKeuangan = 0;
+
+        for (Object[] row : dailyRollupRepository.sumGroupByMetode(start, end)) {
+            String metode = (String) row[0];
+            if (DailyRollup.METODE_KEUANGAN.equals(metode)) {
+                pemasukanManual += ((Number) row[1]).doubleValue();
+                pengeluaran += ((Number) row[2]).doubleValue();
+                jumlahKeuangan += ((Number) row[4]).longValue();
+            } else {
+                pemasukanTransaksi += ((Number) row[1]).doubleValue();
+                jumlahTransaksi += ((Number) row[3]).longValue();
+            }
+        }
+
+        double labaBersih = pemasukanTransaksi + pemasukanManual - pengeluaran;
+        return new DailyRollupSummary(start, end, pemasukanTransaksi, jumlahTransaksi,
+                pemasukanManual, pengeluaran, jumlahKeuangan, labaBersih);
+    }
+
+    // Ringkasan tabel keuangan saja (format lama /api/keuangan/summary)
+    @Transactional(readOnly = true)
+    public FinancialSummary getKeuanganSummary() {
+        DailyRollupSummary summary = getSummary(null, null);
+        return new FinancialSummary(summary.pemasukanManual(), summary.pengeluaran(),
+                (int) summary.jumlahKeuangan());
+    }
+}
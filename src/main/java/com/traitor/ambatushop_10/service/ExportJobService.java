@@ -0,0 +1,351 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.ExportDataset;
+import com.traitor.ambatushop_10.dto.ExportFingerprint;
+import com.traitor.ambatushop_10.dto.ExportFormat;
+import com.traitor.ambatushop_10.dto.ExportJobRequest;
+import com.traitor.ambatushop_10.dto.ExportJobStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Job export laporan (keuangan / transaksi / detail) yang jalan di background.
+ *
+ * - submit() langsung balik dengan jobId; file dibuat oleh worker pool sendiri, bukan thread Tomcat.
+ * - Request yang sama (dataset + format + rentang tanggal) selagi job masih jalan memakai job yang sama.
+ * - File yang sudah jadi disimpan di app.export.dir dan dipakai ulang selama sidik jari data
+ *   (jumlah baris, ID terakhir, total nominal, checksum status dalam rentang) tidak berubah.
+ * - File lama dihapus setelah app.export.retention-minutes.
+ * - downloadUrl di status job berisi token download bertanda tangan (lihat JwtService.generateDownloadToken).
+ * Status job hanya di memory; file yang tertinggal dari proses sebelumnya dihapus saat startup.
+ */
+@Service
+@Slf4j
+public class ExportJobService {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final long SSE_TIMEOUT_MILLIS = 10 * 60_000L;
+
+    private final ExportService exportService;
+    private final JwtService jwtService;
+    private final Path artifactDir;
+    private final long retentionMillis;
+    private final ExecutorService executor;
+
+    private final Map<String, ExportJob> jobsById = new ConcurrentHashMap<>();
+    private final Map<String, ExportJob> jobsByKey = new ConcurrentHashMap<>();
+
+    public ExportJobService(ExportService exportService, JwtService jwtService,
+            @Value("${app.export.dir:${java.io.tmpdir}/ambatushop-exports}") String artifactDir,
+            @Value("${app.export.workers:2}") int workers,
+            @Value("${app.export.retention-minutes:60}") long retentionMinutes) throws IOException {
+        this.exportService = exportService;
+        this.jwtService = jwtService;
+        this.artifactDir = Files.createDirectories(Paths.get(artifactDir));
+        this.retentionMillis = retentionMinutes * 60_000L;
+
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "export-job-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        deleteOrphanArtifacts();
+    }
+
+    public ExportJobStatus submit(ExportJobRequest request) {
+        ExportDataset dataset = request.dataset() == null ? ExportDataset.KEUANGAN : request.dataset();
+        ExportFormat format = request.format() == null ? ExportFormat.XLSX : request.format();
+        LocalDateTime start = request.start();
+        LocalDateTime end = request.end();
+        if (start != null && end != null && !start.isBefore(end)) {
+            throw new IllegalArgumentException("Tanggal mulai harus sebelum tanggal akhir");
+        }
+
+        Fingerprint fingerprint = Fingerprint.of(exportService.fingerprint(dataset, start, end));
+        String key = dataset + "|" + format + "|" + start + "|" + end;
+
+        ExportJob job = jobsByKey.compute(key, (k, existing) -> {
+            if (existing != null && existing.reusableFor(fingerprint)) {
+                return existing;
+            }
+            if (existing != null) {
+                discard(existing);
+            }
+            ExportJob created = new ExportJob(UUID.randomUUID().toString(), key, dataset, format, start, end,
+                    fingerprint);
+            jobsById.put(created.id, created);
+            return created;
+        });
+
+        if (job.started.compareAndSet(false, true)) {
+            log.info("Export job {} dibuat: {} {} [{} - {}], {} baris", job.id, dataset, format, start, end,
+                    fingerprint.jumlah());
+            executor.execute(() -> run(job));
+        }
+        return job.toStatus();
+    }
+
+    public ExportJobStatus getStatus(String jobId) {
+        return findJob(jobId).toStatus();
+    }
+
+    // File hasil export; hanya bisa diambil kalau job sudah DONE
+    public ExportArtifact getArtifact(String jobId) {
+        ExportJob job = findJob(jobId);
+        if (job.status != Status.DONE || !Files.exists(job.file)) {
+            throw new IllegalStateException("File export belum siap (status: " + job.status + ")");
+        }
+        return job.toArtifact();
+    }
+
+    // Untuk endpoint lama /api/export/download: selesai saat file job siap (dari thread worker export),
+    // jadi pemanggil tidak perlu memblok thread sambil menunggu
+    public CompletableFuture<ExportArtifact> whenDone(String jobId) {
+        ExportJob job = findJob(jobId);
+        return job.completion.thenApply(ignored -> {
+            if (job.status == Status.FAILED) {
+                throw new RuntimeException("Export gagal: " + job.error);
+            }
+            return getArtifact(job.id);
+        });
+    }
+
+    // Progress lewat Server-Sent Events: event "progress" berkala, lalu "done" / "failed"
+    public SseEmitter subscribe(String jobId) {
+        ExportJob job = findJob(jobId);
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MILLIS);
+        emitter.onCompletion(() -> job.emitters.remove(emitter));
+        emitter.onTimeout(() -> job.emitters.remove(emitter));
+        emitter.onError(e -> job.emitters.remove(emitter));
+
+        job.emitters.add(emitter);
+        // Kalau job sudah selesai sebelum/selagi subscribe, langsung kirim status akhir
+        if (job.isFinished()) {
+            job.notifyFinished();
+        } else {
+            job.send(emitter, "progress", job.toStatus());
+        }
+        return emitter;
+    }
+
+    // Hapus file export yang sudah lewat masa simpan
+    @Scheduled(fixedRate = 300000)
+    public void purgeExpiredArtifacts() {
+        long batas = System.currentTimeMillis() - retentionMillis;
+        jobsById.values().forEach(job -> {
+            if (job.isFinished() && job.finishedAtMillis < batas) {
+                jobsByKey.remove(job.key, job);
+                discard(job);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ExportJob job) {
+        job.status = Status.RUNNING;
+        job.notifyProgress();
+
+        Path part = artifactDir.resolve(job.id + ".part");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part))) {
+                exportService.export(job.dataset, job.format, job.start, job.end, out, rows -> {
+                    job.processed.set(rows);
+                    job.notifyProgress();
+                });
+            }
+            Files.move(part, job.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.finish(Status.DONE, null);
+            log.info("Export job {} selesai: {} baris", job.id, job.processed.get());
+        } catch (Exception e) {
+            deleteQuietly(part);
+            job.finish(Status.FAILED, e.getMessage());
+            log.error("Export job {} gagal", job.id, e);
+        }
+    }
+
+    private ExportJob findJob(String jobId) {
+        ExportJob job = jobsById.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Job export tidak ditemukan: " + jobId);
+        }
+        return job;
+    }
+
+    private void discard(ExportJob job) {
+        jobsById.remove(job.id);
+        deleteQuietly(job.file);
+    }
+
+    private void deleteOrphanArtifacts() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(artifactDir)) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        } catch (IOException e) {
+            log.warn("Gagal membersihkan folder export {}: {}", artifactDir, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Gagal menghapus file export {}: {}", file, e.getMessage());
+        }
+    }
+
+    public record ExportArtifact(Path file, String filename, ExportFormat format) {
+    }
+
+    // Nilai agregat data dalam rentang export; beda nilai = data berubah = file lama tidak dipakai
+    private record Fingerprint(long jumlah, long maxId, double total, long checksum) {
+        static Fingerprint of(ExportFingerprint fp) {
+            return new Fingerprint(
+                    fp.getJumlah() == null ? 0 : fp.getJumlah(),
+                    fp.getMaxId() == null ? 0 : fp.getMaxId(),
+                    fp.getTotal() == null ? 0 : fp.getTotal(),
+                    fp.getChecksum() == null ? 0 : fp.getChecksum());
+        }
+    }
+
+    private final class ExportJob {
+        final String id;
+        final String key;
+        final ExportDataset dataset;
+        final ExportFormat format;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final Fingerprint fingerprint;
+        final Path file;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final AtomicBoolean started = new AtomicBoolean();
+        final AtomicLong processed = new AtomicLong();
+        final CompletableFuture<Void> completion = new CompletableFuture<>();
+        final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+        volatile Status status = Status.QUEUED;
+        volatile String error;
+        volatile LocalDateTime finishedAt;
+        volatile long finishedAtMillis;
+
+        ExportJob(String id, String key, ExportDataset dataset, ExportFormat format, LocalDateTime start,
+                LocalDateTime end, Fingerprint fingerprint) {
+            this.id = id;
+            this.key = key;
+            this.dataset = dataset;
+            this.format = format;
+            this.start = start;
+            this.end = end;
+            this.fingerprint = fingerprint;
+            this.file = artifactDir.resolve(id + "." + format.getExtension());
+        }
+
+        boolean isFinished() {
+            return status == Status.DONE || status == Status.FAILED;
+        }
+
+        // Job yang masih jalan selalu dipakai ulang; file yang sudah jadi hanya kalau datanya sama
+        boolean reusableFor(Fingerprint current) {
+            return switch (status) {
+                case QUEUED, RUNNING -> true;
+                case DONE -> Objects.equals(fingerprint, current) && Files.exists(file);
+                case FAILED -> false;
+            };
+        }
+
+        void finish(Status finalStatus, String errorMessage) {
+            this.error = errorMessage;
+            this.finishedAt = LocalDateTime.now();
+            this.finishedAtMillis = System.currentTimeMillis();
+            this.status = finalStatus;
+            completion.complete(null);
+            notifyFinished();
+        }
+
+        void notifyProgress() {
+            if (emitters.isEmpty()) {
+                return;
+            }
+            ExportJobStatus snapshot = toStatus();
+            for (SseEmitter emitter : emitters) {
+                send(emitter, "progress", snapshot);
+            }
+        }
+
+        void notifyFinished() {
+            ExportJobStatus snapshot = toStatus();
+            String eventName = status == Status.DONE ? "done" : "failed";
+            for (SseEmitter emitter : emitters) {
+                if (send(emitter, eventName, snapshot)) {
+                    emitter.complete();
+                }
+                emitters.remove(emitter);
+            }
+        }
+
+        boolean send(SseEmitter emitter, String eventName, ExportJobStatus snapshot) {
+            try {
+                emitter.send(SseEmitter.event().name(eventName).data(snapshot));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+                return false;
+            }
+        }
+
+        ExportJobStatus toStatus() {
+            long total = fingerprint.jumlah();
+            long done = status == Status.DONE ? total : Math.min(processed.get(), total);
+            int percent = total == 0 ? (status == Status.DONE ? 100 : 0) : (int) (done * 100 / total);
+            // Link bertanda tangan berumur pendek, bisa dibuka langsung oleh browser tanpa header JWT
+            String downloadUrl = status == Status.DONE
+                    ? "/api/export/jobs/" + id + "/file?token=" + jwtService.generateDownloadToken(id)
+                    : null;
+            return new ExportJobStatus(id, status.name(), dataset, format, start, end, done, total, percent,
+                    error, downloadUrl, createdAt, finishedAt);
+        }
+
+        ExportArtifact toArtifact() {
+            StringBuilder filename = new StringBuilder(dataset.getFileName());
+            if (start != null) filename.append('_').append(start.format(FILE_DATE));
+            if (end != null) filename.append('_').append(end.format(FILE_DATE));
+            filename.append('.').append(format.getExtension());
+            return new ExportArtifact(file, filename.toString(), format);
+        }
+    }
+}
@@ -1,79 +1,159 @@
 // java
 package com.traitor.ambatushop_10.service;
 
-import com.traitor.ambatushop_10.model.Keuangan;
+import com.traitor.ambatushop_10.dto.ExportDataset;
+import com.traitor.ambatushop_10.dto.ExportFingerprint;
+import com.traitor.ambatushop_10.dto.ExportFormat;
+import com.traitor.ambatushop_10.dto.KeuanganExportRow;
+import com.traitor.ambatushop_10.dto.TransaksiDetailExportRow;
+import com.traitor.ambatushop_10.dto.TransaksiExportRow;
 import com.traitor.ambatushop_10.repository.KeuanganRepository;
-import jakarta.servlet.http.HttpServletResponse;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.traitor.ambatushop_10.repository.TransaksiDetailRepository;
+import com.traitor.ambatushop_10.repository.TransaksiRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
+import static com.traitor.ambatushop_10.service.ExportTable.Column;
+
+/**
+ * Export laporan (keuangan, transaksi, detail transaksi) secara streaming ke XLSX / CSV / kolumnar.
+ *
+ * Baris dibaca lewat stream JPA (projection, fetch size, forward-only) dan langsung diteruskan ke
+ * ExportTableWriter sesuai format, jadi pemakaian heap tetap konstan berapapun jumlah barisnya.
+ * Setiap export mencatat throughput (baris/detik, byte/baris) di log.
+ *
+ * Export besar sebaiknya lewat ExportJobService (background + cache file), bukan langsung di request thread.
+ */
 @Service
+@Slf4j
 public class ExportService {
 
-    @Autowired
-    private KeuanganRepository keuanganRepository;
-
-    public void generateExcel(HttpServletResponse response) throws IOException {
-        // set XLSX content type and filename
-        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-        response.setHeader("Content-Disposition", "attachment; filename=laporan_keuangan.xlsx");
-
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Laporan Keuangan");
-
-            // header style
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            CellStyle headerStyle = workbook.createCellStyle();
-            headerStyle.setFont(headerFont);
-
-            String[] headers = {"ID", "ID Pegawai", "Jenis", "Keterangan", "Nominal", "Tanggal"};
-            Row headerRow = sheet.createRow(0);
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
-
-            // data rows
-            List<Keuangan> items = keuanganRepository.findAll();
-            CreationHelper createHelper = workbook.getCreationHelper();
-            CellStyle dateStyle = workbook.createCellStyle();
-            dateStyle.setDataFormat(createHelper.createDataFormat().getFormat("yyyy-mm-dd"));
-
-            int rowIdx = 1;
-            for (Keuangan k : items) {
-                Row row = sheet.createRow(rowIdx++);
-
-                // adjust getters to match your Keuangan entity
-                Cell c0 = row.createCell(0);
-                if (k.getIdKeuangan() != null) c0.setCellValue(k.getIdKeuangan());
-                Cell c1 = row.createCell(1);
-                if (k.getAkun() != null) c1.setCellValue(k.getAkun().getIdPegawai());
-                row.createCell(2).setCellValue(String.valueOf(k.getJenis() == null ? "" : k.getJenis()));
-                row.createCell(3).setCellValue(k.getKeterangan() == null ? "" : k.getKeterangan());
-                if (k.getNominal() != null) {
-                    row.createCell(4).setCellValue(k.getNominal().doubleValue());
-                }
-                Cell dateCell = row.createCell(5);
-                if (k.getTanggal() != null) {
-                    dateCell.setCellValue((String.valueOf(k.getTanggal())));
-                    dateCell.setCellStyle(dateStyle);
-                }
-            }
-
-            // autosize columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
-            workbook.write(response.getOutputStream());
-            response.flushBuffer();
+    static final ExportTable<KeuanganExportRow> KEUANGAN_TABLE = new ExportTable<>("Laporan Keuangan", List.of(
+            Column.ofLong("ID", KeuanganExportRow::idKeuangan),
+            Column.ofLong("ID Pegawai", KeuanganExportRow::idPegawai),
+            Column.ofString("Jenis", KeuanganExportRow::jenis),
+            Column.ofString("Keterangan", KeuanganExportRow::keterangan),
+            Column.ofDouble("Nominal", KeuanganExportRow::nominal),
+            Column.ofTimestamp("Tanggal", KeuanganExportRow::tanggal)));
+
+    static final ExportTable<TransaksiExportRow> TRANSAKSI_TABLE = new ExportTable<>("Laporan Transaksi", List.of(
+            Column.ofLong("ID", TransaksiExportRow::idTransaksi),
+            Column.ofString("No. Referensi", TransaksiExportRow::referenceNumber),
+            Column.ofTimestamp("Tanggal", TransaksiExportRow::tanggal),
+            Column.ofLong("ID Pegawai", TransaksiExportRow::idPegawai),
+            Column.ofString("Kasir", TransaksiExportRow::kasirName),
+            Column.ofString("Metode Pembayaran", TransaksiExportRow::metodePembayaran),
+            Column.ofString("Status", TransaksiExportRow::paymentStatus),
+            Column.ofDouble("Total", TransaksiExportRow::total)));
+
+    static final ExportTable<TransaksiDetailExportRow> TRANSAKSI_DETAIL_TABLE = new ExportTable<>("Detail Transaksi", List.of(
+            Column.ofLong("ID", TransaksiDetailExportRow::idTransaksiDetail),
+            Column.ofLong("ID Transaksi", TransaksiDetailExportRow::idTransaksi),
+            Column.ofTimestamp("Tanggal", TransaksiDetailExportRow::tanggal),
+            Column.ofLong("ID Produk", TransaksiDetailExportRow::idProduk),
+            Column.ofString("Nama Produk", TransaksiDetailExportRow::namaProduk),
+            Column.ofLong("Jumlah", TransaksiDetailExportRow::jumlah),
+            Column.ofDouble("Harga Satuan", TransaksiDetailExportRow::hargaSatuan),
+            Column.ofDouble("Subtotal", TransaksiDetailExportRow::subtotal)));
+
+    private final KeuanganRepository keuanganRepository;
+    private final TransaksiRepository transaksiRepository;
+    private final TransaksiDetailRepository transaksiDetailRepository;
+    private final Map<ExportFormat, ExportTableWriter> writers = new EnumMap<>(ExportFormat.class);
+
+    public ExportService(KeuanganRepository keuanganRepository,
+            TransaksiRepository transaksiRepository,
+            TransaksiDetailRepository transaksiDetailRepository,
+            List<ExportTableWriter> tableWriters) {
+        this.keuanganRepository = keuanganRepository;
+        this.transaksiRepository = transaksiRepository;
+        this.transaksiDetailRepository = transaksiDetailRepository;
+        for (ExportTableWriter writer : tableWriters) {
+            writers.put(writer.format(), writer);
+        }
+    }
+
+    /**
+     * Tulis dataset dalam rentang [start, end) ke out dengan format yang diminta. start/end null = tanpa batas.
+     * progress dipanggil dengan jumlah baris yang sudah ditulis. Return total baris. out tidak ditutup.
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportDataset dataset, ExportFormat format, LocalDateTime start, LocalDateTime end,
+            OutputStream out, LongConsumer progress) throws IOException {
+        ExportTableWriter writer = writers.get(format);
+        if (writer == null) {
+            throw new IllegalArgumentException("Format export tidak didukung: " + format);
+        }
+
+        CountingOutputStream counting = new CountingOutputStream(out);
+        long startNanos = System.nanoTime();
+        long rows = switch (dataset) {
+            case KEUANGAN -> write(writer, KEUANGAN_TABLE,
+                    keuanganRepository.streamExportRows(start, end), counting, progress);
+            case TRANSAKSI -> write(writer, TRANSAKSI_TABLE,
+                    transaksiRepository.streamExportRows(start, end), counting, progress);
+            case TRANSAKSI_DETAIL -> write(writer, TRANSAKSI_DETAIL_TABLE,
+                    transaksiDetailRepository.streamExportRows(start, end), counting, progress);
+        };
+        counting.flush();
+
+        double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+        log.info("Export {} {}: {} baris, {} byte, {} byte/baris, {} baris/detik", dataset, format, rows,
+                counting.count, rows == 0 ? 0 : counting.count / rows, Math.round(rows / seconds));
+        return rows;
+    }
+
+    // Sidik jari data dalam rentang export, dipakai untuk cek apakah file export lama masih valid
+    @Transactional(readOnly = true)
+    public ExportFingerprint fingerprint(ExportDataset dataset, LocalDateTime start, LocalDateTime end) {
+        return switch (dataset) {
+            case KEUANGAN -> keuanganRepository.exportFingerprint(start, end);
+            case TRANSAKSI -> transaksiRepository.exportFingerprint(start, end);
+            case TRANSAKSI_DETAIL -> transaksiDetailRepository.exportFingerprint(start, end);
+        };
+    }
+
+    private static <T> long write(ExportTableWriter writer, ExportTable<T> table, Stream<T> rows,
+            OutputStream out, LongConsumer progress) throws IOException {
+        try (rows) {
+            return writer.write(table, rows.iterator(), out, progress);
+        }
+    }
+
+    // Hitung byte yang ditulis tanpa menutup stream di bawahnya
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
         }
     }
 }
@@ -0,0 +1,41 @@
+package com.traitor.ambatushop_10.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Definisi tabel export: nama sheet + daftar kolom (header, tipe, cara ambil nilai dari satu baris).
+ * Dipakai bersama oleh semua ExportTableWriter, jadi satu dataset cukup didefinisikan sekali.
+ */
+public record ExportTable<T>(String name, List<Column<T>> columns) {
+
+    public enum Type { LONG, DOUBLE, STRING, TIMESTAMP }
+
+    public record Column<T>(String header, Type type, Function<T, ?> getter) {
+
+        public Object value(T row) {
+            return getter.apply(row);
+        }
+
+        public static <T> Column<T> ofLong(String header, Function<T, ? extends Number> getter) {
+            return new Column<>(header, Type.LONG, getter);
+        }
+
+        public static <T> Column<T> ofDouble(String header, Function<T, ? extends Number> getter) {
+            return new Column<>(header, Type.DOUBLE, getter);
+        }
+
+        // Enum ditulis sebagai name()
+        public static <T> Column<T> ofString(String header, Function<T, ?> getter) {
+            return new Column<>(header, Type.STRING, row -> {
+                Object value = getter.apply(row);
+                return value instanceof Enum<?> e ? e.name() : value;
+            });
+        }
+
+        public static <T> Column<T> ofTimestamp(String header, Function<T, LocalDateTime> getter) {
+            return new Column<>(header, Type.TIMESTAMP, getter);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Penulis satu format export. Implementasi di-register sebagai bean dan dipilih ExportService
+ * berdasarkan format(), jadi format baru cukup tambah satu class.
+ *
+ * Baris dibaca sekali dari depan (iterator dari stream JPA) dan ditulis langsung ke out;
+ * writer tidak boleh menyimpan semua baris di memory. out tidak ditutup oleh writer.
+ */
+public interface ExportTableWriter {
+
+    int PROGRESS_EVERY_ROWS = 1000;
+
+    ExportFormat format();
+
+    // progress dipanggil dengan jumlah baris yang sudah ditulis; return total baris
+    <T> long write(ExportTable<T> table, Iterator<T> rows, OutputStream out, LongConsumer progress)
+            throws IOException;
+}
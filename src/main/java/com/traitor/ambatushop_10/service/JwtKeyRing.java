@@ -0,0 +1,259 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.config.JwtKeyProperties;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Key ring untuk tanda tangan JWT. Setiap kunci punya kid; token ditandatangani dengan kunci aktif
+ * dan header "kid"-nya diisi, jadi token dari node mana pun bisa diverifikasi di node lain selama
+ * key ring-nya sama. Rotasi: tambahkan kunci baru, jadikan aktif, kunci lama tetap ada sampai
+ * token lama habis masa berlakunya.
+ *
+ * Kunci asimetris (RSA / EC) memungkinkan node verifier yang hanya memegang public key.
+ * Lihat JwtKeyProperties untuk sumber kunci yang didukung.
+ */
+@Component
+@Slf4j
+public class JwtKeyRing {
+
+    private static final String DEFAULT_KEY_FILE = "./data/jwt-signing.key";
+    private static final String GENERATED_KID = "local-hs256";
+
+    private final Map<String, SigningKey> keys = new LinkedHashMap<>();
+    private final SigningKey active;
+
+    /**
+     * Satu kunci di ring. signKey null = verify-only (node ini tidak bisa membuat token dengan kunci ini).
+     */
+    public record SigningKey(String kid, SignatureAlgorithm algorithm, Key signKey, Key verifyKey) {
+        public boolean canSign() {
+            return signKey != null;
+        }
+    }
+
+    public JwtKeyRing(JwtKeyProperties properties) throws IOException, GeneralSecurityException {
+        if (properties.keystore() != null && notBlank(properties.keystore().path())) {
+            loadKeystore(properties.keystore());
+        }
+        if (properties.keys() != null) {
+            for (JwtKeyProperties.Key key : properties.keys()) {
+                add(loadConfiguredKey(key));
+            }
+        }
+        if (keys.isEmpty()) {
+            String keyFile = notBlank(properties.keyFile()) ? properties.keyFile() : DEFAULT_KEY_FILE;
+            add(loadOrCreateLocalKey(Paths.get(keyFile)));
+            log.warn("JWT memakai secret lokal {} - untuk lebih dari satu node, set app.jwt.keystore / app.jwt.keys", keyFile);
+        }
+
+        this.active = resolveActive(properties.activeKid());
+        log.info("JWT key ring: {} kunci {}, aktif: {}", keys.size(), keys.keySet(),
+                active == null ? "(verify-only)" : active.kid() + " " + active.algorithm());
+    }
+
+    // Kunci untuk menandatangani token baru
+    public SigningKey activeKey() {
+        if (active == null) {
+            throw new IllegalStateException("Node ini hanya verifier JWT, tidak punya kunci untuk membuat token");
+        }
+        return active;
+    }
+
+    // Kunci untuk verifikasi berdasarkan header kid; token tanpa kid pakai kunci aktif
+    public Key verificationKey(String kid) {
+        SigningKey key = kid == null ? active : keys.get(kid);
+        if (key == null) {
+            throw new io.jsonwebtoken.security.SignatureException("Kunci JWT tidak dikenal: " + kid);
+        }
+        return key.verifyKey();
+    }
+
+    public Map<String, SigningKey> getKeys() {
+        return Collections.unmodifiableMap(keys);
+    }
+
+    private SigningKey resolveActive(String activeKid) {
+        if (notBlank(activeKid)) {
+            SigningKey key = keys.get(activeKid);
+            if (key == null) {
+                throw new IllegalStateException("app.jwt.active-kid tidak ada di key ring: " + activeKid);
+            }
+            return key.canSign() ? key : null;
+        }
+        return keys.values().stream().filter(SigningKey::canSign).findFirst().orElse(null);
+    }
+
+    private void add(SigningKey key) {
+        if (keys.putIfAbsent(key.kid(), key) != null) {
+            throw new IllegalStateException("kid JWT duplikat: " + key.kid());
+        }
+    }
+
+    // ===== KEYSTORE =====
+
+    private void loadKeystore(JwtKeyProperties.Keystore config) throws IOException, GeneralSecurityException {
+        char[] password = config.password() == null ? new char[0] : config.password().toCharArray();
+        KeyStore keyStore = KeyStore.getInstance(notBlank(config.type()) ? config.type() : "PKCS12");
+        try (InputStream in = Files.newInputStream(Paths.get(config.path()))) {
+            keyStore.load(in, password);
+        }
+
+        Enumeration<String> aliases = keyStore.aliases();
+        while (aliases.hasMoreElements()) {
+            String alias = aliases.nextElement();
+            if (keyStore.isKeyEntry(alias)) {
+                Key key = keyStore.getKey(alias, password);
+                if (key instanceof SecretKey secret) {
+                    add(new SigningKey(alias, SignatureAlgorithm.forSigningKey(secret), secret, secret));
+                } else if (key instanceof PrivateKey privateKey) {
+                    Certificate certificate = keyStore.getCertificate(alias);
+                    add(new SigningKey(alias, SignatureAlgorithm.forSigningKey(privateKey), privateKey,
+                            certificate.getPublicKey()));
+                }
+            } else if (keyStore.isCertificateEntry(alias)) {
+                add(verifyOnly(alias, keyStore.getCertificate(alias).getPublicKey()));
+            }
+        }
+    }
+
+    // ===== KEY DARI CONFIG =====
+
+    private SigningKey loadConfiguredKey(JwtKeyProperties.Key config) throws IOException, GeneralSecurityException {
+        if (!notBlank(config.kid())) {
+            throw new IllegalStateException("Setiap app.jwt.keys[] wajib punya kid");
+        }
+
+        if (notBlank(config.secret())) {
+            SecretKey secret = Keys.hmacShaKeyFor(Base64.getDecoder().decode(config.secret().trim()));
+            return new SigningKey(config.kid(), SignatureAlgorithm.forSigningKey(secret), secret, secret);
+        }
+
+        PrivateKey privateKey = notBlank(config.privateKey()) ? readPrivateKey(Paths.get(config.privateKey())) : null;
+        PublicKey publicKey = notBlank(config.publicKey()) ? readPublicKey(Paths.get(config.publicKey())) : null;
+        if (privateKey != null) {
+            if (publicKey == null) {
+                publicKey = derivePublicKey(privateKey);
+            }
+            return new SigningKey(config.kid(), SignatureAlgorithm.forSigningKey(privateKey), privateKey, publicKey);
+        }
+        if (publicKey != null) {
+            return verifyOnly(config.kid(), publicKey);
+        }
+        throw new IllegalStateException("Kunci JWT " + config.kid() + " tidak punya secret, private-key atau public-key");
+    }
+
+    private static SigningKey verifyOnly(String kid, PublicKey publicKey) {
+        SignatureAlgorithm algorithm = "EC".equals(publicKey.getAlgorithm())
+                ? SignatureAlgorithm.ES256
+                : SignatureAlgorithm.RS256;
+        return new SigningKey(kid, algorithm, null, publicKey);
+    }
+
+    // PEM PKCS#8 ("BEGIN PRIVATE KEY"), RSA atau EC
+    private static PrivateKey readPrivateKey(Path path) throws IOException, GeneralSecurityException {
+        PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(readPem(path));
+        try {
+            return KeyFactory.getInstance("RSA").generatePrivate(spec);
+        } catch (GeneralSecurityException e) {
+            return KeyFactory.getInstance("EC").generatePrivate(spec);
+        }
+    }
+
+    // PEM X.509 SubjectPublicKeyInfo ("BEGIN PUBLIC KEY"), RSA atau EC
+    private static PublicKey readPublicKey(Path path) throws IOException, GeneralSecurityException {
+        X509EncodedKeySpec spec = new X509EncodedKeySpec(readPem(path));
+        try {
+            return KeyFactory.getInstance("RSA").generatePublic(spec);
+        } catch (GeneralSecurityException e) {
+            return KeyFactory.getInstance("EC").generatePublic(spec);
+        }
+    }
+
+    // Public key RSA bisa diturunkan dari private key CRT; EC wajib diberi public-key
+    private static PublicKey derivePublicKey(PrivateKey privateKey) throws GeneralSecurityException {
+        if (privateKey instanceof RSAPrivateCrtKey rsa) {
+            return KeyFactory.getInstance("RSA")
+                    .generatePublic(new RSAPublicKeySpec(rsa.getModulus(), rsa.getPublicExponent()));
+        }
+        if (privateKey instanceof ECPrivateKey) {
+            throw new IllegalStateException("Kunci EC wajib menyertakan public-key");
+        }
+        throw new IllegalStateException("Tipe private key tidak didukung: " + privateKey.getAlgorithm());
+    }
+
+    private static byte[] readPem(Path path) throws IOException {
+        String pem = Files.readString(path, StandardCharsets.US_ASCII)
+                .replaceAll("-----(BEGIN|END) [A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return Base64.getDecoder().decode(pem);
+    }
+
+    // ===== SECRET LOKAL (fallback satu node) =====
+
+    private static SigningKey loadOrCreateLocalKey(Path file) throws IOException {
+        Properties stored = new Properties();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                stored.load(in);
+            }
+        } else {
+            SecretKey generated = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+            stored.setProperty("kid", GENERATED_KID);
+            stored.setProperty("secret", Base64.getEncoder().encodeToString(generated.getEncoded()));
+            writeKeyFile(file, stored);
+        }
+
+        SecretKey secret = Keys.hmacShaKeyFor(Base64.getDecoder().decode(stored.getProperty("secret")));
+        return new SigningKey(stored.getProperty("kid", GENERATED_KID), SignatureAlgorithm.HS256, secret, secret);
+    }
+
+    private static void writeKeyFile(Path file, Properties content) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var out = Files.newOutputStream(tmp)) {
+            content.store(out, "JWT signing secret - jangan di-commit / dibagikan");
+        }
+        try {
+            Files.setPosixFilePermissions(tmp, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException ignored) {
+            // Windows: tidak ada permission POSIX
+        }
+        Files.move(tmp, file);
+    }
+
+    private static boolean notBlank(String value) {
+        return value != null && !value.isBlank();
+    }
+}
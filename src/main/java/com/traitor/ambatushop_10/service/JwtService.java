@@ -1,42 +1,223 @@
 package com.traitor.ambatushop_10.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
-    private final SecretKey SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256);
     private final long EXPIRATION_TIME = 1000 * 60 * 60 * 24; // 24 jam
 
+    // Token link download export: hanya berlaku untuk satu job dan beberapa menit
+    private static final long DOWNLOAD_TOKEN_TTL = 1000 * 60 * 5;
+    private static final String DOWNLOAD_SCOPE = "export-download";
+
+    // Tiket koneksi push (SSE): sekali pakai, berlaku 30 detik
+    private static final long PUSH_TICKET_TTL = 1000 * 30;
+    private static final String PUSH_SCOPE = "push";
+
+    // Maksimal token terverifikasi yang disimpan; dashboard polling pakai token yang sama terus
+    private static final int MAX_CACHED_TOKENS = 10_000;
+
+    private final JwtKeyRing keyRing;
+
+    // Parser immutable & thread-safe, cukup dibuat sekali; kunci dipilih dari key ring berdasarkan header kid
+    private final JwtParser parser;
+
+    // Hasil verifikasi per token, key = SHA-256 token (token aslinya tidak disimpan)
+    private final Map<TokenHash, TokenClaims> verified = new ConcurrentHashMap<>();
+
+    // ID (jti) tiket push yang sudah dipakai -> waktu expired tiketnya, supaya tiket tidak bisa dipakai ulang
+    private final Map<String, Long> redeemedTickets = new ConcurrentHashMap<>();
+
+    /**
+     * Isi token yang sudah diverifikasi (signature + expiry). Immutable, aman di-cache dan dibagi antar thread.
+     */
+    public record TokenClaims(String username, String role, Long userId, long expiresAtMillis) {
+        public boolean isExpired(long nowMillis) {
+            return expiresAtMillis <= nowMillis;
+        }
+    }
+
+    public JwtService(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // Signature SPI jjwt 0.11 memang memakai JwsHeader mentah (tanpa generic)
+                    @SuppressWarnings("rawtypes")
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return keyRing.verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
     public String generateToken(String username, String role, Long userId) {
+        JwtKeyRing.SigningKey signingKey = keyRing.activeKey();
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
                 .setSubject(username)
                 .claim("role", role)
                 .claim("userId", userId)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(SECRET_KEY)
+                .signWith(signingKey.signKey(), signingKey.algorithm())
+                .compact();
+    }
+
+    /**
+     * Token bertanda tangan untuk link download file export (GET /api/export/jobs/{jobId}/file?token=...).
+     * Link dibuka browser (a href / window.location) yang tidak bisa kirim header Authorization, jadi
+     * token ini menggantikan JWT login: subject = jobId, scope khusus download, umur DOWNLOAD_TOKEN_TTL.
+     */
+    public String generateDownloadToken(String jobId) {
+        JwtKeyRing.SigningKey signingKey = keyRing.activeKey();
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                .setSubject(jobId)
+                .claim("scope", DOWNLOAD_SCOPE)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + DOWNLOAD_TOKEN_TTL))
+                .signWith(signingKey.signKey(), signingKey.algorithm())
+                .compact();
+    }
+
+    // Token download valid, belum expired, dan dibuat untuk job ini
+    public boolean isValidDownloadToken(String token, String jobId) {
+        if (token == null || token.isEmpty() || jobId == null) {
+            return false;
+        }
+        try {
+            Claims body = parser.parseClaimsJws(token).getBody();
+            return DOWNLOAD_SCOPE.equals(body.get("scope", String.class)) && jobId.equals(body.getSubject());
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Tiket untuk membuka /api/push/events?ticket=... . EventSource tidak bisa kirim header Authorization,
+     * jadi browser minta tiket dulu (POST /api/push/ticket dengan JWT), lalu tiket itu yang masuk URL,
+     * bukan JWT login. Tiket bertanda tangan (bisa diverifikasi node mana pun), umur PUSH_TICKET_TTL,
+     * dan hanya bisa dipakai sekali di node yang menerimanya.
+     */
+    public String generatePushTicket(TokenClaims claims) {
+        JwtKeyRing.SigningKey signingKey = keyRing.activeKey();
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                .setId(UUID.randomUUID().toString())
+                .setSubject(claims.username())
+                .claim("role", claims.role())
+                .claim("userId", claims.userId())
+                .claim("scope", PUSH_SCOPE)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + PUSH_TICKET_TTL))
+                .signWith(signingKey.signKey(), signingKey.algorithm())
                 .compact();
     }
 
+    // Verifikasi tiket push dan tandai sudah dipakai. Return null kalau tidak valid, expired, atau sudah dipakai
+    public TokenClaims redeemPushTicket(String ticket) {
+        if (ticket == null || ticket.isEmpty()) {
+            return null;
+        }
+        Claims body;
+        try {
+            body = parser.parseClaimsJws(ticket).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (!PUSH_SCOPE.equals(body.get("scope", String.class)) || body.getId() == null
+                || body.getExpiration() == null) {
+            return null;
+        }
+
+        long expiresAt = body.getExpiration().getTime();
+        if (redeemedTickets.putIfAbsent(body.getId(), expiresAt) != null) {
+            return null;
+        }
+        return new TokenClaims(body.getSubject(), body.get("role", String.class), body.get("userId", Long.class),
+                expiresAt);
+    }
+
+    /**
+     * Parse + verifikasi token sekali saja. Return null kalau token tidak valid atau sudah expired.
+     * Token yang sama (misalnya polling dashboard) diambil dari cache sampai waktu expired-nya.
+     */
+    public TokenClaims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        TokenHash key = TokenHash.of(token);
+        TokenClaims cached = verified.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached;
+            }
+            verified.remove(key, cached);
+            return null;
+        }
+
+        TokenClaims claims;
+        try {
+            Claims body = parser.parseClaimsJws(token).getBody();
+            // Token ber-scope (link download) bukan token login
+            if (body.get("scope") != null) {
+                return null;
+            }
+            Date expiration = body.getExpiration();
+            claims = new TokenClaims(
+                    body.getSubject(),
+                    body.get("role", String.class),
+                    body.get("userId", Long.class),
+                    expiration == null ? Long.MAX_VALUE : expiration.getTime());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+
+        if (claims.isExpired(now)) {
+            return null;
+        }
+        if (verified.size() >= MAX_CACHED_TOKENS) {
+            evict(now);
+        }
+        verified.put(key, claims);
+        return claims;
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return requireValid(token).username();
     }
 
     public Long extractUserId(String token) {
-        return extractClaim(token, claims -> claims.get("userId", Long.class));
+        return requireValid(token).userId();
     }
 
     public String extractRole(String token) {
-        return extractClaim(token, claims -> claims.get("role", String.class));
+        return requireValid(token).role();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -45,26 +226,50 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public boolean isTokenValid(String token) {
-        try {
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
+        return verify(token) != null;
+    }
+
+    // Buang token yang sudah expired dari cache (dan catatan tiket push yang sudah expired)
+    @Scheduled(fixedRate = 60000)
+    public void purgeExpiredTokens() {
+        long now = System.currentTimeMillis();
+        verified.values().removeIf(claims -> claims.isExpired(now));
+        // Tiket yang sudah expired ditolak parser, catatan jti-nya tidak perlu disimpan lagi
+        redeemedTickets.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    private TokenClaims requireValid(String token) {
+        TokenClaims claims = verify(token);
+        if (claims == null) {
+            throw new JwtException("Token tidak valid atau sudah expired");
         }
+        return claims;
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // Cache penuh: buang yang expired dulu, kalau masih penuh buang sebagian entry secara acak
+    private void evict(long now) {
+        verified.values().removeIf(claims -> claims.isExpired(now));
+        int toRemove = verified.size() - MAX_CACHED_TOKENS * 9 / 10;
+        Iterator<TokenHash> iterator = verified.keySet().iterator();
+        while (toRemove-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private record TokenHash(long a, long b, long c, long d) {
+        static TokenHash of(String token) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+                ByteBuffer buffer = ByteBuffer.wrap(digest);
+                return new TokenHash(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 tidak tersedia", e);
+            }
+        }
     }
-}
\ No newline at end of file
+}
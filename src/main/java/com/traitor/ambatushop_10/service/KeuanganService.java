@@ -1,12 +1,15 @@
 package com.traitor.ambatushop_10.service;
 
+import com.traitor.ambatushop_10.dto.FinancialSummary;
+import com.traitor.ambatushop_10.dto.IntegratedFinancialSummary;
 import com.traitor.ambatushop_10.model.Keuangan;
-import com.traitor.ambatushop_10.model.Transaksi;
 import com.traitor.ambatushop_10.repository.KeuanganRepository;
+import com.traitor.ambatushop_10.repository.TransaksiRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,7 +19,8 @@ import java.util.Map;
 public class KeuanganService {
 
     private final KeuanganRepository keuanganRepository;
-    private final TransaksiService transaksiService;
+    private final TransaksiRepository transaksiRepository;
+    private final DailyRollupService dailyRollupService;
 
     // Get all keuangan data
     @Transactional(readOnly = true)
@@ -35,7 +39,9 @@ public class KeuanganService {
             throw new RuntimeException("Hanya bisa membuat entry PENGELUARAN manual");
         }
 
-        return keuanganRepository.save(keuangan);
+        Keuangan saved = keuanganRepository.save(keuangan);
+        dailyRollupService.recordKeuangan(saved, 1);
+        return saved;
     }
 
     // Get keuangan by ID
@@ -54,9 +60,7 @@ public class KeuanganService {
     // Get total by jenis
     @Transactional(readOnly = true)
     public Double getTotalByJenis(Keuangan.JenisTransaksi jenis) {
-        return keuanganRepository.findByJenis(jenis).stream()
-                .mapToDouble(Keuangan::getNominal)
-                .sum();
+        return sumKeuanganByJenis().getOrDefault(jenis, KeuanganTotal.EMPTY).nominal();
     }
 
     // Delete keuangan
@@ -69,6 +73,7 @@ public class KeuanganService {
         }
 
         keuanganRepository.delete(keuangan);
+        dailyRollupService.recordKeuangan(keuangan, -1);
     }
 
     /**
@@ -76,11 +81,7 @@ public class KeuanganService {
      */
     @Transactional(readOnly = true)
     public Double getTotalPemasukan() {
-        return transaksiService.getAllTransaksi().stream()
-                .filter(t -> t.getPaymentStatus() == Transaksi.PaymentStatus.PAID)
-                .filter(t -> !isStockPurchase(t)) // Filter out stock purchases
-                .mapToDouble(Transaksi::getTotal)
-                .sum();
+        return transaksiRepository.sumTotals().getPemasukan().doubleValue();
     }
 
     /**
@@ -88,63 +89,52 @@ public class KeuanganService {
      */
     @Transactional(readOnly = true)
     public Double getTotalPengeluaran() {
-        // 1. Pengeluaran manual dari table keuangan
         double manualExpenses = getTotalByJenis(Keuangan.JenisTransaksi.PENGELUARAN);
-
-        // 2. Stock purchases dari transaksi
-        double stockPurchases = transaksiService.getAllTransaksi().stream()
-                .filter(this::isStockPurchase)
-                .mapToDouble(Transaksi::getTotal)
-                .sum();
-
+        double stockPurchases = transaksiRepository.sumTotals().getStockPurchase().doubleValue();
         return manualExpenses + stockPurchases;
     }
 
     /**
-     * Helper method untuk cek apakah transaksi adalah stock purchase
+     * Get integrated financial summary
+     * Dua query agregat (transaksi + keuangan per jenis), memory tetap konstan berapapun jumlah datanya
      */
-    private boolean isStockPurchase(Transaksi transaksi) {
-        if (transaksi == null)
-            return false;
-
-        // Cek berdasarkan paymentGatewayResponse
-        if (transaksi.getPaymentGatewayResponse() != null) {
-            String response = transaksi.getPaymentGatewayResponse().toUpperCase();
-            return response.contains("STOCK_PURCHASE") ||
-                    response.contains("PEMBELIAN") ||
-                    response.contains("BELI") ||
-                    response.contains("STOK");
-        }
+    @Transactional(readOnly = true)
+    public IntegratedFinancialSummary getFinancialSummary() {
+        TransaksiRepository.TransaksiTotals totals = transaksiRepository.sumTotals();
+        double manualExpenses = getTotalByJenis(Keuangan.JenisTransaksi.PENGELUARAN);
 
-        // Cek berdasarkan metode dan total (fallback)
-        return transaksi.getMetode_pembayaran() == Transaksi.MetodePembayaran.TUNAI &&
-                transaksi.getPaymentStatus() == Transaksi.PaymentStatus.PAID &&
-                !transaksi.getReferenceNumber().contains("TRX"); // bukan transaksi penjualan reguler
+        double pemasukan = totals.getPemasukan().doubleValue();
+        double stockPurchases = totals.getStockPurchase().doubleValue();
+        double pengeluaran = manualExpenses + stockPurchases;
+
+        return new IntegratedFinancialSummary(
+                pemasukan,
+                pengeluaran,
+                pemasukan - pengeluaran,
+                totals.getTotalPaid().longValue(),
+                manualExpenses,
+                stockPurchases);
     }
 
     /**
-     * Get integrated financial summary
+     * Ringkasan tabel keuangan saja (pemasukan, pengeluaran, jumlah baris), dibaca dari rekap harian
      */
     @Transactional(readOnly = true)
-    public Map<String, Object> getFinancialSummary() {
-        double pemasukan = getTotalPemasukan();
-        double pengeluaran = getTotalPengeluaran();
-        double laba = pemasukan - pengeluaran;
-
-        long totalTransaksi = transaksiService.getAllTransaksi().stream()
-                .filter(t -> t.getPaymentStatus() == Transaksi.PaymentStatus.PAID)
-                .count();
-
-        return Map.of(
-                "totalPemasukan", pemasukan,
-                "totalPengeluaran", pengeluaran,
-                "labaBersih", laba,
-                "totalTransaksi", totalTransaksi,
-                "totalPengeluaranManual", getTotalByJenis(Keuangan.JenisTransaksi.PENGELUARAN),
-                "totalStockPurchase", transaksiService.getAllTransaksi().stream()
-                        .filter(this::isStockPurchase)
-                        .mapToDouble(Transaksi::getTotal)
-                        .sum());
+    public FinancialSummary getKeuanganSummary() {
+        return dailyRollupService.getKeuanganSummary();
+    }
+
+    private Map<Keuangan.JenisTransaksi, KeuanganTotal> sumKeuanganByJenis() {
+        Map<Keuangan.JenisTransaksi, KeuanganTotal> totals = new EnumMap<>(Keuangan.JenisTransaksi.class);
+        for (Object[] row : keuanganRepository.sumNominalGroupByJenis()) {
+            totals.put((Keuangan.JenisTransaksi) row[0],
+                    new KeuanganTotal(((Number) row[1]).doubleValue(), ((Number) row[2]).longValue()));
+        }
+        return totals;
+    }
+
+    private record KeuanganTotal(double nominal, long count) {
+        static final KeuanganTotal EMPTY = new KeuanganTotal(0, 0);
     }
 
     public List<Keuangan> getRecentKeuangan(int limit) {
@@ -177,6 +167,8 @@ public class KeuanganService {
             throw new RuntimeException("Kasir hanya bisa menambahkan pengeluaran");
         }
 
-        return keuanganRepository.save(keuangan);
+        Keuangan saved = keuanganRepository.save(keuangan);
+        dailyRollupService.recordKeuangan(saved, 1);
+        return saved;
     }
 }
@@ -1,8 +1,5 @@
 package com.traitor.ambatushop_10.service;
 
-import com.midtrans.Config;
-import com.midtrans.httpclient.SnapApi;
-import com.midtrans.httpclient.error.MidtransError;
 import com.traitor.ambatushop_10.model.Transaksi;
 import lombok.extern.slf4j.Slf4j;
 
@@ -11,27 +8,31 @@ import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Slf4j
 public class MidtransService {
 
-    private final TransaksiService transaksiService;
-
-    @Value("${midtrans.server.key:SB-Mid-server-your-key}")
-    private String serverKey;
+    // Format order_time custom_expiry Midtrans, contoh "2024-01-15 10:00:00 +0700"
+    private static final DateTimeFormatter ORDER_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss Z");
 
-    @Value("${midtrans.client.key:SB-Mid-client-your-key}")
-    private String clientKey;
-
-    @Value("${midtrans.is.production:false}")
-    private boolean isProduction;
+    private final TransaksiService transaksiService;
+    private final PaymentGatewayClient gatewayClient;
+    private final Duration expireAfter;
 
-    public MidtransService(TransaksiService transaksiService) {
+    public MidtransService(TransaksiService transaksiService, PaymentGatewayClient gatewayClient,
+            @Value("${app.reconcile.expire-after-minutes:30}") long expireAfterMinutes) {
         this.transaksiService = transaksiService;
+        this.gatewayClient = gatewayClient;
+        this.expireAfter = Duration.ofMinutes(expireAfterMinutes);
     }
 
     /**
@@ -128,43 +129,45 @@ public class MidtransService {
     // }
 
     // PERBAIKAN DI MidtransService.java - Method createQRISPayment
-    public Map<String, String> createQRISPayment(Transaksi transaksi) {
-        try {
-            String orderId = "AMBATU-" + transaksi.getIdTransaksi() + "-" +
-                    UUID.randomUUID().toString().substring(0, 8);
-
-            Map<String, Object> params = new HashMap<>();
+    /**
+     * Buat pembayaran QRIS. Tidak memblok thread pemanggil: panggilan ke Midtrans jalan lewat
+     * PaymentGatewayClient dan hasilnya dikembalikan sebagai CompletableFuture.
+     */
+    public CompletableFuture<Map<String, String>> createQRISPayment(Transaksi transaksi) {
+        String orderId = "AMBATU-" + transaksi.getIdTransaksi() + "-" +
+                UUID.randomUUID().toString().substring(0, 8);
 
-            // Transaction details
-            Map<String, Object> transactionDetails = new HashMap<>();
-            transactionDetails.put("order_id", orderId);
-            transactionDetails.put("gross_amount", transaksi.getTotal());
+        Map<String, Object> params = new HashMap<>();
 
-            // Customer details
-            Map<String, Object> customerDetails = new HashMap<>();
-            customerDetails.put("first_name", "Customer");
-            customerDetails.put("email", "customer@ambatushop.com");
+        // Transaction details
+        Map<String, Object> transactionDetails = new HashMap<>();
+        transactionDetails.put("order_id", orderId);
+        transactionDetails.put("gross_amount", transaksi.getTotal());
 
-            // ✅ PERBAIKAN: Tambah parameter untuk QRIS
-            Map<String, Object> qris = new HashMap<>();
-            qris.put("acquirer", "gopay"); // atau bank lain
+        // Customer details
+        Map<String, Object> customerDetails = new HashMap<>();
+        customerDetails.put("first_name", "Customer");
+        customerDetails.put("email", "customer@ambatushop.com");
 
-            params.put("transaction_details", transactionDetails);
-            params.put("customer_details", customerDetails);
-            params.put("payment_type", "qris");
-            params.put("qris", qris);
+        // ✅ PERBAIKAN: Tambah parameter untuk QRIS
+        Map<String, Object> qris = new HashMap<>();
+        qris.put("acquirer", "gopay"); // atau bank lain
 
-            log.info("Creating QRIS payment - Order: {}, Amount: {}", orderId, transaksi.getTotal());
+        params.put("transaction_details", transactionDetails);
+        params.put("customer_details", customerDetails);
+        params.put("payment_type", "qris");
+        params.put("qris", qris);
+        params.put("custom_expiry", customExpiry(transaksi));
 
-            Config config = new Config(serverKey, clientKey, isProduction);
-            JSONObject response = SnapApi.createTransaction(params, config);
+        log.info("Creating QRIS payment - Order: {}, Amount: {}", orderId, transaksi.getTotal());
 
-            log.info("Midtrans Full Response: {}", response.toString(2));
+        // order_id disimpan sebelum memanggil gateway, supaya webhook yang datang cepat sudah bisa menemukan transaksinya
+        transaksi.setPaymentGatewayId(orderId);
+        transaksi.setPaymentMethodDetail("QRIS");
+        transaksiService.updateTransaksi(transaksi);
 
-            // Update transaction
-            transaksi.setPaymentGatewayId(orderId);
-            transaksi.setPaymentMethodDetail("QRIS");
-            transaksiService.updateTransaksi(transaksi);
+        return gatewayClient.createTransaction(params).thenApply(response -> {
+            log.debug("Midtrans Full Response: {}", response.toString(2));
 
             // ✅ PERBAIKAN: Parse response lebih comprehensive
             Map<String, String> paymentData = parsePaymentResponse(response);
@@ -174,14 +177,23 @@ public class MidtransService {
             log.info("Final Payment Data: {}", paymentData);
 
             return paymentData;
+        });
+    }
 
-        } catch (MidtransError e) {
-            log.error("Midtrans API Error: {}", e.getMessage(), e);
-            throw new RuntimeException("Gagal membuat pembayaran QRIS: " + e.getMessage());
-        } catch (Exception e) {
-            log.error("Unexpected error: {}", e.getMessage(), e);
-            throw new RuntimeException("Error sistem pembayaran: " + e.getMessage());
+    // QR kadaluarsa di Midtrans paling lambat saat rekonsiliasi boleh meng-expire transaksinya
+    // (tanggal transaksi + app.reconcile.expire-after-minutes), dibulatkan ke bawah per menit
+    private Map<String, Object> customExpiry(Transaksi transaksi) {
+        LocalDateTime now = LocalDateTime.now();
+        long sisaMenit = Duration.between(now, transaksi.getTanggal().plus(expireAfter)).toMinutes();
+        if (sisaMenit < 1) {
+            throw new RuntimeException("Batas waktu pembayaran transaksi sudah lewat");
         }
+
+        Map<String, Object> customExpiry = new HashMap<>();
+        customExpiry.put("order_time", now.atZone(ZoneId.systemDefault()).format(ORDER_TIME_FORMAT));
+        customExpiry.put("expiry_duration", sisaMenit);
+        customExpiry.put("unit", "minute");
+        return customExpiry;
     }
 
     // ✅ PERBAIKAN: Method parsePaymentResponse yang lebih robust
@@ -240,49 +252,7 @@ public class MidtransService {
         return paymentData;
     }
 
-    public void handleWebhookNotification(Map<String, Object> payload) {
-        try {
-            log.info("Received Midtrans webhook: {}", payload);
-
-            String orderId = (String) payload.get("order_id");
-            String transactionStatus = (String) payload.get("transaction_status");
-            String fraudStatus = (String) payload.get("fraud_status");
-
-            Transaksi transaksi = transaksiService.findByPaymentGatewayId(orderId)
-                    .orElseThrow(() -> new RuntimeException("Transaksi tidak ditemukan: " + orderId));
-
-            Transaksi.PaymentStatus newStatus = mapMidtransStatus(transactionStatus, fraudStatus);
-
-            // Gunakan service yang baru untuk update status dengan logika stok
-            transaksiService.updatePaymentStatus(transaksi.getIdTransaksi(), newStatus);
-
-            // Update field tambahan
-            transaksi.setPaymentGatewayResponse(new JSONObject(payload).toString());
-            transaksiService.updateTransaksi(transaksi);
-
-            log.info("Updated transaction {} to status: {}", orderId, newStatus);
-
-        } catch (Exception e) {
-            log.error("Error handling Midtrans webhook: {}", e.getMessage(), e);
-            throw new RuntimeException("Gagal memproses notifikasi pembayaran");
-        }
-    }
-
-    private Transaksi.PaymentStatus mapMidtransStatus(String transactionStatus, String fraudStatus) {
-        if ("capture".equals(transactionStatus)) {
-            return "accept".equals(fraudStatus) ? Transaksi.PaymentStatus.PAID : Transaksi.PaymentStatus.FAILED;
-        } else if ("settlement".equals(transactionStatus)) {
-            return Transaksi.PaymentStatus.PAID;
-        } else if ("pending".equals(transactionStatus)) {
-            return Transaksi.PaymentStatus.PENDING;
-        } else if ("deny".equals(transactionStatus) ||
-                "cancel".equals(transactionStatus) ||
-                "expire".equals(transactionStatus)) {
-            return Transaksi.PaymentStatus.FAILED;
-        } else {
-            return Transaksi.PaymentStatus.PENDING;
-        }
-    }
+    // Notifikasi webhook diproses oleh WebhookInboxService
 
     public Map<String, Object> checkPaymentStatus(String orderId) {
         try {
@@ -0,0 +1,226 @@
+package com.traitor.ambatushop_10.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client Midtrans Snap API (POST /snap/v1/transactions) dan Core API (GET /v2/{order_id}/status,
+ * POST /v2/{order_id}/expire) di atas java.net.http.HttpClient.
+ *
+ * - Satu HttpClient untuk semua panggilan: koneksi keep-alive dipakai ulang, Config / client tidak dibuat
+ *   ulang setiap request seperti SnapApi.
+ * - Connect timeout dan timeout per request (midtrans.http.*); gateway yang lambat tidak menahan apa pun
+ *   lebih lama dari itu.
+ * - sendAsync: thread Tomcat tidak menunggu respons; callback jalan di virtual thread.
+ * - Batas panggilan bersamaan (max-in-flight) dan circuit breaker: kalau gateway sedang bermasalah,
+ *   request langsung ditolak (503) daripada menumpuk.
+ * - midtrans.snap.base-url / midtrans.api.base-url bisa diarahkan ke stub lokal (MidtransStubController) untuk mengukur latency
+ *   dan pemakaian thread tanpa sandbox Midtrans.
+ */
+@Service
+@Slf4j
+public class MidtransSnapClient implements PaymentGatewayClient {
+
+    private static final String SANDBOX_URL = "https://app.sandbox.midtrans.com";
+    private static final String PRODUCTION_URL = "https://app.midtrans.com";
+    private static final String SANDBOX_API_URL = "https://api.sandbox.midtrans.com";
+    private static final String PRODUCTION_API_URL = "https://api.midtrans.com";
+    private static final int LATENCY_SAMPLES = 1024;
+
+    private final URI transactionsUri;
+    private final String apiBaseUrl;
+    private final String authorization;
+    private final Duration readTimeout;
+    private final int maxInFlight;
+    private final ExecutorService callbackExecutor;
+    private final HttpClient httpClient;
+    private final Semaphore inFlight;
+    private final CircuitBreaker breaker;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    // Ring buffer latency (ms) panggilan terakhir, untuk p50/p99 di getStats()
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private final AtomicLong latencyIndex = new AtomicLong();
+
+    public MidtransSnapClient(
+            @Value("${midtrans.server.key:SB-Mid-server-your-key}") String serverKey,
+            @Value("${midtrans.is.production:false}") boolean isProduction,
+            @Value("${midtrans.snap.base-url:}") String baseUrl,
+            @Value("${midtrans.api.base-url:}") String apiBaseUrl,
+            @Value("${midtrans.http.connect-timeout-ms:2000}") long connectTimeoutMillis,
+            @Value("${midtrans.http.read-timeout-ms:5000}") long readTimeoutMillis,
+            @Value("${midtrans.http.max-in-flight:50}") int maxInFlight,
+            @Value("${midtrans.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${midtrans.breaker.open-ms:30000}") long openMillis) {
+        String base = baseUrl.isBlank() ? (isProduction ? PRODUCTION_URL : SANDBOX_URL) : baseUrl;
+        this.transactionsUri = URI.create(base.replaceAll("/+$", "") + "/snap/v1/transactions");
+        this.apiBaseUrl = (apiBaseUrl.isBlank() ? (isProduction ? PRODUCTION_API_URL : SANDBOX_API_URL) : apiBaseUrl)
+                .replaceAll("/+$", "");
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((serverKey + ":").getBytes(StandardCharsets.UTF_8));
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.breaker = new CircuitBreaker(failureThreshold, openMillis);
+
+        this.callbackExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("midtrans-", 1).factory());
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .executor(callbackExecutor)
+                .build();
+        log.info("Midtrans client: {} (connect {} ms, read {} ms, maks {} panggilan)", transactionsUri,
+                connectTimeoutMillis, readTimeoutMillis, maxInFlight);
+    }
+
+    @Override
+    public CompletableFuture<JSONObject> createTransaction(Map<String, Object> params) {
+        return send(HttpRequest.newBuilder(transactionsUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(new JSONObject(params).toString())), false);
+    }
+
+    @Override
+    public CompletableFuture<JSONObject> getStatus(String orderId) {
+        return send(HttpRequest.newBuilder(coreUri(orderId, "status")).GET(), true);
+    }
+
+    @Override
+    public CompletableFuture<JSONObject> expire(String orderId) {
+        return send(HttpRequest.newBuilder(coreUri(orderId, "expire"))
+                .POST(HttpRequest.BodyPublishers.noBody()), true);
+    }
+
+    private URI coreUri(String orderId, String action) {
+        return URI.create(apiBaseUrl + "/v2/" + URLEncoder.encode(orderId, StandardCharsets.UTF_8) + "/" + action);
+    }
+
+    // coreApi: HTTP 404 dari Core API berarti order tidak dikenal, dijawab sebagai body dengan status_code "404"
+    private CompletableFuture<JSONObject> send(HttpRequest.Builder builder, boolean coreApi) {
+        if (!inFlight.tryAcquire()) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(
+                    new GatewayException("Terlalu banyak permintaan ke payment gateway, coba lagi", true));
+        }
+        if (!breaker.tryAcquire(System.currentTimeMillis())) {
+            inFlight.release();
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(
+                    new GatewayException("Payment gateway sedang bermasalah, coba lagi sebentar lagi", true));
+        }
+
+        HttpRequest request = builder
+                .timeout(readTimeout)
+                .header("Accept", "application/json")
+                .header("Authorization", authorization)
+                .build();
+
+        calls.incrementAndGet();
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    inFlight.release();
+                    recordLatency((System.nanoTime() - start) / 1_000_000);
+                    if (error != null) {
+                        failures.incrementAndGet();
+                        breaker.onFailure(System.currentTimeMillis());
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        String message = cause instanceof HttpTimeoutException
+                                ? "Payment gateway timeout"
+                                : "Tidak bisa menghubungi payment gateway: " + cause.getMessage();
+                        throw new GatewayException(message, true, cause);
+                    }
+                    return toResult(response, coreApi);
+                });
+    }
+
+    // 5xx dihitung sebagai gateway bermasalah (breaker); 4xx berarti gateway sehat tapi request ditolak
+    private JSONObject toResult(HttpResponse<String> response, boolean coreApi) {
+        int status = response.statusCode();
+        if (status >= 500) {
+            failures.incrementAndGet();
+            breaker.onFailure(System.currentTimeMillis());
+            throw new GatewayException("Payment gateway error HTTP " + status, true);
+        }
+        breaker.onSuccess();
+        if (coreApi && status == 404) {
+            return new JSONObject().put("status_code", "404");
+        }
+
+        JSONObject body;
+        try {
+            body = new JSONObject(response.body());
+        } catch (JSONException e) {
+            throw new GatewayException("Respons payment gateway tidak valid (HTTP " + status + ")", false, e);
+        }
+        if (status >= 400) {
+            throw new GatewayException("Payment gateway menolak request (HTTP " + status + "): "
+                    + body.optJSONArray("error_messages"), false);
+        }
+        return body;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long count = Math.min(latencyIndex.get(), LATENCY_SAMPLES);
+        long[] sorted = Arrays.copyOf(latencies, (int) count);
+        Arrays.sort(sorted);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("breaker", breaker.state().name());
+        stats.put("calls", calls.get());
+        stats.put("failures", failures.get());
+        stats.put("rejected", rejected.get());
+        stats.put("inFlight", maxInFlight - inFlight.availablePermits());
+        stats.put("samples", count);
+        stats.put("p50Millis", percentile(sorted, 0.50));
+        stats.put("p99Millis", percentile(sorted, 0.99));
+        stats.put("maxMillis", count == 0 ? 0 : sorted[sorted.length - 1]);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        httpClient.shutdownNow();
+        callbackExecutor.shutdownNow();
+    }
+
+    private void recordLatency(long millis) {
+        latencies[(int) (latencyIndex.getAndIncrement() % LATENCY_SAMPLES)] = millis;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,57 @@
+package com.traitor.ambatushop_10.service;
+
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Client ke payment gateway (Midtrans Snap). Semua panggilan asynchronous: thread request tidak
+ * menunggu gateway, hasilnya dilanjutkan di CompletableFuture.
+ */
+public interface PaymentGatewayClient {
+
+    /**
+     * Buat transaksi Snap. Future gagal dengan GatewayException kalau gateway menolak / timeout /
+     * circuit breaker sedang terbuka.
+     */
+    CompletableFuture<JSONObject> createTransaction(Map<String, Object> params);
+
+    /**
+     * Status transaksi di gateway (format sama dengan notifikasi webhook: order_id, transaction_status,
+     * fraud_status). Order yang tidak dikenal gateway dijawab dengan status_code "404".
+     */
+    CompletableFuture<JSONObject> getStatus(String orderId);
+
+    /**
+     * Expire transaksi yang masih pending di gateway (POST /v2/{order_id}/expire), supaya QR yang sudah
+     * dipegang pelanggan tidak bisa dibayar lagi. Berhasil: transaction_status "expire"; order yang tidak
+     * dikenal gateway dijawab dengan status_code "404", seperti getStatus.
+     */
+    CompletableFuture<JSONObject> expire(String orderId);
+
+    // Statistik client: state circuit breaker, jumlah panggilan, latency p50/p99, panggilan yang sedang jalan
+    Map<String, Object> getStats();
+
+    /**
+     * Gagal memanggil gateway. unavailable = true kalau gateway tidak bisa dihubungi / lambat / breaker
+     * terbuka (dijawab 503, boleh coba lagi); false kalau gateway menjawab tapi menolak request.
+     */
+    class GatewayException extends RuntimeException {
+        private final boolean unavailable;
+
+        public GatewayException(String message, boolean unavailable) {
+            super(message);
+            this.unavailable = unavailable;
+        }
+
+        public GatewayException(String message, boolean unavailable, Throwable cause) {
+            super(message, cause);
+            this.unavailable = unavailable;
+        }
+
+        public boolean isUnavailable() {
+            return unavailable;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.PendingTransaksi;
+import com.traitor.ambatushop_10.repository.TransaksiRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rekonsiliasi transaksi QRIS (NON_TUNAI) yang masih PENDING, untuk kasus webhook Midtrans hilang.
+ *
+ * Setiap app.reconcile.interval-ms: transaksi PENDING yang lebih tua dari app.reconcile.min-age-minutes
+ * dibaca per halaman (keyset di index idx_transaksi_status_tanggal), statusnya ditanyakan ke gateway dengan
+ * maksimal app.reconcile.concurrency panggilan bersamaan, dan status final dimasukkan ke inbox webhook
+ * (WebhookInboxService) supaya diproses lewat jalur yang sama dengan notifikasi asli, termasuk de-duplikasi.
+ *
+ * Transaksi yang lewat app.reconcile.expire-after-minutes dan gateway tidak tahu / masih pending
+ * di-expire dulu di gateway (POST /v2/{order_id}/expire), supaya QR-nya tidak bisa dibayar lagi, baru
+ * dijadikan EXPIRED di sini (stok reservasi dilepas). Hanya kalau gateway mengonfirmasi expire atau tidak
+ * mengenal order-nya (404); selain itu transaksi tetap PENDING dan dicek lagi di run berikutnya.
+ * Kalau gateway tidak bisa dihubungi, run dihentikan dan tidak ada yang di-expire.
+ */
+@Service
+@Slf4j
+public class PaymentReconciliationService {
+
+    private enum Outcome { APPLIED, DUPLICATE, STILL_PENDING, EXPIRED, UNAVAILABLE, ERROR }
+
+    private final TransaksiRepository transaksiRepository;
+    private final TransaksiService transaksiService;
+    private final WebhookInboxService webhookInboxService;
+    private final PaymentGatewayClient gatewayClient;
+    private final Duration minAge;
+    private final Duration expireAfter;
+    private final int batchSize;
+    private final int concurrency;
+
+    // Metrics (GET /api/payment/reconcile/stats)
+    private final AtomicLong totalChecked = new AtomicLong();
+    private final AtomicLong totalApplied = new AtomicLong();
+    private final AtomicLong totalDuplicates = new AtomicLong();
+    private final AtomicLong totalExpired = new AtomicLong();
+    private final AtomicLong totalErrors = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunMillis;
+    private volatile int lastRunChecked;
+
+    public PaymentReconciliationService(TransaksiRepository transaksiRepository,
+            TransaksiService transaksiService,
+            WebhookInboxService webhookInboxService,
+            PaymentGatewayClient gatewayClient,
+            @Value("${app.reconcile.min-age-minutes:5}") long minAgeMinutes,
+            @Value("${app.reconcile.expire-after-minutes:30}") long expireAfterMinutes,
+            @Value("${app.reconcile.batch-size:100}") int batchSize,
+            @Value("${app.reconcile.concurrency:8}") int concurrency) {
+        this.transaksiRepository = transaksiRepository;
+        this.transaksiService = transaksiService;
+        this.webhookInboxService = webhookInboxService;
+        this.gatewayClient = gatewayClient;
+        this.minAge = Duration.ofMinutes(minAgeMinutes);
+        this.expireAfter = Duration.ofMinutes(expireAfterMinutes);
+        this.batchSize = batchSize;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    @Scheduled(fixedDelayString = "${app.reconcile.interval-ms:60000}",
+            initialDelayString = "${app.reconcile.initial-delay-ms:60000}")
+    public void reconcilePending() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Rekonsiliasi pembayaran gagal: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Satu putaran rekonsiliasi. Return jumlah transaksi yang dicek.
+     * synchronized: run terjadwal dan run manual (endpoint admin) tidak jalan bersamaan.
+     */
+    public synchronized int reconcile() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime checkBefore = now.minus(minAge);
+        LocalDateTime expireBefore = now.minus(expireAfter);
+
+        int checked = 0;
+        LocalDateTime cursorTanggal = null;
+        Long cursorId = null;
+        boolean gatewayDown = false;
+
+        while (!gatewayDown) {
+            List<PendingTransaksi> page = transaksiRepository.findPendingBefore(checkBefore, cursorTanggal, cursorId,
+                    PageRequest.of(0, batchSize));
+            if (page.isEmpty()) {
+                break;
+            }
+
+            for (Outcome outcome : reconcilePage(page, expireBefore)) {
+                switch (outcome) {
+                    case APPLIED -> totalApplied.incrementAndGet();
+                    case DUPLICATE -> totalDuplicates.incrementAndGet();
+                    case EXPIRED -> totalExpired.incrementAndGet();
+                    case UNAVAILABLE -> gatewayDown = true;
+                    case ERROR -> totalErrors.incrementAndGet();
+                    default -> { }
+                }
+            }
+            checked += page.size();
+
+            PendingTransaksi last = page.get(page.size() - 1);
+            cursorTanggal = last.tanggal();
+            cursorId = last.idTransaksi();
+            if (page.size() < batchSize) {
+                break;
+            }
+        }
+
+        totalChecked.addAndGet(checked);
+        lastRunAt = now;
+        lastRunChecked = checked;
+        lastRunMillis = System.currentTimeMillis() - start;
+        if (checked > 0) {
+            log.info("🔁 Rekonsiliasi: {} transaksi PENDING dicek dalam {} ms{}", checked, lastRunMillis,
+                    gatewayDown ? " (dihentikan, gateway tidak tersedia)" : "");
+        }
+        return checked;
+    }
+
+    public Map<String, Object> getStats() {
+        LocalDateTime now = LocalDateTime.now();
+        Object[] backlog = transaksiRepository.pendingBacklog(now.minus(minAge)).get(0);
+        LocalDateTime oldest = (LocalDateTime) backlog[1];
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        // Backlog: transaksi PENDING yang sudah cukup tua untuk dicek tapi belum selesai
+        stats.put("backlog", ((Number) backlog[0]).longValue());
+        // Lag: umur transaksi PENDING tertua dan jarak sejak run terakhir
+        stats.put("oldestPendingAgeSeconds", oldest == null ? 0 : Duration.between(oldest, now).toSeconds());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("secondsSinceLastRun", lastRunAt == null ? null : Duration.between(lastRunAt, now).toSeconds());
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("lastRunChecked", lastRunChecked);
+        stats.put("totalChecked", totalChecked.get());
+        stats.put("totalApplied", totalApplied.get());
+        // Status final yang sudah ada di inbox tapi transaksinya masih PENDING (cek webhook_inbox yang FAILED)
+        stats.put("totalDuplicates", totalDuplicates.get());
+        stats.put("totalExpired", totalExpired.get());
+        stats.put("totalErrors", totalErrors.get());
+        // Pembayaran terlambat yang stoknya tidak bisa dikurangi lagi (lihat TransaksiService.updatePaymentStatus)
+        stats.put("perluTinjauan", transaksiRepository.countByPerluTinjauanTrue());
+        return stats;
+    }
+
+    // Cek satu halaman ke gateway, maksimal `concurrency` panggilan bersamaan
+    private List<Outcome> reconcilePage(List<PendingTransaksi> page, LocalDateTime expireBefore) {
+        Semaphore permits = new Semaphore(concurrency);
+        List<CompletableFuture<Outcome>> futures = new ArrayList<>(page.size());
+
+        for (PendingTransaksi pending : page) {
+            boolean pastDeadline = pending.tanggal().isBefore(expireBefore);
+            if (pending.paymentGatewayId() == null) {
+                // QRIS belum pernah dibuat di gateway, tidak ada yang bisa ditanyakan
+                futures.add(CompletableFuture.completedFuture(
+                        pastDeadline ? expire(pending) : Outcome.STILL_PENDING));
+                continue;
+            }
+
+            permits.acquireUninterruptibly();
+            CompletableFuture<JSONObject> status;
+            try {
+                status = gatewayClient.getStatus(pending.paymentGatewayId());
+            } catch (RuntimeException e) {
+                status = CompletableFuture.failedFuture(e);
+            }
+            // Permit dipegang sampai selesai, termasuk panggilan expire ke gateway
+            futures.add(status
+                    .handle((response, error) -> apply(pending, response, error, pastDeadline))
+                    .thenCompose(outcome -> outcome)
+                    .whenComplete((outcome, error) -> permits.release()));
+        }
+
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private CompletableFuture<Outcome> apply(PendingTransaksi pending, JSONObject response, Throwable error,
+            boolean pastDeadline) {
+        try {
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                if (cause instanceof PaymentGatewayClient.GatewayException gatewayError && gatewayError.isUnavailable()) {
+                    return CompletableFuture.completedFuture(Outcome.UNAVAILABLE);
+                }
+                // Gateway menjawab tapi menolak (misalnya order tidak dikenal)
+                log.warn("Cek status {} gagal: {}", pending.paymentGatewayId(), cause.getMessage());
+                return pastDeadline ? expireAtGateway(pending) : CompletableFuture.completedFuture(Outcome.ERROR);
+            }
+
+            String transactionStatus = response.optString("transaction_status", null);
+            if ("404".equals(response.optString("status_code")) || transactionStatus == null
+                    || "pending".equals(transactionStatus)) {
+                return pastDeadline ? expireAtGateway(pending) : CompletableFuture.completedFuture(Outcome.STILL_PENDING);
+            }
+
+            // Status final: lewat inbox webhook, sama seperti notifikasi dari Midtrans
+            if (webhookInboxService.receive(response.toMap()) == WebhookInboxService.ReceiveResult.DUPLICATE) {
+                // Notifikasi yang sama sudah pernah masuk inbox, tidak ada yang baru diterapkan
+                return CompletableFuture.completedFuture(Outcome.DUPLICATE);
+            }
+            return CompletableFuture.completedFuture(Outcome.APPLIED);
+        } catch (RuntimeException e) {
+            log.error("Rekonsiliasi transaksi {} gagal: {}", pending.idTransaksi(), e.getMessage());
+            return CompletableFuture.completedFuture(Outcome.ERROR);
+        }
+    }
+
+    // Expire di gateway dulu; EXPIRED lokal hanya kalau gateway mengonfirmasi atau tidak mengenal order-nya
+    private CompletableFuture<Outcome> expireAtGateway(PendingTransaksi pending) {
+        CompletableFuture<JSONObject> call;
+        try {
+            call = gatewayClient.expire(pending.paymentGatewayId());
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call.handle((response, error) -> {
+            try {
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof PaymentGatewayClient.GatewayException gatewayError
+                            && gatewayError.isUnavailable()) {
+                        return Outcome.UNAVAILABLE;
+                    }
+                    log.warn("Expire {} di gateway gagal: {}", pending.paymentGatewayId(), cause.getMessage());
+                    return Outcome.ERROR;
+                }
+                if ("404".equals(response.optString("status_code"))
+                        || "expire".equals(response.optString("transaction_status"))) {
+                    return expire(pending);
+                }
+                // Misalnya sudah dibayar di antara cek status dan expire: status final masuk lewat webhook / run berikutnya
+                log.warn("Gateway tidak meng-expire {}: {} {}", pending.paymentGatewayId(),
+                        response.optString("status_code"), response.optString("status_message"));
+                return Outcome.STILL_PENDING;
+            } catch (RuntimeException e) {
+                log.error("Rekonsiliasi transaksi {} gagal: {}", pending.idTransaksi(), e.getMessage());
+                return Outcome.ERROR;
+            }
+        });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private Outcome expire(PendingTransaksi pending) {
+        if (transaksiService.expireIfPending(pending.idTransaksi())) {
+            log.info("⌛ Transaksi {} EXPIRED oleh rekonsiliasi (dibuat {})", pending.idTransaksi(), pending.tanggal());
+            return Outcome.EXPIRED;
+        }
+        return Outcome.STILL_PENDING;
+    }
+}
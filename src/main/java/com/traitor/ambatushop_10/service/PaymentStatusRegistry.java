@@ -0,0 +1,101 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.PaymentStatusEvent;
+import com.traitor.ambatushop_10.repository.TransaksiRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Status pembayaran terakhir per transaksi di memori, untuk long-poll /api/payment/status/{id}/await
+ * dan status awal push "payment:{id}".
+ *
+ * Diisi dari PaymentStatusEvent yang dipublish TransaksiService (create, updatePaymentStatus,
+ * confirmCashPayment) setelah commit, jadi menunggu pembayaran QRIS tidak perlu membaca DB berulang.
+ * DB hanya dibaca sekali per transaksi kalau belum ada di memori (misalnya setelah restart).
+ * Entry dibuang setelah RETENTION_MILLIS tanpa perubahan; kalau diminta lagi dibaca ulang dari DB.
+ */
+@Service
+public class PaymentStatusRegistry {
+
+    private static final long RETENTION_MILLIS = 30 * 60_000L;
+
+    private record Entry(PaymentStatusEvent status, long updatedAt) {
+    }
+
+    private final TransaksiRepository transaksiRepository;
+
+    private final Map<Long, Entry> statuses = new ConcurrentHashMap<>();
+    private final Map<Long, Set<DeferredResult<PaymentStatusEvent>>> waiters = new ConcurrentHashMap<>();
+
+    public PaymentStatusRegistry(TransaksiRepository transaksiRepository) {
+        this.transaksiRepository = transaksiRepository;
+    }
+
+    // Status terakhir; null kalau transaksi tidak ada
+    public PaymentStatusEvent get(Long idTransaksi) {
+        Entry entry = statuses.get(idTransaksi);
+        if (entry != null) {
+            return entry.status();
+        }
+        PaymentStatusEvent loaded = transaksiRepository.findPaymentStatus(idTransaksi).orElse(null);
+        if (loaded == null) {
+            return null;
+        }
+        // putIfAbsent: event yang masuk selagi query jalan lebih baru dari hasil query
+        Entry existing = statuses.putIfAbsent(idTransaksi, new Entry(loaded, System.currentTimeMillis()));
+        return existing != null ? existing.status() : loaded;
+    }
+
+    /**
+     * Tunggu sampai status berbeda dari `current` atau timeout. Tidak memegang thread: DeferredResult
+     * diselesaikan oleh onPaymentStatus(). Saat timeout hasilnya status saat itu (bisa masih sama).
+     */
+    public DeferredResult<PaymentStatusEvent> await(PaymentStatusEvent current, long timeoutMillis) {
+        Long id = current.idTransaksi();
+        DeferredResult<PaymentStatusEvent> result = new DeferredResult<>(timeoutMillis);
+        result.onTimeout(() -> result.setResult(get(id)));
+        result.onCompletion(() -> waiters.computeIfPresent(id, (key, set) -> {
+            set.remove(result);
+            return set.isEmpty() ? null : set;
+        }));
+
+        waiters.compute(id, (key, set) -> {
+            Set<DeferredResult<PaymentStatusEvent>> target = set == null ? ConcurrentHashMap.newKeySet() : set;
+            target.add(result);
+            return target;
+        });
+
+        // Status bisa berubah di antara get() pemanggil dan pendaftaran di atas
+        Entry latest = statuses.get(id);
+        if (latest != null && !latest.status().paymentStatus().equals(current.paymentStatus())) {
+            result.setResult(latest.status());
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentStatus(PaymentStatusEvent event) {
+        statuses.put(event.idTransaksi(), new Entry(event, System.currentTimeMillis()));
+        Set<DeferredResult<PaymentStatusEvent>> parked = waiters.remove(event.idTransaksi());
+        if (parked != null) {
+            parked.forEach(result -> result.setResult(event));
+        }
+    }
+
+    public int getWaiterCount() {
+        return waiters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @Scheduled(fixedRate = 300000)
+    public void purgeStale() {
+        long batas = System.currentTimeMillis() - RETENTION_MILLIS;
+        statuses.entrySet().removeIf(entry -> entry.getValue().updatedAt() < batas
+                && !waiters.containsKey(entry.getKey()));
+    }
+}
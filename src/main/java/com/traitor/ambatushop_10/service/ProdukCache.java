@@ -0,0 +1,300 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.ProdukChangedEvent;
+import com.traitor.ambatushop_10.dto.StockChangedEvent;
+import com.traitor.ambatushop_10.model.Produk;
+import com.traitor.ambatushop_10.repository.ProdukRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Cache read-through untuk Produk (getProdukById, getAllProduk, lookup keranjang di TransaksiService).
+ *
+ * Per entry, nama + harga + barcode (jarang berubah) dipisah dari stok + versi (berubah setiap pembayaran). Perubahan
+ * stok hanya mengganti bagian stok, entry tidak dibuang. Entry di-refresh dari DB setelah commit:
+ * - ProdukChangedEvent (create / update / delete di ProdukService): baris lengkap dibaca ulang
+ * - StockChangedEvent (pembayaran / pembatalan di TransaksiService): hanya stok + versi
+ *
+ * Refresh berjalan berurutan (refreshLock) dan menaikkan refreshSeq. Load karena miss hanya masuk cache
+ * kalau tidak ada refresh selama query berjalan, jadi data yang dibaca sebelum commit tidak menimpa
+ * hasil refresh. Stok di cache bisa sedikit tertinggal (antara commit dan refresh); pengurangan stok
+ * tetap lewat UPDATE bersyarat stok >= jumlah, jadi tidak bisa minus.
+ *
+ * Ukuran dibatasi app.produk-cache.max-size; kalau penuh, 10% entry dibuang dengan second-chance (CLOCK):
+ * entry yang dibaca sejak putaran terakhir dilewati sekali. List lengkap (getAllProduk) disimpan sebagai
+ * snapshot per versi katalog. app.produk-cache.enabled=false: semua baca langsung ke DB.
+ */
+@Service
+@Slf4j
+public class ProdukCache {
+
+    private record Info(Long idProduk, String namaProduk, Double harga, String barcode) {
+    }
+
+    private record Stok(short stok, long versi) {
+    }
+
+    private static final class Entry {
+        final Info info;
+        volatile Stok stok;
+        volatile boolean referenced = true;
+
+        Entry(Info info, Stok stok) {
+            this.info = info;
+            this.stok = stok;
+        }
+    }
+
+    private record Snapshot(long versi, List<Produk> produk) {
+    }
+
+    private static final int PRELOAD_BATCH = 1000; // ukuran IN (...) per query
+
+    private final ProdukRepository produkRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final boolean enabled;
+    private final int maxSize;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Object refreshLock = new Object();
+    private long refreshSeq; // dijaga refreshLock
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    // Metrics (GET /api/produk/cache/stats)
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong snapshotHits = new AtomicLong();
+    private final AtomicLong snapshotLoads = new AtomicLong();
+
+    public ProdukCache(ProdukRepository produkRepository,
+            CatalogVersionService catalogVersionService,
+            @Value("${app.produk-cache.enabled:true}") boolean enabled,
+            @Value("${app.produk-cache.max-size:10000}") int maxSize) {
+        this.produkRepository = produkRepository;
+        this.catalogVersionService = catalogVersionService;
+        this.enabled = enabled;
+        this.maxSize = Math.max(1, maxSize);
+        log.info("📦 Cache produk: {} (maks {} produk)", enabled ? "aktif" : "nonaktif", this.maxSize);
+    }
+
+    // Salinan produk (aman diubah pemanggil); null kalau tidak ada
+    public Produk get(Long idProduk) {
+        if (!enabled) {
+            return produkRepository.findById(idProduk).orElse(null);
+        }
+        Entry entry = entries.get(idProduk);
+        if (entry != null) {
+            hits.incrementAndGet();
+            touch(entry);
+            return toProduk(entry);
+        }
+        misses.incrementAndGet();
+        Map<Long, Produk> loaded = load(List.of(idProduk));
+        return loaded.get(idProduk);
+    }
+
+    // Beberapa produk sekaligus; produk yang tidak ada tidak masuk map. Miss diambil dengan satu query IN
+    public Map<Long, Produk> getAll(Collection<Long> produkIds) {
+        if (!enabled) {
+            return produkRepository.findAllById(produkIds).stream()
+                    .collect(Collectors.toMap(Produk::getIdProduk, produk -> produk));
+        }
+        Map<Long, Produk> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long idProduk : produkIds) {
+            Entry entry = entries.get(idProduk);
+            if (entry != null) {
+                touch(entry);
+                result.put(idProduk, toProduk(entry));
+            } else {
+                missing.add(idProduk);
+            }
+        }
+        hits.addAndGet(result.size());
+        if (!missing.isEmpty()) {
+            misses.addAndGet(missing.size());
+            result.putAll(load(missing));
+        }
+        return result;
+    }
+
+    // Isi cache lebih dulu (misalnya produk ber-barcode untuk scan kasir), sebatas sisa kapasitas
+    public void preload(Collection<Long> produkIds) {
+        if (!enabled) {
+            return;
+        }
+        List<Long> missing = produkIds.stream()
+                .filter(idProduk -> !entries.containsKey(idProduk))
+                .limit(Math.max(0, maxSize - entries.size()))
+                .toList();
+        for (int from = 0; from < missing.size(); from += PRELOAD_BATCH) {
+            load(missing.subList(from, Math.min(from + PRELOAD_BATCH, missing.size())));
+        }
+    }
+
+    /**
+     * Semua produk. Snapshot dipakai ulang selama versi katalog belum berubah; versi diambil sebelum query,
+     * jadi snapshot minimal berisi semua perubahan sampai versi itu. Jangan diubah (list dipakai bersama).
+     */
+    public List<Produk> getAllProduk() {
+        if (!enabled) {
+            return produkRepository.findAll();
+        }
+        long versi = catalogVersionService.stableVersion();
+        Snapshot current = snapshot;
+        if (current != null && current.versi() == versi) {
+            snapshotHits.incrementAndGet();
+            return current.produk();
+        }
+        snapshotLoads.incrementAndGet();
+        List<Produk> produk = List.copyOf(produkRepository.findAll());
+        snapshot = new Snapshot(versi, produk);
+        return produk;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProdukChanged(ProdukChangedEvent event) {
+        if (!enabled || event.produkIds().isEmpty()) {
+            return;
+        }
+        synchronized (refreshLock) {
+            refreshSeq++;
+            refreshes.incrementAndGet();
+            Map<Long, Produk> fresh = produkRepository.findAllById(event.produkIds()).stream()
+                    .collect(Collectors.toMap(Produk::getIdProduk, produk -> produk));
+            for (Long idProduk : event.produkIds()) {
+                Produk produk = fresh.get(idProduk);
+                if (produk == null) {
+                    entries.remove(idProduk); // dihapus
+                } else if (entries.containsKey(idProduk)) {
+                    entries.put(idProduk, toEntry(produk));
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (!enabled || event.produkIds().isEmpty()) {
+            return;
+        }
+        synchronized (refreshLock) {
+            refreshSeq++;
+            refreshes.incrementAndGet();
+            List<Long> cached = event.produkIds().stream().filter(entries::containsKey).toList();
+            if (cached.isEmpty()) {
+                return;
+            }
+            for (Object[] row : produkRepository.findStokVersi(cached)) {
+                Entry entry = entries.get((Long) row[0]);
+                if (entry != null) {
+                    // Hanya bagian stok yang diganti, nama / harga tetap
+                    entry.stok = new Stok((Short) row[1], (Long) row[2]);
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("hitRate", total == 0 ? 0 : Math.round(hitCount * 1000.0 / total) / 10.0);
+        stats.put("evictions", evictions.get());
+        stats.put("refreshes", refreshes.get());
+        stats.put("snapshotHits", snapshotHits.get());
+        stats.put("snapshotLoads", snapshotLoads.get());
+        return stats;
+    }
+
+    // Miss: baca dari DB, masuk cache hanya kalau tidak ada refresh selama query
+    private Map<Long, Produk> load(Collection<Long> produkIds) {
+        long seq;
+        synchronized (refreshLock) {
+            seq = refreshSeq;
+        }
+        List<Produk> rows = produkRepository.findAllById(produkIds);
+
+        Map<Long, Produk> result = new HashMap<>();
+        synchronized (refreshLock) {
+            boolean cacheable = seq == refreshSeq;
+            for (Produk produk : rows) {
+                Entry entry = toEntry(produk);
+                if (cacheable) {
+                    entries.putIfAbsent(produk.getIdProduk(), entry);
+                }
+                result.put(produk.getIdProduk(), toProduk(entry));
+            }
+        }
+        evictIfNeeded();
+        return result;
+    }
+
+    private static void touch(Entry entry) {
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+    }
+
+    // Second-chance: entry yang masih referenced diberi kesempatan sekali (flag dihapus), sisanya dibuang
+    private void evictIfNeeded() {
+        if (entries.size() <= maxSize || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int target = maxSize - maxSize / 10;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (entries.size() > target) {
+                if (!iterator.hasNext()) {
+                    iterator = entries.values().iterator();
+                    continue;
+                }
+                Entry entry = iterator.next();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else {
+                    iterator.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static Entry toEntry(Produk produk) {
+        return new Entry(new Info(produk.getIdProduk(), produk.getNamaProduk(), produk.getHarga(), produk.getBarcode()),
+                new Stok(produk.getStok(), produk.getVersi()));
+    }
+
+    private static Produk toProduk(Entry entry) {
+        Stok stok = entry.stok;
+        Produk produk = new Produk(entry.info.namaProduk(), entry.info.harga(), stok.stok());
+        produk.setIdProduk(entry.info.idProduk());
+        produk.setBarcode(entry.info.barcode());
+        produk.setVersi(stok.versi());
+        return produk;
+    }
+}
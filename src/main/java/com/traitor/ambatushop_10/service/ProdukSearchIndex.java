@@ -0,0 +1,543 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.ProdukChangedEvent;
+import com.traitor.ambatushop_10.repository.ProdukRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index pencarian nama produk di memori, pengganti LIKE '%keyword%' (tidak bisa pakai index DB).
+ *
+ * Nama dipecah jadi kata (huruf kecil, tanpa aksen / tanda baca). Setiap kata di kamus menyimpan
+ * daftar produk yang memakainya, dan kamus kata punya dua jalur pencarian:
+ * - TreeMap urut abjad   : kata yang sama persis / diawali kata query (mengetik belum selesai)
+ * - trigram -> kata      : kata yang mengandung query di tengah, dan kandidat untuk salah ketik
+ *
+ * Bobot per kata query: sama persis 4, awalan 3, di tengah kata 2, salah ketik (edit distance 1, atau 2
+ * untuk kata >= 8 huruf, dihitung terhadap awalan kata) 1. Semua kata query harus cocok (AND); produk
+ * diurutkan dari skor tertinggi, lalu nama yang diawali query, lalu nama terpendek.
+ *
+ * Produk disimpan di slot (int) supaya skor dihitung di array, bukan HashMap<Long, Integer>, dan hanya
+ * `limit` hasil teratas yang diurutkan (min-heap long). Salah ketik hanya dicari untuk kata tanpa angka;
+ * kode / ukuran ("250ml", "v2") harus cocok awalan atau di tengah kata. Array kerja per pencarian dipinjam
+ * dari pool kecil (sebanyak CPU), bukan ThreadLocal: jumlah thread request / virtual thread tidak menentukan
+ * berapa salinan array sebesar jumlah produk yang tertahan di memori.
+ *
+ * Dibangun saat startup dari nama produk saja dan di-refresh setelah commit lewat ProdukChangedEvent
+ * (nama produk yang berubah dibaca ulang), seperti BarcodeIndex, jadi nama dari transaksi yang rollback
+ * tidak pernah masuk index. Hasilnya ID produk; data lengkap (harga, stok) tetap dibaca lewat primary key.
+ */
+@Service
+@Slf4j
+public class ProdukSearchIndex {
+
+    private static final Pattern NON_ALNUM = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final int WEIGHT_EXACT = 4;
+    private static final int WEIGHT_PREFIX = 3;
+    private static final int WEIGHT_INFIX = 2;
+    private static final int WEIGHT_FUZZY = 1;
+    private static final int SCRATCH_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    // Kata di kamus beserta slot produk yang memakainya
+    private static final class Term {
+        final String text;
+        int[] slots = new int[2];
+        int size;
+
+        Term(String text) {
+            this.text = text;
+        }
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    // Array kerja satu pencarian (dipinjam dari scratchPool); stamp == epoch berarti slot sudah disentuh pencarian ini
+    private static final class Scratch {
+        int epoch;
+        int[] stamp = new int[0];
+        int[] matchedWords = new int[0];
+        int[] best = new int[0];
+        int[] total = new int[0];
+        int[] candidates = new int[0];
+
+        void ensureCapacity(int capacity) {
+            if (stamp.length < capacity) {
+                stamp = Arrays.copyOf(stamp, capacity);
+                matchedWords = new int[capacity];
+                best = new int[capacity];
+                total = new int[capacity];
+                candidates = new int[capacity];
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                epoch = 1;
+            }
+        }
+    }
+
+    private final ProdukRepository produkRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private long[] ids = new long[16];
+    private String[] names = new String[16];
+    private int[] nameLengths = new int[16];
+    private Term[] firstTerms = new Term[16];
+    private String[][] words = new String[16][];
+    private int slotCount;
+    private final TreeMap<String, Term> terms = new TreeMap<>();
+    private final Map<String, Set<Term>> termsByTrigram = new HashMap<>();
+
+    // Lebih dari SCRATCH_POOL_SIZE pencarian bersamaan: Scratch baru dibuat dan dibuang setelah dipakai
+    private final ArrayBlockingQueue<Scratch> scratchPool = new ArrayBlockingQueue<>(SCRATCH_POOL_SIZE);
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong searchNanos = new AtomicLong();
+
+    public ProdukSearchIndex(ProdukRepository produkRepository) {
+        this.produkRepository = produkRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = produkRepository.findAllNames();
+        lock.writeLock().lock();
+        try {
+            slotById.clear();
+            freeSlots.clear();
+            Arrays.fill(names, null);
+            Arrays.fill(words, null);
+            Arrays.fill(firstTerms, null);
+            slotCount = 0;
+            terms.clear();
+            termsByTrigram.clear();
+            for (Object[] row : rows) {
+                addLocked((Long) row[0], (String) row[1]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("🔎 Index pencarian produk: {} produk, {} kata ({} ms)", rows.size(), terms.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProdukChanged(ProdukChangedEvent event) {
+        if (event.produkIds().isEmpty()) {
+            return;
+        }
+        // Baca ulang di dalam synchronized, supaya hasil baca yang lebih lama tidak menimpa yang lebih baru.
+        // Pencarian hanya tertahan selama nama diganti (write lock), bukan selama query
+        synchronized (this) {
+            Map<Long, String> fresh = new HashMap<>();
+            for (Object[] row : produkRepository.findNames(event.produkIds())) {
+                fresh.put((Long) row[0], (String) row[1]);
+            }
+            lock.writeLock().lock();
+            try {
+                for (Long idProduk : event.produkIds()) {
+                    removeLocked(idProduk);
+                    addLocked(idProduk, fresh.get(idProduk)); // produk dihapus -> null, tidak ditambahkan
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Cari produk, return ID produk urut relevansi (maksimal `limit`).
+     */
+    public List<Long> search(String keyword, int limit) {
+        long start = System.nanoTime();
+        String query = normalize(keyword);
+        String[] queryWords = split(query);
+        if (queryWords.length == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        List<Long> result;
+        Scratch s = borrowScratch();
+        lock.readLock().lock();
+        try {
+            s.ensureCapacity(slotCount);
+            int candidateCount = 0;
+
+            // Per kata query: slot yang sudah cocok dengan semua kata sebelumnya naik ke matchedWords = k + 1
+            for (int k = 0; k < queryWords.length; k++) {
+                for (Map.Entry<Term, Integer> match : matchWord(queryWords[k]).entrySet()) {
+                    Term term = match.getKey();
+                    int weight = match.getValue();
+                    for (int i = 0; i < term.size; i++) {
+                        int slot = term.slots[i];
+                        if (s.stamp[slot] != s.epoch) {
+                            if (k > 0) {
+                                continue;
+                            }
+                            s.stamp[slot] = s.epoch;
+                            s.matchedWords[slot] = 1;
+                            s.best[slot] = weight;
+                            s.total[slot] = 0;
+                            s.candidates[candidateCount++] = slot;
+                        } else if (s.matchedWords[slot] == k) {
+                            s.matchedWords[slot] = k + 1;
+                            s.best[slot] = weight;
+                        } else if (s.matchedWords[slot] == k + 1 && weight > s.best[slot]) {
+                            s.best[slot] = weight;
+                        }
+                    }
+                }
+
+                // Buang kandidat yang tidak cocok dengan kata ini, tambahkan bobot terbaiknya
+                int kept = 0;
+                for (int i = 0; i < candidateCount; i++) {
+                    int slot = s.candidates[i];
+                    if (s.matchedWords[slot] == k + 1) {
+                        s.total[slot] += s.best[slot];
+                        s.candidates[kept++] = slot;
+                    }
+                }
+                candidateCount = kept;
+                if (candidateCount == 0) {
+                    break;
+                }
+            }
+
+            result = topResults(s, candidateCount, query, queryWords, limit);
+        } finally {
+            lock.readLock().unlock();
+            scratchPool.offer(s); // pool penuh: dibuang
+        }
+
+        searches.incrementAndGet();
+        searchNanos.addAndGet(System.nanoTime() - start);
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("produk", slotById.size());
+            stats.put("kata", terms.size());
+            stats.put("trigram", termsByTrigram.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        long count = searches.get();
+        stats.put("searches", count);
+        stats.put("avgSearchMicros", count == 0 ? 0 : searchNanos.get() / count / 1000.0);
+        return stats;
+    }
+
+    private Scratch borrowScratch() {
+        Scratch s = scratchPool.poll();
+        return s != null ? s : new Scratch();
+    }
+
+    // ===== MATCHING =====
+
+    // Kata di kamus yang cocok dengan satu kata query, beserta bobotnya
+    private Map<Term, Integer> matchWord(String word) {
+        Map<Term, Integer> matches = new HashMap<>();
+
+        // Sama persis / awalan: rentang TreeMap [word, word + MAX_VALUE)
+        for (Term term : terms.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+            matches.put(term, term.text.equals(word) ? WEIGHT_EXACT : WEIGHT_PREFIX);
+        }
+
+        if (word.length() < 3) {
+            return matches; // terlalu pendek untuk trigram
+        }
+
+        // Di tengah kata: kata harus punya semua trigram query, cukup cek posting trigram yang paling kecil
+        String[] trigrams = trigrams(word);
+        Set<Term> rarest = null;
+        for (String trigram : trigrams) {
+            Set<Term> posting = termsByTrigram.get(trigram);
+            if (posting == null) {
+                rarest = Set.of();
+                break;
+            }
+            if (rarest == null || posting.size() < rarest.size()) {
+                rarest = posting;
+            }
+        }
+        for (Term term : rarest) {
+            if (!matches.containsKey(term) && term.text.contains(word)) {
+                matches.put(term, WEIGHT_INFIX);
+            }
+        }
+
+        // Salah ketik: kandidat = kata yang berbagi cukup banyak trigram, lalu cek edit distance
+        int maxEdits = word.length() >= 8 ? 2 : word.length() >= 4 ? 1 : 0;
+        if (maxEdits == 0 || containsDigit(word)) {
+            return matches;
+        }
+        Map<Term, Integer> shared = new HashMap<>();
+        for (String trigram : trigrams) {
+            Set<Term> posting = termsByTrigram.get(trigram);
+            if (posting != null) {
+                for (Term term : posting) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        int minShared = Math.max(1, trigrams.length - 3 * maxEdits);
+        for (Map.Entry<Term, Integer> entry : shared.entrySet()) {
+            Term term = entry.getKey();
+            if (entry.getValue() >= minShared && !matches.containsKey(term)
+                    && prefixEditDistance(word, term.text, maxEdits) <= maxEdits) {
+                matches.put(term, WEIGHT_FUZZY);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * `limit` kandidat terbaik. Urutan dikodekan dalam satu long (skor, diawali query, nama terpendek,
+     * lalu slot) supaya seleksi cukup min-heap primitif tanpa membaca nama berulang kali.
+     */
+    private List<Long> topResults(Scratch s, int candidateCount, String query, String[] queryWords, int limit) {
+        long[] heap = new long[Math.min(limit, candidateCount)];
+        int size = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int slot = s.candidates[i];
+            long rank = s.total[slot] * 2L + (startsWith(slot, query, queryWords) ? 1 : 0);
+            long key = rank << 47 | (long) (0xFFFF - Math.min(nameLengths[slot], 0xFFFF)) << 31
+                    | (Integer.MAX_VALUE - slot);
+            if (size < heap.length) {
+                heap[size] = key;
+                siftUp(heap, size++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, size);
+            }
+        }
+
+        Arrays.sort(heap, 0, size);
+        Long[] result = new Long[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = ids[Integer.MAX_VALUE - (int) (heap[size - 1 - i] & Integer.MAX_VALUE)];
+        }
+        return Arrays.asList(result);
+    }
+
+    // Nama diawali query; kata pertama (Term dipakai bersama banyak produk) dicek dulu sebelum nama lengkap
+    private boolean startsWith(int slot, String query, String[] queryWords) {
+        Term first = firstTerms[slot];
+        if (first == null) {
+            return false;
+        }
+        if (queryWords.length == 1) {
+            return first.text.startsWith(query);
+        }
+        return first.text.equals(queryWords[0]) && names[slot].startsWith(query);
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent] <= heap[index]) {
+                return;
+            }
+            long swap = heap[parent];
+            heap[parent] = heap[index];
+            heap[index] = swap;
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            int left = index * 2 + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (left + 1 < size && heap[left + 1] < heap[smallest]) {
+                smallest = left + 1;
+            }
+            if (smallest == index) {
+                return;
+            }
+            long swap = heap[smallest];
+            heap[smallest] = heap[index];
+            heap[index] = swap;
+            index = smallest;
+        }
+    }
+
+    /**
+     * Edit distance (Levenshtein) antara query dan awalan terbaik dari kata, jadi "indmi" cocok dengan
+     * "indomie" walaupun kata belum selesai diketik. Berhenti lebih awal kalau sudah pasti > maxEdits.
+     */
+    static int prefixEditDistance(String query, String text, int maxEdits) {
+        int m = query.length();
+        int n = Math.min(text.length(), m + maxEdits);
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+        for (int j = 0; j <= n; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= m; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= n; j++) {
+                int cost = query.charAt(i - 1) == text.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int best = Integer.MAX_VALUE;
+        for (int j = 0; j <= n; j++) {
+            best = Math.min(best, previous[j]);
+        }
+        return best;
+    }
+
+    // ===== INDEX MAINTENANCE (dipanggil di bawah write lock) =====
+
+    private void addLocked(Long idProduk, String namaProduk) {
+        if (idProduk == null || namaProduk == null) {
+            return;
+        }
+        Integer free = freeSlots.poll();
+        int slot = free != null ? free : slotCount++;
+        if (slot == ids.length) {
+            ids = Arrays.copyOf(ids, slot * 2);
+            names = Arrays.copyOf(names, slot * 2);
+            nameLengths = Arrays.copyOf(nameLengths, slot * 2);
+            firstTerms = Arrays.copyOf(firstTerms, slot * 2);
+            words = Arrays.copyOf(words, slot * 2);
+        }
+
+        String normalized = normalize(namaProduk);
+        String[] distinctWords = Arrays.stream(split(normalized)).distinct().toArray(String[]::new);
+        ids[slot] = idProduk;
+        names[slot] = normalized;
+        nameLengths[slot] = normalized.length();
+        words[slot] = distinctWords;
+        slotById.put(idProduk, slot);
+
+        for (String word : distinctWords) {
+            Term term = terms.get(word);
+            if (term == null) {
+                term = new Term(word);
+                terms.put(word, term);
+                for (String trigram : trigrams(word)) {
+                    termsByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(term);
+                }
+            }
+            term.add(slot);
+        }
+        firstTerms[slot] = distinctWords.length == 0 ? null : terms.get(distinctWords[0]);
+    }
+
+    private void removeLocked(Long idProduk) {
+        Integer slot = slotById.remove(idProduk);
+        if (slot == null) {
+            return;
+        }
+        for (String word : words[slot]) {
+            Term term = terms.get(word);
+            if (term == null) {
+                continue;
+            }
+            term.remove(slot);
+            if (term.size == 0) {
+                terms.remove(word);
+                for (String trigram : trigrams(word)) {
+                    Set<Term> posting = termsByTrigram.get(trigram);
+                    if (posting != null) {
+                        posting.remove(term);
+                        if (posting.isEmpty()) {
+                            termsByTrigram.remove(trigram);
+                        }
+                    }
+                }
+            }
+        }
+        names[slot] = null;
+        words[slot] = null;
+        firstTerms[slot] = null;
+        freeSlots.push(slot);
+    }
+
+    // ===== TEXT =====
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return NON_ALNUM.matcher(DIACRITICS.matcher(decomposed).replaceAll("")).replaceAll(" ").trim();
+    }
+
+    private static String[] split(String normalized) {
+        return normalized.isEmpty() ? new String[0] : normalized.split(" ");
+    }
+
+    private static boolean containsDigit(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isDigit(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] trigrams(String word) {
+        if (word.length() < 3) {
+            return new String[0];
+        }
+        String[] result = new String[word.length() - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = word.substring(i, i + 3);
+        }
+        return result;
+    }
+}
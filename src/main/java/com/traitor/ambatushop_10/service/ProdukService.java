@@ -1,33 +1,103 @@
 package com.traitor.ambatushop_10.service;
 
+import com.traitor.ambatushop_10.dto.CatalogChanges;
+import com.traitor.ambatushop_10.dto.ProdukChangedEvent;
+import com.traitor.ambatushop_10.dto.StockChangedEvent;
 import com.traitor.ambatushop_10.model.Produk;
+import com.traitor.ambatushop_10.model.ProdukHapus;
+import com.traitor.ambatushop_10.repository.ProdukHapusRepository;
 import com.traitor.ambatushop_10.repository.ProdukRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class ProdukService {
 
     private final ProdukRepository produkRepository;
+    private final ProdukHapusRepository produkHapusRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProdukSearchIndex searchIndex;
+    private final CatalogVersionService catalogVersionService;
+    private final ProdukCache produkCache;
+    private final BarcodeIndex barcodeIndex;
+    private final int searchMaxResults;
     // private final BarcodeService barcodeService;
 
-    public ProdukService(ProdukRepository produkRepository) {
+    public ProdukService(ProdukRepository produkRepository, ProdukHapusRepository produkHapusRepository,
+            ApplicationEventPublisher eventPublisher,
+            ProdukSearchIndex searchIndex,
+            CatalogVersionService catalogVersionService,
+            ProdukCache produkCache,
+            BarcodeIndex barcodeIndex,
+            @Value("${app.search.max-results:100}") int searchMaxResults) {
         this.produkRepository = produkRepository;
+        this.produkHapusRepository = produkHapusRepository;
+        this.eventPublisher = eventPublisher;
+        this.searchIndex = searchIndex;
+        this.catalogVersionService = catalogVersionService;
+        this.produkCache = produkCache;
+        this.barcodeIndex = barcodeIndex;
+        this.searchMaxResults = searchMaxResults;
         // this.barcodeService = barcodeService;
     }
 
     public List<Produk> getAllProduk() {
-        return produkRepository.findAll();
+        return produkCache.getAllProduk();
     }
 
+    // Versi katalog untuk ETag GET /api/produk (lihat CatalogVersionService)
+    public long getCatalogVersion() {
+        return catalogVersionService.stableVersion();
+    }
+
+    /**
+     * Delta katalog untuk POS yang menyimpan salinan lokal. Versi diambil sebelum query, jadi semua
+     * perubahan sampai versi itu pasti ikut (perubahan yang lebih baru boleh ikut, dikirim ulang nanti).
+     */
+    @Transactional(readOnly = true)
+    public CatalogChanges getChanges(long since) {
+        long versi = catalogVersionService.stableVersion();
+        if (since <= 0 || since > versi) {
+            // Client baru, atau versinya tidak dikenal (misalnya DB di-restore): kirim ulang semuanya
+            return new CatalogChanges(versi, true, produkCache.getAllProduk(), List.of());
+        }
+        if (since == versi) {
+            return new CatalogChanges(versi, false, List.of(), List.of());
+        }
+        return new CatalogChanges(versi, false,
+                produkRepository.findChangedBetween(since, versi),
+                produkHapusRepository.findIdsDeletedBetween(since, versi));
+    }
+
+    // Dari ProdukCache (salinan); untuk diubah pakai findForWrite
     public Produk getProdukById(Long id) {
+        Produk produk = produkCache.get(id);
+        if (produk == null) {
+            throw new RuntimeException("Produk tidak ditemukan dengan ID: " + id);
+        }
+        return produk;
+    }
+
+    // Scan kasir: BarcodeIndex + ProdukCache, tanpa query ke DB. null kalau barcode tidak terdaftar
+    public Produk getProdukByBarcode(String barcode) {
+        Long idProduk = barcodeIndex.find(barcode);
+        return idProduk == null ? null : produkCache.get(idProduk);
+    }
+
+    private Produk findForWrite(Long id) {
         return produkRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Produk tidak ditemukan dengan ID: " + id));
     }
 
+    @Transactional
     public Produk createProduk(Produk produk) {
         // Validasi
         if (produk.getNamaProduk() == null || produk.getNamaProduk().trim().isEmpty()) {
@@ -39,8 +109,11 @@ public class ProdukService {
         if (produk.getStok() < 0) {
             throw new RuntimeException("Stok tidak boleh negatif");
         }
+        produk.setBarcode(BarcodeIndex.normalize(produk.getBarcode()));
+        validateBarcode(produk.getBarcode(), null);
 
         // Simpan produk dulu untuk mendapatkan ID
+        produk.setVersi(catalogVersionService.next());
         Produk savedProduk = produkRepository.save(produk);
 
         // // Generate barcode SETELAH produk disimpan (punya ID)
@@ -50,11 +123,6 @@ public class ProdukService {
         // savedProduk.setBarcode(generatedBarcode);
         // }
 
-        // if (produkRepository.existsByBarcode(savedProduk.getBarcode())) {
-        // throw new RuntimeException("Barcode '" + savedProduk.getBarcode() + "' sudah
-        // digunakan");
-        // }
-
         // try {
         // // Generate barcode image
         // String imagePath =
@@ -66,13 +134,17 @@ public class ProdukService {
         // // Jika gagal generate image, tetap simpan produk tanpa image
         // System.err.println("Warning: Gagal generate barcode image: " +
         // e.getMessage());
-        return produkRepository.save(savedProduk);
+        Produk result = produkRepository.save(savedProduk);
+        eventPublisher.publishEvent(new ProdukChangedEvent(List.of(result.getIdProduk())));
+        return result;
         // }
     }
 
     // UPDATE: Juga hapus image lama saat update barcode
+    @Transactional
     public Produk updateProduk(Long id, Produk produkUpdate) {
-        Produk existing = getProdukById(id);
+        Produk existing = findForWrite(id);
+        short oldStok = existing.getStok();
 
         // String oldBarcodeImagePath = existing.getBarcodeImagePath(); // Simpan path lama
 
@@ -86,13 +158,11 @@ public class ProdukService {
             existing.setStok(produkUpdate.getStok());
         }
 
-        // UPDATE BARCODE JIKA DIUBAH
-        // if (produkUpdate.getBarcode() != null && !produkUpdate.getBarcode().equals(existing.getBarcode())) {
-        //     // Validasi barcode unique
-        //     if (produkRepository.existsByBarcode(produkUpdate.getBarcode())) {
-        //         throw new RuntimeException("Barcode '" + produkUpdate.getBarcode() + "' sudah digunakan");
-        //     }
-        //     existing.setBarcode(produkUpdate.getBarcode());
+        // UPDATE BARCODE JIKA DIUBAH (string kosong = hapus barcode)
+        String barcode = BarcodeIndex.normalize(produkUpdate.getBarcode());
+        if (produkUpdate.getBarcode() != null && !Objects.equals(barcode, existing.getBarcode())) {
+            validateBarcode(barcode, id);
+            existing.setBarcode(barcode);
 
             // HAPUS IMAGE LAMA sebelum generate baru
             // if (oldBarcodeImagePath != null) {
@@ -109,9 +179,30 @@ public class ProdukService {
             // e.getMessage());
             // existing.setBarcodeImagePath(null); // Set null jika gagal
             // }
-        // }
+        }
 
-        return produkRepository.save(existing);
+        existing.setVersi(catalogVersionService.next());
+        Produk saved = produkRepository.save(existing);
+        eventPublisher.publishEvent(new ProdukChangedEvent(List.of(saved.getIdProduk())));
+        if (saved.getStok() != oldStok) {
+            eventPublisher.publishEvent(new StockChangedEvent(List.of(saved.getIdProduk())));
+        }
+        return saved;
+    }
+
+    // Barcode harus unik. Dicek ke BarcodeIndex (tanpa query); kalau dua request bersamaan lolos,
+    // constraint unique di DB yang menolak salah satunya
+    private void validateBarcode(String barcode, Long idProduk) {
+        if (barcode == null) {
+            return;
+        }
+        if (barcode.length() > 50) {
+            throw new RuntimeException("Barcode maksimal 50 karakter");
+        }
+        Long pemilik = barcodeIndex.find(barcode);
+        if (pemilik != null && !pemilik.equals(idProduk)) {
+            throw new RuntimeException("Barcode '" + barcode + "' sudah digunakan");
+        }
     }
 
     // Helper method untuk hapus image by path
@@ -130,13 +221,16 @@ public class ProdukService {
     // }
 
     // DELETE produk dengan hapus barcode image
+    @Transactional
     public void deleteProduk(Long id) {
-        Produk produk = getProdukById(id);
+        Produk produk = findForWrite(id);
 
         // HAPUS BARCODE IMAGE FILE sebelum hapus produk
         // deleteBarcodeImageFile(produk);
 
         produkRepository.delete(produk);
+        produkHapusRepository.save(new ProdukHapus(id, catalogVersionService.next()));
+        eventPublisher.publishEvent(new ProdukChangedEvent(List.of(id)));
     }
 
     // Method untuk hapus file barcode image
@@ -158,7 +252,28 @@ public class ProdukService {
     //     }
     // }
 
+    // Cari lewat ProdukSearchIndex (awalan, tengah kata, salah ketik), hasil urut relevansi
     public List<Produk> searchProduk(String keyword) {
-        return produkRepository.findByNamaProdukContainingIgnoreCase(keyword);
+        if (keyword == null || keyword.isBlank()) {
+            return produkRepository.findAll(); // sama dengan LIKE '%%' sebelumnya
+        }
+        List<Long> ids = searchIndex.search(keyword, searchMaxResults);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Produk> byId = produkCache.getAll(ids);
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    public Map<String, Object> getSearchStats() {
+        return searchIndex.getStats();
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return produkCache.getStats();
+    }
+
+    public Map<String, Object> getBarcodeStats() {
+        return barcodeIndex.getStats();
     }
 }
\ No newline at end of file
@@ -0,0 +1,306 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.FinanceChangedEvent;
+import com.traitor.ambatushop_10.dto.PaymentStatusEvent;
+import com.traitor.ambatushop_10.dto.PresenceChangedEvent;
+import com.traitor.ambatushop_10.dto.StockChangedEvent;
+import com.traitor.ambatushop_10.dto.StockLevel;
+import com.traitor.ambatushop_10.repository.ProdukRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Push channel Server-Sent Events untuk dashboard, pengganti polling berkala.
+ *
+ * Topik:
+ * - payment:{id} / payment : status pembayaran satu transaksi / semua transaksi
+ * - stock                  : stok terbaru produk yang berubah
+ * - finance                : selisih rekap keuangan harian
+ * - presence               : statistik user online
+ *
+ * Service lain cukup publish domain event (ApplicationEventPublisher); event baru diteruskan ke client
+ * setelah transaksi DB-nya commit, jadi client tidak pernah melihat perubahan yang di-rollback.
+ *
+ * Thread dispatcher hanya membagi event ke antrean per subscriber (ukuran tetap, tidak pernah menulis ke
+ * socket), lalu beberapa thread writer mengirim isi antrean ke client masing-masing, urut per client.
+ * Client yang lambat hanya menahan antreannya sendiri; kalau antreannya penuh, koneksinya ditutup dan
+ * EventSource di browser reconnect lalu mengambil state terbaru. Satu client yang socket-nya macet tetap
+ * menahan satu thread writer sampai write-nya gagal, jadi client lain dilayani writer yang tersisa.
+ * Koneksi SSE memakai async servlet, jadi koneksi yang sedang menunggu tidak memegang thread Tomcat.
+ */
+@Service
+@Slf4j
+public class PushService {
+
+    public static final String TOPIC_PAYMENT = "payment";
+    public static final String TOPIC_STOCK = "stock";
+    public static final String TOPIC_FINANCE = "finance";
+    public static final String TOPIC_PRESENCE = "presence";
+
+    // Client EventSource akan reconnect otomatis setelah timeout
+    private static final long SSE_TIMEOUT_MILLIS = 30 * 60 * 1000;
+
+    private final ProdukRepository produkRepository;
+    private final int maxConnections;
+    private final int queueSize;
+    private final ExecutorService dispatcher;
+    private final ExecutorService writers;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<SseEmitter, Subscriber> byEmitter = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    public PushService(ProdukRepository produkRepository,
+            @Value("${app.push.max-connections:500}") int maxConnections,
+            @Value("${app.push.queue-size:64}") int queueSize,
+            @Value("${app.push.writer-threads:4}") int writerThreads) {
+        this.produkRepository = produkRepository;
+        this.maxConnections = maxConnections;
+        this.queueSize = Math.max(1, queueSize);
+        this.dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "push-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger writerNumber = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), runnable -> {
+            Thread thread = new Thread(runnable, "push-writer-" + writerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static String paymentTopic(Long idTransaksi) {
+        return TOPIC_PAYMENT + ":" + idTransaksi;
+    }
+
+    /**
+     * Buka koneksi SSE untuk topik-topik yang diminta (validasi topik & role dilakukan controller).
+     * Lempar IllegalStateException kalau batas koneksi tercapai.
+     */
+    public SseEmitter subscribe(Set<String> topics) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            log.warn("Batas koneksi push ({}) tercapai, subscribe ditolak", maxConnections);
+            throw new IllegalStateException("Koneksi push penuh, coba lagi nanti");
+        }
+
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MILLIS);
+        Subscriber subscriber = new Subscriber(emitter, topics);
+        emitter.onCompletion(subscriber::unsubscribe);
+        emitter.onTimeout(subscriber::unsubscribe);
+        emitter.onError(e -> subscriber.unsubscribe());
+
+        byEmitter.put(emitter, subscriber);
+        for (String topic : topics) {
+            subscribers.compute(topic, (key, set) -> {
+                Set<Subscriber> result = set == null ? ConcurrentHashMap.newKeySet() : set;
+                result.add(subscriber);
+                return result;
+            });
+        }
+        subscriber.offer(new Message("ready", topics));
+        return emitter;
+    }
+
+    // Kirim event ke satu client saja (misalnya status awal saat baru subscribe)
+    public void sendTo(SseEmitter emitter, String eventName, Object data) {
+        Subscriber subscriber = byEmitter.get(emitter);
+        if (subscriber != null) {
+            subscriber.offer(new Message(eventName, data));
+        }
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    // ===== DOMAIN EVENT -> TOPIK =====
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentStatus(PaymentStatusEvent event) {
+        dispatcher.execute(() -> {
+            broadcast(paymentTopic(event.idTransaksi()), TOPIC_PAYMENT, event);
+            broadcast(TOPIC_PAYMENT, TOPIC_PAYMENT, event);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (event.produkIds().isEmpty()) {
+            return;
+        }
+        dispatcher.execute(() -> {
+            if (isEmpty(TOPIC_STOCK)) {
+                return; // tidak ada yang mendengarkan, tidak perlu query
+            }
+            try {
+                List<StockLevel> levels = produkRepository.findStockLevels(event.produkIds());
+                broadcast(TOPIC_STOCK, TOPIC_STOCK, levels);
+            } catch (RuntimeException e) {
+                log.warn("Gagal membaca stok untuk push: {}", e.getMessage());
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFinanceChanged(FinanceChangedEvent event) {
+        dispatcher.execute(() -> broadcast(TOPIC_FINANCE, TOPIC_FINANCE, event));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPresenceChanged(PresenceChangedEvent event) {
+        dispatcher.execute(() -> broadcast(TOPIC_PRESENCE, TOPIC_PRESENCE, event.stats()));
+    }
+
+    // Komentar kosong berkala: menjaga koneksi tetap hidup lewat proxy dan membuang client yang sudah putus
+    @Scheduled(fixedRate = 25000)
+    public void heartbeat() {
+        if (connections.get() == 0) {
+            return;
+        }
+        dispatcher.execute(() -> byEmitter.values().forEach(subscriber -> subscriber.offer(Message.PING)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        byEmitter.keySet().forEach(SseEmitter::complete);
+        dispatcher.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    private boolean isEmpty(String topic) {
+        Set<Subscriber> set = subscribers.get(topic);
+        return set == null || set.isEmpty();
+    }
+
+    private void broadcast(String topic, String eventName, Object data) {
+        Set<Subscriber> set = subscribers.get(topic);
+        if (set == null || set.isEmpty()) {
+            return;
+        }
+        Message message = new Message(eventName, data);
+        for (Subscriber subscriber : set) {
+            subscriber.offer(message);
+        }
+    }
+
+    // name == null: komentar heartbeat. SseEventBuilder dibuat ulang per client (builder tidak bisa dipakai ulang)
+    private record Message(String name, Object data) {
+        static final Message PING = new Message(null, "ping");
+
+        SseEmitter.SseEventBuilder toEvent() {
+            return name == null
+                    ? SseEmitter.event().comment((String) data)
+                    : SseEmitter.event().name(name).data(data);
+        }
+    }
+
+    /**
+     * Satu koneksi SSE: antrean event berukuran tetap + paling banyak satu writer yang mengosongkannya.
+     * Emitter hanya ditulis / diselesaikan dari writer, jadi dispatcher tidak pernah menunggu socket.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<String> topics;
+        private final BlockingQueue<Message> queue = new ArrayBlockingQueue<>(queueSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean unsubscribed = new AtomicBoolean();
+        // Lambat / putus: sisa event dibuang dan writer berikutnya menyelesaikan emitter
+        private volatile boolean closing;
+        private volatile boolean completed;
+
+        Subscriber(SseEmitter emitter, Set<String> topics) {
+            this.emitter = emitter;
+            this.topics = topics;
+        }
+
+        void offer(Message message) {
+            if (closing) {
+                return;
+            }
+            if (!queue.offer(message)) {
+                log.warn("Client push terlalu lambat ({} event tertunda), koneksi ditutup", queueSize);
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        // Lepas dari semua topik; set kosong ikut dibuang (topik payment:{id} hanya dipakai sebentar)
+        void unsubscribe() {
+            closing = true;
+            queue.clear();
+            if (!unsubscribed.compareAndSet(false, true)) {
+                return;
+            }
+            for (String topic : topics) {
+                subscribers.computeIfPresent(topic, (key, set) -> {
+                    set.remove(this);
+                    return set.isEmpty() ? null : set;
+                });
+            }
+            byEmitter.remove(emitter);
+            connections.decrementAndGet();
+        }
+
+        private void close() {
+            unsubscribe();
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false); // sedang shutdown
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Message message;
+                while (!closing && (message = queue.poll()) != null) {
+                    try {
+                        emitter.send(message.toEvent());
+                    } catch (IOException | IllegalStateException e) {
+                        // Client sudah putus; onError/onCompletion membersihkan subscription
+                        completed = true;
+                        emitter.completeWithError(e);
+                        unsubscribe();
+                    }
+                }
+                if (closing && !completed) {
+                    completed = true;
+                    emitter.complete();
+                }
+            } finally {
+                draining.set(false);
+            }
+            // Event masuk (atau close) setelah loop di atas selesai, tapi schedule()-nya kalah CAS
+            if ((closing && !completed) || (!closing && !queue.isEmpty())) {
+                schedule();
+            }
+        }
+    }
+}
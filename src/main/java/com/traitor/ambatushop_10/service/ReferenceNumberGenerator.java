@@ -0,0 +1,184 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.model.ReferenceSequence;
+import com.traitor.ambatushop_10.repository.ReferenceSequenceRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator nomor referensi transaksi: TRX-yyyyMMdd-NNNNN.
+ *
+ * Nomor urut per hari, diambil dari blok yang dialokasikan di tabel reference_sequence
+ * (lihat changeset 011). Di dalam satu blok, nomor dibagikan lewat AtomicLong tanpa lock,
+ * jadi tidak ada tabrakan dan tidak perlu retry saat insert. Prefix tanggal di-cache per hari.
+ * Blok diambil oleh satu thread allocator di luar transaksi checkout, dan blok berikutnya sudah
+ * diminta saat blok yang aktif terpakai ~80%.
+ * Suffix minimal 5 digit, jadi tidak pernah sama dengan nomor lama yang suffix-nya 3 digit acak.
+ */
+@Service
+@Slf4j
+public class ReferenceNumberGenerator {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.BASIC_ISO_DATE; // yyyyMMdd
+    private static final String PREFIX = "TRX-";
+    private static final String ZEROS = "00000";
+
+    private final ReferenceSequenceRepository referenceSequenceRepository;
+    private final TransactionTemplate allocationTx;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    @Value("${app.reference.block-size:100}")
+    private int blockSize;
+
+    private final ExecutorService allocator;
+    private volatile Block current = Block.EXHAUSTED;
+    // Blok berikutnya yang sedang / sudah diambil thread allocator (dijaga monitor this)
+    private CompletableFuture<Block> pending;
+
+    public ReferenceNumberGenerator(ReferenceSequenceRepository referenceSequenceRepository,
+            PlatformTransactionManager transactionManager) {
+        this.referenceSequenceRepository = referenceSequenceRepository;
+        // Alokasi blok harus commit sendiri, lepas dari transaksi checkout yang memanggilnya
+        this.allocationTx = new TransactionTemplate(transactionManager);
+        this.allocationTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.allocator = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reference-allocator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public String next() {
+        while (true) {
+            Block block = current;
+            if (System.currentTimeMillis() < block.validUntil) {
+                long value = block.next.getAndIncrement();
+                if (value < block.limit) {
+                    // ~80% blok terpakai: ambil blok berikutnya di background, supaya checkout tidak menunggu DB
+                    if (value == block.prefetchAt) {
+                        prefetch();
+                    }
+                    return block.prefix + pad(value);
+                }
+            }
+            refill(block);
+        }
+    }
+
+    // Blok pertama diambil saat startup, bukan di checkout pertama
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefetch() {
+        synchronized (this) {
+            if (pending == null) {
+                pending = CompletableFuture.supplyAsync(this::allocateBlock, allocator);
+            }
+        }
+    }
+
+    /**
+     * Tunggu blok dari thread allocator. Alokasi (REQUIRES_NEW + SELECT ... FOR UPDATE) tidak pernah jalan
+     * di thread pemanggil: thread checkout sudah memegang koneksi transaksinya sendiri, dan kalau alokasi
+     * dilakukan sambil memegang monitor, semua checkout lain ikut antre sambil memegang koneksi juga.
+     * Monitor di sini hanya dipegang untuk tukar referensi, tidak selama menunggu.
+     */
+    private void refill(Block exhausted) {
+        CompletableFuture<Block> future;
+        synchronized (this) {
+            if (current != exhausted) {
+                return;
+            }
+            if (pending == null) {
+                pending = CompletableFuture.supplyAsync(this::allocateBlock, allocator);
+            }
+            future = pending;
+        }
+
+        Block fresh;
+        try {
+            fresh = future.join();
+        } catch (CompletionException e) {
+            synchronized (this) {
+                if (pending == future) {
+                    pending = null;
+                }
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+
+        synchronized (this) {
+            if (pending == future) {
+                pending = null;
+                // Blok hasil prefetch sebelum ganti hari tidak dipakai, loop di next() mengambil blok baru
+                if (current == exhausted && System.currentTimeMillis() < fresh.validUntil) {
+                    current = fresh;
+                }
+            }
+        }
+    }
+
+    private Block allocateBlock() {
+        LocalDate today = LocalDate.now(zone);
+        String seqDate = today.format(DATE_FORMAT);
+        long start = allocate(seqDate);
+        long validUntil = today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+
+        log.debug("Allocated reference block {} [{}, {})", seqDate, start, start + blockSize);
+        return new Block(PREFIX + seqDate + "-", start, start + blockSize, start + blockSize * 8L / 10, validUntil);
+    }
+
+    private long allocate(String seqDate) {
+        return allocationTx.execute(status -> {
+            referenceSequenceRepository.initIfAbsent(seqDate);
+            ReferenceSequence sequence = referenceSequenceRepository.findForUpdate(seqDate)
+                    .orElseThrow(() -> new IllegalStateException("Reference sequence tidak ditemukan: " + seqDate));
+
+            long first = sequence.getNextValue();
+            sequence.setNextValue(first + blockSize);
+            return first;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        allocator.shutdownNow();
+    }
+
+    private static String pad(long value) {
+        String digits = Long.toString(value);
+        return digits.length() >= ZEROS.length() ? digits : ZEROS.substring(digits.length()) + digits;
+    }
+
+    private static final class Block {
+        static final Block EXHAUSTED = new Block("", 0, 0, -1, 0);
+
+        final String prefix;
+        final AtomicLong next;
+        final long limit;
+        final long prefetchAt;
+        final long validUntil;
+
+        Block(String prefix, long start, long limit, long prefetchAt, long validUntil) {
+            this.prefix = prefix;
+            this.next = new AtomicLong(start);
+            this.limit = limit;
+            this.prefetchAt = prefetchAt;
+            this.validUntil = validUntil;
+        }
+    }
+}
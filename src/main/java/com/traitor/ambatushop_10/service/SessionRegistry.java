@@ -0,0 +1,261 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.model.Akun;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Penyimpanan sesi login di memori, diindeks per sessionId dan per userId (satu sesi aktif per user,
+ * login baru menggantikan yang lama).
+ *
+ * Kedaluwarsa diatur lewat antrian timer berurut deadline: sweep() hanya menyentuh entry yang
+ * deadline-nya sudah lewat, bukan semua sesi. Heartbeat tidak menyentuh antrian; kalau entry yang
+ * jatuh tempo ternyata masih aktif, entry itu dijadwalkan ulang (lazy reschedule).
+ *
+ * Dua deadline per sesi:
+ * - idle   : tidak ada heartbeat selama idleMillis -> tidak dihitung "sedang aktif" lagi
+ * - expire : tidak ada heartbeat selama expireMillis -> sesi dibuang (user dianggap offline)
+ *
+ * Jumlah sesi dan sesi aktif per role disimpan sebagai counter, jadi statistik tidak perlu scan.
+ */
+final class SessionRegistry {
+
+    static final class Session {
+        private final long userId;
+        private final String username;
+        private final String sessionId;
+        private final String ipAddress;
+        private Akun.Role role;
+        private volatile long lastActivity;
+        private volatile boolean active;
+
+        private Session(long userId, String username, Akun.Role role, String sessionId, String ipAddress,
+                long lastActivity) {
+            this.userId = userId;
+            this.username = username;
+            this.role = role;
+            this.sessionId = sessionId;
+            this.ipAddress = ipAddress;
+            this.lastActivity = lastActivity;
+        }
+
+        long userId() {
+            return userId;
+        }
+
+        String username() {
+            return username;
+        }
+
+        String sessionId() {
+            return sessionId;
+        }
+
+        String ipAddress() {
+            return ipAddress;
+        }
+
+        long lastActivity() {
+            return lastActivity;
+        }
+    }
+
+    // Counter per role, di-snapshot di bawah lock supaya konsisten satu sama lain
+    record Counts(Map<Akun.Role, Integer> sessions, Map<Akun.Role, Integer> active) {
+        int totalSessions() {
+            return sessions.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        int totalActive() {
+            return active.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+
+    private enum Kind { IDLE, EXPIRE }
+
+    private record Timer(long deadline, Kind kind, Session session) implements Comparable<Timer> {
+        @Override
+        public int compareTo(Timer other) {
+            return Long.compare(deadline, other.deadline);
+        }
+    }
+
+    private final long idleMillis;
+    private final long expireMillis;
+
+    private final Map<String, Session> bySessionId = new ConcurrentHashMap<>();
+    private final Map<Long, Session> byUserId = new ConcurrentHashMap<>();
+
+    // Semua di bawah ini dijaga oleh lock
+    private final Object lock = new Object();
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+    private final int[] sessionsByRole = new int[Akun.Role.values().length];
+    private final int[] activeByRole = new int[Akun.Role.values().length];
+
+    SessionRegistry(long idleMillis, long expireMillis) {
+        this.idleMillis = idleMillis;
+        this.expireMillis = expireMillis;
+    }
+
+    // Daftarkan sesi baru; sesi lama milik user yang sama (kalau ada) diganti
+    Session open(long userId, String username, Akun.Role role, String sessionId, String ipAddress,
+            long lastActivity, long now) {
+        Session session = new Session(userId, username, role, sessionId, ipAddress, lastActivity);
+        synchronized (lock) {
+            Session previous = byUserId.put(userId, session);
+            if (previous != null) {
+                detach(previous);
+            }
+            bySessionId.put(sessionId, session);
+            sessionsByRole[role.ordinal()]++;
+            timers.add(new Timer(lastActivity + expireMillis, Kind.EXPIRE, session));
+            if (lastActivity + idleMillis > now) {
+                activate(session);
+            }
+        }
+        return session;
+    }
+
+    // Heartbeat: tanpa lock kecuali sesi sedang idle dan harus diaktifkan lagi. Return true kalau sesi jadi aktif lagi
+    boolean touch(long userId, long now) {
+        Session session = byUserId.get(userId);
+        if (session == null) {
+            return false;
+        }
+        session.lastActivity = now;
+        if (!session.active) {
+            synchronized (lock) {
+                if (!session.active && byUserId.get(userId) == session) {
+                    activate(session);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    Session close(long userId) {
+        synchronized (lock) {
+            Session session = byUserId.remove(userId);
+            if (session != null) {
+                detach(session);
+            }
+            return session;
+        }
+    }
+
+    void changeRole(long userId, Akun.Role role) {
+        synchronized (lock) {
+            Session session = byUserId.get(userId);
+            if (session == null || session.role == role) {
+                return;
+            }
+            sessionsByRole[session.role.ordinal()]--;
+            sessionsByRole[role.ordinal()]++;
+            if (session.active) {
+                activeByRole[session.role.ordinal()]--;
+                activeByRole[role.ordinal()]++;
+            }
+            session.role = role;
+        }
+    }
+
+    /**
+     * Proses timer yang jatuh tempo. Return sesi yang kedaluwarsa (sudah dibuang dari registry).
+     * Biayanya sebanding dengan jumlah timer yang jatuh tempo, bukan jumlah sesi.
+     */
+    List<Session> sweep(long now) {
+        List<Session> expired = new ArrayList<>();
+        synchronized (lock) {
+            Timer timer;
+            while ((timer = timers.peek()) != null && timer.deadline() <= now) {
+                timers.poll();
+                Session session = timer.session();
+                if (byUserId.get(session.userId) != session) {
+                    continue; // sesi sudah logout / diganti
+                }
+
+                if (timer.kind() == Kind.EXPIRE) {
+                    long deadline = session.lastActivity + expireMillis;
+                    if (deadline > now) {
+                        timers.add(new Timer(deadline, Kind.EXPIRE, session));
+                    } else {
+                        byUserId.remove(session.userId);
+                        detach(session);
+                        expired.add(session);
+                    }
+                } else if (session.active) {
+                    long deadline = session.lastActivity + idleMillis;
+                    if (deadline > now) {
+                        timers.add(new Timer(deadline, Kind.IDLE, session));
+                    } else {
+                        session.active = false;
+                        activeByRole[session.role.ordinal()]--;
+                        // touch() bisa saja menulis lastActivity tepat sebelum active=false terlihat
+                        if (session.lastActivity + idleMillis > now) {
+                            activate(session);
+                        }
+                    }
+                }
+            }
+        }
+        return expired;
+    }
+
+    Session get(long userId) {
+        return byUserId.get(userId);
+    }
+
+    Session getBySessionId(String sessionId) {
+        return bySessionId.get(sessionId);
+    }
+
+    boolean isActive(long userId, long now) {
+        Session session = byUserId.get(userId);
+        return session != null && session.lastActivity + idleMillis > now;
+    }
+
+    List<Long> activeUserIds(long now) {
+        List<Long> ids = new ArrayList<>();
+        for (Session session : byUserId.values()) {
+            if (session.lastActivity + idleMillis > now) {
+                ids.add(session.userId);
+            }
+        }
+        return ids;
+    }
+
+    Counts counts() {
+        synchronized (lock) {
+            Map<Akun.Role, Integer> sessions = new HashMap<>();
+            Map<Akun.Role, Integer> active = new HashMap<>();
+            for (Akun.Role role : Akun.Role.values()) {
+                sessions.put(role, sessionsByRole[role.ordinal()]);
+                active.put(role, activeByRole[role.ordinal()]);
+            }
+            return new Counts(sessions, active);
+        }
+    }
+
+    // Harus dipanggil di bawah lock
+    private void activate(Session session) {
+        session.active = true;
+        activeByRole[session.role.ordinal()]++;
+        timers.add(new Timer(session.lastActivity + idleMillis, Kind.IDLE, session));
+    }
+
+    // Harus dipanggil di bawah lock; session sudah dilepas dari byUserId oleh pemanggil
+    private void detach(Session session) {
+        bySessionId.remove(session.sessionId, session);
+        sessionsByRole[session.role.ordinal()]--;
+        if (session.active) {
+            session.active = false;
+            activeByRole[session.role.ordinal()]--;
+        }
+    }
+}
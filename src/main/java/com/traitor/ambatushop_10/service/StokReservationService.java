@@ -0,0 +1,321 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.model.Produk;
+import com.traitor.ambatushop_10.model.Transaksi;
+import com.traitor.ambatushop_10.model.TransaksiDetail;
+import com.traitor.ambatushop_10.repository.TransaksiRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ledger reservasi stok di memory untuk transaksi NON_TUNAI yang masih PENDING.
+ *
+ * Stok di database baru dikurangi saat pembayaran PAID, jadi selama menunggu webhook Midtrans
+ * jumlah yang sudah "dipegang" transaksi lain disimpan di sini. Stok tersedia = stok DB - reserved.
+ * Reserved per produk disimpan di map long -> int yang di-stripe (lock per stripe), jadi cek
+ * ketersediaan cukup O(1) dan tidak butuh lock di database.
+ */
+@Service
+@Slf4j
+public class StokReservationService {
+
+    // Harus 2^STRIPE_BITS
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    private final TransaksiRepository transaksiRepository;
+    private final ReservedStripe[] stripes = new ReservedStripe[STRIPES];
+    private final Map<Long, Reservasi> reservasiByTransaksi = new ConcurrentHashMap<>();
+
+    private final long ttlMinutes;
+
+    // TTL tidak boleh lebih pendek dari batas bayar QRIS di gateway (app.reconcile.expire-after-minutes):
+    // kalau reservasi lepas duluan, stoknya bisa terjual lagi padahal pelanggan masih bisa membayar
+    public StokReservationService(TransaksiRepository transaksiRepository,
+            @Value("${app.reservation.ttl-minutes:${app.reconcile.expire-after-minutes:30}}") long ttlMinutes,
+            @Value("${app.reconcile.expire-after-minutes:30}") long expireAfterMinutes) {
+        if (ttlMinutes < expireAfterMinutes) {
+            throw new IllegalStateException("app.reservation.ttl-minutes (" + ttlMinutes
+                    + ") harus >= app.reconcile.expire-after-minutes (" + expireAfterMinutes + ")");
+        }
+        this.transaksiRepository = transaksiRepository;
+        this.ttlMinutes = ttlMinutes;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReservedStripe();
+        }
+    }
+
+    // Jumlah stok yang sedang dipegang transaksi PENDING untuk produk ini
+    public int getReservedStok(long idProduk) {
+        ReservedStripe stripe = stripeFor(idProduk);
+        synchronized (stripe) {
+            return stripe.get(idProduk);
+        }
+    }
+
+    // Stok yang masih bisa dijual = stok DB - reserved
+    public int getAvailableStok(Produk produk) {
+        return produk.getStok() - getReservedStok(produk.getIdProduk());
+    }
+
+    public boolean isReserved(long idTransaksi) {
+        return reservasiByTransaksi.containsKey(idTransaksi);
+    }
+
+    /**
+     * Tahan stok untuk transaksi PENDING. Cek dan penambahan reserved dilakukan atomik per produk;
+     * kalau satu produk gagal, semua produk yang sudah ditahan dikembalikan lagi.
+     * Kalau dipanggil di dalam transaksi DB, reservasi otomatis dilepas saat rollback.
+     */
+    public void reserve(long idTransaksi, Map<Long, Integer> jumlahPerProduk, Map<Long, Produk> produkMap) {
+        // Urut berdasarkan ID supaya hasilnya deterministik
+        Map<Long, Integer> sorted = new TreeMap<>(jumlahPerProduk);
+        long[] produkIds = new long[sorted.size()];
+        int[] jumlah = new int[sorted.size()];
+
+        int reserved = 0;
+        try {
+            for (Map.Entry<Long, Integer> entry : sorted.entrySet()) {
+                Produk produk = produkMap.get(entry.getKey());
+                long idProduk = entry.getKey();
+                int diminta = entry.getValue();
+
+                ReservedStripe stripe = stripeFor(idProduk);
+                synchronized (stripe) {
+                    int tersedia = produk.getStok() - stripe.get(idProduk);
+                    if (tersedia < diminta) {
+                        throw new RuntimeException("Stok " + produk.getNamaProduk() + " tidak mencukupi. " +
+                                "Stok tersedia: " + tersedia + ", diminta: " + diminta);
+                    }
+                    stripe.add(idProduk, diminta);
+                }
+
+                produkIds[reserved] = idProduk;
+                jumlah[reserved] = diminta;
+                reserved++;
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < reserved; i++) {
+                subtract(produkIds[i], jumlah[i]);
+            }
+            throw e;
+        }
+
+        long expiresAt = System.currentTimeMillis() + ttlMinutes * 60_000L;
+        reservasiByTransaksi.put(idTransaksi, new Reservasi(produkIds, jumlah, expiresAt));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(idTransaksi);
+                    }
+                }
+            });
+        }
+    }
+
+    // Lepas reservasi (PAID sudah jadi pengurangan stok di DB, atau FAILED/EXPIRED/dihapus)
+    public boolean release(long idTransaksi) {
+        Reservasi reservasi = reservasiByTransaksi.remove(idTransaksi);
+        if (reservasi == null) {
+            return false;
+        }
+        reservasi.releaseFrom(this);
+        return true;
+    }
+
+    // Lepas reservasi setelah commit, supaya kalau transaksi DB rollback stok tetap ditahan
+    public void releaseAfterCommit(long idTransaksi) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(idTransaksi);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(idTransaksi);
+            }
+        });
+    }
+
+    // Reservasi yang melewati TTL dilepas otomatis
+    @Scheduled(fixedRate = 30000)
+    public void releaseExpiredReservations() {
+        long now = System.currentTimeMillis();
+        reservasiByTransaksi.forEach((idTransaksi, reservasi) -> {
+            if (reservasi.expiresAt() <= now && reservasiByTransaksi.remove(idTransaksi, reservasi)) {
+                reservasi.releaseFrom(this);
+                log.info("Reservasi stok transaksi {} kadaluarsa dan dilepas", idTransaksi);
+            }
+        });
+    }
+
+    // Setelah restart, bangun ulang ledger dari transaksi NON_TUNAI yang masih PENDING dan belum lewat TTL
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildFromPendingTransactions() {
+        LocalDateTime batas = LocalDateTime.now().minusMinutes(ttlMinutes);
+        List<Transaksi> pending = transaksiRepository.findByPaymentStatusAndTanggalAfter(
+                Transaksi.PaymentStatus.PENDING, batas);
+
+        int count = 0;
+        for (Transaksi transaksi : pending) {
+            if (transaksi.getMetode_pembayaran() != Transaksi.MetodePembayaran.NON_TUNAI
+                    || transaksi.getDetails() == null || transaksi.getDetails().isEmpty()) {
+                continue;
+            }
+
+            Map<Long, Integer> jumlahPerProduk = new TreeMap<>();
+            for (TransaksiDetail detail : transaksi.getDetails()) {
+                jumlahPerProduk.merge(detail.getProdukId().getIdProduk(), (int) detail.getJumlah(), Integer::sum);
+            }
+
+            long[] produkIds = new long[jumlahPerProduk.size()];
+            int[] jumlah = new int[jumlahPerProduk.size()];
+            int i = 0;
+            for (Map.Entry<Long, Integer> entry : jumlahPerProduk.entrySet()) {
+                produkIds[i] = entry.getKey();
+                jumlah[i] = entry.getValue();
+                ReservedStripe stripe = stripeFor(produkIds[i]);
+                synchronized (stripe) {
+                    stripe.add(produkIds[i], jumlah[i]);
+                }
+                i++;
+            }
+
+            long expiresAt = transaksi.getTanggal()
+                    .plusMinutes(ttlMinutes)
+                    .atZone(ZoneId.systemDefault())
+                    .toInstant()
+                    .toEpochMilli();
+            reservasiByTransaksi.put(transaksi.getIdTransaksi(), new Reservasi(produkIds, jumlah, expiresAt));
+            count++;
+        }
+
+        log.info("Ledger reservasi stok dibangun ulang dari {} transaksi PENDING", count);
+    }
+
+    private void subtract(long idProduk, int jumlah) {
+        ReservedStripe stripe = stripeFor(idProduk);
+        synchronized (stripe) {
+            stripe.add(idProduk, -jumlah);
+        }
+    }
+
+    private ReservedStripe stripeFor(long idProduk) {
+        return stripes[(int) (mix(idProduk) >>> (64 - STRIPE_BITS))];
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private record Reservasi(long[] produkIds, int[] jumlah, long expiresAt) {
+        void releaseFrom(StokReservationService ledger) {
+            for (int i = 0; i < produkIds.length; i++) {
+                ledger.subtract(produkIds[i], jumlah[i]);
+            }
+        }
+    }
+
+    /**
+     * Open-addressing map long -> int (linear probing) untuk satu stripe.
+     * Tidak thread-safe, akses selalu lewat synchronized pada stripe-nya.
+     * Key 0 dipakai sebagai slot kosong (ID produk AUTO_INCREMENT selalu > 0).
+     */
+    private static final class ReservedStripe {
+        private static final long EMPTY = 0L;
+
+        private long[] keys = new long[16];
+        private int[] values = new int[16];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return 0;
+        }
+
+        // Tambah (atau kurangi kalau delta negatif); entry dihapus saat nilainya 0
+        void add(long key, int delta) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != EMPTY) {
+                if (keys[i] == key) {
+                    values[i] += delta;
+                    if (values[i] <= 0) {
+                        removeAt(i);
+                    }
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+
+            if (delta <= 0) {
+                return;
+            }
+            keys[i] = key;
+            values[i] = delta;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+        }
+
+        // Backward-shift deletion supaya rantai probing tetap utuh tanpa tombstone
+        private void removeAt(int hole) {
+            int mask = keys.length - 1;
+            keys[hole] = EMPTY;
+            values[hole] = 0;
+            size--;
+
+            for (int j = (hole + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                int ideal = slot(keys[j], mask);
+                if (((j - ideal) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    keys[j] = EMPTY;
+                    values[j] = 0;
+                    hole = j;
+                }
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    add(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            return (int) mix(key) & mask;
+        }
+    }
+}
@@ -1,37 +1,77 @@
 package com.traitor.ambatushop_10.service;
 
+import com.traitor.ambatushop_10.dto.PaymentStatusEvent;
+import com.traitor.ambatushop_10.dto.StockChangedEvent;
 import com.traitor.ambatushop_10.dto.StockPurchaseRequest;
+import com.traitor.ambatushop_10.dto.TransaksiDetailRequest;
+import com.traitor.ambatushop_10.dto.TransaksiPageResponse;
 import com.traitor.ambatushop_10.dto.TransaksiRequest;
+import com.traitor.ambatushop_10.dto.TransaksiSummaryResponse;
 import com.traitor.ambatushop_10.model.*;
 import com.traitor.ambatushop_10.repository.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 public class TransaksiService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final TransaksiRepository transaksiRepository;
     private final ProdukRepository produkRepository;
+    private final ProdukCache produkCache;
     private final AkunRepository akunRepository;
     private final KeuanganRepository keuanganRepository;
     private final TransaksiDetailRepository transaksiDetailRepository;
+    private final StokReservationService stokReservationService;
+    private final ReferenceNumberGenerator referenceNumberGenerator;
+    private final DailyRollupService dailyRollupService;
+    private final CatalogVersionService catalogVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate tx;
 
     public TransaksiService(TransaksiRepository transaksiRepository,
             ProdukRepository produkRepository,
+            ProdukCache produkCache,
             AkunRepository akunRepository, 
             KeuanganRepository keuanganRepository,
-            TransaksiDetailRepository transaksiDetailRepository) {
+            TransaksiDetailRepository transaksiDetailRepository,
+            StokReservationService stokReservationService,
+            ReferenceNumberGenerator referenceNumberGenerator,
+            DailyRollupService dailyRollupService,
+            CatalogVersionService catalogVersionService,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager) {
         this.transaksiRepository = transaksiRepository;
         this.produkRepository = produkRepository;
+        this.produkCache = produkCache;
         this.akunRepository = akunRepository;
         this.keuanganRepository = keuanganRepository;
         this.transaksiDetailRepository = transaksiDetailRepository;
+        this.stokReservationService = stokReservationService;
+        this.referenceNumberGenerator = referenceNumberGenerator;
+        this.dailyRollupService = dailyRollupService;
+        this.catalogVersionService = catalogVersionService;
+        this.eventPublisher = eventPublisher;
+        this.tx = new TransactionTemplate(transactionManager);
     }
 
     // GET semua transaksi
@@ -39,6 +79,50 @@ public class TransaksiService {
         return transaksiRepository.findAll();
     }
 
+    // GET transaksi dalam rentang tanggal (dipakai dashboard kasir: ?start=&end=)
+    public List<Transaksi> getTransaksiByTanggal(LocalDateTime start, LocalDateTime end) {
+        return transaksiRepository.findByTanggalBetween(start, end);
+    }
+
+    /**
+     * GET transaksi per halaman (keyset pagination, urut terbaru dulu).
+     * Cursor berisi (tanggal, id) baris terakhir halaman sebelumnya, jadi biaya query tetap sama
+     * berapapun jumlah data di tabel.
+     */
+    @Transactional(readOnly = true)
+    public TransaksiPageResponse getTransaksiPage(LocalDateTime start, LocalDateTime end, Long akunId,
+            Transaksi.PaymentStatus status, Transaksi.MetodePembayaran metode, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        LocalDateTime cursorTanggal = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                cursorTanggal = LocalDateTime.parse(parts[0]);
+                cursorId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Cursor tidak valid: " + cursor);
+            }
+        }
+
+        // Ambil satu baris lebih untuk tahu masih ada halaman berikutnya atau tidak
+        List<TransaksiSummaryResponse> rows = transaksiRepository.findPage(start, end, akunId, status, metode,
+                cursorTanggal, cursorId, PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<TransaksiSummaryResponse> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            TransaksiSummaryResponse last = items.get(items.size() - 1);
+            String raw = last.tanggal() + "|" + last.idTransaksi();
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return new TransaksiPageResponse(List.copyOf(items), nextCursor, hasMore);
+    }
+
     // GET transaksi by ID
     public Transaksi getTransaksiById(Long id) {
         return transaksiRepository.findById(id)
@@ -46,8 +130,14 @@ public class TransaksiService {
     }
 
     // CREATE transaksi dengan DTO - TANPA UPDATE STOK DULU
-    @Transactional
+    // Nomor referensi diambil sebelum transaksi DB dibuka: kalau blok nomornya habis, checkout menunggu blok
+    // baru dari thread allocator tanpa memegang koneksi (lihat ReferenceNumberGenerator)
     public Transaksi createTransaksi(TransaksiRequest request) {
+        String referenceNumber = referenceNumberGenerator.next();
+        return tx.execute(status -> createTransaksi(request, referenceNumber));
+    }
+
+    private Transaksi createTransaksi(TransaksiRequest request, String referenceNumber) {
         System.out.println("🛒 Creating transaction for akunId: " + request.getAkunId());
         
         // Validasi akun exists
@@ -82,29 +172,47 @@ public class TransaksiService {
         transaksi.setAkun(akun);
         transaksi.setKasirName(request.getKasirName());
         transaksi.setPaymentStatus(initialStatus);
-        transaksi.setReferenceNumber(generateReferenceNumber());
+        transaksi.setReferenceNumber(referenceNumber);
         transaksi.setTanggal(LocalDateTime.now());
 
         System.out.println("📝 Transaction created with reference: " + transaksi.getReferenceNumber());
 
         // Validasi stock availability TAPI JANGAN UPDATE STOK DULU
         if (request.getDetails() != null && !request.getDetails().isEmpty()) {
-            validateStockAvailability(request.getDetails());
+            // Semua produk di keranjang diambil sekali (satu query IN), bukan findById per item
+            Map<Long, Produk> produkMap = loadProdukForDetails(request.getDetails());
+            Map<Long, Integer> jumlahPerProduk = groupJumlahRequest(request.getDetails());
+            validateStockAvailability(jumlahPerProduk, produkMap);
             
             // Simpan transaksi dulu untuk mendapatkan ID
             Transaksi savedTransaksi = transaksiRepository.save(transaksi);
+
+            // QRIS masih PENDING sampai webhook datang: tahan stoknya di ledger supaya tidak terjual dua kali
+            if (initialStatus == Transaksi.PaymentStatus.PENDING) {
+                stokReservationService.reserve(savedTransaksi.getIdTransaksi(), jumlahPerProduk, produkMap);
+            }
             
-            // Create details
-            List<TransaksiDetail> details = createTransaksiDetails(request.getDetails(), savedTransaksi);
+            // Create details (saveAll dikirim sebagai JDBC batch, lihat hibernate.jdbc.batch_size)
+            List<TransaksiDetail> details = createTransaksiDetails(request.getDetails(), produkMap, savedTransaksi);
             transaksiDetailRepository.saveAll(details);
             savedTransaksi.setDetails(details);
             
             // JANGAN UPDATE STOK DI SINI! Stok hanya dikurangi saat pembayaran berhasil
+
+            if (initialStatus == Transaksi.PaymentStatus.PAID) {
+                dailyRollupService.recordTransaksiPaid(savedTransaksi, 1);
+            }
+            publishPaymentStatus(savedTransaksi);
             
             return savedTransaksi;
         }
 
-        return transaksiRepository.save(transaksi);
+        Transaksi savedTransaksi = transaksiRepository.save(transaksi);
+        if (initialStatus == Transaksi.PaymentStatus.PAID) {
+            dailyRollupService.recordTransaksiPaid(savedTransaksi, 1);
+        }
+        publishPaymentStatus(savedTransaksi);
+        return savedTransaksi;
     }
 
     // Method baru: Update payment status DAN kurangi stok jika berhasil
@@ -119,18 +227,72 @@ public class TransaksiService {
         // HANYA jika status berubah dari PENDING ke PAID, maka kurangi stok
         if (oldStatus == Transaksi.PaymentStatus.PENDING && newStatus == Transaksi.PaymentStatus.PAID) {
             System.out.println("✅ Payment successful, reducing stock for transaction: " + transactionId);
-            reduceProductStock(transaksi.getDetails());
+            // QRIS yang reservasinya sudah lepas (lewat TTL / restart) diperlakukan seperti pembayaran terlambat:
+            // stoknya bisa sudah terjual ke pelanggan lain, dan settlement tidak boleh gagal karena itu
+            if (transaksi.getMetode_pembayaran() == Transaksi.MetodePembayaran.NON_TUNAI
+                    && !stokReservationService.isReserved(transactionId)) {
+                if (!tryReduceProductStock(transaksi.getDetails())) {
+                    transaksi.setPerluTinjauan(true);
+                    log.warn("⚠️ Transaksi {} dibayar setelah reservasi stok lepas, stok tidak cukup: perlu ditinjau manual",
+                            transactionId);
+                }
+            } else {
+                reduceProductStock(transaksi.getDetails());
+            }
+            // Reservasi sudah jadi pengurangan stok di DB
+            stokReservationService.releaseAfterCommit(transactionId);
+        }
+        // PENDING yang gagal/kadaluarsa: lepas stok yang ditahan
+        else if (oldStatus == Transaksi.PaymentStatus.PENDING &&
+                (newStatus == Transaksi.PaymentStatus.FAILED || newStatus == Transaksi.PaymentStatus.EXPIRED)) {
+            stokReservationService.releaseAfterCommit(transactionId);
+        }
+        // Pembayaran masuk setelah FAILED/EXPIRED (misalnya webhook settlement terlambat): reservasi sudah
+        // dilepas, jadi stok dikurangi lagi hanya kalau masih cukup. Kalau tidak, uangnya tetap diterima (PAID)
+        // tapi transaksi ditandai perluTinjauan untuk ditangani manual, tanpa membuat stok minus
+        else if ((oldStatus == Transaksi.PaymentStatus.FAILED || oldStatus == Transaksi.PaymentStatus.EXPIRED)
+                && newStatus == Transaksi.PaymentStatus.PAID) {
+            if (!tryReduceProductStock(transaksi.getDetails())) {
+                transaksi.setPerluTinjauan(true);
+                log.warn("⚠️ Transaksi {} dibayar setelah {}, stok tidak cukup: perlu ditinjau manual",
+                        transactionId, oldStatus);
+            }
         }
         // Jika transaksi dibatalkan (FAILED/EXPIRED) dan sebelumnya PAID, kembalikan stok
-        else if (oldStatus == Transaksi.PaymentStatus.PAID && 
+        // (kecuali stoknya memang tidak pernah dikurangi karena perluTinjauan)
+        else if (oldStatus == Transaksi.PaymentStatus.PAID && !transaksi.isPerluTinjauan() &&
                 (newStatus == Transaksi.PaymentStatus.FAILED || newStatus == Transaksi.PaymentStatus.EXPIRED)) {
             System.out.println("🔄 Transaction cancelled, restoring stock for transaction: " + transactionId);
             restoreProductStock(transaksi.getDetails());
         }
 
+        // Rekap harian hanya menghitung transaksi PAID
+        if (oldStatus != Transaksi.PaymentStatus.PAID && newStatus == Transaksi.PaymentStatus.PAID) {
+            dailyRollupService.recordTransaksiPaid(transaksi, 1);
+        } else if (oldStatus == Transaksi.PaymentStatus.PAID && newStatus != Transaksi.PaymentStatus.PAID) {
+            dailyRollupService.recordTransaksiPaid(transaksi, -1);
+        }
+
+        // Client (modal QRIS kasir, dashboard) diberi tahu lewat push setelah commit
+        if (oldStatus != newStatus) {
+            publishPaymentStatus(transaksi);
+        }
+
         return transaksiRepository.save(transaksi);
     }
 
+    // Dipakai rekonsiliasi: transaksi yang lewat batas waktu tanpa kepastian dari gateway dijadikan EXPIRED.
+    // Return false kalau status sudah berubah (misalnya webhook masuk duluan)
+    @Transactional
+    public boolean expireIfPending(Long transactionId) {
+        Transaksi transaksi = transaksiRepository.findById(transactionId).orElse(null);
+        if (transaksi == null || transaksi.getPaymentStatus() != Transaksi.PaymentStatus.PENDING) {
+            return false;
+        }
+        updatePaymentStatus(transactionId, Transaksi.PaymentStatus.EXPIRED);
+        return true;
+    }
+
     // Method untuk konfirmasi pembayaran tunai
     @Transactional
     public Transaksi confirmCashPayment(Long transactionId) {
@@ -152,89 +314,150 @@ public class TransaksiService {
         if (transaksi.getDetails() != null) {
             reduceProductStock(transaksi.getDetails());
         }
+        stokReservationService.releaseAfterCommit(transactionId);
+        dailyRollupService.recordTransaksiPaid(transaksi, 1);
+        publishPaymentStatus(transaksi);
 
         return transaksiRepository.save(transaksi);
     }
 
     // Method untuk mengurangi stok saat pembayaran berhasil
+    // Satu UPDATE bersyarat per produk (stok >= jumlah), jadi tidak ada lost update antar kasir
     private void reduceProductStock(List<TransaksiDetail> details) {
-        if (details == null) return;
-        
-        for (TransaksiDetail detail : details) {
-            Produk produk = detail.getProdukId();
-            if (produk == null) {
-                // Load produk dari repository jika null
-                produk = produkRepository.findById(detail.getProdukId().getIdProduk())
-                        .orElseThrow(() -> new RuntimeException("Produk tidak ditemukan"));
+        if (details == null || details.isEmpty()) return;
+
+        Map<Long, Integer> jumlahPerProduk = groupJumlahPerProduk(details);
+        List<String> gagal = new ArrayList<>();
+        long versi = catalogVersionService.next();
+
+        // Urut berdasarkan ID produk supaya urutan lock row selalu sama (hindari deadlock)
+        jumlahPerProduk.forEach((idProduk, jumlah) -> {
+            if (produkRepository.decrementStok(idProduk, jumlah, versi) == 0) {
+                gagal.add(namaProduk(details, idProduk) + " (diminta: " + jumlah + ")");
             }
-            
-            short requestedQty = detail.getJumlah();
-            short currentStock = produk.getStok();
-            
-            System.out.println("📦 Reducing stock for product: " + produk.getNamaProduk() + 
-                             ", Current: " + currentStock + ", Requested: " + requestedQty);
-            
-            if (currentStock < requestedQty) {
-                throw new RuntimeException("Stok " + produk.getNamaProduk() + " tidak mencukupi. " +
-                        "Stok tersedia: " + currentStock + ", diminta: " + requestedQty);
+        });
+
+        if (!gagal.isEmpty()) {
+            // Exception akan me-rollback semua pengurangan stok di transaksi ini
+            log.warn("❌ Stok tidak mencukupi: {}", gagal);
+            throw new RuntimeException("Stok tidak mencukupi untuk: " + String.join(", ", gagal));
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(List.copyOf(jumlahPerProduk.keySet())));
+
+        log.info("✅ Stock reduced for {} product(s)", jumlahPerProduk.size());
+    }
+
+    // Seperti reduceProductStock, tapi tidak melempar exception: kalau ada produk yang stoknya tidak cukup,
+    // pengurangan yang sudah terlanjur dikembalikan dan return false
+    private boolean tryReduceProductStock(List<TransaksiDetail> details) {
+        if (details == null || details.isEmpty()) return true;
+
+        Map<Long, Integer> jumlahPerProduk = groupJumlahPerProduk(details);
+        List<Long> dikurangi = new ArrayList<>();
+        long versi = catalogVersionService.next();
+
+        for (Map.Entry<Long, Integer> entry : jumlahPerProduk.entrySet()) {
+            if (produkRepository.decrementStok(entry.getKey(), entry.getValue(), versi) == 0) {
+                dikurangi.forEach(idProduk -> produkRepository.incrementStok(idProduk, jumlahPerProduk.get(idProduk), versi));
+                return false;
             }
-            
-            produk.setStok((short)(currentStock - requestedQty));
-            produkRepository.save(produk);
-            
-            System.out.println("✅ Stock reduced to: " + produk.getStok());
+            dikurangi.add(entry.getKey());
         }
+        eventPublisher.publishEvent(new StockChangedEvent(List.copyOf(jumlahPerProduk.keySet())));
+
+        log.info("✅ Stock reduced for {} product(s) (pembayaran terlambat)", jumlahPerProduk.size());
+        return true;
     }
 
     // Method untuk mengembalikan stok jika transaksi dibatalkan
     private void restoreProductStock(List<TransaksiDetail> details) {
-        if (details == null) return;
-        
+        if (details == null || details.isEmpty()) return;
+
+        Map<Long, Integer> jumlahPerProduk = groupJumlahPerProduk(details);
+        long versi = catalogVersionService.next();
+        jumlahPerProduk.forEach((idProduk, jumlah) -> {
+            if (produkRepository.incrementStok(idProduk, jumlah, versi) == 0) {
+                throw new RuntimeException("Produk tidak ditemukan dengan ID: " + idProduk);
+            }
+        });
+        eventPublisher.publishEvent(new StockChangedEvent(List.copyOf(jumlahPerProduk.keySet())));
+
+        log.info("🔄 Stock restored for {} item(s)", details.size());
+    }
+
+    // Dikirim ke client push setelah transaksi DB commit (lihat PushService)
+    private void publishPaymentStatus(Transaksi transaksi) {
+        eventPublisher.publishEvent(PaymentStatusEvent.of(transaksi));
+    }
+
+    // Total jumlah per produk, diurutkan berdasarkan ID produk
+    private Map<Long, Integer> groupJumlahPerProduk(List<TransaksiDetail> details) {
+        Map<Long, Integer> jumlahPerProduk = new TreeMap<>();
         for (TransaksiDetail detail : details) {
-            Produk produk = detail.getProdukId();
-            if (produk == null) {
-                produk = produkRepository.findById(detail.getProdukId().getIdProduk())
-                        .orElseThrow(() -> new RuntimeException("Produk tidak ditemukan"));
+            jumlahPerProduk.merge(detail.getProdukId().getIdProduk(), (int) detail.getJumlah(), Integer::sum);
+        }
+        return jumlahPerProduk;
+    }
+
+    private String namaProduk(List<TransaksiDetail> details, Long idProduk) {
+        return details.stream()
+                .map(TransaksiDetail::getProdukId)
+                .filter(produk -> idProduk.equals(produk.getIdProduk()))
+                .map(Produk::getNamaProduk)
+                .findFirst()
+                .orElse("Produk " + idProduk);
+    }
+
+    // Ambil semua produk yang ada di keranjang dari ProdukCache (miss: satu query findAllById)
+    private Map<Long, Produk> loadProdukForDetails(List<TransaksiDetailRequest> details) {
+        Set<Long> produkIds = details.stream()
+                .map(TransaksiDetailRequest::getProdukId)
+                .collect(Collectors.toSet());
+
+        if (produkIds.contains(null)) {
+            throw new RuntimeException("Produk ID tidak boleh kosong");
+        }
+
+        Map<Long, Produk> produkMap = produkCache.getAll(produkIds);
+
+        for (Long produkId : produkIds) {
+            if (!produkMap.containsKey(produkId)) {
+                throw new RuntimeException("Produk tidak ditemukan dengan ID: " + produkId);
             }
-            
-            short returnedQty = detail.getJumlah();
-            short currentStock = produk.getStok();
-            
-            System.out.println("🔄 Restoring stock for product: " + produk.getNamaProduk() + 
-                             ", Current: " + currentStock + ", Restored: " + returnedQty);
-            
-            produk.setStok((short)(currentStock + returnedQty));
-            produkRepository.save(produk);
-            
-            System.out.println("✅ Stock restored to: " + produk.getStok());
         }
+
+        return produkMap;
     }
 
-    // Validasi stok (hanya cek, tidak kurangi)
-    private void validateStockAvailability(List<com.traitor.ambatushop_10.dto.TransaksiDetailRequest> details) {
-        for (com.traitor.ambatushop_10.dto.TransaksiDetailRequest detail : details) {
-            Produk produk = produkRepository.findById(detail.getProdukId())
-                    .orElseThrow(
-                            () -> new RuntimeException("Produk tidak ditemukan dengan ID: " + detail.getProdukId()));
+    // Jumlah dijumlahkan per produk, jadi produk yang muncul di beberapa baris tetap tervalidasi benar
+    private Map<Long, Integer> groupJumlahRequest(List<TransaksiDetailRequest> details) {
+        Map<Long, Integer> requestedPerProduk = new HashMap<>();
+        for (TransaksiDetailRequest detail : details) {
+            requestedPerProduk.merge(detail.getProdukId(), (int) detail.getJumlah(), Integer::sum);
+        }
+        return requestedPerProduk;
+    }
 
-            if (produk.getStok() < detail.getJumlah()) {
+    // Validasi stok (hanya cek, tidak kurangi)
+    // Stok yang sedang ditahan transaksi QRIS PENDING ikut diperhitungkan (dibaca dari ledger, bukan lock DB)
+    private void validateStockAvailability(Map<Long, Integer> requestedPerProduk, Map<Long, Produk> produkMap) {
+        requestedPerProduk.forEach((produkId, requested) -> {
+            Produk produk = produkMap.get(produkId);
+            int tersedia = stokReservationService.getAvailableStok(produk);
+            if (tersedia < requested) {
                 throw new RuntimeException(
                         "Stok " + produk.getNamaProduk() + " tidak mencukupi. " +
-                                "Stok tersedia: " + produk.getStok() + ", diminta: " + detail.getJumlah());
+                                "Stok tersedia: " + tersedia + ", diminta: " + requested);
             }
-        }
+        });
     }
 
-    private List<TransaksiDetail> createTransaksiDetails(
-            List<com.traitor.ambatushop_10.dto.TransaksiDetailRequest> detailRequests, Transaksi transaksi) {
+    private List<TransaksiDetail> createTransaksiDetails(List<TransaksiDetailRequest> detailRequests,
+            Map<Long, Produk> produkMap, Transaksi transaksi) {
         return detailRequests.stream().map(detailReq -> {
-            Produk produk = produkRepository.findById(detailReq.getProdukId())
-                    .orElseThrow(
-                            () -> new RuntimeException("Produk tidak ditemukan dengan ID: " + detailReq.getProdukId()));
-
             TransaksiDetail detail = new TransaksiDetail();
             detail.setTransaksi(transaksi);
-            detail.setProdukId(produk);
+            detail.setProdukId(produkMap.get(detailReq.getProdukId()));
             detail.setJumlah(detailReq.getJumlah());
             detail.setHargaSatuan(detailReq.getHargaSatuan());
             detail.setSubtotal(detailReq.getSubtotal());
@@ -257,8 +480,12 @@ public class TransaksiService {
         if (transaksi.getDetails() != null && transaksi.getPaymentStatus() == Transaksi.PaymentStatus.PAID) {
             restoreProductStock(transaksi.getDetails());
         }
+        if (transaksi.getPaymentStatus() == Transaksi.PaymentStatus.PAID) {
+            dailyRollupService.recordTransaksiPaid(transaksi, -1);
+        }
 
         transaksiRepository.delete(transaksi);
+        stokReservationService.releaseAfterCommit(id);
     }
 
     // FIND by payment gateway ID
@@ -279,12 +506,6 @@ public class TransaksiService {
         }
     }
 
-    private String generateReferenceNumber() {
-        String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String random = String.format("%03d", new Random().nextInt(1000));
-        return "TRX-" + date + "-" + random;
-    }
-
     /**
      * CREATE stock purchase - HANYA sebagai pengeluaran, BUKAN transaksi
      */
@@ -316,6 +537,7 @@ public class TransaksiService {
         keuangan.setAkun(akun);
 
         Keuangan savedKeuangan = keuanganRepository.save(keuangan);
+        dailyRollupService.recordKeuangan(savedKeuangan, 1);
 
         System.out.println("✅ Pengeluaran stok dicatat: " + savedKeuangan.getIdKeuangan() +
                 " - " + keterangan + " - Rp" + request.getTotalAmount());
@@ -1,32 +1,98 @@
 package com.traitor.ambatushop_10.service;
 
+import com.traitor.ambatushop_10.dto.PresenceChangedEvent;
 import com.traitor.ambatushop_10.model.Akun;
 import com.traitor.ambatushop_10.repository.AkunRepository;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
 public class UserSessionService {
 
+    // Sama dengan Akun.isCurrentlyActive(): lebih dari 5 menit tanpa heartbeat tidak dihitung aktif
+    private static final long ACTIVE_WINDOW_MILLIS = 5 * 60 * 1000;
+
+    // Lebih dari 15 menit tanpa heartbeat dianggap logout otomatis
+    private static final long SESSION_EXPIRE_MILLIS = 15 * 60 * 1000;
+
     private final AkunRepository akunRepository;
-    private final Map<String, UserSession> activeSessions = new ConcurrentHashMap<>();
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate tx;
+
+    // Statistik terakhir yang dikirim ke topik push "presence", supaya event yang sama tidak dikirim ulang
+    private final AtomicReference<Map<String, Object>> lastPublishedStats = new AtomicReference<>();
+
+    // Sesi login, diindeks per userId & sessionId, kedaluwarsa lewat antrian timer
+    private final SessionRegistry sessions = new SessionRegistry(ACTIVE_WINDOW_MILLIS, SESSION_EXPIRE_MILLIS);
 
-    public UserSessionService(AkunRepository akunRepository) {
+    // Jumlah akun per role, diisi sekali saat startup lalu diupdate lewat AkunService
+    private final Map<Akun.Role, AtomicLong> akunByRole = new EnumMap<>(Akun.Role.class);
+
+    // Heartbeat terakhir per userId (epoch millis), untuk lastActivity yang belum di-flush ke DB
+    private final Map<Long, Long> lastSeen = new ConcurrentHashMap<>();
+
+    // Heartbeat yang belum ditulis ke DB; dikosongkan oleh flushActivity()
+    private final Map<Long, Long> pendingActivity = new ConcurrentHashMap<>();
+
+    public UserSessionService(AkunRepository akunRepository, ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager) {
         this.akunRepository = akunRepository;
+        this.eventPublisher = eventPublisher;
+        // Flush heartbeat / sweep sesi selalu commit sendiri, terpisah dari transaksi pemanggil (kalau ada)
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (Akun.Role role : Akun.Role.values()) {
+            akunByRole.put(role, new AtomicLong());
+        }
+    }
+
+    // Setelah restart: isi counter role dan pulihkan sesi user yang di DB masih online
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void restoreSessions() {
+        for (Object[] row : akunRepository.countGroupByRole()) {
+            if (row[0] instanceof Akun.Role role) {
+                akunByRole.get(role).set(((Number) row[1]).longValue());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        int restored = 0;
+        for (Akun akun : akunRepository.findOnline()) {
+            if (akun.getRole() == null || akun.getSessionId() == null) {
+                continue;
+            }
+            long lastActivity = akun.getLastActivityAt() == null ? now : toEpochMillis(akun.getLastActivityAt());
+            sessions.open(akun.getIdPegawai(), akun.getUsername(), akun.getRole(), akun.getSessionId(),
+                    akun.getIpAddress(), lastActivity, now);
+            restored++;
+        }
+        log.info("Session store: {} sesi dipulihkan, akun per role {}", restored, akunByRole);
     }
 
     @Transactional
@@ -43,14 +109,10 @@ public class UserSessionService {
             akunRepository.save(akun);
 
             // Store in memory cache
-            UserSession session = new UserSession(
-                    userId,
-                    username,
-                    akun.getRole().name(),
-                    sessionId,
-                    ipAddress,
-                    LocalDateTime.now());
-            activeSessions.put(sessionId, session);
+            long now = System.currentTimeMillis();
+            sessions.open(userId, username, akun.getRole(), sessionId, ipAddress, now, now);
+            lastSeen.put(userId, now);
+            publishPresence();
 
             log.info("User {} logged in. Session: {}, IP: {}", username, sessionId, ipAddress);
 
@@ -73,7 +135,10 @@ public class UserSessionService {
             akunRepository.save(akun);
 
             // Remove from memory cache
-            activeSessions.remove(userId);
+            sessions.close(userId);
+            pendingActivity.remove(userId);
+            lastSeen.remove(userId);
+            publishPresence();
 
             log.info("✅ User {} logged out successfully", akun.getUsername());
 
@@ -82,111 +147,194 @@ public class UserSessionService {
         }
     }
 
-     // Method untuk cek dan cleanup session yang expired
-    public void checkAndCleanupExpiredSessions() {
-        LocalDateTime fifteenMinutesAgo = LocalDateTime.now().minusMinutes(15);
-        
-        activeSessions.entrySet().removeIf(entry -> {
-            UserSession session = entry.getValue();
-            
-            if (session.getLastActivity().isBefore(fifteenMinutesAgo)) {
-                // Mark as offline in database
-                akunRepository.findById(session.getUserId()).ifPresent(akun -> {
-                    akun.setOnline(false);
-                    akun.setLastActivityAt(LocalDateTime.now());
-                    akunRepository.save(akun);
-                    log.info("Auto-logout user {} due to inactivity", akun.getUsername());
-                });
-                return true;
-            }
-            return false;
-        });
+    /**
+     * Heartbeat dari halaman yang terbuka (/api/auth/activity). Hanya dicatat di memori, tanpa query;
+     * flushActivity() menulis semuanya ke DB setiap app.presence.flush-interval-ms (satu UPDATE per detik berbeda).
+     */
+    public void updateUserActivity(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (sessions.touch(userId, now)) {
+            publishPresence();
+        }
+        lastSeen.merge(userId, now, Math::max);
+        pendingActivity.merge(userId, now, Math::max);
     }
 
-    @Transactional
-    public void updateUserActivity(Long userId) {
-        try {
-            Akun akun = akunRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+    @Scheduled(fixedDelayString = "${app.presence.flush-interval-ms:30000}")
+    public void flushActivity() {
+        flushPending();
+    }
 
-            akun.updateActivity();
-            akunRepository.save(akun);
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushPending();
+    }
 
-        } catch (Exception e) {
-            log.error("Error updating user activity: {}", e.getMessage(), e);
+    /**
+     * UPDATE heartbeat selalu jalan di transaksinya sendiri (TransactionTemplate), bukan di transaksi
+     * pemanggil: kalau gagal, yang rollback hanya flush ini dan heartbeat-nya dikembalikan ke antrian,
+     * tanpa menandai transaksi pemanggil rollback-only (UnexpectedRollbackException saat commit).
+     */
+    private void flushPending() {
+        if (pendingActivity.isEmpty()) {
+            return;
+        }
+
+        // Ambil snapshot; heartbeat yang masuk setelah remove() ikut flush berikutnya
+        Map<Long, Long> snapshot = new HashMap<>();
+        for (Map.Entry<Long, Long> entry : pendingActivity.entrySet()) {
+            if (pendingActivity.remove(entry.getKey(), entry.getValue())) {
+                snapshot.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (snapshot.isEmpty()) {
+            return;
         }
+
+        // Setiap user dapat waktu heartbeat-nya sendiri. Dikelompokkan per detik (kolom DATETIME tanpa
+        // pecahan detik): satu UPDATE per detik yang berbeda, jadi paling banyak satu UPDATE per detik
+        // interval flush, berapapun jumlah user-nya
+        Map<Long, List<Long>> idsBySecond = new TreeMap<>();
+        snapshot.forEach((id, millis) -> idsBySecond.computeIfAbsent(millis / 1000, k -> new ArrayList<>()).add(id));
+        try {
+            int updated = tx.execute(status -> {
+                int rows = 0;
+                for (Map.Entry<Long, List<Long>> batch : idsBySecond.entrySet()) {
+                    rows += akunRepository.updateLastActivity(batch.getValue(), toLocalDateTime(batch.getKey() * 1000));
+                }
+                return rows;
+            });
+            log.debug("Flush activity: {} user, {} UPDATE, {} baris diupdate", snapshot.size(), idsBySecond.size(),
+                    updated);
+        } catch (RuntimeException e) {
+            // Transaksi rollback: kembalikan semuanya ke antrian supaya dicoba lagi di flush berikutnya
+            snapshot.forEach((id, millis) -> pendingActivity.merge(id, millis, Math::max));
+            log.error("Gagal flush activity {} user: {}", snapshot.size(), e.getMessage());
+        }
+    }
+
+    // Aktivitas terakhir: yang lebih baru antara memori (belum di-flush) dan DB
+    public LocalDateTime getLastActivity(Akun akun) {
+        Long seen = lastSeen.get(akun.getIdPegawai());
+        LocalDateTime fromDb = akun.getLastActivityAt();
+        if (seen == null) {
+            return fromDb;
+        }
+        LocalDateTime fromMemory = toLocalDateTime(seen);
+        return fromDb == null || fromMemory.isAfter(fromDb) ? fromMemory : fromDb;
+    }
+
+    // Pengganti Akun.isCurrentlyActive(), dibaca dari session store di memori
+    public boolean isCurrentlyActive(Akun akun) {
+        return sessions.isActive(akun.getIdPegawai(), System.currentTimeMillis());
     }
 
     public List<Akun> getOnlineUsers() {
-        return akunRepository.findAll().stream()
-                .filter(Akun::isCurrentlyActive)
-                .collect(Collectors.toList());
+        return akunRepository.findAllById(sessions.activeUserIds(System.currentTimeMillis()));
     }
 
+    // Semua angka dari counter, tanpa query
     public Map<String, Object> getUserStats() {
-        List<Akun> allUsers = akunRepository.findAll();
-
-        long totalUsers = allUsers.size();
-        long onlineUsers = allUsers.stream()
-                .filter(Akun::isCurrentlyActive)
-                .count();
-
-        long adminCount = allUsers.stream()
-                .filter(u -> u.getRole() == Akun.Role.ADMIN)
-                .count();
-        long managerCount = allUsers.stream()
-                .filter(u -> u.getRole() == Akun.Role.MANAJER)
-                .count();
-        long kasirCount = allUsers.stream()
-                .filter(u -> u.getRole() == Akun.Role.KASIR)
-                .count();
+        SessionRegistry.Counts counts = sessions.counts();
+        long totalUsers = akunByRole.values().stream().mapToLong(AtomicLong::get).sum();
+        long onlineUsers = counts.totalActive();
 
         Map<String, Object> stats = new java.util.HashMap<>();
         stats.put("totalUsers", totalUsers);
         stats.put("onlineUsers", onlineUsers);
         stats.put("offlineUsers", totalUsers - onlineUsers);
-        stats.put("adminCount", adminCount);
-        stats.put("managerCount", managerCount);
-        stats.put("kasirCount", kasirCount);
+        stats.put("adminCount", akunByRole.get(Akun.Role.ADMIN).get());
+        stats.put("managerCount", akunByRole.get(Akun.Role.MANAJER).get());
+        stats.put("kasirCount", akunByRole.get(Akun.Role.KASIR).get());
 
         // Add active sessions count by role
-        stats.put("activeAdmins", allUsers.stream()
-                .filter(u -> u.getRole() == Akun.Role.ADMIN && u.isCurrentlyActive())
-                .count());
-        stats.put("activeManagers", allUsers.stream()
-                .filter(u -> u.getRole() == Akun.Role.MANAJER && u.isCurrentlyActive())
-                .count());
-        stats.put("activeKasirs", allUsers.stream()
-                .filter(u -> u.getRole() == Akun.Role.KASIR && u.isCurrentlyActive())
-                .count());
+        stats.put("activeAdmins", (long) counts.active().get(Akun.Role.ADMIN));
+        stats.put("activeManagers", (long) counts.active().get(Akun.Role.MANAJER));
+        stats.put("activeKasirs", (long) counts.active().get(Akun.Role.KASIR));
 
         return stats;
     }
 
-    @Scheduled(fixedRate = 300000) // Run every 5 minutes
-    @Transactional
-    public void cleanupInactiveUsers() {
-        log.info("Cleaning up inactive user sessions...");
+    // ===== HOOK DARI AkunService (menjaga counter role) =====
+
+    public void akunCreated(Akun akun) {
+        if (akun.getRole() != null) {
+            akunByRole.get(akun.getRole()).incrementAndGet();
+        }
+        publishPresence();
+    }
+
+    public void akunUpdated(Akun.Role oldRole, Akun akun) {
+        if (oldRole == akun.getRole()) {
+            return;
+        }
+        if (oldRole != null) {
+            akunByRole.get(oldRole).decrementAndGet();
+        }
+        if (akun.getRole() != null) {
+            akunByRole.get(akun.getRole()).incrementAndGet();
+            sessions.changeRole(akun.getIdPegawai(), akun.getRole());
+        }
+        publishPresence();
+    }
 
-        LocalDateTime fifteenMinutesAgo = LocalDateTime.now().minusMinutes(15);
+    public void akunDeleted(Akun akun) {
+        if (akun.getRole() != null) {
+            akunByRole.get(akun.getRole()).decrementAndGet();
+        }
+        sessions.close(akun.getIdPegawai());
+        pendingActivity.remove(akun.getIdPegawai());
+        lastSeen.remove(akun.getIdPegawai());
+        publishPresence();
+    }
 
-        List<Akun> inactiveUsers = akunRepository.findAll().stream()
-                .filter(Akun::isOnline)
-                .filter(akun -> akun.getLastActivityAt() != null
-                        && akun.getLastActivityAt().isBefore(fifteenMinutesAgo))
-                .collect(Collectors.toList());
+    /**
+     * Sweep sesi kedaluwarsa. Di memori hanya timer yang jatuh tempo yang diproses; di DB cukup satu
+     * UPDATE lewat index (is_online, last_activity_at).
+     */
+    @Scheduled(fixedRate = 60000)
+    public void cleanupInactiveUsers() {
+        // Pastikan heartbeat di memori sudah masuk DB sebelum menilai siapa yang tidak aktif
+        flushPending();
+
+        long now = System.currentTimeMillis();
+        List<SessionRegistry.Session> expired = sessions.sweep(now);
+        for (SessionRegistry.Session session : expired) {
+            lastSeen.remove(session.userId());
+            log.info("Marked user {} as offline due to inactivity", session.username());
+        }
 
-        for (Akun akun : inactiveUsers) {
-            akun.markAsOffline();
-            akunRepository.save(akun);
+        // Sweep juga bisa memindahkan sesi ke idle tanpa ada yang kedaluwarsa
+        publishPresence();
 
-            // Remove from memory cache
-            activeSessions.values().removeIf(session -> session.getUserId() == akun.getIdPegawai());
+        int updated = tx.execute(status ->
+                akunRepository.markInactiveOffline(toLocalDateTime(now - SESSION_EXPIRE_MILLIS)));
+        if (updated > 0 || !expired.isEmpty()) {
+            log.info("Cleanup sesi: {} sesi kedaluwarsa di memori, {} akun ditandai offline di DB",
+                    expired.size(), updated);
+        }
+    }
 
-            log.info("Marked user {} as offline due to inactivity", akun.getUsername());
+    // Kirim statistik ke topik push "presence" kalau berbeda dari yang terakhir dikirim
+    private void publishPresence() {
+        Map<String, Object> stats = getUserStats();
+        Map<String, Object> previous = lastPublishedStats.getAndSet(stats);
+        if (!stats.equals(previous)) {
+            eventPublisher.publishEvent(new PresenceChangedEvent(stats));
         }
     }
 
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
     private String getClientIp(HttpServletRequest request) {
         String ip = request.getHeader("X-Forwarded-For");
         if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
@@ -200,17 +348,4 @@ public class UserSessionService {
         }
         return ip;
     }
-
-    // Inner class for session tracking
-    @Getter
-    @Setter
-    @AllArgsConstructor
-    private static class UserSession {
-        private Long userId;
-        private String username;
-        private String role;
-        private String sessionId;
-        private String ipAddress;
-        private LocalDateTime lastActivity;
-    }
 }
\ No newline at end of file
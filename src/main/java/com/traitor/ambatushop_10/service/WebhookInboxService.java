@@ -0,0 +1,317 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.model.Transaksi;
+import com.traitor.ambatushop_10.model.WebhookInbox;
+import com.traitor.ambatushop_10.repository.WebhookInboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inbox notifikasi Midtrans: webhook disimpan dulu ke tabel webhook_inbox lalu langsung di-ACK,
+ * pemrosesan (update status transaksi, stok, rekap) jalan di worker sendiri.
+ *
+ * - De-duplikasi: unique (order_id, transaction_status), retry Midtrans dengan status sama tidak disimpan lagi.
+ * - Urutan per order: event satu order_id selalu masuk ke worker (stripe) yang sama, jadi diproses berurutan;
+ *   order yang berbeda diproses paralel.
+ * - Satu transaksi DB per event: update transaksi + tandai event PROCESSED commit bersamaan.
+ * - Event yang gagal tetap PENDING dan dicoba lagi oleh retryPending(); setelah app.webhook.max-attempts
+ *   jadi FAILED dan bisa di-replay manual (replay / replayOrder).
+ * - Event PENDING yang tertinggal saat aplikasi mati diambil lagi waktu startup.
+ */
+@Service
+@Slf4j
+public class WebhookInboxService {
+
+    private static final int RETRY_BATCH_SIZE = 500;
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final int MAX_ORDER_ID_LENGTH = 100;
+    private static final int MAX_STATUS_LENGTH = 30;
+
+    public enum ReceiveResult { STORED, DUPLICATE }
+
+    private final WebhookInboxRepository inboxRepository;
+    private final TransaksiService transaksiService;
+    private final TransactionTemplate tx;
+    private final int maxAttempts;
+    private final ExecutorService[] stripes;
+
+    // Event yang sedang antri / diproses, supaya retryPending() tidak mengantrikan event yang sama dua kali
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    // Statistik sejak aplikasi start (GET /api/payment/webhook-inbox/stats)
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong processingNanos = new AtomicLong();
+    private volatile long lastWindowProcessed;
+    private volatile long lastWindowStartNanos = System.nanoTime();
+    private volatile double processedPerSecond;
+
+    public WebhookInboxService(WebhookInboxRepository inboxRepository,
+            TransaksiService transaksiService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.webhook.workers:4}") int workers,
+            @Value("${app.webhook.max-attempts:5}") int maxAttempts) {
+        this.inboxRepository = inboxRepository;
+        this.transaksiService = transaksiService;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+
+        this.stripes = new ExecutorService[Math.max(1, workers)];
+        for (int i = 0; i < stripes.length; i++) {
+            String name = "webhook-worker-" + (i + 1);
+            stripes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Simpan notifikasi ke inbox (transaksi DB pendek, hanya satu INSERT) lalu antrikan ke worker.
+     * Exception dari database sengaja dilempar: controller membalas non-2xx supaya Midtrans mengirim ulang.
+     */
+    public ReceiveResult receive(Map<String, Object> payload) {
+        String orderId = (String) payload.get("order_id");
+        String transactionStatus = (String) payload.get("transaction_status");
+        if (orderId == null || orderId.isBlank() || transactionStatus == null || transactionStatus.isBlank()) {
+            throw new IllegalArgumentException("Notifikasi tanpa order_id / transaction_status");
+        }
+        String fraudStatus = (String) payload.get("fraud_status");
+        // Batas kolom webhook_inbox; INSERT IGNORE akan memotong nilai yang kepanjangan tanpa error
+        if (orderId.length() > MAX_ORDER_ID_LENGTH || transactionStatus.length() > MAX_STATUS_LENGTH
+                || (fraudStatus != null && fraudStatus.length() > MAX_STATUS_LENGTH)) {
+            throw new IllegalArgumentException("Notifikasi dengan order_id / status terlalu panjang");
+        }
+        String json = new JSONObject(payload).toString();
+
+        WebhookInbox event = tx.execute(status -> {
+            int inserted = inboxRepository.insertIfAbsent(orderId, transactionStatus, fraudStatus, json,
+                    LocalDateTime.now());
+            return inserted > 0
+                    ? inboxRepository.findByOrderIdAndTransactionStatus(orderId, transactionStatus).orElse(null)
+                    : null;
+        });
+
+        if (event == null) {
+            duplicates.incrementAndGet();
+            log.info("Webhook duplikat diabaikan: {} {}", orderId, transactionStatus);
+            return ReceiveResult.DUPLICATE;
+        }
+        received.incrementAndGet();
+        enqueue(event.getId(), orderId);
+        return ReceiveResult.STORED;
+    }
+
+    // Proses ulang satu event (apa pun statusnya); aman karena update status transaksi idempotent
+    public WebhookInbox replay(Long id) {
+        WebhookInbox event = inboxRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Webhook tidak ditemukan: " + id));
+        tx.executeWithoutResult(status -> inboxRepository.resetForReplay(List.of(id)));
+        log.info("Replay webhook {} ({} {})", id, event.getOrderId(), event.getTransactionStatus());
+        enqueue(id, event.getOrderId());
+        return event;
+    }
+
+    // Proses ulang semua event satu order, urut sesuai waktu diterima
+    public List<WebhookInbox> replayOrder(String orderId) {
+        List<WebhookInbox> events = inboxRepository.findByOrderIdOrderByIdAsc(orderId);
+        if (events.isEmpty()) {
+            throw new RuntimeException("Tidak ada webhook untuk order: " + orderId);
+        }
+        tx.executeWithoutResult(status -> inboxRepository.resetForReplay(
+                events.stream().map(WebhookInbox::getId).toList()));
+        log.info("Replay {} webhook untuk order {}", events.size(), orderId);
+        events.forEach(event -> enqueue(event.getId(), orderId));
+        return events;
+    }
+
+    public List<WebhookInbox> getLatest(WebhookInbox.Status status, int limit) {
+        return inboxRepository.findByStatusOrderByIdDesc(status, PageRequest.of(0, Math.min(limit, 500)));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("received", received.get());
+        stats.put("duplicates", duplicates.get());
+        stats.put("processed", processed.get());
+        stats.put("failedAttempts", failedAttempts.get());
+        stats.put("queued", queued.size());
+        stats.put("workers", stripes.length);
+        long done = processed.get();
+        stats.put("avgProcessingMillis", done == 0 ? 0 : processingNanos.get() / done / 1_000_000.0);
+        stats.put("processedPerSecond", processedPerSecond);
+
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (Object[] row : inboxRepository.countGroupByStatus()) {
+            byStatus.put(String.valueOf(row[0]), ((Number) row[1]).longValue());
+        }
+        stats.put("inbox", byStatus);
+        return stats;
+    }
+
+    // ===== WORKER =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        int count = enqueuePending();
+        if (count > 0) {
+            log.info("📥 {} webhook PENDING dari proses sebelumnya diantrikan lagi", count);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.webhook.retry-interval-ms:30000}")
+    public void retryPending() {
+        enqueuePending();
+    }
+
+    private int enqueuePending() {
+        List<WebhookInbox> pending = inboxRepository.findByStatusOrderByIdAsc(WebhookInbox.Status.PENDING,
+                PageRequest.of(0, RETRY_BATCH_SIZE));
+        int count = 0;
+        for (WebhookInbox event : pending) {
+            if (enqueue(event.getId(), event.getOrderId())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Throughput diukur per jendela 10 detik
+    @Scheduled(fixedRate = 10000)
+    public void measureThroughput() {
+        long now = System.nanoTime();
+        long total = processed.get();
+        double seconds = (now - lastWindowStartNanos) / 1_000_000_000.0;
+        processedPerSecond = seconds > 0 ? (total - lastWindowProcessed) / seconds : 0;
+        lastWindowProcessed = total;
+        lastWindowStartNanos = now;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdownNow();
+        }
+    }
+
+    private boolean enqueue(Long id, String orderId) {
+        if (!queued.add(id)) {
+            return false;
+        }
+        try {
+            stripes[Math.floorMod(orderId.hashCode(), stripes.length)].execute(() -> {
+                try {
+                    process(id);
+                } finally {
+                    queued.remove(id);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            queued.remove(id); // aplikasi sedang shutdown; event tetap PENDING di DB
+            return false;
+        }
+    }
+
+    private void process(Long id) {
+        long start = System.nanoTime();
+        try {
+            boolean done = Boolean.TRUE.equals(tx.execute(status -> apply(id)));
+            if (done) {
+                processed.incrementAndGet();
+                processingNanos.addAndGet(System.nanoTime() - start);
+            }
+        } catch (RuntimeException e) {
+            failedAttempts.incrementAndGet();
+            log.error("Gagal memproses webhook {}: {}", id, e.getMessage());
+            try {
+                tx.executeWithoutResult(status -> recordFailure(id, e));
+            } catch (RuntimeException again) {
+                log.error("Gagal mencatat error webhook {}: {}", id, again.getMessage());
+            }
+        }
+    }
+
+    // Jalan di dalam satu transaksi; return false kalau event sudah diproses worker lain / replay sebelumnya
+    private boolean apply(Long id) {
+        WebhookInbox event = inboxRepository.findById(id).orElse(null);
+        if (event == null || event.getStatus() != WebhookInbox.Status.PENDING) {
+            return false;
+        }
+
+        Transaksi transaksi = transaksiService.findByPaymentGatewayId(event.getOrderId())
+                .orElseThrow(() -> new RuntimeException("Transaksi tidak ditemukan: " + event.getOrderId()));
+        Transaksi.PaymentStatus newStatus = mapMidtransStatus(event.getTransactionStatus(), event.getFraudStatus());
+
+        // "pending" yang datang terlambat tidak boleh membatalkan status final
+        if (newStatus == Transaksi.PaymentStatus.PENDING
+                && transaksi.getPaymentStatus() != Transaksi.PaymentStatus.PENDING) {
+            event.setStatus(WebhookInbox.Status.IGNORED);
+            log.info("Webhook {} basi: {} sudah {}", id, event.getOrderId(), transaksi.getPaymentStatus());
+        } else {
+            // Entity yang sama dipakai updatePaymentStatus (satu persistence context), jadi cukup satu save
+            transaksi.setPaymentGatewayResponse(event.getPayload());
+            transaksiService.updatePaymentStatus(transaksi.getIdTransaksi(), newStatus);
+            event.setStatus(WebhookInbox.Status.PROCESSED);
+            log.info("Updated transaction {} to status: {}", event.getOrderId(), newStatus);
+        }
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(null);
+        event.setProcessedAt(LocalDateTime.now());
+        return true;
+    }
+
+    private void recordFailure(Long id, RuntimeException error) {
+        inboxRepository.findById(id).ifPresent(event -> {
+            if (event.getStatus() != WebhookInbox.Status.PENDING) {
+                return;
+            }
+            event.setAttempts(event.getAttempts() + 1);
+            String message = String.valueOf(error.getMessage());
+            event.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+            if (event.getAttempts() >= maxAttempts) {
+                event.setStatus(WebhookInbox.Status.FAILED);
+                log.warn("Webhook {} ({}) FAILED setelah {} percobaan", id, event.getOrderId(), event.getAttempts());
+            }
+        });
+    }
+
+    private static Transaksi.PaymentStatus mapMidtransStatus(String transactionStatus, String fraudStatus) {
+        if ("capture".equals(transactionStatus)) {
+            return "accept".equals(fraudStatus) ? Transaksi.PaymentStatus.PAID : Transaksi.PaymentStatus.FAILED;
+        } else if ("settlement".equals(transactionStatus)) {
+            return Transaksi.PaymentStatus.PAID;
+        } else if ("pending".equals(transactionStatus)) {
+            return Transaksi.PaymentStatus.PENDING;
+        } else if ("deny".equals(transactionStatus) ||
+                "cancel".equals(transactionStatus) ||
+                "expire".equals(transactionStatus)) {
+            return Transaksi.PaymentStatus.FAILED;
+        } else {
+            return Transaksi.PaymentStatus.PENDING;
+        }
+    }
+}
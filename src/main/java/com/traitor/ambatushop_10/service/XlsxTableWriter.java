@@ -0,0 +1,115 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.ExportFormat;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * XLSX lewat SXSSFWorkbook: hanya ROW_WINDOW baris terakhir yang ada di memory, sisanya di-flush
+ * ke file temporary. Lebar kolom dihitung dari WIDTH_SAMPLE_ROWS baris pertama, bukan
+ * autoSizeColumn (yang O(jumlah baris) per kolom).
+ */
+@Component
+public class XlsxTableWriter implements ExportTableWriter {
+
+    static final int ROW_WINDOW = 500;
+    static final int WIDTH_SAMPLE_ROWS = 200;
+    private static final int MAX_COLUMN_CHARS = 60;
+    private static final String DATE_FORMAT = "yyyy-mm-dd hh:mm:ss";
+
+    @Override
+    public ExportFormat format() {
+        return ExportFormat.XLSX;
+    }
+
+    @Override
+    public <T> long write(ExportTable<T> table, Iterator<T> rows, OutputStream out, LongConsumer progress)
+            throws IOException {
+        List<ExportTable.Column<T>> columns = table.columns();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            SXSSFSheet sheet = workbook.createSheet(table.name());
+
+            // header style
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            CellStyle headerStyle = workbook.createCellStyle();
+            headerStyle.setFont(headerFont);
+
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat(DATE_FORMAT));
+
+            int[] maxChars = new int[columns.size()];
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < columns.size(); i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(columns.get(i).header());
+                cell.setCellStyle(headerStyle);
+                maxChars[i] = columns.get(i).header().length();
+            }
+
+            int rowIdx = 1;
+            while (rows.hasNext()) {
+                T item = rows.next();
+                Row row = sheet.createRow(rowIdx);
+
+                for (int i = 0; i < columns.size(); i++) {
+                    ExportTable.Column<T> column = columns.get(i);
+                    Object value = column.value(item);
+                    if (value == null) {
+                        continue;
+                    }
+
+                    Cell cell = row.createCell(i);
+                    switch (column.type()) {
+                        case LONG, DOUBLE -> cell.setCellValue(((Number) value).doubleValue());
+                        case STRING -> cell.setCellValue(value.toString());
+                        case TIMESTAMP -> {
+                            cell.setCellValue((LocalDateTime) value);
+                            cell.setCellStyle(dateStyle);
+                        }
+                    }
+
+                    // Lebar kolom cukup dari sampel awal
+                    if (rowIdx <= WIDTH_SAMPLE_ROWS) {
+                        int chars = column.type() == ExportTable.Type.TIMESTAMP
+                                ? DATE_FORMAT.length()
+                                : value.toString().length();
+                        maxChars[i] = Math.max(maxChars[i], chars);
+                    }
+                }
+
+                if (rowIdx % PROGRESS_EVERY_ROWS == 0) {
+                    progress.accept(rowIdx);
+                }
+                rowIdx++;
+            }
+            long total = rowIdx - 1L;
+
+            for (int i = 0; i < columns.size(); i++) {
+                // satuan lebar kolom = 1/256 karakter, +2 untuk padding
+                sheet.setColumnWidth(i, (Math.min(maxChars[i], MAX_COLUMN_CHARS) + 2) * 256);
+            }
+
+            workbook.write(out);
+            progress.accept(total);
+            return total;
+        } finally {
+            // close() juga menghapus file temporary SXSSF
+            workbook.close();
+        }
+    }
+}
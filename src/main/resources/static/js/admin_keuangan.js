@@ -35,9 +35,14 @@ document.addEventListener('DOMContentLoaded', async () => {
     setupPaginationControls();
 
     // Download button untuk Excel (masih bisa diakses)
-    document.getElementById('download-btn')?.addEventListener('click', function (e) {
+    document.getElementById('download-btn')?.addEventListener('click', async function (e) {
         e.preventDefault();
-        window.location.href = '/api/export/download';
+        try {
+            await ExportClient.download({ format: 'XLSX' });
+        } catch (error) {
+            console.error('Export error:', error);
+            showError('Gagal mengunduh laporan');
+        }
     });
 
     // Setup auto-sync untuk update real-time
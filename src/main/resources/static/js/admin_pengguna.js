@@ -584,12 +584,15 @@ function startRealTimeUpdates() {
     // Load initial data
     loadRealTimeData();
     
-    // Update lebih sering untuk real-time experience (10 detik)
+    // Status online dikirim server lewat push (topik presence); polling 10 detik hanya kalau push tidak tersedia
     if (dataUpdateInterval) clearInterval(dataUpdateInterval);
-    dataUpdateInterval = setInterval(() => {
+    const refresh = PushClient.debounce(() => {
         console.log('🔄 Auto-refreshing user data...');
         loadRealTimeData();
-    }, 10000); // 10 detik (bukan 30 detik)
+    });
+    PushClient.subscribe(['presence'], { presence: refresh }, () => {
+        dataUpdateInterval = setInterval(refresh, 10000);
+    });
     
     // Send activity ping setiap 1 menit
     if (activityInterval) clearInterval(activityInterval);
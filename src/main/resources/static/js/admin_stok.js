@@ -285,24 +285,15 @@ let searchManager;
 
 async function loadProductsData() {
     try {
-        const response = await fetch('http://localhost:8080/api/produk', {
-            headers: AuthHelper.getAuthHeaders()
-        });
-
-        if (response.ok) {
-            const products = await response.json();
-            updateProductsTable(products);
-            updateStockStats(products);
+        // Salinan katalog lokal + delta (lihat CatalogClient di auth.js)
+        const products = await CatalogClient.load();
+        updateProductsTable(products);
+        updateStockStats(products);
 
-            // Clear any existing search stats
-            const existingStats = document.getElementById('search-stats');
-            if (existingStats) {
-                existingStats.remove();
-            }
-        } else {
-            const errorData = await response.json().catch(() => null);
-            const errorMsg = errorData?.message || errorData?.details || `HTTP ${response.status}`;
-            throw new Error(errorMsg);
+        // Clear any existing search stats
+        const existingStats = document.getElementById('search-stats');
+        if (existingStats) {
+            existingStats.remove();
         }
     } catch (error) {
         console.error('Error loading products:', error);
@@ -184,6 +184,196 @@ class AuthHelper {
     }
 }
 
+/**
+ * Push channel (Server-Sent Events) pengganti polling.
+ *
+ * PushClient.subscribe(['stock', 'payment:12'], { stock: data => ..., payment: data => ... }, onFallback)
+ * Nama handler = nama event dari server (payment, stock, finance, presence). onFallback dipanggil sekali
+ * kalau push tidak bisa dipakai (browser tidak mendukung / ditolak server), supaya halaman kembali ke polling.
+ */
+class PushClient {
+    static MAX_RECONNECT = 5;
+
+    static subscribe(topics, handlers, onFallback) {
+        const token = localStorage.getItem('authToken');
+        let fellBack = false;
+        let closed = false;
+        let source = null;
+        let failures = 0;
+        const fallback = () => {
+            if (!fellBack && onFallback) {
+                fellBack = true;
+                onFallback();
+            }
+        };
+
+        if (!token || typeof EventSource === 'undefined') {
+            fallback();
+            return { close() { } };
+        }
+
+        // EventSource tidak bisa kirim header Authorization: minta tiket sekali pakai (pakai JWT di header),
+        // lalu tiket itu yang dikirim lewat query string. Tiket tidak bisa dipakai ulang, jadi setiap
+        // reconnect minta tiket baru (EventSource tidak dibiarkan reconnect sendiri dengan URL lama)
+        const connect = async () => {
+            let ticket;
+            try {
+                const response = await fetch('/api/push/ticket', {
+                    method: 'POST',
+                    headers: AuthHelper.getAuthHeaders()
+                });
+                if (!response.ok) throw new Error(`HTTP ${response.status}`);
+                ticket = (await response.json()).ticket;
+            } catch (error) {
+                console.warn('📡 Gagal minta tiket push, kembali ke polling:', error);
+                fallback();
+                return;
+            }
+            if (closed) return;
+
+            const url = `/api/push/events?topics=${encodeURIComponent(topics.join(','))}` +
+                `&ticket=${encodeURIComponent(ticket)}`;
+            source = new EventSource(url);
+            source.onopen = () => { failures = 0; };
+
+            Object.entries(handlers).forEach(([eventName, handler]) => {
+                source.addEventListener(eventName, (event) => {
+                    try {
+                        handler(JSON.parse(event.data));
+                    } catch (error) {
+                        console.error('Push event error:', eventName, error);
+                    }
+                });
+            });
+
+            source.onerror = () => {
+                source.close();
+                if (closed) return;
+                // Koneksi putus / ditolak (401/403/503): coba lagi dengan tiket baru, lalu menyerah ke polling
+                if (++failures > PushClient.MAX_RECONNECT) {
+                    console.warn('📡 Push channel ditutup, kembali ke polling:', topics);
+                    fallback();
+                    return;
+                }
+                setTimeout(connect, Math.min(30000, 1000 * 2 ** failures));
+            };
+        };
+        connect();
+
+        return {
+            close() {
+                closed = true;
+                if (source) source.close();
+            }
+        };
+    }
+
+    // Banyak event beruntun (misalnya checkout beberapa kasir) cukup memicu satu reload
+    static debounce(fn, wait = 1000) {
+        let timeout = null;
+        return () => {
+            clearTimeout(timeout);
+            timeout = setTimeout(fn, wait);
+        };
+    }
+}
+
+/**
+ * Download file export lewat job queue.
+ *
+ * ExportClient.download({ dataset: 'KEUANGAN', format: 'XLSX' }) submit job (atau memakai job/file yang sama),
+ * menunggu sampai DONE, lalu membuka downloadUrl. downloadUrl sudah berisi token download berumur pendek,
+ * jadi bisa dibuka browser langsung walaupun tidak ada header Authorization.
+ */
+class ExportClient {
+    static async download(request = {}, onProgress) {
+        const submitResponse = await fetch('/api/export/jobs', {
+            method: 'POST',
+            headers: {
+                ...AuthHelper.getAuthHeaders(),
+                'Content-Type': 'application/json'
+            },
+            body: JSON.stringify(request)
+        });
+        if (!submitResponse.ok) throw new Error('Gagal membuat job export');
+
+        let job = await submitResponse.json();
+        while (job.status === 'QUEUED' || job.status === 'RUNNING') {
+            if (onProgress) onProgress(job);
+            await new Promise(resolve => setTimeout(resolve, 1000));
+            const statusResponse = await fetch(`/api/export/jobs/${job.jobId}`, {
+                headers: AuthHelper.getAuthHeaders()
+            });
+            if (!statusResponse.ok) throw new Error('Gagal mengecek status export');
+            job = await statusResponse.json();
+        }
+
+        if (job.status !== 'DONE') throw new Error(job.error || 'Export gagal');
+
+        // Nama file diambil dari Content-Disposition
+        const a = document.createElement('a');
+        a.href = job.downloadUrl;
+        document.body.appendChild(a);
+        a.click();
+        document.body.removeChild(a);
+        return job;
+    }
+}
+
+/**
+ * Salinan katalog produk di localStorage + delta sync.
+ *
+ * CatalogClient.load() hanya mengambil produk yang berubah sejak versi terakhir
+ * (GET /api/produk/changes?since=versi), lalu menggabungkannya ke salinan lokal. Request pertama
+ * (atau kalau server minta full sync) berisi seluruh katalog. Salinan dipakai bersama semua halaman.
+ */
+class CatalogClient {
+    static STORAGE_KEY = 'catalogCache';
+
+    static async load() {
+        const cached = this.read();
+        const since = cached ? cached.versi : 0;
+
+        const response = await fetch(`http://localhost:8080/api/produk/changes?since=${since}`, {
+            headers: AuthHelper.getAuthHeaders()
+        });
+        if (!response.ok) {
+            throw new Error(`Gagal memuat katalog produk (HTTP ${response.status})`);
+        }
+        const delta = await response.json();
+
+        const byId = new Map();
+        if (!delta.full && cached) {
+            cached.produk.forEach(produk => byId.set(produk.idProduk, produk));
+        }
+        delta.produk.forEach(produk => byId.set(produk.idProduk, produk));
+        delta.dihapus.forEach(id => byId.delete(id));
+
+        const produk = [...byId.values()].sort((a, b) => a.idProduk - b.idProduk);
+        this.write({ versi: delta.versi, produk });
+        return produk;
+    }
+
+    static read() {
+        try {
+            const cached = JSON.parse(localStorage.getItem(this.STORAGE_KEY));
+            return cached && Array.isArray(cached.produk) ? cached : null;
+        } catch (error) {
+            return null;
+        }
+    }
+
+    static write(cached) {
+        try {
+            localStorage.setItem(this.STORAGE_KEY, JSON.stringify(cached));
+        } catch (error) {
+            // localStorage penuh: hapus salinan, request berikutnya full sync lagi
+            console.warn('Katalog tidak bisa disimpan di localStorage:', error);
+            localStorage.removeItem(this.STORAGE_KEY);
+        }
+    }
+}
+
 // Auto-check auth on page load untuk dashboard pages
 document.addEventListener('DOMContentLoaded', function () {
     // Only run on dashboard pages (not login page)
@@ -470,11 +470,22 @@ function showError(message) {
     }, 5000);
 }
 
-// Auto-refresh data every 60 seconds
-setInterval(async () => {
+// Auto-refresh saat transaksi, stok, keuangan atau user online berubah (push);
+// polling 60 detik hanya kalau push tidak tersedia
+document.addEventListener('DOMContentLoaded', () => {
     const auth = AuthHelper.checkAuth();
-    if (auth && (auth.userRole === 'ADMIN' || auth.userRole === 'MANAJER')) {
+    if (!auth || (auth.userRole !== 'ADMIN' && auth.userRole !== 'MANAJER')) return;
+
+    const refresh = PushClient.debounce(async () => {
         console.log('🔄 Auto-refreshing admin dashboard data...');
         await loadDashboardData(auth.userRole);
-    }
-}, 60000);
\ No newline at end of file
+    }, 2000);
+    PushClient.subscribe(['payment', 'stock', 'finance', 'presence'], {
+        payment: refresh,
+        stock: refresh,
+        finance: refresh,
+        presence: refresh,
+    }, () => {
+        setInterval(refresh, 60000);
+    });
+});
\ No newline at end of file
@@ -589,11 +589,15 @@ class CameraBarcodeScanner {
         try {
             // URL encode barcode
             const encodedBarcode = encodeURIComponent(barcode.trim());
-            const response = await fetch(`http://localhost:8080/api/barcode/check/${encodedBarcode}`);
+            const response = await fetch(`http://localhost:8080/api/barcode/check/${encodedBarcode}`, {
+                headers: AuthHelper.getAuthHeaders()
+            });
             
             console.log('Check response status:', response.status);
             
-            if (response.ok) {
+            if (response.status === 401 || response.status === 403) {
+                this.showError('❌ Sesi habis, silakan login ulang');
+            } else if (response.ok) {
                 const result = await response.json();
                 console.log('Check result:', result);
                 
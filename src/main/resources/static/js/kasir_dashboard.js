@@ -149,17 +149,18 @@ async function loadDashboardData() {
         const startOfDay = `${today}T00:00:00`;
         const endOfDay = `${today}T23:59:59`;
 
-        const [transactionsResponse, productsResponse] = await Promise.all([
+        const [transactionsResponse, products] = await Promise.all([
             fetch(`http://localhost:8080/api/transaksi?start=${startOfDay}&end=${endOfDay}`, {
                 headers: AuthHelper.getAuthHeaders()
             }),
-            fetch('http://localhost:8080/api/produk', {
-                headers: AuthHelper.getAuthHeaders()
+            // Salinan katalog lokal + delta (lihat CatalogClient di auth.js)
+            CatalogClient.load().catch(error => {
+                console.error('❌ Failed to load products:', error);
+                return [];
             })
         ]);
 
         let transactions = [];
-        let products = [];
 
         // Process transactions response
         if (transactionsResponse.ok) {
@@ -168,14 +169,7 @@ async function loadDashboardData() {
         } else {
             console.error('❌ Failed to load transactions:', transactionsResponse.status);
         }
-
-        // Process products response
-        if (productsResponse.ok) {
-            products = await productsResponse.json();
-            console.log('✅ Products loaded:', products.length);
-        } else {
-            console.error('❌ Failed to load products:', productsResponse.status);
-        }
+        console.log('✅ Products loaded:', products.length);
 
         // Update UI with loaded data
         updateTransactionStats(transactions);
@@ -345,11 +339,16 @@ function showError(message) {
     // Bisa ditambahkan toast notification di sini
 }
 
-// Auto-refresh data every 30 seconds
-setInterval(async () => {
+// Auto-refresh saat ada transaksi / stok berubah (push); polling 30 detik hanya kalau push tidak tersedia
+document.addEventListener('DOMContentLoaded', () => {
     const auth = AuthHelper.checkAuth();
-    if (auth && auth.userRole === 'KASIR') {
+    if (!auth || auth.userRole !== 'KASIR') return;
+
+    const refresh = PushClient.debounce(async () => {
         console.log('🔄 Auto-refreshing dashboard data...');
         await loadDashboardData();
-    }
-}, 30000);
\ No newline at end of file
+    });
+    PushClient.subscribe(['payment', 'stock'], { payment: refresh, stock: refresh }, () => {
+        setInterval(refresh, 30000);
+    });
+});
\ No newline at end of file
@@ -6,7 +6,8 @@ class KasirTransaksi {
         this.cart = [];
         this.products = [];
         this.currentTransaction = null;
-        this.paymentInterval = null;
+        this.paymentPoll = null;
+        this.paymentPush = null;
         this.paymentTimer = null;
 
         this.init();
@@ -166,6 +167,13 @@ class KasirTransaksi {
         const searchInput = document.getElementById("product-search");
         if (searchInput) {
             searchInput.addEventListener("input", this.handleSearch.bind(this));
+            // Scanner barcode (USB / keyboard) mengetik kode lalu Enter
+            searchInput.addEventListener("keydown", (e) => {
+                if (e.key === "Enter") {
+                    e.preventDefault();
+                    this.handleBarcodeScan(e.target.value);
+                }
+            });
         }
 
         // Payment method change
@@ -287,19 +295,35 @@ class KasirTransaksi {
 
     async loadProducts() {
         try {
-            const response = await fetch("http://localhost:8080/api/produk", {
-                headers: AuthHelper.getAuthHeaders(),
+            // Salinan lokal + delta sejak versi terakhir, bukan seluruh katalog setiap kali
+            this.products = await CatalogClient.load();
+            console.log("✅ Products loaded:", this.products.length);
+        } catch (error) {
+            console.error("Error loading products:", error);
+            this.showError("Gagal memuat data produk");
+        }
+    }
+
+    // Enter di kolom cari: coba sebagai barcode dulu, kalau tidak terdaftar tetap jadi pencarian nama
+    async handleBarcodeScan(value) {
+        const code = value.trim();
+        if (!code) return;
+
+        try {
+            const response = await fetch(`http://localhost:8080/api/barcode/check/${encodeURIComponent(code)}`, {
+                headers: AuthHelper.getAuthHeaders()
             });
+            if (!response.ok) return;
 
-            if (response.ok) {
-                this.products = await response.json();
-                console.log("✅ Products loaded:", this.products.length);
-            } else {
-                throw new Error("Gagal memuat data produk");
+            const result = await response.json();
+            if (result.success && result.exists && result.produk) {
+                this.addToCart(result.produk.idProduk);
+                const searchInput = document.getElementById("product-search");
+                if (searchInput) searchInput.value = "";
+                document.getElementById("search-results")?.classList.remove("show");
             }
         } catch (error) {
-            console.error("Error loading products:", error);
-            this.showError("Gagal memuat data produk");
+            console.error("Error checking barcode:", error);
         }
     }
 
@@ -789,34 +813,50 @@ class KasirTransaksi {
         // Stop previous polling
         this.stopPaymentPolling();
 
-        this.paymentInterval = setInterval(async () => {
-            await this.checkTransactionStatus(transactionId);
-        }, 3000); // Cek setiap 3 detik
+        // Status dikirim server lewat push begitu webhook diproses; long-poll hanya cadangan
+        this.paymentPush = PushClient.subscribe([`payment:${transactionId}`], {
+            payment: (transaction) => this.handleTransactionStatus(transaction),
+        }, () => this.awaitTransactionStatus(transactionId));
     }
 
-    async checkTransactionStatus(transactionId) {
-        try {
-            const response = await fetch(
-                `http://localhost:8080/api/transaksi/${transactionId}`,
-                {
-                    headers: AuthHelper.getAuthHeaders(),
-                }
-            );
+    // Long-poll: server menahan request sampai status berubah (maks ~25 detik), bukan polling tiap 3 detik
+    async awaitTransactionStatus(transactionId, since = "PENDING") {
+        const poll = {};
+        this.paymentPoll = poll;
+        let status = since;
+
+        while (this.paymentPoll === poll) {
+            try {
+                const response = await fetch(
+                    `http://localhost:8080/api/payment/status/${transactionId}/await?since=${status}&timeout=25`,
+                    {
+                        headers: AuthHelper.getAuthHeaders(),
+                    }
+                );
+                if (this.paymentPoll !== poll) return;
+                if (!response.ok) throw new Error(`HTTP ${response.status}`);
 
-            if (response.ok) {
                 const transaction = await response.json();
-                this.updateTransactionStatusDisplay(transaction);
-
-                // Jika sudah paid, stop polling dan refresh data
-                if (transaction.paymentStatus === "PAID") {
-                    this.handleSuccessfulQRISPayment(transaction);
-                } else if (transaction.paymentStatus === "FAILED" ||
-                    transaction.paymentStatus === "EXPIRED") {
-                    this.handleFailedQRISPayment(transaction);
-                }
+                status = transaction.paymentStatus;
+                this.handleTransactionStatus(transaction);
+            } catch (error) {
+                console.error("Error checking transaction status:", error);
+                // Jeda sebelum mencoba lagi supaya tidak membanjiri server saat error
+                await new Promise((resolve) => setTimeout(resolve, 3000));
             }
-        } catch (error) {
-            console.error("Error checking transaction status:", error);
+        }
+    }
+
+    // Dipakai oleh push maupun long-poll
+    handleTransactionStatus(transaction) {
+        this.updateTransactionStatusDisplay(transaction);
+
+        // Jika sudah paid, stop polling dan refresh data
+        if (transaction.paymentStatus === "PAID") {
+            this.handleSuccessfulQRISPayment(transaction);
+        } else if (transaction.paymentStatus === "FAILED" ||
+            transaction.paymentStatus === "EXPIRED") {
+            this.handleFailedQRISPayment(transaction);
         }
     }
 
@@ -927,9 +967,11 @@ class KasirTransaksi {
     }
 
     stopPaymentPolling() {
-        if (this.paymentInterval) {
-            clearInterval(this.paymentInterval);
-            this.paymentInterval = null;
+        // Menghentikan loop long-poll (request yang sedang jalan diabaikan hasilnya)
+        this.paymentPoll = null;
+        if (this.paymentPush) {
+            this.paymentPush.close();
+            this.paymentPush = null;
         }
     }
 
@@ -167,9 +167,12 @@ async function loadDashboardData(role) {
     try {
         console.log('🔄 Loading manager dashboard data...');
 
+        // Rekap keuangan bulan ini diambil dari daily rollup (server yang menjumlahkan)
+        const { start, end } = getCurrentMonthRange();
+
         // Load semua data secara parallel
-        const [transactionsResponse, productsResponse, usersResponse, keuanganResponse] = await Promise.all([
-            fetch('http://localhost:8080/api/transaksi', {
+        const [rollupResponse, productsResponse, usersResponse] = await Promise.all([
+            fetch(`http://localhost:8080/api/keuangan/rollup?start=${start}&end=${end}`, {
                 headers: AuthHelper.getAuthHeaders()
             }),
             fetch('http://localhost:8080/api/produk', {
@@ -177,23 +180,19 @@ async function loadDashboardData(role) {
             }),
             fetch('http://localhost:8080/api/manajer/users/all-with-status', {  // Endpoint khusus manajer (read-only)
                 headers: AuthHelper.getAuthHeaders()
-            }),
-            fetch('http://localhost:8080/api/keuangan', {
-                headers: AuthHelper.getAuthHeaders()
             })
         ]);
 
-        let transactions = [];
+        let rollup = null;
         let products = [];
         let users = [];
-        let keuangan = [];
 
-        // Process transactions response
-        if (transactionsResponse.ok) {
-            transactions = await transactionsResponse.json();
-            console.log('✅ Transactions loaded:', transactions.length);
+        // Process rollup response
+        if (rollupResponse.ok) {
+            rollup = await rollupResponse.json();
+            console.log('✅ Rollup keuangan loaded:', rollup);
         } else {
-            console.error('❌ Failed to load transactions:', transactionsResponse.status);
+            console.error('❌ Failed to load rollup keuangan:', rollupResponse.status);
         }
 
         // Process products response
@@ -225,16 +224,8 @@ async function loadDashboardData(role) {
             }
         }
 
-        // Process keuangan response
-        if (keuanganResponse.ok) {
-            keuangan = await keuanganResponse.json();
-            console.log('✅ Keuangan data loaded:', keuangan.length);
-        } else {
-            console.error('❌ Failed to load keuangan data:', keuanganResponse.status);
-        }
-
         // Update UI dengan data yang sudah di-load
-        updateFinanceCard(transactions, keuangan);
+        updateFinanceCard(rollup);
         updateStockCard(products);
         updateUsersCard(users);
 
@@ -246,34 +237,24 @@ async function loadDashboardData(role) {
 
 // ========== CARD UPDATE FUNCTIONS ==========
 
-function updateFinanceCard(transactions, keuanganData) {
+// Tanggal awal & akhir bulan ini dalam format yyyy-MM-dd (waktu lokal)
+function getCurrentMonthRange() {
+    const now = new Date();
+    const pad = (n) => String(n).padStart(2, '0');
+    const lastDay = new Date(now.getFullYear(), now.getMonth() + 1, 0).getDate();
+    const prefix = `${now.getFullYear()}-${pad(now.getMonth() + 1)}`;
+    return { start: `${prefix}-01`, end: `${prefix}-${pad(lastDay)}` };
+}
+
+function updateFinanceCard(rollup) {
     const pemasukanElement = document.querySelector('#card-keuangan .finance-row div:first-child .value');
     const pengeluaranElement = document.querySelector('#card-keuangan .finance-row div:last-child .value');
     
     if (!pemasukanElement || !pengeluaranElement) return;
 
-    // Hitung pemasukan bulan ini dari transaksi yang PAID
-    const currentMonth = new Date().getMonth();
-    const currentYear = new Date().getFullYear();
-    
-    const monthlyPemasukan = transactions
-        .filter(transaction => {
-            const transactionDate = new Date(transaction.tanggal);
-            return transactionDate.getMonth() === currentMonth && 
-                   transactionDate.getFullYear() === currentYear &&
-                   transaction.paymentStatus === 'PAID';
-        })
-        .reduce((total, transaction) => total + (transaction.total || 0), 0);
-
-    // Hitung pengeluaran bulan ini dari data keuangan
-    const monthlyPengeluaran = keuanganData
-        .filter(item => {
-            const itemDate = new Date(item.tanggal);
-            return itemDate.getMonth() === currentMonth && 
-                   itemDate.getFullYear() === currentYear &&
-                   (item.jenis === false || item.jenis === 'PENGELUARAN');
-        })
-        .reduce((total, item) => total + (item.nominal || 0), 0);
+    // Pemasukan bulan ini = transaksi PAID, pengeluaran = data keuangan (sudah dijumlah di server)
+    const monthlyPemasukan = rollup ? (rollup.pemasukanTransaksi || 0) : 0;
+    const monthlyPengeluaran = rollup ? (rollup.pengeluaran || 0) : 0;
 
     // Update UI
     pemasukanElement.textContent = `Rp ${formatCurrency(monthlyPemasukan)}`;
@@ -39,7 +39,7 @@ document.addEventListener('DOMContentLoaded', async () => {
     // Download button untuk Excel
     document.getElementById('download-btn')?.addEventListener('click', function (e) {
         e.preventDefault();
-        window.location.href = '/api/export/download';
+        exportExpensesToExcel();
     });
 
     // Export button untuk tabel pengeluaran
@@ -662,21 +662,9 @@ async function exportExpensesToExcel() {
     try {
         showNotification('success', 'Menyiapkan file Excel...');
 
-        const response = await fetch('/api/export/download', {
-            headers: AuthHelper.getAuthHeaders()
-        });
-
-        if (!response.ok) throw new Error('Gagal mengekspor data');
-
-        const blob = await response.blob();
-        const url = window.URL.createObjectURL(blob);
-        const a = document.createElement('a');
-        a.href = url;
-        a.download = `laporan-pengeluaran-${new Date().toISOString().split('T')[0]}.xlsx`;
-        document.body.appendChild(a);
-        a.click();
-        document.body.removeChild(a);
-        window.URL.revokeObjectURL(url);
+        // Export dibuat di background; request yang sama memakai job/file yang sudah ada
+        await ExportClient.download({ format: 'XLSX' }, job =>
+            console.log(`📦 Export ${job.progressPercent}% (${job.processedRows}/${job.totalRows})`));
 
         showNotification('success', 'File Excel berhasil diunduh');
     } catch (error) {
@@ -1129,13 +1117,16 @@ function setupAutoSync() {
 window.deleteExpense = deleteExpense;
 window.viewRecordDetail = viewRecordDetail;
 
-// Auto-refresh setiap 30 detik
-setInterval(async () => {
+// Auto-refresh saat rekap keuangan berubah (push); polling 30 detik hanya kalau push tidak tersedia
+document.addEventListener('DOMContentLoaded', () => {
     const auth = AuthHelper.checkAuth();
-    if (auth && (auth.userRole === 'MANAJER' || auth.userRole === 'ADMIN')) {
-        await loadFinancialData();
-    }
-}, 30000);
+    if (!auth || (auth.userRole !== 'MANAJER' && auth.userRole !== 'ADMIN')) return;
+
+    const refresh = PushClient.debounce(() => loadFinancialData());
+    PushClient.subscribe(['finance'], { finance: refresh }, () => {
+        setInterval(refresh, 30000);
+    });
+});
 
 // Listen untuk broadcast messages
 window.addEventListener('message', (event) => {
@@ -0,0 +1,132 @@
+package com.traitor.ambatushop_10.benchmark;
+
+import com.traitor.ambatushop_10.dto.TransaksiDetailRequest;
+import com.traitor.ambatushop_10.dto.TransaksiRequest;
+import com.traitor.ambatushop_10.model.Akun;
+import com.traitor.ambatushop_10.model.Produk;
+import com.traitor.ambatushop_10.model.Transaksi;
+import com.traitor.ambatushop_10.repository.AkunRepository;
+import com.traitor.ambatushop_10.repository.ProdukRepository;
+import com.traitor.ambatushop_10.service.TransaksiService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query per checkout dan p99 untuk keranjang 1 / 10 / 50 baris (user-001).
+ *
+ * Checkout = createTransaksi (NON_TUNAI, PENDING + reservasi) lalu updatePaymentStatus(PAID), jadi
+ * mencakup load produk keranjang, insert detail (JDBC batch) dan pengurangan stok. Produk keranjang
+ * dibaca sekali (bukan per baris), jadi selisih statement antara 50 baris dan 1 baris hanya UPDATE stok
+ * per produk. Sebelumnya (findById + insert detail + update stok per baris) 1 / 10 / 50 baris butuh
+ * 8 / 35 / 155 statement.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CheckoutBenchmarkTest {
+
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 300;
+    private static final int[] BASKET_SIZES = { 1, 10, 50 };
+
+    @Autowired
+    private TransaksiService transaksiService;
+
+    @Autowired
+    private ProdukRepository produkRepository;
+
+    @Autowired
+    private AkunRepository akunRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long akunId;
+    private final List<Long> produkIds = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        akunId = akunRepository.save(new Akun("bench_kasir", "x", "bench@ambatushop.test", Akun.Role.KASIR))
+                .getIdPegawai();
+        for (int i = 1; i <= 50; i++) {
+            produkIds.add(produkRepository.save(new Produk("Produk Bench " + i, 1000.0 + i, (short) 30000))
+                    .getIdProduk());
+        }
+    }
+
+    @Test
+    void queriesDanLatencyPerUkuranKeranjang() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<Integer, Double> statementsPerCheckout = new LinkedHashMap<>();
+
+        for (int basketSize : BASKET_SIZES) {
+            TransaksiRequest request = basket(basketSize);
+            Latencies.measure(WARMUP, () -> checkout(request));
+
+            statistics.clear();
+            Latencies latencies = Latencies.measure(ITERATIONS, () -> checkout(request));
+            double statements = statistics.getPrepareStatementCount() / (double) ITERATIONS;
+            statementsPerCheckout.put(basketSize, statements);
+
+            System.out.printf("[checkout] %2d baris: %.1f statement/checkout, %s%n",
+                    basketSize, statements, latencies.summary());
+        }
+
+        // Tidak ada SELECT per baris: setiap baris tambahan hanya menambah satu UPDATE stok. Sisa +1 untuk
+        // ambil blok id pooled sequence detail (50 id per panggilan) dan batch insert detail berikutnya
+        double satuBaris = statementsPerCheckout.get(1);
+        for (int basketSize : BASKET_SIZES) {
+            double updateStok = basketSize - 1;
+            assertThat(statementsPerCheckout.get(basketSize) - satuBaris)
+                    .as("statement tambahan untuk %d baris", basketSize)
+                    .isBetween(updateStok, updateStok + 1);
+        }
+    }
+
+    private void checkout(TransaksiRequest request) {
+        Transaksi transaksi = transaksiService.createTransaksi(request);
+        transaksiService.updatePaymentStatus(transaksi.getIdTransaksi(), Transaksi.PaymentStatus.PAID);
+    }
+
+    private TransaksiRequest basket(int lines) {
+        List<TransaksiDetailRequest> details = new ArrayList<>();
+        double total = 0;
+        for (int i = 0; i < lines; i++) {
+            TransaksiDetailRequest detail = new TransaksiDetailRequest();
+            detail.setProdukId(produkIds.get(i));
+            detail.setJumlah((short) 1);
+            detail.setHargaSatuan(1000.0 + i + 1);
+            detail.setSubtotal(detail.getHargaSatuan());
+            details.add(detail);
+            total += detail.getSubtotal();
+        }
+        TransaksiRequest request = new TransaksiRequest();
+        request.setMetodePembayaran("NON_TUNAI");
+        request.setAkunId(akunId);
+        request.setKasirName("bench_kasir");
+        request.setTotal(total);
+        request.setDetails(details);
+        return request;
+    }
+}
@@ -0,0 +1,116 @@
+package com.traitor.ambatushop_10.benchmark;
+
+import com.traitor.ambatushop_10.service.ColumnarTableWriter;
+import com.traitor.ambatushop_10.service.CsvTableWriter;
+import com.traitor.ambatushop_10.service.ExportTable;
+import com.traitor.ambatushop_10.service.ExportTableWriter;
+import com.traitor.ambatushop_10.service.XlsxTableWriter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Baris per detik dan byte per baris untuk setiap format export (user-011), tanpa database: baris
+ * transaksi sintetis ditulis writer ke stream penghitung byte. Yang dibandingkan rasio antar format.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ExportFormatBenchmarkTest {
+
+    private static final int ROWS = 200_000;
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+
+    private record Row(long id, String kasir, String metode, double total, LocalDateTime tanggal) {
+    }
+
+    private static final ExportTable<Row> TABLE = new ExportTable<>("Laporan Transaksi", List.of(
+            ExportTable.Column.ofLong("ID Transaksi", Row::id),
+            ExportTable.Column.ofString("Kasir", Row::kasir),
+            ExportTable.Column.ofString("Metode Pembayaran", Row::metode),
+            ExportTable.Column.ofDouble("Total", Row::total),
+            ExportTable.Column.ofTimestamp("Tanggal", Row::tanggal)));
+
+    @Test
+    void barisPerDetikDanBytePerBaris() throws IOException {
+        Map<String, Double> bytesPerRow = new LinkedHashMap<>();
+        for (ExportTableWriter writer : List.of(new CsvTableWriter(), new ColumnarTableWriter(),
+                new XlsxTableWriter())) {
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                write(writer);
+            }
+
+            Latencies latencies = new Latencies();
+            long bytes = 0;
+            for (int i = 0; i < MEASURED_RUNS; i++) {
+                long start = System.nanoTime();
+                bytes = write(writer);
+                latencies.record(System.nanoTime() - start);
+            }
+
+            double rowsPerSecond = ROWS / (latencies.meanMicros() / 1_000_000.0);
+            bytesPerRow.put(writer.format().name(), bytes / (double) ROWS);
+            System.out.printf("[export] %-8s %,.0f baris/detik, %.1f byte/baris, per %d baris: %s%n",
+                    writer.format(), rowsPerSecond, bytes / (double) ROWS, ROWS, latencies.summary());
+        }
+
+        // Kolumnar (dictionary + delta) harus lebih ringkas dari teks CSV
+        assertThat(bytesPerRow.get("COLUMNAR")).isLessThan(bytesPerRow.get("CSV"));
+    }
+
+    // Return jumlah byte yang ditulis
+    private static long write(ExportTableWriter writer) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        long total = writer.write(TABLE, rows(), out, written -> { });
+        assertThat(total).isEqualTo(ROWS);
+        return out.count;
+    }
+
+    private static Iterator<Row> rows() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+        String[] kasir = { "budi", "siti", "andi", "rina" };
+        return new Iterator<>() {
+            private long next = 1;
+
+            @Override
+            public boolean hasNext() {
+                return next <= ROWS;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long id = next++;
+                return new Row(id, kasir[(int) (id % kasir.length)], id % 3 == 0 ? "NON_TUNAI" : "TUNAI",
+                        5000.0 + id % 250_000, start.plusSeconds(id * 17));
+            }
+        };
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
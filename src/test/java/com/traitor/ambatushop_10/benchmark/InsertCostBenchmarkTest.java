@@ -0,0 +1,105 @@
+package com.traitor.ambatushop_10.benchmark;
+
+import com.traitor.ambatushop_10.model.Akun;
+import com.traitor.ambatushop_10.model.Keuangan;
+import com.traitor.ambatushop_10.model.Produk;
+import com.traitor.ambatushop_10.repository.AkunRepository;
+import com.traitor.ambatushop_10.repository.KeuanganRepository;
+import com.traitor.ambatushop_10.repository.ProdukRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Biaya insert per baris: entity dengan pooled sequence (Keuangan, allocationSize 50) dibanding entity
+ * IDENTITY (Produk) (user-005). IDENTITY memaksa satu INSERT langsung per baris; sequence pooled bisa
+ * dikirim sebagai JDBC batch, dengan satu panggilan sequence per 50 id.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InsertCostBenchmarkTest {
+
+    private static final int ROWS_PER_TX = 500;
+    private static final int WARMUP_TX = 10;
+    private static final int MEASURED_TX = 40;
+
+    @Autowired
+    private KeuanganRepository keuanganRepository;
+
+    @Autowired
+    private ProdukRepository produkRepository;
+
+    @Autowired
+    private AkunRepository akunRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void sequencePooledDibandingIdentity() {
+        Akun akun = akunRepository.save(new Akun("bench_insert", "x", "insert@ambatushop.test", Akun.Role.ADMIN));
+        LocalDateTime now = LocalDateTime.now();
+
+        double pooled = run("keuangan (sequence pooled)", i -> new Keuangan(Keuangan.JenisTransaksi.PEMASUKAN,
+                "Bench " + i, 1000.0 + i, now, akun), rows -> keuanganRepository.saveAll(rows));
+        double identity = run("produk (identity)", i -> new Produk("Bench " + i, 1000.0 + i, (short) 10),
+                rows -> produkRepository.saveAll(rows));
+
+        // Batch 50 + satu panggilan sequence per 50 id: jauh di bawah satu statement per baris
+        assertThat(pooled).isLessThan(0.1);
+        assertThat(identity).isGreaterThanOrEqualTo(1.0);
+    }
+
+    // Return statement JDBC per baris
+    private <T> double run(String name, IntFunction<T> factory, Consumer<List<T>> saveAll) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Runnable batch = () -> tx.executeWithoutResult(status -> {
+            List<T> rows = new ArrayList<>(ROWS_PER_TX);
+            for (int i = 0; i < ROWS_PER_TX; i++) {
+                rows.add(factory.apply(i));
+            }
+            saveAll.accept(rows);
+        });
+        Latencies.measure(WARMUP_TX, batch);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Latencies latencies = Latencies.measure(MEASURED_TX, batch);
+
+        long rows = (long) ROWS_PER_TX * MEASURED_TX;
+        double statementsPerRow = statistics.getPrepareStatementCount() / (double) rows;
+        double rowsPerSecond = rows / (latencies.meanMicros() * MEASURED_TX / 1_000_000.0);
+        System.out.printf("[insert] %-28s %.3f statement/baris, %.0f baris/detik, per %d baris: %s%n",
+                name, statementsPerRow, rowsPerSecond, ROWS_PER_TX, latencies.summary());
+        return statementsPerRow;
+    }
+}
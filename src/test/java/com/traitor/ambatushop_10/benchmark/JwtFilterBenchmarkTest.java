@@ -0,0 +1,95 @@
+package com.traitor.ambatushop_10.benchmark;
+
+import com.traitor.ambatushop_10.config.JwtAuthenticationFilter;
+import com.traitor.ambatushop_10.config.JwtKeyProperties;
+import com.traitor.ambatushop_10.service.JwtKeyRing;
+import com.traitor.ambatushop_10.service.JwtService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Biaya JwtAuthenticationFilter per request (user-012): tanpa header, token yang sama berulang
+ * (dashboard polling, hasil verifikasi dari cache) dan token berbeda tiap request (parse + cek signature).
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtFilterBenchmarkTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 20_000;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void biayaFilterPerRequest() throws Exception {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        JwtKeyRing keyRing = new JwtKeyRing(new JwtKeyProperties("bench", null, null,
+                List.of(new JwtKeyProperties.Key("bench", Base64.getEncoder().encodeToString(secret), null, null))));
+        JwtService jwtService = new JwtService(keyRing);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService);
+
+        String sameToken = jwtService.generateToken("kasir1", "KASIR", 1L);
+        String[] freshTokens = new String[WARMUP + ITERATIONS];
+        for (int i = 0; i < freshTokens.length; i++) {
+            freshTokens[i] = jwtService.generateToken("kasir" + i, "KASIR", (long) i);
+        }
+
+        run("tanpa header", filter, i -> null);
+        Latencies cached = run("token sama (cache)", filter, i -> sameToken);
+        Latencies uncached = run("token baru (parse)", filter, i -> freshTokens[i]);
+
+        assertThat(cached.percentileMicros(50)).isLessThan(uncached.percentileMicros(50));
+    }
+
+    private Latencies run(String name, JwtAuthenticationFilter filter, TokenSource tokens) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            doFilter(filter, tokens.token(i));
+        }
+        Latencies latencies = new Latencies();
+        for (int i = 0; i < ITERATIONS; i++) {
+            MockHttpServletRequest request = request(tokens.token(WARMUP + i));
+            long start = System.nanoTime();
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            latencies.record(System.nanoTime() - start);
+            assertThat(SecurityContextHolder.getContext().getAuthentication() != null)
+                    .isEqualTo(request.getHeader("Authorization") != null);
+            SecurityContextHolder.clearContext();
+        }
+        System.out.printf("[jwt-filter] %-20s %s%n", name, latencies.summary());
+        return latencies;
+    }
+
+    private static void doFilter(JwtAuthenticationFilter filter, String token) throws Exception {
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+        SecurityContextHolder.clearContext();
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/produk");
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        return request;
+    }
+
+    @FunctionalInterface
+    private interface TokenSource {
+        String token(int i);
+    }
+}
@@ -0,0 +1,65 @@
+package com.traitor.ambatushop_10.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Kumpulan durasi (nanodetik) satu skenario benchmark, untuk p50 / p99 / rata-rata.
+ *
+ * Benchmark di package ini hanya jalan dengan -Dbenchmark=true, misalnya:
+ * mvn test -Dbenchmark=true -Dtest=CheckoutBenchmarkTest
+ * Angka dari H2 in-memory bukan angka produksi; yang dibandingkan adalah jumlah query dan rasio antar skenario.
+ */
+final class Latencies {
+
+    private long[] nanos = new long[1024];
+    private int size;
+
+    void record(long durationNanos) {
+        if (size == nanos.length) {
+            nanos = Arrays.copyOf(nanos, size * 2);
+        }
+        nanos[size++] = durationNanos;
+    }
+
+    // Gabungkan hasil thread lain (load test multi-thread)
+    void addAll(Latencies other) {
+        for (int i = 0; i < other.size; i++) {
+            record(other.nanos[i]);
+        }
+    }
+
+    // Jalankan `task` sebanyak `iterations` kali dan catat durasinya
+    static Latencies measure(int iterations, Runnable task) {
+        Latencies latencies = new Latencies();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            task.run();
+            latencies.record(System.nanoTime() - start);
+        }
+        return latencies;
+    }
+
+    int count() {
+        return size;
+    }
+
+    double percentileMicros(double percentile) {
+        long[] sorted = Arrays.copyOf(nanos, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(index, size - 1))] / 1000.0;
+    }
+
+    double meanMicros() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += nanos[i];
+        }
+        return size == 0 ? 0 : total / (double) size / 1000.0;
+    }
+
+    String summary() {
+        return String.format("n=%d p50=%.1fus p99=%.1fus mean=%.1fus",
+                size, percentileMicros(50), percentileMicros(99), meanMicros());
+    }
+}
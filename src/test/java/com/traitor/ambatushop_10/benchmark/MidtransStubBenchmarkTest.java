@@ -0,0 +1,140 @@
+package com.traitor.ambatushop_10.benchmark;
+
+import com.traitor.ambatushop_10.service.MidtransSnapClient;
+import com.traitor.ambatushop_10.service.PaymentGatewayClient;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * MidtransSnapClient melawan MidtransStubController lewat HTTP sungguhan (user-019): aplikasi jalan di
+ * port lokal dengan midtrans.stub.enabled=true dan base URL client diarahkan ke stub.
+ *
+ * - Throughput dan latency createTransaction dengan 50 panggilan bersamaan, gateway ~200-300 ms.
+ * - Biaya di thread pemanggil (sampai future dikembalikan): harus jauh di bawah latency gateway,
+ *   karena thread request tidak ikut menunggu.
+ * - Circuit breaker: gateway yang tidak bisa dihubungi membuka breaker, panggilan berikutnya langsung ditolak.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT, properties = {
+        "midtrans.stub.enabled=true",
+        "midtrans.stub.delay-ms=200",
+        "midtrans.stub.jitter-ms=100",
+        "midtrans.http.max-in-flight=50"
+})
+@ActiveProfiles("test")
+class MidtransStubBenchmarkTest {
+
+    private static final int CONCURRENCY = 50;
+    private static final int WARMUP = 100;
+    private static final int CALLS = 500;
+
+    @Autowired
+    private PaymentGatewayClient gatewayClient;
+
+    // Port dipilih sebelum context dibuat, karena base URL client dibaca di constructor
+    @DynamicPropertySource
+    static void stubUrl(DynamicPropertyRegistry registry) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        registry.add("server.port", () -> port);
+        registry.add("midtrans.snap.base-url", () -> "http://localhost:" + port + "/stub/midtrans");
+        registry.add("midtrans.api.base-url", () -> "http://localhost:" + port + "/stub/midtrans");
+    }
+
+    @Test
+    void createTransactionLewatStub() throws Exception {
+        run(WARMUP);
+
+        long start = System.nanoTime();
+        Result result = run(CALLS);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("[midtrans] %d panggilan, %d bersamaan: %.0f panggilan/detik%n",
+                CALLS, CONCURRENCY, CALLS / seconds);
+        System.out.printf("[midtrans] latency gateway   %s%n", result.latency.summary());
+        System.out.printf("[midtrans] thread pemanggil  %s%n", result.submit.summary());
+        System.out.printf("[midtrans] stats client %s%n", gatewayClient.getStats());
+
+        // Stub menunda 200-300 ms; thread pemanggil hanya membuat request dan langsung dapat future
+        assertThat(result.latency.percentileMicros(50)).isGreaterThanOrEqualTo(200_000);
+        assertThat(result.submit.percentileMicros(99)).isLessThan(50_000);
+
+        JSONObject status = gatewayClient.getStatus("BENCH-1").get(5, TimeUnit.SECONDS);
+        assertThat(status.getString("transaction_status")).isEqualTo("settlement");
+    }
+
+    @Test
+    void breakerTerbukaSaatGatewayMati() throws Exception {
+        int deadPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            deadPort = socket.getLocalPort();
+        }
+        MidtransSnapClient dead = new MidtransSnapClient("SB-Mid-server-bench", false,
+                "http://localhost:" + deadPort, "http://localhost:" + deadPort, 500, 1000, 50, 5, 30_000);
+        try {
+            for (int i = 0; i < 5; i++) {
+                CompletableFuture<JSONObject> call = dead.createTransaction(Map.of("i", i));
+                assertThatThrownBy(() -> call.join()).isInstanceOf(CompletionException.class);
+            }
+
+            Latencies rejected = Latencies.measure(1000, () -> dead.createTransaction(Map.of()).exceptionally(e -> null));
+            System.out.printf("[midtrans] breaker %s, tolak langsung: %s%n", dead.getStats().get("breaker"),
+                    rejected.summary());
+
+            assertThat(dead.getStats().get("breaker")).isEqualTo("OPEN");
+            assertThat(dead.getStats().get("rejected")).isEqualTo(1000L);
+        } finally {
+            dead.shutdown();
+        }
+    }
+
+    private record Result(Latencies latency, Latencies submit) {
+    }
+
+    private Result run(int calls) throws Exception {
+        Semaphore window = new Semaphore(CONCURRENCY);
+        Latencies latency = new Latencies();
+        Latencies submit = new Latencies();
+        List<CompletableFuture<JSONObject>> futures = new ArrayList<>(calls);
+        for (int i = 0; i < calls; i++) {
+            window.acquire();
+            long begin = System.nanoTime();
+            CompletableFuture<JSONObject> future = gatewayClient.createTransaction(Map.of(
+                    "transaction_details", Map.of("order_id", "BENCH-" + i, "gross_amount", 10000)));
+            submit.record(System.nanoTime() - begin);
+            futures.add(future.whenComplete((body, error) -> {
+                synchronized (latency) {
+                    latency.record(System.nanoTime() - begin);
+                }
+                window.release();
+            }));
+        }
+        for (CompletableFuture<JSONObject> future : futures) {
+            assertThat(future.get(30, TimeUnit.SECONDS).getString("token")).isNotBlank();
+        }
+        return new Result(latency, submit);
+    }
+}
@@ -0,0 +1,117 @@
+package com.traitor.ambatushop_10.benchmark;
+
+import com.traitor.ambatushop_10.config.BoundedPasswordEncoder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load test BoundedPasswordEncoder (user-014): 64 "request" login bersamaan memanggil matches() selama
+ * beberapa detik. Yang diukur login per detik, latency, dan jumlah yang ditolak (antrian penuh / kelamaan);
+ * BCrypt yang jalan bersamaan tidak boleh melebihi jumlah thread encoder.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PasswordEncoderLoadTest {
+
+    private static final int CLIENT_THREADS = 64;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final long WAIT_MILLIS = 2000;
+    private static final long DURATION_MILLIS = 10_000;
+
+    @Test
+    void loginPerDetikDenganBanyakThread() throws Exception {
+        int encoderThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        CountingEncoder counting = new CountingEncoder(new BCryptPasswordEncoder());
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(counting, encoderThreads, QUEUE_CAPACITY,
+                WAIT_MILLIS);
+        String hash = new BCryptPasswordEncoder().encode("rahasia123");
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+        AtomicLong berhasil = new AtomicLong();
+        AtomicLong ditolak = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Latencies>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < CLIENT_THREADS; i++) {
+                results.add(clients.submit(() -> {
+                    start.await();
+                    Latencies latencies = new Latencies();
+                    long deadline = System.currentTimeMillis() + DURATION_MILLIS;
+                    while (System.currentTimeMillis() < deadline) {
+                        long begin = System.nanoTime();
+                        try {
+                            assertThat(encoder.matches("rahasia123", hash)).isTrue();
+                            latencies.record(System.nanoTime() - begin);
+                            berhasil.incrementAndGet();
+                        } catch (BoundedPasswordEncoder.PasswordHashingBusyException e) {
+                            // Di AuthController dijawab 503 + Retry-After; client menunggu sebentar
+                            ditolak.incrementAndGet();
+                            Thread.sleep(50);
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+
+            Latencies all = new Latencies();
+            for (Future<Latencies> result : results) {
+                all.addAll(result.get(DURATION_MILLIS + 30_000, TimeUnit.MILLISECONDS));
+            }
+            double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+            System.out.printf("[bcrypt] %d client, %d thread encoder: %.1f login/detik, %d ditolak, "
+                            + "BCrypt bersamaan maks %d, %s%n",
+                    CLIENT_THREADS, encoderThreads, berhasil.get() / seconds, ditolak.get(),
+                    counting.maxConcurrent.get(), all.summary());
+
+            assertThat(berhasil.get()).isPositive();
+            assertThat(counting.maxConcurrent.get()).isLessThanOrEqualTo(encoderThreads);
+        } finally {
+            clients.shutdownNow();
+            encoder.shutdown();
+        }
+    }
+
+    // Mencatat berapa BCrypt yang jalan bersamaan di dalam encoder
+    private static final class CountingEncoder implements PasswordEncoder {
+        private final PasswordEncoder delegate;
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        CountingEncoder(PasswordEncoder delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return delegate.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                return delegate.matches(rawPassword, encodedPassword);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
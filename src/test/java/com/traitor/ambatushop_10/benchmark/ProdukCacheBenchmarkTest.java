@@ -0,0 +1,131 @@
+package com.traitor.ambatushop_10.benchmark;
+
+import com.traitor.ambatushop_10.model.Produk;
+import com.traitor.ambatushop_10.repository.ProdukRepository;
+import com.traitor.ambatushop_10.service.CatalogVersionService;
+import com.traitor.ambatushop_10.service.ProdukCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Jalur baca produk lewat ProdukCache dibanding langsung ke DB (user-024), untuk 1000 produk:
+ * - get(id)          : detail produk / scan barcode
+ * - getAll(10 id)    : produk keranjang saat checkout
+ * - getAllProduk()   : list produk kasir
+ *
+ * Jalur DB = ProdukCache dengan enabled=false (sama dengan app.produk-cache.enabled=false). DB di sini
+ * H2 in-memory; dengan MariaDB lewat jaringan selisihnya lebih besar lagi.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProdukCacheBenchmarkTest {
+
+    private static final int PRODUK = 1000;
+    private static final int BASKET = 10;
+    private static final int WARMUP = 2000;
+    private static final int ITERATIONS = 5000;
+    private static final int LIST_ITERATIONS = 200;
+
+    @Autowired
+    private ProdukCache produkCache;
+
+    @Autowired
+    private ProdukRepository produkRepository;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private ProdukCache database;
+    private Statistics statistics;
+    private final List<Long> produkIds = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        List<Produk> produk = new ArrayList<>();
+        for (int i = 1; i <= PRODUK; i++) {
+            produk.add(new Produk("Produk Cache " + i, 1000.0 + i, (short) 500));
+        }
+        produkRepository.saveAll(produk).forEach(saved -> produkIds.add(saved.getIdProduk()));
+
+        produkCache.preload(produkIds);
+        database = new ProdukCache(produkRepository, catalogVersionService, false, PRODUK);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void cacheDibandingDatabase() {
+        Latencies getCache = run("get(id)", ITERATIONS, produkCache, cache -> cache.get(randomId()));
+        Latencies getDb = run("get(id)", ITERATIONS, database, cache -> cache.get(randomId()));
+
+        Latencies basketCache = run("getAll(10)", ITERATIONS, produkCache, cache -> cache.getAll(randomBasket()));
+        Latencies basketDb = run("getAll(10)", ITERATIONS, database, cache -> cache.getAll(randomBasket()));
+
+        Latencies listCache = run("getAllProduk", LIST_ITERATIONS, produkCache, ProdukCache::getAllProduk);
+        Latencies listDb = run("getAllProduk", LIST_ITERATIONS, database, ProdukCache::getAllProduk);
+
+        System.out.printf("[produk-cache] speedup p50: get %.0fx, getAll(10) %.0fx, getAllProduk %.0fx%n",
+                speedup(getDb, getCache), speedup(basketDb, basketCache), speedup(listDb, listCache));
+        System.out.printf("[produk-cache] stats %s%n", produkCache.getStats());
+
+        assertThat(getCache.percentileMicros(50)).isLessThan(getDb.percentileMicros(50));
+        assertThat(basketCache.percentileMicros(50)).isLessThan(basketDb.percentileMicros(50));
+        assertThat(listCache.percentileMicros(50)).isLessThan(listDb.percentileMicros(50));
+    }
+
+    private Latencies run(String name, int iterations, ProdukCache cache, Consumer<ProdukCache> read) {
+        Latencies.measure(Math.min(WARMUP, iterations), () -> read.accept(cache));
+
+        statistics.clear();
+        Latencies latencies = Latencies.measure(iterations, () -> read.accept(cache));
+        double statements = statistics.getPrepareStatementCount() / (double) iterations;
+
+        System.out.printf("[produk-cache] %-12s %-5s %.2f statement/baca, %s%n", name,
+                cache == database ? "db" : "cache", statements, latencies.summary());
+        if (cache != database) {
+            // Semua produk sudah di cache: tidak ada query sama sekali
+            assertThat(statements).isZero();
+        }
+        return latencies;
+    }
+
+    private static double speedup(Latencies db, Latencies cache) {
+        return db.percentileMicros(50) / Math.max(0.001, cache.percentileMicros(50));
+    }
+
+    private Long randomId() {
+        return produkIds.get(ThreadLocalRandom.current().nextInt(produkIds.size()));
+    }
+
+    private List<Long> randomBasket() {
+        List<Long> basket = new ArrayList<>(BASKET);
+        for (int i = 0; i < BASKET; i++) {
+            basket.add(randomId());
+        }
+        return basket;
+    }
+}
@@ -0,0 +1,151 @@
+package com.traitor.ambatushop_10.benchmark;
+
+import com.traitor.ambatushop_10.dto.TransaksiDetailRequest;
+import com.traitor.ambatushop_10.dto.TransaksiRequest;
+import com.traitor.ambatushop_10.model.Akun;
+import com.traitor.ambatushop_10.model.Produk;
+import com.traitor.ambatushop_10.model.Transaksi;
+import com.traitor.ambatushop_10.repository.AkunRepository;
+import com.traitor.ambatushop_10.repository.ProdukRepository;
+import com.traitor.ambatushop_10.repository.TransaksiRepository;
+import com.traitor.ambatushop_10.service.TransaksiService;
+import com.traitor.ambatushop_10.service.WebhookInboxService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Webhook per detik (user-018): beberapa thread mengirim notifikasi Midtrans ke WebhookInboxService seperti
+ * controller webhook. Per order: "pending", "settlement", lalu "settlement" lagi (retry Midtrans).
+ *
+ * Yang diukur dua sisi: penerimaan (INSERT inbox + ACK, yang dirasakan Midtrans) dan pemrosesan worker
+ * sampai semua event selesai (update status transaksi + stok dalam satu transaksi per event).
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class WebhookThroughputBenchmarkTest {
+
+    private static final int ORDERS = 1000;
+    private static final int SENDER_THREADS = 8;
+    private static final long PROCESS_TIMEOUT_MILLIS = 120_000;
+
+    @Autowired
+    private WebhookInboxService webhookInboxService;
+
+    @Autowired
+    private TransaksiService transaksiService;
+
+    @Autowired
+    private TransaksiRepository transaksiRepository;
+
+    @Autowired
+    private ProdukRepository produkRepository;
+
+    @Autowired
+    private AkunRepository akunRepository;
+
+    @Test
+    void webhookPerDetik() throws Exception {
+        List<String> orderIds = seedPendingOrders();
+
+        ExecutorService senders = Executors.newFixedThreadPool(SENDER_THREADS);
+        List<Future<Latencies>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            for (int t = 0; t < SENDER_THREADS; t++) {
+                int offset = t;
+                results.add(senders.submit(() -> {
+                    Latencies latencies = new Latencies();
+                    for (int i = offset; i < orderIds.size(); i += SENDER_THREADS) {
+                        String orderId = orderIds.get(i);
+                        for (String status : new String[] { "pending", "settlement", "settlement" }) {
+                            long begin = System.nanoTime();
+                            webhookInboxService.receive(Map.of("order_id", orderId, "transaction_status", status,
+                                    "fraud_status", "accept"));
+                            latencies.record(System.nanoTime() - begin);
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+
+            Latencies receive = new Latencies();
+            for (Future<Latencies> result : results) {
+                receive.addAll(result.get(PROCESS_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            }
+            double receiveSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            long deadline = System.currentTimeMillis() + PROCESS_TIMEOUT_MILLIS;
+            while (pendingCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            double totalSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            Map<String, Object> stats = webhookInboxService.getStats();
+            System.out.printf("[webhook] terima: %.0f webhook/detik (%d thread), %s%n",
+                    receive.count() / receiveSeconds, SENDER_THREADS, receive.summary());
+            System.out.printf("[webhook] proses: %.0f event/detik sampai inbox kosong, stats %s%n",
+                    (ORDERS * 2) / totalSeconds, stats);
+
+            assertThat(pendingCount()).isZero();
+            assertThat(stats.get("duplicates")).isEqualTo((long) ORDERS);
+            for (String orderId : orderIds) {
+                assertThat(transaksiService.findByPaymentGatewayId(orderId).orElseThrow().getPaymentStatus())
+                        .isEqualTo(Transaksi.PaymentStatus.PAID);
+            }
+        } finally {
+            senders.shutdownNow();
+        }
+    }
+
+    private long pendingCount() {
+        @SuppressWarnings("unchecked")
+        Map<String, Long> inbox = (Map<String, Long>) webhookInboxService.getStats().get("inbox");
+        return inbox.getOrDefault("PENDING", 0L);
+    }
+
+    // Transaksi NON_TUNAI yang menunggu pembayaran, masing-masing dengan order_id Midtrans sendiri
+    private List<String> seedPendingOrders() {
+        Long akunId = akunRepository.save(new Akun("bench_webhook", "x", "webhook@ambatushop.test", Akun.Role.KASIR))
+                .getIdPegawai();
+        Produk produk = produkRepository.save(new Produk("Produk Webhook", 1000.0, (short) 30000));
+
+        List<String> orderIds = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            TransaksiDetailRequest detail = new TransaksiDetailRequest();
+            detail.setProdukId(produk.getIdProduk());
+            detail.setJumlah((short) 1);
+            detail.setHargaSatuan(1000.0);
+            detail.setSubtotal(1000.0);
+
+            TransaksiRequest request = new TransaksiRequest();
+            request.setMetodePembayaran("NON_TUNAI");
+            request.setAkunId(akunId);
+            request.setKasirName("bench_webhook");
+            request.setTotal(1000.0);
+            request.setDetails(List.of(detail));
+
+            Transaksi transaksi = transaksiService.createTransaksi(request);
+            String orderId = "BENCH-WH-" + transaksi.getIdTransaksi();
+            transaksi.setPaymentGatewayId(orderId);
+            transaksiRepository.save(transaksi);
+            orderIds.add(orderId);
+        }
+        return orderIds;
+    }
+}
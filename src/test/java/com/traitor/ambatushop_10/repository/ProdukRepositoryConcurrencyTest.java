@@ -0,0 +1,197 @@
+package com.traitor.ambatushop_10.repository;
+
+import com.traitor.ambatushop_10.model.Produk;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * decrementStok (UPDATE ... WHERE stok >= jumlah) dipanggil 64 thread sekaligus untuk produk yang sama:
+ * jumlah pengurangan yang berhasil harus pas dengan stok awal, dan stok tidak pernah minus.
+ *
+ * Sebagai pembanding, jalur lama (findById, cek stok di Java, setStok, save) dijalankan dengan 64 thread
+ * yang sama, dan satu UPDATE per produk dibandingkan dengan satu JDBC batch untuk keranjang berisi
+ * beberapa produk. Hasilnya dicetak dengan prefix [stok]; angka waktu dari H2 in-memory (tanpa network
+ * round trip) hanya untuk perbandingan antar jalur, bukan angka produksi.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // setiap thread commit sendiri
+class ProdukRepositoryConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final short STOK_AWAL = 1000;
+    private static final int JUMLAH = 3;
+    private static final int PRODUK_PER_KERANJANG = 10;
+    private static final int KERANJANG_PER_THREAD = 50;
+    private static final short STOK_KERANJANG = 30_000;
+
+    @Autowired
+    private ProdukRepository produkRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void decrementStokTidakOversellDengan64Thread() throws Exception {
+        Long idProduk = produkRepository.save(new Produk("Indomie Goreng", 3500.0, STOK_AWAL)).getIdProduk();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        long start = System.nanoTime();
+        // Terus kurangi sampai UPDATE bersyarat menolak (stok tidak cukup)
+        int totalBerhasil = runThreads(() -> Boolean.TRUE.equals(tx.execute(status ->
+                produkRepository.decrementStok(idProduk, JUMLAH, 1L) == 1)));
+        long elapsed = System.nanoTime() - start;
+
+        Produk produk = produkRepository.findById(idProduk).orElseThrow();
+        System.out.printf("[stok] UPDATE bersyarat: %d berhasil, stok akhir %d, terjual %d dari %d, %d ms%n",
+                totalBerhasil, produk.getStok(), totalBerhasil * JUMLAH, STOK_AWAL, elapsed / 1_000_000);
+        assertThat(totalBerhasil).isEqualTo(STOK_AWAL / JUMLAH);
+        assertThat(produk.getStok()).isEqualTo((short) (STOK_AWAL % JUMLAH));
+    }
+
+    @Test
+    void readModifyWriteLamaKehilanganUpdateDengan64Thread() throws Exception {
+        Long idProduk = produkRepository.save(new Produk("Indomie Soto", 3500.0, STOK_AWAL)).getIdProduk();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        long start = System.nanoTime();
+        // Jalur sebelum user-002: baca stok, cek dan kurangi di Java, lalu save entity
+        int totalBerhasil = runThreads(() -> Boolean.TRUE.equals(tx.execute(status -> {
+            Produk produk = produkRepository.findById(idProduk).orElseThrow();
+            if (produk.getStok() < JUMLAH) {
+                return false;
+            }
+            produk.setStok((short) (produk.getStok() - JUMLAH));
+            produkRepository.save(produk);
+            return true;
+        })));
+        long elapsed = System.nanoTime() - start;
+
+        Produk produk = produkRepository.findById(idProduk).orElseThrow();
+        int terjual = totalBerhasil * JUMLAH;
+        int tercatat = STOK_AWAL - produk.getStok();
+        System.out.printf("[stok] read-modify-write: %d berhasil, stok akhir %d, terjual %d tapi stok cuma "
+                + "berkurang %d (%d unit oversell), %d ms%n",
+                totalBerhasil, produk.getStok(), terjual, tercatat, terjual - tercatat, elapsed / 1_000_000);
+        // Pengurangan yang saling menimpa: lebih banyak penjualan yang "berhasil" daripada stok yang berkurang
+        assertThat(terjual).isGreaterThan(tercatat);
+    }
+
+    @Test
+    void updatePerProdukDibandingkanJdbcBatch() throws Exception {
+        List<Long> keranjang = new ArrayList<>();
+        for (int i = 0; i < PRODUK_PER_KERANJANG; i++) {
+            keranjang.add(produkRepository.save(new Produk("Produk " + i, 1000.0, STOK_KERANJANG)).getIdProduk());
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        String sql = "UPDATE produk SET stok = stok - ?, versi = ? WHERE id_produk = ? AND stok >= ?";
+
+        // Cara sekarang (TransaksiService.reduceProductStock): satu statement per produk, urut ID
+        long perProduk = timeBaskets(() -> tx.executeWithoutResult(status -> {
+            for (Long idProduk : keranjang) {
+                assertThat(produkRepository.decrementStok(idProduk, 1, 1L)).isEqualTo(1);
+            }
+        }));
+
+        // Statement yang sama per produk lewat JdbcTemplate: memisahkan biaya proxy repository / flush
+        // Hibernate dari biaya round trip per statement
+        long perProdukJdbc = timeBaskets(() -> tx.executeWithoutResult(status -> {
+            for (Long idProduk : keranjang) {
+                assertThat(jdbcTemplate.update(sql, 1, 1L, idProduk, 1)).isEqualTo(1);
+            }
+        }));
+
+        // Alternatif: semua UPDATE keranjang dikirim sebagai satu JDBC batch
+        long batch = timeBaskets(() -> tx.executeWithoutResult(status -> {
+            List<Object[]> args = new ArrayList<>();
+            for (Long idProduk : keranjang) {
+                args.add(new Object[] { 1, 1L, idProduk, 1 });
+            }
+            for (int count : jdbcTemplate.batchUpdate(sql, args)) {
+                assertThat(count).isEqualTo(1);
+            }
+        }));
+
+        int keranjangTotal = THREADS * KERANJANG_PER_THREAD;
+        System.out.printf("[stok] %d keranjang x %d produk, %d thread (us/keranjang): decrementStok per produk %.1f, "
+                + "JdbcTemplate per produk %.1f, JDBC batch %.1f; per produk / batch = %.2fx%n",
+                keranjangTotal, PRODUK_PER_KERANJANG, THREADS, perProduk / 1000.0 / keranjangTotal,
+                perProdukJdbc / 1000.0 / keranjangTotal, batch / 1000.0 / keranjangTotal,
+                perProdukJdbc / (double) batch);
+
+        short expected = (short) (STOK_KERANJANG - 3 * keranjangTotal);
+        for (Long idProduk : keranjang) {
+            assertThat(produkRepository.findById(idProduk).orElseThrow().getStok()).isEqualTo(expected);
+        }
+    }
+
+    // Total waktu semua thread menjalankan KERANJANG_PER_THREAD keranjang (nanodetik)
+    private long timeBaskets(Runnable basket) throws Exception {
+        long start = System.nanoTime();
+        runThreads(new BooleanSupplier() {
+            private final ThreadLocal<Integer> done = ThreadLocal.withInitial(() -> 0);
+
+            @Override
+            public boolean getAsBoolean() {
+                if (done.get() == KERANJANG_PER_THREAD) {
+                    return false;
+                }
+                basket.run();
+                done.set(done.get() + 1);
+                return true;
+            }
+        });
+        return System.nanoTime() - start;
+    }
+
+    // Jalankan `step` di THREADS thread (mulai bersamaan) sampai return false, return total step yang berhasil
+    private static int runThreads(BooleanSupplier step) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    int berhasil = 0;
+                    while (step.getAsBoolean()) {
+                        berhasil++;
+                    }
+                    return berhasil;
+                }));
+            }
+            start.countDown();
+
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(120, TimeUnit.SECONDS);
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
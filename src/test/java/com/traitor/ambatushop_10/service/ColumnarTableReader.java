@@ -0,0 +1,137 @@
+package com.traitor.ambatushop_10.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decoder file ".acol" sesuai spesifikasi di ColumnarTableWriter, untuk test round-trip.
+ * Nilai dikembalikan per baris: LONG -> Long, DOUBLE -> Double, STRING -> String,
+ * TIMESTAMP -> LocalDateTime, null tetap null.
+ */
+final class ColumnarTableReader {
+
+    record Table(List<String> headers, List<ExportTable.Type> types, List<Integer> rowGroupSizes,
+            List<Object[]> rows) {
+    }
+
+    private ColumnarTableReader() {
+    }
+
+    static Table read(byte[] file) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(file));
+
+        byte[] magic = new byte[ColumnarTableWriter.MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, ColumnarTableWriter.MAGIC)) {
+            throw new IOException("Bukan file ACOL");
+        }
+        int version = in.readUnsignedByte();
+        if (version != ColumnarTableWriter.VERSION) {
+            throw new IOException("Versi ACOL tidak dikenal: " + version);
+        }
+
+        int columnCount = (int) readVarint(in);
+        List<String> headers = new ArrayList<>(columnCount);
+        List<ExportTable.Type> types = new ArrayList<>(columnCount);
+        for (int c = 0; c < columnCount; c++) {
+            headers.add(readString(in));
+            types.add(ExportTable.Type.values()[in.readUnsignedByte()]);
+        }
+
+        List<Integer> rowGroupSizes = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        int rowCount;
+        while ((rowCount = (int) readVarint(in)) != 0) {
+            rowGroupSizes.add(rowCount);
+            Object[][] group = new Object[rowCount][columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                byte[] chunk = new byte[(int) readVarint(in)];
+                in.readFully(chunk);
+                decodeChunk(new DataInputStream(new ByteArrayInputStream(chunk)), types.get(c), rowCount, group, c);
+            }
+            rows.addAll(Arrays.asList(group));
+        }
+        if (in.read() != -1) {
+            throw new IOException("Ada byte sisa setelah penutup file");
+        }
+        return new Table(headers, types, rowGroupSizes, rows);
+    }
+
+    private static void decodeChunk(DataInputStream in, ExportTable.Type type, int rowCount, Object[][] group,
+            int column) throws IOException {
+        int encoding = in.readUnsignedByte();
+        boolean[] present = new boolean[rowCount];
+        for (int i = 0; i < rowCount; i += 8) {
+            int bits = in.readUnsignedByte();
+            for (int b = 0; b < 8 && i + b < rowCount; b++) {
+                present[i + b] = (bits & (1 << b)) != 0;
+            }
+        }
+
+        String[] dictionary = null;
+        if (encoding == ColumnarTableWriter.ENC_DICT_STR) {
+            dictionary = new String[(int) readVarint(in)];
+            for (int d = 0; d < dictionary.length; d++) {
+                dictionary[d] = readString(in);
+            }
+        }
+
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            if (!present[i]) continue;
+            Object value = switch (encoding) {
+                case ColumnarTableWriter.ENC_DELTA -> {
+                    previous += readZigZag(in);
+                    yield type == ExportTable.Type.TIMESTAMP
+                            ? LocalDateTime.ofEpochSecond(Math.floorDiv(previous, 1000),
+                                    (int) Math.floorMod(previous, 1000) * 1_000_000, ZoneOffset.UTC)
+                            : (Object) previous;
+                }
+                case ColumnarTableWriter.ENC_PLAIN_F64 -> in.readDouble();
+                case ColumnarTableWriter.ENC_INT_F64 -> (double) readZigZag(in);
+                case ColumnarTableWriter.ENC_PLAIN_STR -> readString(in);
+                case ColumnarTableWriter.ENC_DICT_STR -> dictionary[(int) readVarint(in)];
+                default -> throw new IOException("Encoding tidak dikenal: " + encoding);
+            };
+            group[i][column] = value;
+        }
+        if (in.read() != -1) {
+            throw new IOException("Chunk kolom " + column + " tidak habis dibaca");
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[(int) readVarint(in)];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static long readZigZag(InputStream in) throws IOException {
+        long raw = readVarint(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint terlalu panjang");
+    }
+}
@@ -0,0 +1,118 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.KeuanganExportRow;
+import com.traitor.ambatushop_10.dto.TransaksiExportRow;
+import com.traitor.ambatushop_10.model.Keuangan;
+import com.traitor.ambatushop_10.model.Transaksi;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Round-trip format ".acol": tabel keuangan dan transaksi yang sama dengan ExportService ditulis
+ * ColumnarTableWriter lalu dibaca lagi dengan ColumnarTableReader, hasilnya harus sama persis dengan nilai
+ * kolom aslinya (termasuk null, timestamp sebelum 1970, dan baris di batas row group).
+ */
+class ColumnarTableWriterTest {
+
+    private static final int GROUP = ColumnarTableWriter.ROW_GROUP_SIZE;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 8, 0, 0, 123_000_000);
+
+    @Test
+    void keuanganRoundTripMelewatiBatasRowGroup() throws Exception {
+        List<KeuanganExportRow> rows = new ArrayList<>();
+        for (int i = 0; i < 2 * GROUP + 17; i++) {
+            long id = i + 1;
+            rows.add(new KeuanganExportRow(
+                    id,
+                    i % 11 == 0 ? null : id % 5,
+                    i % 13 == 0 ? null : (i % 3 == 0 ? Keuangan.JenisTransaksi.PENGELUARAN : Keuangan.JenisTransaksi.PEMASUKAN),
+                    i % 7 == 0 ? null : "Penjualan #" + (id % 300),
+                    // Row group pertama nominal bulat (INT_F64), berikutnya ada pecahan (PLAIN_F64)
+                    i % 17 == 0 ? null : (i < GROUP ? 1000.0 * (id % 50) - 20_000 : 12_500.75 + id),
+                    i % 19 == 0 ? null : START.plusSeconds(i * 37L).minusDays(i % 2 == 0 ? 0 : 25_000)));
+        }
+
+        ColumnarTableReader.Table decoded = roundTrip(ExportService.KEUANGAN_TABLE, rows);
+
+        assertThat(decoded.rowGroupSizes()).containsExactly(GROUP, GROUP, 17);
+        assertThat(decoded.headers()).containsExactly("ID", "ID Pegawai", "Jenis", "Keterangan", "Nominal", "Tanggal");
+        assertRows(ExportService.KEUANGAN_TABLE, rows, decoded);
+    }
+
+    @Test
+    void transaksiRoundTripDenganStringUnikDanKolomKosong() throws Exception {
+        // Tepat satu row group penuh: referenceNumber unik semua (lebih dari batas dictionary -> PLAIN_STR)
+        List<TransaksiExportRow> rows = new ArrayList<>();
+        for (int i = 0; i < GROUP; i++) {
+            long id = 1_000_000L - i * 3L;
+            rows.add(new TransaksiExportRow(
+                    id,
+                    i % 29 == 0 ? null : String.format("TRX-20250101-%05d", i),
+                    START.plusNanos(i * 1_000_000L),
+                    i % 2 == 0 ? 7L : null,
+                    i % 5 == 0 ? "Kasir Ñoño ☕" : "kasir_" + (i % 4),
+                    i % 3 == 0 ? Transaksi.MetodePembayaran.NON_TUNAI : Transaksi.MetodePembayaran.TUNAI,
+                    Transaksi.PaymentStatus.values()[i % Transaksi.PaymentStatus.values().length],
+                    i % 31 == 0 ? null : 5000.0 + i));
+        }
+        // Kolom yang seluruhnya null di satu row group
+        rows.add(new TransaksiExportRow(1L, null, null, null, null, null, null, null));
+
+        ColumnarTableReader.Table decoded = roundTrip(ExportService.TRANSAKSI_TABLE, rows);
+
+        assertThat(decoded.rowGroupSizes()).containsExactly(GROUP, 1);
+        assertThat(decoded.types()).containsExactly(ExportTable.Type.LONG, ExportTable.Type.STRING,
+                ExportTable.Type.TIMESTAMP, ExportTable.Type.LONG, ExportTable.Type.STRING,
+                ExportTable.Type.STRING, ExportTable.Type.STRING, ExportTable.Type.DOUBLE);
+        assertRows(ExportService.TRANSAKSI_TABLE, rows, decoded);
+    }
+
+    @Test
+    void tabelKosongTetapPunyaHeader() throws Exception {
+        ColumnarTableReader.Table decoded = roundTrip(ExportService.KEUANGAN_TABLE, List.of());
+
+        assertThat(decoded.headers()).hasSize(ExportService.KEUANGAN_TABLE.columns().size());
+        assertThat(decoded.rowGroupSizes()).isEmpty();
+        assertThat(decoded.rows()).isEmpty();
+    }
+
+    private static <T> ColumnarTableReader.Table roundTrip(ExportTable<T> table, List<T> rows) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = new ColumnarTableWriter().write(table, rows.iterator(), out, count -> { });
+        assertThat(written).isEqualTo(rows.size());
+        return ColumnarTableReader.read(out.toByteArray());
+    }
+
+    private static <T> void assertRows(ExportTable<T> table, List<T> rows, ColumnarTableReader.Table decoded) {
+        assertThat(decoded.rows()).hasSameSizeAs(rows);
+        for (int r = 0; r < rows.size(); r++) {
+            Object[] actual = decoded.rows().get(r);
+            for (int c = 0; c < table.columns().size(); c++) {
+                assertThat(actual[c])
+                        .as("baris %d kolom %s", r, table.columns().get(c).header())
+                        .isEqualTo(expected(table.columns().get(c), rows.get(r)));
+            }
+        }
+    }
+
+    // Nilai kolom dalam bentuk yang dikembalikan reader (timestamp disimpan dengan presisi milidetik)
+    private static <T> Object expected(ExportTable.Column<T> column, T row) {
+        Object value = column.value(row);
+        if (value == null) {
+            return null;
+        }
+        return switch (column.type()) {
+            case LONG -> ((Number) value).longValue();
+            case DOUBLE -> ((Number) value).doubleValue();
+            case STRING -> value.toString();
+            case TIMESTAMP -> ((LocalDateTime) value).truncatedTo(ChronoUnit.MILLIS);
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.model.Akun;
+import com.traitor.ambatushop_10.model.Transaksi;
+import com.traitor.ambatushop_10.repository.AkunRepository;
+import com.traitor.ambatushop_10.repository.TransaksiRepository;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Transaksi PENDING yang lewat batas waktu baru dijadikan EXPIRED setelah gateway mengonfirmasi expire
+ * (atau tidak mengenal order-nya). Kalau gateway menolak expire, transaksi tetap PENDING.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class PaymentReconciliationServiceTest {
+
+    @MockitoBean
+    private PaymentGatewayClient gatewayClient;
+
+    @Autowired
+    private PaymentReconciliationService reconciliationService;
+
+    @Autowired
+    private TransaksiRepository transaksiRepository;
+
+    @Autowired
+    private AkunRepository akunRepository;
+
+    @Test
+    void expireLokalHanyaSetelahGatewayMengonfirmasi() throws Exception {
+        Akun akun = akunRepository.save(new Akun("kasir_rekon", "x", "rekon@ambatushop.test", Akun.Role.KASIR));
+        Long dikonfirmasi = pendingLama(akun, "ORD-EXPIRE");
+        Long tidakDikenal = pendingLama(akun, "ORD-404");
+        Long ditolak = pendingLama(akun, "ORD-DITOLAK");
+        Long baru = transaksiRepository.save(pending(akun, "ORD-BARU", LocalDateTime.now().minusMinutes(10)))
+                .getIdTransaksi();
+
+        when(gatewayClient.getStatus(anyString())).thenAnswer(call -> CompletableFuture.completedFuture(
+                new JSONObject().put("order_id", call.getArgument(0)).put("transaction_status", "pending")));
+        when(gatewayClient.getStatus("ORD-404")).thenReturn(CompletableFuture.completedFuture(
+                new JSONObject().put("status_code", "404")));
+        when(gatewayClient.expire("ORD-EXPIRE")).thenReturn(CompletableFuture.completedFuture(
+                new JSONObject().put("status_code", "407").put("transaction_status", "expire")));
+        when(gatewayClient.expire("ORD-404")).thenReturn(CompletableFuture.completedFuture(
+                new JSONObject().put("status_code", "404")));
+        when(gatewayClient.expire("ORD-DITOLAK")).thenReturn(CompletableFuture.failedFuture(
+                new PaymentGatewayClient.GatewayException("Payment gateway menolak request (HTTP 412)", false)));
+
+        reconciliationService.reconcile();
+
+        assertThat(status(dikonfirmasi)).isEqualTo(Transaksi.PaymentStatus.EXPIRED);
+        assertThat(status(tidakDikenal)).isEqualTo(Transaksi.PaymentStatus.EXPIRED);
+        assertThat(status(ditolak)).isEqualTo(Transaksi.PaymentStatus.PENDING);
+        // Belum lewat batas waktu: hanya dicek, tidak di-expire
+        assertThat(status(baru)).isEqualTo(Transaksi.PaymentStatus.PENDING);
+        verify(gatewayClient, never()).expire("ORD-BARU");
+    }
+
+    private Long pendingLama(Akun akun, String orderId) {
+        return transaksiRepository.save(pending(akun, orderId, LocalDateTime.now().minusMinutes(45))).getIdTransaksi();
+    }
+
+    private Transaksi pending(Akun akun, String orderId, LocalDateTime tanggal) {
+        Transaksi transaksi = new Transaksi(Transaksi.MetodePembayaran.NON_TUNAI, tanggal, 10000.0, akun, "kasir_rekon");
+        transaksi.setPaymentGatewayId(orderId);
+        transaksi.setReferenceNumber("TRX-REKON-" + orderId);
+        return transaksi;
+    }
+
+    private Transaksi.PaymentStatus status(Long idTransaksi) {
+        return transaksiRepository.findById(idTransaksi).orElseThrow().getPaymentStatus();
+    }
+}
@@ -0,0 +1,54 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.model.Produk;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Index pencarian hanya berubah setelah commit: nama dari create / update yang rollback tidak pernah
+ * bisa dicari, dan perubahan yang commit langsung terlihat.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class ProdukSearchIndexTest {
+
+    @Autowired
+    private ProdukService produkService;
+
+    @Autowired
+    private ProdukSearchIndex searchIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void indexDiupdateSetelahCommit() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        tx.executeWithoutResult(status -> {
+            produkService.createProduk(new Produk("Keripik Rollback", 8000.0, (short) 5));
+            status.setRollbackOnly();
+        });
+        assertThat(searchIndex.search("rollback", 10)).isEmpty();
+
+        Long id = produkService.createProduk(new Produk("Keripik Singkong", 8000.0, (short) 5)).getIdProduk();
+        assertThat(searchIndex.search("singkong", 10)).containsExactly(id);
+
+        tx.executeWithoutResult(status -> {
+            Produk rename = new Produk("Keripik Kentang", null, (short) -1);
+            produkService.updateProduk(id, rename);
+            status.setRollbackOnly();
+        });
+        assertThat(searchIndex.search("kentang", 10)).isEmpty();
+        assertThat(searchIndex.search("singkong", 10)).containsExactly(id);
+
+        produkService.deleteProduk(id);
+        assertThat(searchIndex.search("singkong", 10)).isEmpty();
+    }
+}
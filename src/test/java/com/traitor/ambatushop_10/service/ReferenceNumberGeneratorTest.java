@@ -0,0 +1,77 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.TransaksiRequest;
+import com.traitor.ambatushop_10.model.Akun;
+import com.traitor.ambatushop_10.repository.AkunRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checkout paralel dengan thread lebih banyak dari pool koneksi dan blok nomor kecil (sering ganti blok):
+ * alokasi blok tidak boleh membuat checkout saling menunggu koneksi sampai timeout, dan semua nomor unik.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "app.reference.block-size=10",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=5000" })
+@ActiveProfiles("test")
+class ReferenceNumberGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int PER_THREAD = 50;
+
+    @Autowired
+    private TransaksiService transaksiService;
+
+    @Autowired
+    private AkunRepository akunRepository;
+
+    @Test
+    void checkoutParalelTidakKehabisanKoneksi() throws Exception {
+        Long akunId = akunRepository.save(new Akun("kasir_ref", "x", "ref@ambatushop.test", Akun.Role.KASIR))
+                .getIdPegawai();
+        Set<String> nomor = ConcurrentHashMap.newKeySet();
+        CountDownLatch mulai = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    mulai.await();
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        TransaksiRequest request = new TransaksiRequest();
+                        request.setMetodePembayaran("TUNAI");
+                        request.setAkunId(akunId);
+                        request.setKasirName("kasir_ref");
+                        request.setTotal(1000.0);
+                        nomor.add(transaksiService.createTransaksi(request).getReferenceNumber());
+                    }
+                    return null;
+                }));
+            }
+            mulai.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(nomor).hasSize(THREADS * PER_THREAD);
+    }
+}
@@ -0,0 +1,146 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.dto.TransaksiDetailRequest;
+import com.traitor.ambatushop_10.dto.TransaksiRequest;
+import com.traitor.ambatushop_10.model.Akun;
+import com.traitor.ambatushop_10.model.Produk;
+import com.traitor.ambatushop_10.model.Transaksi;
+import com.traitor.ambatushop_10.repository.AkunRepository;
+import com.traitor.ambatushop_10.repository.ProdukRepository;
+import com.traitor.ambatushop_10.repository.TransaksiRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pembayaran yang masuk setelah transaksi EXPIRED atau setelah reservasi stoknya lepas (webhook settlement
+ * terlambat): stok dikurangi lagi kalau masih cukup; kalau tidak, transaksi tetap PAID tapi ditandai
+ * perluTinjauan dan stok tidak berubah.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class TransaksiServiceTest {
+
+    @Autowired
+    private TransaksiService transaksiService;
+
+    @Autowired
+    private TransaksiRepository transaksiRepository;
+
+    @Autowired
+    private ProdukRepository produkRepository;
+
+    @Autowired
+    private AkunRepository akunRepository;
+
+    @Autowired
+    private StokReservationService stokReservationService;
+
+    private Long akunId;
+
+    @BeforeEach
+    void setUp() {
+        akunId = akunRepository.save(new Akun("kasir_" + System.nanoTime(), "x",
+                System.nanoTime() + "@ambatushop.test", Akun.Role.KASIR)).getIdPegawai();
+    }
+
+    @Test
+    void bayarSetelahExpiredMengurangiStokKalauMasihCukup() {
+        Produk teh = produkRepository.save(new Produk("Teh Botol", 5000.0, (short) 10));
+        Long idTransaksi = pendingTransaksi(teh, 3);
+
+        assertThat(transaksiService.expireIfPending(idTransaksi)).isTrue();
+        Transaksi transaksi = transaksiService.updatePaymentStatus(idTransaksi, Transaksi.PaymentStatus.PAID);
+
+        assertThat(transaksi.getPaymentStatus()).isEqualTo(Transaksi.PaymentStatus.PAID);
+        assertThat(transaksi.isPerluTinjauan()).isFalse();
+        assertThat(stok(teh)).isEqualTo((short) 7);
+    }
+
+    @Test
+    void bayarSetelahExpiredDitandaiKalauStokTidakCukup() {
+        Produk kopi = produkRepository.save(new Produk("Kopi Sachet", 2000.0, (short) 10));
+        Produk roti = produkRepository.save(new Produk("Roti Tawar", 15000.0, (short) 2));
+        Long idTransaksi = pendingTransaksi(kopi, 4, roti, 2);
+
+        assertThat(transaksiService.expireIfPending(idTransaksi)).isTrue();
+        // Setelah reservasi dilepas, roti terjual ke pelanggan lain
+        Produk rotiSekarang = produkRepository.findById(roti.getIdProduk()).orElseThrow();
+        rotiSekarang.setStok((short) 1);
+        produkRepository.save(rotiSekarang);
+
+        Transaksi transaksi = transaksiService.updatePaymentStatus(idTransaksi, Transaksi.PaymentStatus.PAID);
+
+        assertThat(transaksi.getPaymentStatus()).isEqualTo(Transaksi.PaymentStatus.PAID);
+        assertThat(transaksiRepository.findById(idTransaksi).orElseThrow().isPerluTinjauan()).isTrue();
+        // Semua atau tidak sama sekali: kopi yang sempat dikurangi dikembalikan
+        assertThat(stok(kopi)).isEqualTo((short) 10);
+        assertThat(stok(roti)).isEqualTo((short) 1);
+        assertThat(transaksiRepository.countByPerluTinjauanTrue()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void settlementSetelahTtlReservasiTidakGagal() {
+        Produk susu = produkRepository.save(new Produk("Susu UHT", 6000.0, (short) 3));
+        Long idTransaksi = pendingTransaksi(susu, 3);
+
+        // TTL reservasi lewat (releaseExpiredReservations), transaksi masih PENDING, stok terjual ke pelanggan lain
+        assertThat(stokReservationService.release(idTransaksi)).isTrue();
+        Produk susuSekarang = produkRepository.findById(susu.getIdProduk()).orElseThrow();
+        susuSekarang.setStok((short) 1);
+        produkRepository.save(susuSekarang);
+
+        Transaksi transaksi = transaksiService.updatePaymentStatus(idTransaksi, Transaksi.PaymentStatus.PAID);
+
+        assertThat(transaksi.getPaymentStatus()).isEqualTo(Transaksi.PaymentStatus.PAID);
+        assertThat(transaksiRepository.findById(idTransaksi).orElseThrow().isPerluTinjauan()).isTrue();
+        assertThat(stok(susu)).isEqualTo((short) 1);
+    }
+
+    @Test
+    void settlementSetelahTtlReservasiMengurangiStokKalauMasihCukup() {
+        Produk gula = produkRepository.save(new Produk("Gula 1kg", 14000.0, (short) 5));
+        Long idTransaksi = pendingTransaksi(gula, 2);
+        assertThat(stokReservationService.release(idTransaksi)).isTrue();
+
+        Transaksi transaksi = transaksiService.updatePaymentStatus(idTransaksi, Transaksi.PaymentStatus.PAID);
+
+        assertThat(transaksi.isPerluTinjauan()).isFalse();
+        assertThat(stok(gula)).isEqualTo((short) 3);
+    }
+
+    private short stok(Produk produk) {
+        return produkRepository.findById(produk.getIdProduk()).orElseThrow().getStok();
+    }
+
+    private Long pendingTransaksi(Object... produkDanJumlah) {
+        List<TransaksiDetailRequest> details = new ArrayList<>();
+        double total = 0;
+        for (int i = 0; i < produkDanJumlah.length; i += 2) {
+            Produk produk = (Produk) produkDanJumlah[i];
+            int jumlah = (Integer) produkDanJumlah[i + 1];
+            TransaksiDetailRequest detail = new TransaksiDetailRequest();
+            detail.setProdukId(produk.getIdProduk());
+            detail.setJumlah((short) jumlah);
+            detail.setHargaSatuan(produk.getHarga());
+            detail.setSubtotal(produk.getHarga() * jumlah);
+            details.add(detail);
+            total += detail.getSubtotal();
+        }
+
+        TransaksiRequest request = new TransaksiRequest();
+        request.setMetodePembayaran("NON_TUNAI");
+        request.setAkunId(akunId);
+        request.setKasirName("kasir_test");
+        request.setTotal(total);
+        request.setDetails(details);
+        return transaksiService.createTransaksi(request).getIdTransaksi();
+    }
+}
@@ -0,0 +1,84 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.model.Akun;
+import com.traitor.ambatushop_10.repository.AkunRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+/**
+ * Flush heartbeat ke DB: setiap user mendapat waktu heartbeat-nya sendiri (bukan heartbeat terbaru dari
+ * satu batch), juga lewat flushOnShutdown() yang dipanggil tanpa proxy transaksi. Flush yang gagal tidak
+ * boleh ikut menggagalkan cleanupInactiveUsers().
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class UserSessionServiceTest {
+
+    @Autowired
+    private UserSessionService userSessionService;
+
+    @MockitoSpyBean
+    private AkunRepository akunRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void flushMenulisWaktuMasingMasingUser() throws Exception {
+        Long kasirLama = akunRepository.save(new Akun("kasir_lama", "x", "lama@ambatushop.test", Akun.Role.KASIR))
+                .getIdPegawai();
+        Long kasirBaru = akunRepository.save(new Akun("kasir_baru", "x", "baru@ambatushop.test", Akun.Role.KASIR))
+                .getIdPegawai();
+
+        LocalDateTime sebelum = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        userSessionService.updateUserActivity(kasirLama);
+        Thread.sleep(2100);
+        userSessionService.updateUserActivity(kasirBaru);
+
+        userSessionService.flushOnShutdown();
+
+        LocalDateTime waktuLama = akunRepository.findById(kasirLama).orElseThrow().getLastActivityAt();
+        LocalDateTime waktuBaru = akunRepository.findById(kasirBaru).orElseThrow().getLastActivityAt();
+        assertThat(waktuLama).isNotNull().isAfterOrEqualTo(sebelum);
+        assertThat(waktuBaru).isNotNull();
+        assertThat(ChronoUnit.SECONDS.between(waktuLama, waktuBaru)).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void flushGagalTidakMembuatCleanupRollback() {
+        Long kasir = akunRepository.save(new Akun("kasir_flush", "x", "flush@ambatushop.test", Akun.Role.KASIR))
+                .getIdPegawai();
+        userSessionService.updateUserActivity(kasir);
+
+        // Seperti query yang gagal di database: Hibernate menandai transaksinya rollback-only lalu melempar
+        doAnswer(invocation -> {
+            EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory).getTransaction()
+                    .setRollbackOnly();
+            throw new DataAccessResourceFailureException("Koneksi database putus");
+        }).when(akunRepository).updateLastActivity(anyCollection(), any());
+
+        assertThatCode(() -> userSessionService.cleanupInactiveUsers()).doesNotThrowAnyException();
+        assertThat(akunRepository.findById(kasir).orElseThrow().getLastActivityAt()).isNull();
+
+        // Heartbeat yang gagal dikembalikan ke antrian dan masuk di flush berikutnya
+        reset(akunRepository);
+        userSessionService.flushActivity();
+        assertThat(akunRepository.findById(kasir).orElseThrow().getLastActivityAt()).isNotNull();
+    }
+}
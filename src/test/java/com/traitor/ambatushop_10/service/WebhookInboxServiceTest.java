@@ -0,0 +1,45 @@
+package com.traitor.ambatushop_10.service;
+
+import com.traitor.ambatushop_10.repository.WebhookInboxRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Retry Midtrans dengan (order_id, transaction_status) yang sama harus dikenali sebagai DUPLICATE,
+ * dan hanya satu baris inbox yang tersimpan.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class WebhookInboxServiceTest {
+
+    @Autowired
+    private WebhookInboxService webhookInboxService;
+
+    @Autowired
+    private WebhookInboxRepository inboxRepository;
+
+    @Test
+    void notifikasiKeduaDenganStatusSamaAdalahDuplikat() {
+        Map<String, Object> settlement = Map.of(
+                "order_id", "TRX-DUP-1",
+                "transaction_status", "settlement",
+                "fraud_status", "accept");
+
+        assertThat(webhookInboxService.receive(settlement)).isEqualTo(WebhookInboxService.ReceiveResult.STORED);
+        assertThat(webhookInboxService.receive(settlement)).isEqualTo(WebhookInboxService.ReceiveResult.DUPLICATE);
+
+        // Status lain untuk order yang sama tetap disimpan
+        Map<String, Object> pending = Map.of("order_id", "TRX-DUP-1", "transaction_status", "pending");
+        assertThat(webhookInboxService.receive(pending)).isEqualTo(WebhookInboxService.ReceiveResult.STORED);
+
+        assertThat(inboxRepository.findByOrderIdOrderByIdAsc("TRX-DUP-1"))
+                .extracting(event -> event.getTransactionStatus())
+                .containsExactly("settlement", "pending");
+    }
+}
@@ -0,0 +1,110 @@
+package com.traitor.ambatushop_10.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Export lewat XlsxTableWriter tanpa database: baris dibuat satu per satu oleh iterator, hasil dibuang ke
+ * stream penghitung byte. Build biasa cuma menulis 20 ribu baris; tes heap 1 juta baris (System.gc() tiap
+ * 100 ribu baris, heap tidak boleh tumbuh mengikuti jumlah baris) hanya jalan dengan -Dbenchmark=true.
+ */
+class XlsxTableWriterTest {
+
+    private static final int ROWS = 20_000;
+    private static final int HEAP_CHECK_ROWS = 1_000_000;
+    private static final int SAMPLE_EVERY_ROWS = 100_000;
+    // Window SXSSF 500 baris cuma beberapa MB; 1 juta baris di memory jauh di atas ini
+    private static final long MAX_HEAP_GROWTH_BYTES = 64L * 1024 * 1024;
+
+    private record Row(long id, String keterangan, double nominal, LocalDateTime tanggal) {
+    }
+
+    private static final ExportTable<Row> TABLE = new ExportTable<>("Bench", List.of(
+            ExportTable.Column.ofLong("ID", Row::id),
+            ExportTable.Column.ofString("Keterangan", Row::keterangan),
+            ExportTable.Column.ofDouble("Nominal", Row::nominal),
+            ExportTable.Column.ofTimestamp("Tanggal", Row::tanggal)));
+
+    @Test
+    void semuaBarisTertulis() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+
+        long total = new XlsxTableWriter().write(TABLE, syntheticRows(ROWS), out, written -> { });
+
+        assertThat(total).isEqualTo(ROWS);
+        assertThat(out.count).isPositive();
+    }
+
+    @Test
+    @Tag("benchmark")
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void sejutaBarisDenganHeapTerbatas() throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baseline = usedHeapAfterGc(memory);
+        long[] peakGrowth = { 0 };
+        CountingOutputStream out = new CountingOutputStream();
+
+        long total = new XlsxTableWriter().write(TABLE, syntheticRows(HEAP_CHECK_ROWS), out, written -> {
+            if (written % SAMPLE_EVERY_ROWS == 0) {
+                peakGrowth[0] = Math.max(peakGrowth[0], usedHeapAfterGc(memory) - baseline);
+            }
+        });
+
+        System.out.printf("[xlsx] %d baris, %d byte, pertumbuhan heap maks %d KB%n",
+                total, out.count, peakGrowth[0] / 1024);
+        assertThat(total).isEqualTo(HEAP_CHECK_ROWS);
+        assertThat(out.count).isPositive();
+        assertThat(peakGrowth[0]).isLessThan(MAX_HEAP_GROWTH_BYTES);
+    }
+
+    private static Iterator<Row> syntheticRows(int rows) {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+        return new Iterator<>() {
+            private long next = 1;
+
+            @Override
+            public boolean hasNext() {
+                return next <= rows;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long id = next++;
+                return new Row(id, "Penjualan #" + id, 1000.0 + id % 997, start.plusSeconds(id));
+            }
+        };
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}